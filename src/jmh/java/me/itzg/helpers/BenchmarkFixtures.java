@@ -0,0 +1,170 @@
+package me.itzg.helpers;
+
+import io.netty.handler.codec.http.HttpHeaderNames;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import org.jetbrains.annotations.Nullable;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+/**
+ * Generates local fixtures for benchmarks so that results don't depend on network or external services.
+ * Content is generated from a fixed seed so runs are comparable.
+ */
+public class BenchmarkFixtures {
+
+    private static final long SEED = 0x6d63696d67L;
+
+    private BenchmarkFixtures() {
+    }
+
+    /**
+     * Content that compresses similar to a jar: half random, half repetitive
+     */
+    public static byte[] syntheticContent(int size) {
+        final byte[] content = new byte[size];
+        new Random(SEED ^ size).nextBytes(content);
+        for (int i = 0; i < size; i += 2048) {
+            for (int j = i; j < Math.min(i + 1024, size); j++) {
+                content[j] = (byte) ('a' + (j % 26));
+            }
+        }
+        return content;
+    }
+
+    public static Path writeFile(Path dir, String name, int size) throws IOException {
+        return Files.write(dir.resolve(name), syntheticContent(size));
+    }
+
+    /**
+     * Creates a modpack-like zip with entries placed under the given overrides directory, spread across
+     * config, mods, and resource directories.
+     */
+    public static Path createModpackZip(Path dir, String overridesDir, int entryCount, int entrySize) throws IOException {
+        final Path zipFile = dir.resolve("modpack.zip");
+        final String[] subdirs = {"config", "config/nested", "mods", "resourcepacks", "scripts"};
+        final byte[] content = syntheticContent(entrySize);
+        try (ZipOutputStream zipOut = new ZipOutputStream(Files.newOutputStream(zipFile))) {
+            zipOut.putNextEntry(new ZipEntry("manifest.json"));
+            zipOut.write("{}".getBytes(StandardCharsets.UTF_8));
+            zipOut.closeEntry();
+
+            for (int i = 0; i < entryCount; i++) {
+                zipOut.putNextEntry(new ZipEntry(
+                    String.format("%s/%s/file-%04d.dat", overridesDir, subdirs[i % subdirs.length], i)
+                ));
+                // vary content slightly so entries aren't identical
+                content[0] = (byte) i;
+                zipOut.write(content);
+                zipOut.closeEntry();
+            }
+        }
+        return zipFile;
+    }
+
+    /**
+     * @param placeholderEvery every nth line will contain a placeholder
+     */
+    public static String serverProperties(int lines, int placeholderEvery) {
+        final StringBuilder sb = new StringBuilder(lines * 32);
+        sb.append("#Minecraft server properties\n");
+        for (int i = 0; i < lines; i++) {
+            if (i % placeholderEvery == 0) {
+                sb.append("property-").append(i).append("=${CFG_VALUE_").append(i % 50).append("}\n");
+            }
+            else {
+                sb.append("property-").append(i).append("=value-").append(i).append('\n');
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * @param placeholderEvery every nth entry will contain a placeholder
+     */
+    public static String yamlConfig(int entries, int placeholderEvery) {
+        final StringBuilder sb = new StringBuilder(entries * 48);
+        for (int i = 0; i < entries; i++) {
+            if (i % 10 == 0) {
+                sb.append("section-").append(i / 10).append(":\n");
+            }
+            sb.append("  key-").append(i).append(": ");
+            if (i % placeholderEvery == 0) {
+                sb.append("\"${CFG_VALUE_").append(i % 50).append("}\"\n");
+            }
+            else {
+                sb.append("value ").append(i).append('\n');
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Serves the same synthetic jar content at any {@code /files/{name}}, standing in for a CDN
+     */
+    public static DisposableServer startFileServer(int size) {
+        final byte[] content = syntheticContent(size);
+        return HttpServer.create()
+            .host("localhost")
+            .port(0)
+            .route(routes -> routes
+                .get("/files/{name}", (request, response) ->
+                    response
+                        .header(HttpHeaderNames.CONTENT_TYPE, "application/java-archive")
+                        .header(HttpHeaderNames.CONTENT_LENGTH, Integer.toString(content.length))
+                        .sendByteArray(Mono.just(content))
+                )
+            )
+            .bindNow();
+    }
+
+    /**
+     * Launches the tool in a new JVM, as the container start scripts do, using the classpath of this JVM.
+     *
+     * @param input file given as standard input or null for none
+     * @return the exit code of the process
+     */
+    public static int runHelperProcess(Path workDir, List<String> args, @Nullable Path input)
+        throws IOException, InterruptedException {
+        final List<String> command = new ArrayList<>();
+        command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(McImageHelper.class.getName());
+        command.addAll(args);
+
+        final ProcessBuilder processBuilder = new ProcessBuilder(command)
+            .directory(workDir.toFile())
+            .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+            .redirectError(ProcessBuilder.Redirect.DISCARD);
+        if (input != null) {
+            processBuilder.redirectInput(input.toFile());
+        }
+        final Process process = processBuilder.start();
+        if (input == null) {
+            process.getOutputStream().close();
+        }
+        return process.waitFor();
+    }
+
+    public static void deleteRecursively(Path dir) throws IOException {
+        if (!Files.exists(dir)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(dir)) {
+            paths.sorted(Comparator.reverseOrder())
+                .forEach(path -> path.toFile().delete());
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package me.itzg.helpers;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the wall time of a process running one of the small commands that container startup
+ * invokes many times, where startup of the tool rather than the command's work dominates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 2)
+@Measurement(iterations = 10)
+public class StartupBenchmark {
+
+    @Param({"compare-versions", "find", "hash", "set-properties", "version"})
+    String command;
+
+    private Path workDir;
+    private Path input;
+    private List<String> args;
+
+    @Setup
+    public void setup() throws IOException {
+        workDir = Files.createTempDirectory("startup-benchmark");
+        final Path propertiesFile = Files.write(workDir.resolve("server.properties"),
+            BenchmarkFixtures.serverProperties(100, 10).getBytes()
+        );
+        input = null;
+
+        switch (command) {
+            case "compare-versions":
+                args = Arrays.asList("compare-versions", "1.20.4", "lt", "1.21");
+                break;
+            case "find":
+                args = Arrays.asList("find", "--type", "file", "--name", "*.properties", workDir.toString());
+                break;
+            case "hash":
+                args = Collections.singletonList("hash");
+                input = propertiesFile;
+                break;
+            case "set-properties":
+                args = Arrays.asList("set-properties", propertiesFile.toString());
+                break;
+            case "version":
+                args = Collections.singletonList("--version");
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown command " + command);
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        BenchmarkFixtures.deleteRecursively(workDir);
+    }
+
+    @Benchmark
+    public int invoke() throws IOException, InterruptedException {
+        return BenchmarkFixtures.runHelperProcess(workDir, args, input);
+    }
+}
@@ -0,0 +1,88 @@
+package me.itzg.helpers.batch;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import me.itzg.helpers.BenchmarkFixtures;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares running a typical set of container startup invocations as separate processes, as the start
+ * scripts do, against running the same invocations as one batch process.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 1)
+@Measurement(iterations = 5)
+public class BatchStartupBenchmark {
+
+    @Param({"12"})
+    int invocations;
+
+    private Path workDir;
+    private List<List<String>> steps;
+    private Path stepsFile;
+
+    @Setup
+    public void setup() throws IOException {
+        workDir = Files.createTempDirectory("batch-benchmark");
+        final Path propertiesFile = Files.write(workDir.resolve("server.properties"),
+            BenchmarkFixtures.serverProperties(100, 10).getBytes()
+        );
+
+        final List<List<String>> typical = Arrays.asList(
+            Arrays.asList("compare-versions", "1.20.4", "lt", "1.21"),
+            Arrays.asList("set-properties", propertiesFile.toString()),
+            Arrays.asList("find", "--type", "file", "--name", "*.properties", workDir.toString()),
+            Arrays.asList("java-release")
+        );
+        steps = new ArrayList<>();
+        final List<String> lines = new ArrayList<>();
+        for (int i = 0; i < invocations; i++) {
+            final List<String> step = typical.get(i % typical.size());
+            steps.add(step);
+            lines.add(String.join(" ", step));
+        }
+        stepsFile = Files.write(workDir.resolve("steps.txt"), lines);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        BenchmarkFixtures.deleteRecursively(workDir);
+    }
+
+    @Benchmark
+    public int separateProcesses() throws IOException, InterruptedException {
+        int exitCodes = 0;
+        for (final List<String> step : steps) {
+            exitCodes += run(step);
+        }
+        return exitCodes;
+    }
+
+    @Benchmark
+    public int batchProcess() throws IOException, InterruptedException {
+        return run(Arrays.asList("batch", "--continue-on-error", stepsFile.toString()));
+    }
+
+    private int run(List<String> args) throws IOException, InterruptedException {
+        return BenchmarkFixtures.runHelperProcess(workDir, args, null);
+    }
+}
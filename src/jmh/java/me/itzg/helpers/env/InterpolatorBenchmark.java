@@ -0,0 +1,62 @@
+package me.itzg.helpers.env;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import me.itzg.helpers.BenchmarkFixtures;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Interpolation of large config files, as done when copying config and plugin files with placeholders.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+public class InterpolatorBenchmark {
+
+    @Param({"properties", "yaml"})
+    String format;
+
+    @Param({"20000"})
+    int entries;
+
+    @Param({"10"})
+    int placeholderEvery;
+
+    private Interpolator interpolator;
+    private byte[] content;
+
+    @Setup
+    public void setup() {
+        final Map<String, String> env = new HashMap<>();
+        for (int i = 0; i < 50; i++) {
+            env.put("CFG_VALUE_" + i, "interpolated-" + i);
+        }
+        interpolator = new Interpolator(env::get, "CFG_");
+
+        final String text = format.equals("yaml") ?
+            BenchmarkFixtures.yamlConfig(entries, placeholderEvery)
+            : BenchmarkFixtures.serverProperties(entries, placeholderEvery);
+        content = text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public Interpolator.Result<byte[]> interpolate() throws IOException {
+        return interpolator.interpolate(content);
+    }
+}
@@ -0,0 +1,83 @@
+package me.itzg.helpers.files;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import me.itzg.helpers.BenchmarkFixtures;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Compares the bounded elastic scheduler on platform threads against virtual threads, as used by
+ * {@link FileSchedulers#blockingIo()} on Java 21, for many small concurrent file operations like those
+ * of a modpack install: writing, checking, and reading back small files. Reactor reads the property
+ * that selects virtual threads once, so each variant runs in its own fork.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+public class BlockingIoSchedulerBenchmark {
+
+    @Param({"1000"})
+    int files;
+
+    @Param({"4096"})
+    int fileSize;
+
+    private Path dir;
+    private byte[] content;
+
+    @Setup
+    public void setup() throws IOException {
+        dir = Files.createTempDirectory("blocking-io-benchmark");
+        content = BenchmarkFixtures.syntheticContent(fileSize);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        BenchmarkFixtures.deleteRecursively(dir);
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = "-D" + FileSchedulers.VIRTUAL_THREADS_PROPERTY + "=false")
+    public long platformThreads() {
+        return writeCheckAndRead();
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = "-D" + FileSchedulers.VIRTUAL_THREADS_PROPERTY + "=true")
+    public long virtualThreads() {
+        return writeCheckAndRead();
+    }
+
+    private long writeCheckAndRead() {
+        return Flux.range(0, files)
+            .flatMap(i -> Mono.fromCallable(() -> {
+                        final Path file = Files.write(dir.resolve("file-" + i + ".dat"), content);
+                        if (!Files.exists(file)) {
+                            throw new IllegalStateException("Missing " + file);
+                        }
+                        return (long) Files.readAllBytes(file).length;
+                    })
+                    .subscribeOn(FileSchedulers.blockingIo()),
+                files
+            )
+            .reduce(0L, Long::sum)
+            .block();
+    }
+}
@@ -0,0 +1,127 @@
+package me.itzg.helpers.files;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+import me.itzg.helpers.BenchmarkFixtures;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.netty.ByteBufFlux;
+
+/**
+ * Compares {@link ReactiveFileUtils#writeByteBufFluxToFile(ByteBufFlux, Path)} against the previous,
+ * thread per file implementation when several downloads are written concurrently.
+ * <p>
+ * Run with {@code ./gradlew jmh -PjmhIncludes=ByteBufFileWriterBenchmark}
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+public class ByteBufFileWriterBenchmark {
+
+    @Param({"1", "16"})
+    int concurrentFiles;
+
+    @Param({"8388608"})
+    int fileSize;
+
+    /**
+     * Typical size of buffers delivered by reactor-netty
+     */
+    @Param({"16384"})
+    int chunkSize;
+
+    private Path dir;
+    private ByteBuf chunk;
+
+    /**
+     * Reports the peak number of live threads seen during each iteration
+     */
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class ThreadCounters {
+
+        private static final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+
+        public long peakThreads;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            threadMXBean.resetPeakThreadCount();
+            peakThreads = 0;
+        }
+
+        void record() {
+            peakThreads = Math.max(peakThreads, threadMXBean.getPeakThreadCount());
+        }
+    }
+
+    @Setup
+    public void setup() throws IOException {
+        dir = Files.createTempDirectory("bench-writer");
+        chunk = Unpooled.directBuffer(chunkSize).writeZero(chunkSize);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        chunk.release();
+        BenchmarkFixtures.deleteRecursively(dir);
+    }
+
+    @Benchmark
+    public long batchedWriter(ThreadCounters counters) {
+        return writeAll(ReactiveFileUtils::writeByteBufFluxToFile, counters);
+    }
+
+    @Benchmark
+    public long legacyQueueWriter(ThreadCounters counters) {
+        return writeAll(LegacyQueueFileWriter::writeByteBufFluxToFile, counters);
+    }
+
+    private long writeAll(BiFunction<ByteBufFlux, Path, Mono<Long>> writer, ThreadCounters counters) {
+        final Long total = Flux.range(0, concurrentFiles)
+            .flatMap(i -> writer.apply(ByteBufFlux.fromInbound(networkSource()), dir.resolve("file-" + i)),
+                concurrentFiles
+            )
+            .reduce(0L, Long::sum)
+            .block();
+        counters.record();
+        //noinspection DataFlowIssue
+        return total;
+    }
+
+    /**
+     * Simulates buffers arriving from a network event loop. The shared chunk is duplicated rather than
+     * retained, since the writer balances its own retain and release.
+     */
+    private Flux<ByteBuf> networkSource() {
+        return Flux.range(0, fileSize / chunkSize)
+            .map(i -> chunk.duplicate())
+            .publishOn(Schedulers.parallel());
+    }
+}
@@ -0,0 +1,58 @@
+package me.itzg.helpers.files;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import me.itzg.helpers.BenchmarkFixtures;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+public class ChecksumsBenchmark {
+
+    @Param({"MD5", "SHA1", "SHA256", "SHA512"})
+    ChecksumAlgo algo;
+
+    /**
+     * Roughly a large mod jar
+     */
+    @Param({"16777216"})
+    int fileSize;
+
+    private Path dir;
+    private Path file;
+    private String expected;
+
+    @Setup
+    public void setup() throws IOException {
+        dir = Files.createTempDirectory("bench-checksums");
+        file = BenchmarkFixtures.writeFile(dir, "mod.jar", fileSize);
+        expected = Checksums.compute(file, algo);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        BenchmarkFixtures.deleteRecursively(dir);
+    }
+
+    @Benchmark
+    public boolean valid() throws IOException {
+        return Checksums.valid(file, algo, expected);
+    }
+}
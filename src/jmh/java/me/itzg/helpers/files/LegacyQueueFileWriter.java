@@ -0,0 +1,105 @@
+package me.itzg.helpers.files;
+
+import io.netty.buffer.ByteBuf;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedList;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.netty.ByteBufFlux;
+import reactor.util.function.Tuple2;
+
+/**
+ * The previous lock and condition based handoff to a dedicated writer thread per file, retained
+ * as the baseline for {@link ByteBufFileWriterBenchmark}.
+ */
+class LegacyQueueFileWriter {
+
+    static Mono<Long> writeByteBufFluxToFile(ByteBufFlux byteBufFlux, Path file) {
+        final ByteBufQueue byteBufQueue = new ByteBufQueue();
+
+        return Mono.zip(
+                Mono.fromCallable(() -> {
+                        try (FileChannel channel = FileChannel.open(file,
+                            StandardOpenOption.WRITE,
+                            StandardOpenOption.CREATE,
+                            StandardOpenOption.TRUNCATE_EXISTING
+                        )) {
+                            ByteBuf byteBuf;
+                            while ((byteBuf = byteBufQueue.take()) != null) {
+                                try {
+                                    //noinspection ResultOfMethodCallIgnored
+                                    channel.write(byteBuf.nioBuffer());
+                                } finally {
+                                    byteBuf.release();
+                                }
+                            }
+
+                            return file;
+                        }
+                    })
+                    .subscribeOn(Schedulers.boundedElastic()),
+                byteBufFlux
+                    .retain()
+                    .map(byteBuf -> {
+                        final int amount = byteBuf.readableBytes();
+                        byteBufQueue.add(byteBuf);
+                        return amount;
+                    })
+                    .doOnTerminate(byteBufQueue::finish)
+                    .collect(Collectors.<Integer>summingLong(value -> value))
+            )
+            .map(Tuple2::getT2);
+    }
+
+    static class ByteBufQueue {
+
+        final Lock lock = new ReentrantLock();
+        final Condition readyOrFinished = lock.newCondition();
+        final LinkedList<ByteBuf> buffers = new LinkedList<>();
+        boolean finished = false;
+
+        public void add(ByteBuf buf) {
+            lock.lock();
+            try {
+                buffers.add(buf);
+            } finally {
+                readyOrFinished.signal();
+                lock.unlock();
+            }
+        }
+
+        public ByteBuf take() {
+            while (true) {
+                lock.lock();
+
+                try {
+                    if (!buffers.isEmpty()) {
+                        return buffers.removeFirst();
+                    }
+                    else if (finished) {
+                        return null;
+                    }
+                    readyOrFinished.awaitUninterruptibly();
+                } finally {
+                    lock.unlock();
+                }
+            }
+        }
+
+        public void finish() {
+            lock.lock();
+            try {
+                finished = true;
+                readyOrFinished.signal();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
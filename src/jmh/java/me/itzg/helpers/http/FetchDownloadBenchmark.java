@@ -0,0 +1,77 @@
+package me.itzg.helpers.http;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import me.itzg.helpers.BenchmarkFixtures;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import reactor.core.publisher.Flux;
+import reactor.netty.DisposableServer;
+
+/**
+ * Downloads synthetic jars from a local HTTP server through {@link SharedFetch}, which covers
+ * the connection pool, response handling, and file writing.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+public class FetchDownloadBenchmark {
+
+    @Param({"100"})
+    int fileCount;
+
+    @Param({"1048576"})
+    int fileSize;
+
+    @Param({"1", "10"})
+    int concurrency;
+
+    private Path dir;
+    private DisposableServer server;
+    private SharedFetch sharedFetch;
+
+    @Setup
+    public void setup() throws IOException {
+        dir = Files.createTempDirectory("bench-fetch");
+        server = BenchmarkFixtures.startFileServer(fileSize);
+        sharedFetch = Fetch.sharedFetch("benchmark", SharedFetch.Options.builder().build());
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        sharedFetch.close();
+        server.disposeNow();
+        BenchmarkFixtures.deleteRecursively(dir);
+    }
+
+    @Benchmark
+    public List<Path> download() {
+        return Flux.range(0, fileCount)
+            .flatMap(i -> sharedFetch.fetch(URI.create(
+                            String.format("http://localhost:%d/files/mod-%d.jar", server.port(), i)
+                        ))
+                        .toFile(dir.resolve("mod-" + i + ".jar"))
+                        .assemble(),
+                concurrency
+            )
+            .collectList()
+            .block();
+    }
+}
@@ -0,0 +1,77 @@
+package me.itzg.helpers.modrinth;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import me.itzg.helpers.BenchmarkFixtures;
+import me.itzg.helpers.http.SharedFetch;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Extraction of the overrides content of a Modrinth mrpack
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+public class MrpackOverridesBenchmark {
+
+    @Param({"600"})
+    int entryCount;
+
+    @Param({"32768"})
+    int entrySize;
+
+    private Path dir;
+    private Path modpackZip;
+    private Path outputDir;
+
+    @Setup
+    public void setup() throws IOException {
+        dir = Files.createTempDirectory("bench-mrpack");
+        modpackZip = BenchmarkFixtures.createModpackZip(dir, "overrides", entryCount, entrySize);
+    }
+
+    @Setup(Level.Invocation)
+    public void prepareOutput() throws IOException {
+        outputDir = Files.createTempDirectory(dir, "out");
+    }
+
+    @TearDown(Level.Invocation)
+    public void cleanOutput() throws IOException {
+        BenchmarkFixtures.deleteRecursively(outputDir);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        BenchmarkFixtures.deleteRecursively(dir);
+    }
+
+    @Benchmark
+    public List<Path> extractOverrides() {
+        final ModrinthPackInstaller installer = new ModrinthPackInstaller(null, SharedFetch.Options.builder().build(),
+            modpackZip, outputDir, dir.resolve("results.env"), false,
+            new FileInclusionCalculator("", Collections.emptyList(), Collections.emptyList(), null)
+        );
+        return installer.extractOverrides("overrides", "server-overrides")
+            .collect(Collectors.toList());
+    }
+}
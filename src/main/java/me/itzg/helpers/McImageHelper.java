@@ -2,25 +2,22 @@ package me.itzg.helpers;
 
 import ch.qos.logback.classic.Level;
 import ch.qos.logback.classic.Logger;
-import java.io.IOException;
-import java.io.InputStream;
-import java.net.URL;
-import java.util.Enumeration;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.Callable;
-import java.util.jar.Attributes;
-import java.util.jar.Attributes.Name;
-import java.util.jar.Manifest;
 import lombok.Getter;
-import lombok.extern.slf4j.Slf4j;
 import me.itzg.helpers.McImageHelper.ShowAllSubcommandUsage;
 import me.itzg.helpers.assertcmd.AssertCommand;
+import me.itzg.helpers.batch.BatchCommand;
 import me.itzg.helpers.curseforge.CurseForgeFilesCommand;
 import me.itzg.helpers.curseforge.InstallCurseForgeCommand;
 import me.itzg.helpers.errors.ExceptionHandler;
 import me.itzg.helpers.errors.ExitCodeMapper;
 import me.itzg.helpers.fabric.InstallFabricLoaderCommand;
+import me.itzg.helpers.files.FileSchedulers;
 import me.itzg.helpers.files.IniPathCommand;
 import me.itzg.helpers.files.TomlPathCommand;
 import me.itzg.helpers.files.YamlPathCommand;
@@ -29,6 +26,7 @@ import me.itzg.helpers.forge.InstallForgeCommand;
 import me.itzg.helpers.forge.InstallNeoForgeCommand;
 import me.itzg.helpers.get.GetCommand;
 import me.itzg.helpers.github.GithubCommands;
+import me.itzg.helpers.http.FetchMetrics;
 import me.itzg.helpers.modrinth.InstallModrinthModpackCommand;
 import me.itzg.helpers.modrinth.ModrinthCommand;
 import me.itzg.helpers.modrinth.VersionFromModrinthProjectsCommand;
@@ -48,6 +46,7 @@ import me.itzg.helpers.sync.InterpolateCommand;
 import me.itzg.helpers.sync.MulitCopyCommand;
 import me.itzg.helpers.sync.Sync;
 import me.itzg.helpers.sync.SyncAndInterpolate;
+import me.itzg.helpers.trace.Tracer;
 import me.itzg.helpers.users.ManageUsersCommand;
 import me.itzg.helpers.vanilla.InstallVanillaCommand;
 import me.itzg.helpers.vanillatweaks.VanillaTweaksCommand;
@@ -66,49 +65,8 @@ import picocli.CommandLine.Option;
 import picocli.CommandLine.Spec;
 
 @Command(name = "mc-image-helper",
-    versionProvider = McImageHelper.AppVersionProvider.class,
-    subcommands = {
-        Asciify.class,
-        AssertCommand.class,
-        CompareVersionsCommand.class,
-        CurseForgeFilesCommand.class,
-        FindCommand.class,
-        GetCommand.class,
-        GithubCommands.class,
-        HashCommand.class,
-        HasFeatureCommand.class,
-        IniPathCommand.class,
-        InstallCurseForgeCommand.class,
-        InstallFabricLoaderCommand.class,
-        InstallForgeCommand.class,
-        InstallModrinthModpackCommand.class,
-        InstallNeoForgeCommand.class,
-        InstallOciPackCommand.class,
-        InstallPaperCommand.class,
-        InstallPurpurCommand.class,
-        InstallQuiltCommand.class,
-        InstallVanillaCommand.class,
-        InterpolateCommand.class,
-        JavaReleaseCommand.class,
-        ManageUsersCommand.class,
-        MavenDownloadCommand.class,
-        ModrinthCommand.class,
-        MulitCopyCommand.class,
-        NetworkInterfacesCommand.class,
-        PatchCommand.class,
-        ResolveMinecraftVersionCommand.class,
-        SetPropertiesCommand.class,
-        ShowAllSubcommandUsage.class,
-        Sync.class,
-        SyncAndInterpolate.class,
-        TestLoggingCommand.class,
-        TomlPathCommand.class,
-        VanillaTweaksCommand.class,
-        VersionFromModrinthProjectsCommand.class,
-        YamlPathCommand.class
-    }
+    versionProvider = McImageHelper.AppVersionProvider.class
 )
-@Slf4j
 public class McImageHelper {
 
     //language=RegExp
@@ -147,6 +105,8 @@ public class McImageHelper {
             setLevel(true, level);
         }
 
+        private final static String HELPERS_LOGGER = "me.itzg.helpers";
+
         private final static Set<String> LOGGERS_TO_TRACE = Set.of(
             "org.apache.hc.client5.http",
             "reactor.netty.http.client.HttpClient",
@@ -154,7 +114,7 @@ public class McImageHelper {
         );
 
         private static void setLevel(boolean enabled, Level level) {
-            ((Logger) LoggerFactory.getLogger("me.itzg.helpers")).setLevel(
+            ((Logger) LoggerFactory.getLogger(HELPERS_LOGGER)).setLevel(
                 enabled ? level : Level.INFO);
             if (Level.TRACE.isGreaterOrEqual(level)) {
                 LOGGERS_TO_TRACE.forEach(loggerName -> ((Logger) LoggerFactory.getLogger(loggerName)).setLevel(
@@ -165,44 +125,222 @@ public class McImageHelper {
     }
 
 
+    /**
+     * @return the names of the loggers whose level can be set by the logging options
+     */
+    public static Set<String> getLoggersSetByOptions() {
+        final Set<String> names = new HashSet<>(LoggingOptions.LOGGERS_TO_TRACE);
+        names.add(LoggingOptions.HELPERS_LOGGER);
+        return names;
+    }
+
     @Option(names = {"-s", "--silent"}, description = "Don't output logs even if there's an error")
     @Getter
     boolean silent;
 
     @Getter
-    private static String version;
+    private static final String version = loadVersion();
+
+    /**
+     * Names of the subcommands, which are registered by {@link #createCommandLine(McImageHelper, String...)}
+     * rather than the {@link Command} annotation so that only the named subcommand's model is built.
+     */
+    public static final List<String> SUBCOMMAND_NAMES = List.of(
+        "asciify",
+        "assert",
+        "batch",
+        "compare-versions",
+        "curseforge-files",
+        "find",
+        "get",
+        "github",
+        "hash",
+        "has-feature",
+        "ini-path",
+        "install-curseforge",
+        "install-fabric-loader",
+        "install-forge",
+        "install-modrinth-modpack",
+        "install-neoforge",
+        "install-oci-pack",
+        "install-paper",
+        "install-purpur",
+        "install-quilt",
+        "install-vanilla",
+        "interpolate",
+        "java-release",
+        "manage-users",
+        "maven-download",
+        "mcopy",
+        "modrinth",
+        "network-interfaces",
+        "patch",
+        "resolve-minecraft-version",
+        "set-properties",
+        "show-all-subcommand-usage",
+        "sync",
+        "sync-and-interpolate",
+        "test-logging-levels",
+        "toml-path",
+        "vanillatweaks",
+        "version-from-modrinth-projects",
+        "yaml-path"
+    );
 
     public static void main(String[] args) {
-        final McImageHelper rootCommand = new McImageHelper();
+        // read when reactor's schedulers are first used, so this needs to be set before any of that
+        if (System.getProperty(FileSchedulers.VIRTUAL_THREADS_PROPERTY) == null) {
+            System.setProperty(FileSchedulers.VIRTUAL_THREADS_PROPERTY, "true");
+        }
+        System.exit(execute(args));
+    }
+
+    /**
+     * @return the exit code of executing the given arguments with a new root command
+     */
+    public static int execute(String... args) {
         try {
-            version = McImageHelper.loadVersion();
-        } catch (IOException e) {
-            log.error("Failed to load version", e);
-            System.exit(1);
+            return executeStep(args);
+        } finally {
+            // when requested by the subcommand's options
+            Tracer.finish();
+            FetchMetrics.finish();
         }
+    }
 
-        System.exit(
-            new CommandLine(rootCommand)
-                .setExitCodeExceptionMapper(new ExitCodeMapper())
-                .setExecutionExceptionHandler(new ExceptionHandler(rootCommand))
-                .setCaseInsensitiveEnumValuesAllowed(true)
-                .execute(args)
-        );
+    /**
+     * Same as {@link #execute(String...)}, but leaves the trace and fetch metrics to be written by the enclosing
+     * invocation, such as a batch, so that its steps don't overwrite each other's files.
+     * @return the exit code of executing the given arguments with a new root command
+     */
+    public static int executeStep(String... args) {
+        return createCommandLine(new McImageHelper(), args)
+            .execute(args);
     }
 
-    private static String loadVersion() throws IOException {
-        final Enumeration<URL> resources = McImageHelper.class.getClassLoader().getResources("META-INF/MANIFEST.MF");
-        while (resources.hasMoreElements()) {
-            final URL url = resources.nextElement();
-            try (InputStream inputStream = url.openStream()) {
-                final Manifest manifest = new Manifest(inputStream);
-                final Attributes attributes = manifest.getMainAttributes();
-                if ("mc-image-helper".equals(attributes.getValue(Name.IMPLEMENTATION_TITLE))) {
-                    return attributes.getValue(Name.IMPLEMENTATION_VERSION);
-                }
+    /**
+     * Registers only the subcommand named by the given arguments, or all of them when none is named,
+     * such as for usage, since building the model of every subcommand dominates the time of small invocations.
+     *
+     * @param rootCommand a new instance for each execution since picocli populates its options
+     * @param args the arguments that will be executed
+     */
+    public static CommandLine createCommandLine(McImageHelper rootCommand, String... args) {
+        final CommandLine commandLine = new CommandLine(rootCommand);
+
+        final String named = Arrays.stream(args)
+            .filter(SUBCOMMAND_NAMES::contains)
+            .findFirst()
+            .orElse(null);
+        if (named != null && !named.equals("show-all-subcommand-usage")) {
+            commandLine.addSubcommand(named, subcommandClass(named));
+        }
+        else {
+            for (final String name : SUBCOMMAND_NAMES) {
+                commandLine.addSubcommand(name, subcommandClass(name));
             }
         }
-        return "???";
+
+        // settings only propagate to subcommands that are already added
+        return commandLine
+            .setExitCodeExceptionMapper(new ExitCodeMapper())
+            .setExecutionExceptionHandler(new ExceptionHandler(rootCommand))
+            .setCaseInsensitiveEnumValuesAllowed(true);
+    }
+
+    /**
+     * @return the command class of the given subcommand, which is only loaded when resolved here,
+     * or null if there is no such subcommand
+     */
+    public static Class<?> subcommandClass(String name) {
+        switch (name) {
+            case "asciify":
+                return Asciify.class;
+            case "assert":
+                return AssertCommand.class;
+            case "batch":
+                return BatchCommand.class;
+            case "compare-versions":
+                return CompareVersionsCommand.class;
+            case "curseforge-files":
+                return CurseForgeFilesCommand.class;
+            case "find":
+                return FindCommand.class;
+            case "get":
+                return GetCommand.class;
+            case "github":
+                return GithubCommands.class;
+            case "hash":
+                return HashCommand.class;
+            case "has-feature":
+                return HasFeatureCommand.class;
+            case "ini-path":
+                return IniPathCommand.class;
+            case "install-curseforge":
+                return InstallCurseForgeCommand.class;
+            case "install-fabric-loader":
+                return InstallFabricLoaderCommand.class;
+            case "install-forge":
+                return InstallForgeCommand.class;
+            case "install-modrinth-modpack":
+                return InstallModrinthModpackCommand.class;
+            case "install-neoforge":
+                return InstallNeoForgeCommand.class;
+            case "install-oci-pack":
+                return InstallOciPackCommand.class;
+            case "install-paper":
+                return InstallPaperCommand.class;
+            case "install-purpur":
+                return InstallPurpurCommand.class;
+            case "install-quilt":
+                return InstallQuiltCommand.class;
+            case "install-vanilla":
+                return InstallVanillaCommand.class;
+            case "interpolate":
+                return InterpolateCommand.class;
+            case "java-release":
+                return JavaReleaseCommand.class;
+            case "manage-users":
+                return ManageUsersCommand.class;
+            case "maven-download":
+                return MavenDownloadCommand.class;
+            case "mcopy":
+                return MulitCopyCommand.class;
+            case "modrinth":
+                return ModrinthCommand.class;
+            case "network-interfaces":
+                return NetworkInterfacesCommand.class;
+            case "patch":
+                return PatchCommand.class;
+            case "resolve-minecraft-version":
+                return ResolveMinecraftVersionCommand.class;
+            case "set-properties":
+                return SetPropertiesCommand.class;
+            case "show-all-subcommand-usage":
+                return ShowAllSubcommandUsage.class;
+            case "sync":
+                return Sync.class;
+            case "sync-and-interpolate":
+                return SyncAndInterpolate.class;
+            case "test-logging-levels":
+                return TestLoggingCommand.class;
+            case "toml-path":
+                return TomlPathCommand.class;
+            case "vanillatweaks":
+                return VanillaTweaksCommand.class;
+            case "version-from-modrinth-projects":
+                return VersionFromModrinthProjectsCommand.class;
+            case "yaml-path":
+                return YamlPathCommand.class;
+            default:
+                return null;
+        }
+    }
+
+    private static String loadVersion() {
+        // the jar manifest's Implementation-Version, which the class loader already read when defining the package
+        final String implementationVersion = McImageHelper.class.getPackage().getImplementationVersion();
+        return implementationVersion != null ? implementationVersion : "???";
     }
 
     public static class AppVersionProvider implements IVersionProvider {
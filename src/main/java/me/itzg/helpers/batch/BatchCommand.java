@@ -0,0 +1,121 @@
+package me.itzg.helpers.batch;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import me.itzg.helpers.McImageHelper;
+import me.itzg.helpers.errors.InvalidParameterException;
+import me.itzg.helpers.json.ObjectMappers;
+import org.slf4j.LoggerFactory;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.ExitCode;
+import picocli.CommandLine.Option;
+import picocli.CommandLine.Parameters;
+
+@Command(name = "batch",
+    description = "Runs several invocations of this tool within one process, which avoids starting a JVM for each."
+        + " Otherwise, each step sets up as it would when run alone, such as its HTTP client and API caches."
+        + " A trace or metrics file given to the steps covers the whole batch and is written when it ends."
+        + " Steps are given one per line either as shell-like arguments, a JSON array of arguments,"
+        + " or a JSON object with an args array. Blank lines and lines starting with # are skipped."
+        + "%nThe exit code is that of the first failing step or zero when all succeed."
+)
+@Slf4j
+public class BatchCommand implements Callable<Integer> {
+
+    @Parameters(arity = "0..1", paramLabel = "FILE",
+        description = "File containing the steps. Standard input is read when absent or -, in which case"
+            + " steps themselves cannot read standard input."
+    )
+    String stepsFile;
+
+    @Option(names = "--continue-on-error",
+        description = "Run the remaining steps after one fails"
+    )
+    boolean continueOnError;
+
+    @Option(names = "--results-file", paramLabel = "FILE",
+        description = "Write a JSON line with the arguments, exit code, and duration of each step"
+    )
+    Path resultsFile;
+
+    @Value
+    static class StepResult {
+        int step;
+        List<String> args;
+        int exitCode;
+        long durationMs;
+    }
+
+    @Override
+    public Integer call() throws Exception {
+        final List<List<String>> steps = readSteps();
+        if (steps.stream().anyMatch(args -> args.get(0).equals("batch"))) {
+            throw new InvalidParameterException("Batch steps cannot run another batch");
+        }
+        log.debug("Running {} batch steps", steps.size());
+
+        // steps may set logging levels, which shouldn't carry over to later steps
+        final Map<Logger, Level> loggingLevels = new HashMap<>();
+        for (final String loggerName : McImageHelper.getLoggersSetByOptions()) {
+            final Logger logger = (Logger) LoggerFactory.getLogger(loggerName);
+            loggingLevels.put(logger, logger.getLevel());
+        }
+
+        int batchExitCode = ExitCode.OK;
+        try (BufferedWriter resultsWriter = resultsFile != null ?
+            Files.newBufferedWriter(resultsFile, StandardCharsets.UTF_8) : null
+        ) {
+            for (int i = 0; i < steps.size(); i++) {
+                final List<String> args = steps.get(i);
+                final long start = System.nanoTime();
+                final int exitCode = McImageHelper.executeStep(args.toArray(new String[0]));
+                loggingLevels.forEach(Logger::setLevel);
+                final long durationMs = (System.nanoTime() - start) / 1_000_000;
+                log.debug("Batch step {} {} exited with {} after {} ms", i + 1, args, exitCode, durationMs);
+
+                if (resultsWriter != null) {
+                    resultsWriter.write(ObjectMappers.defaultMapper()
+                        .writeValueAsString(new StepResult(i + 1, args, exitCode, durationMs))
+                    );
+                    resultsWriter.newLine();
+                    resultsWriter.flush();
+                }
+
+                if (exitCode != ExitCode.OK) {
+                    if (batchExitCode == ExitCode.OK) {
+                        batchExitCode = exitCode;
+                    }
+                    if (!continueOnError) {
+                        log.warn("Stopping batch since step {} '{}' exited with {}", i + 1, args.get(0), exitCode);
+                        break;
+                    }
+                }
+            }
+        }
+
+        return batchExitCode;
+    }
+
+    private List<List<String>> readSteps() throws IOException {
+        if (stepsFile == null || stepsFile.equals("-")) {
+            return BatchSteps.parse(new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8)));
+        }
+        try (BufferedReader reader = Files.newBufferedReader(Paths.get(stepsFile), StandardCharsets.UTF_8)) {
+            return BatchSteps.parse(reader);
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package me.itzg.helpers.batch;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import me.itzg.helpers.errors.InvalidParameterException;
+import me.itzg.helpers.json.ObjectMappers;
+
+/**
+ * Parses the steps of a batch, one invocation per line. A line can be any of:
+ * <ul>
+ *     <li>a JSON array of arguments, such as {@code ["compare-versions", "1.20", "lt", "1.21"]}</li>
+ *     <li>a JSON object with an {@code args} array</li>
+ *     <li>shell-like arguments, where single and double quotes group words and backslash escapes
+ *     the next character outside of single quotes</li>
+ * </ul>
+ * Blank lines and lines starting with {@code #} are skipped. A leading {@code mc-image-helper} argument is
+ * dropped so that lines can be copied from existing scripts.
+ */
+class BatchSteps {
+
+    static final String PROGRAM_NAME = "mc-image-helper";
+
+    private BatchSteps() {
+    }
+
+    static List<List<String>> parse(BufferedReader reader) throws IOException {
+        final List<List<String>> steps = new ArrayList<>();
+        String line;
+        int lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            ++lineNumber;
+            final String trimmed = line.trim();
+            if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+                continue;
+            }
+
+            final List<String> args;
+            try {
+                args = parseLine(trimmed);
+            } catch (IllegalArgumentException | JsonProcessingException e) {
+                throw new InvalidParameterException(
+                    String.format("Invalid batch step on line %d: %s", lineNumber, e.getMessage()), e);
+            }
+            if (!args.isEmpty() && args.get(0).equals(PROGRAM_NAME)) {
+                args.remove(0);
+            }
+            if (!args.isEmpty()) {
+                steps.add(args);
+            }
+        }
+        return steps;
+    }
+
+    private static List<String> parseLine(String line) throws JsonProcessingException {
+        if (line.startsWith("[")) {
+            return ObjectMappers.defaultMapper().readValue(line, new TypeReference<ArrayList<String>>() {});
+        }
+        else if (line.startsWith("{")) {
+            final JsonNode args = ObjectMappers.defaultMapper().readTree(line).path("args");
+            if (!args.isArray()) {
+                throw new IllegalArgumentException("object is missing an args array");
+            }
+            return ObjectMappers.defaultMapper().convertValue(args, new TypeReference<ArrayList<String>>() {});
+        }
+        else {
+            return tokenize(line);
+        }
+    }
+
+    static List<String> tokenize(String line) {
+        final List<String> args = new ArrayList<>();
+        final StringBuilder current = new StringBuilder();
+        boolean inArg = false;
+        char quote = 0;
+
+        for (int i = 0; i < line.length(); i++) {
+            final char c = line.charAt(i);
+            if (quote == '\'') {
+                if (c == '\'') {
+                    quote = 0;
+                }
+                else {
+                    current.append(c);
+                }
+            }
+            else if (c == '\\') {
+                if (++i >= line.length()) {
+                    throw new IllegalArgumentException("trailing backslash");
+                }
+                current.append(line.charAt(i));
+                inArg = true;
+            }
+            else if (quote == '"') {
+                if (c == '"') {
+                    quote = 0;
+                }
+                else {
+                    current.append(c);
+                }
+            }
+            else if (c == '\'' || c == '"') {
+                quote = c;
+                inArg = true;
+            }
+            else if (Character.isWhitespace(c)) {
+                if (inArg) {
+                    args.add(current.toString());
+                    current.setLength(0);
+                    inArg = false;
+                }
+            }
+            else {
+                current.append(c);
+                inArg = true;
+            }
+        }
+
+        if (quote != 0) {
+            throw new IllegalArgumentException("unterminated quote");
+        }
+        if (inArg) {
+            args.add(current.toString());
+        }
+        return args;
+    }
+}
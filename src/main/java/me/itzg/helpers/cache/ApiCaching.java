@@ -1,11 +1,61 @@
 package me.itzg.helpers.cache;
 
 import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import org.jetbrains.annotations.Blocking;
+import org.jetbrains.annotations.Nullable;
 import reactor.core.publisher.Mono;
 
 public interface ApiCaching extends AutoCloseable {
 
+    /**
+     * @return the implementation selected by {@link CacheArgs#getStore()}
+     */
+    @Blocking
+    static ApiCaching create(Path outputDirectory, String namespace, @Nullable CacheArgs cacheArgs) throws IOException {
+        return create(outputDirectory, namespace, cacheArgs, Collections.emptyMap());
+    }
+
+    /**
+     * @param operationDurations TTLs of specific operations, such as searches that should expire sooner than the
+     *                           default, where TTLs given by {@link CacheArgs#getCacheDurations()} take precedence
+     * @return the implementation selected by {@link CacheArgs#getStore()}
+     */
+    @Blocking
+    static ApiCaching create(Path outputDirectory, String namespace, @Nullable CacheArgs cacheArgs,
+        Map<String, Duration> operationDurations
+    ) throws IOException {
+        if (cacheArgs != null && cacheArgs.getStore() == CacheStore.log) {
+            return new LogApiCaching(outputDirectory, namespace, cacheArgs, operationDurations);
+        }
+        return new ApiCachingImpl(outputDirectory, namespace, cacheArgs, operationDurations);
+    }
+
+    /**
+     * @return the operation durations overlaid with those given by the cache args, if any
+     */
+    static Map<String, Duration> resolveCacheDurations(@Nullable CacheArgs cacheArgs,
+        Map<String, Duration> operationDurations
+    ) {
+        final Map<String, Duration> resolved = new HashMap<>(operationDurations);
+        if (cacheArgs != null && cacheArgs.getCacheDurations() != null) {
+            resolved.putAll(cacheArgs.getCacheDurations());
+        }
+        return resolved;
+    }
+
     <R> Mono<R> cache(String operation, Class<R> returnType, Mono<R> resolver, Object... keys);
 
+    /**
+     * Like {@link #cache(String, Class, Mono, Object...)}, but also retains the response validators
+     * of the cached entry. Once the entry expires, it is revalidated with a conditional request and
+     * a not-modified response renews the entry's TTL rather than re-retrieving the content.
+     */
+    <R> Mono<R> cacheRevalidating(String operation, Class<R> returnType, ConditionalResolver<R> resolver, Object... keys);
+
     void close() throws IOException;
 }
@@ -1,6 +1,7 @@
 package me.itzg.helpers.cache;
 
 import java.io.IOException;
+import me.itzg.helpers.http.ConditionalResponse;
 import reactor.core.publisher.Mono;
 
 public class ApiCachingDisabled implements ApiCaching {
@@ -10,6 +11,14 @@ public class ApiCachingDisabled implements ApiCaching {
         return resolver;
     }
 
+    @Override
+    public <R> Mono<R> cacheRevalidating(String operation, Class<R> returnType, ConditionalResolver<R> resolver,
+        Object... keys
+    ) {
+        return resolver.resolve(null, null)
+            .mapNotNull(ConditionalResponse::getValue);
+    }
+
     @Override
     public void close() throws IOException {
 
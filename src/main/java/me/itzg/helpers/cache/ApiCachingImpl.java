@@ -1,15 +1,19 @@
 package me.itzg.helpers.cache;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.time.Duration;
 import java.time.Instant;
 import java.time.temporal.TemporalAmount;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
@@ -19,17 +23,22 @@ import java.util.stream.Stream;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 import me.itzg.helpers.cache.CacheIndex.CacheEntry;
+import me.itzg.helpers.files.FileSchedulers;
+import me.itzg.helpers.http.ConditionalResponse;
 import me.itzg.helpers.json.ObjectMappers;
 import org.jetbrains.annotations.Blocking;
 import org.jetbrains.annotations.Nullable;
 import reactor.core.publisher.Mono;
-import reactor.core.scheduler.Schedulers;
 
 @Slf4j
 public class ApiCachingImpl implements ApiCaching {
 
-    private static final String CACHE_SUBIDR = ".cache";
+    static final String CACHE_SUBIDR = ".cache";
     private static final String CACHE_INDEX_FILENAME = "cache-index.json";
+    /**
+     * How long an expired entry with response validators is retained for revalidation
+     */
+    static final Duration MAX_REVALIDATION_AGE = Duration.ofDays(30);
     private final ObjectMapper objectMapper;
     private final CacheIndex cacheIndex;
     private final Path cacheNamespaceDir;
@@ -42,10 +51,20 @@ public class ApiCachingImpl implements ApiCaching {
 
     @Blocking
     public ApiCachingImpl(Path outputDirectory, String namespace, @Nullable CacheArgs cacheArgs) throws IOException {
-        if (cacheArgs != null) {
+        this(outputDirectory, namespace, cacheArgs, Collections.emptyMap());
+    }
+
+    /**
+     * @param operationDurations see {@link ApiCaching#create(Path, String, CacheArgs, Map)}
+     */
+    @Blocking
+    public ApiCachingImpl(Path outputDirectory, String namespace, @Nullable CacheArgs cacheArgs,
+        Map<String, Duration> operationDurations
+    ) throws IOException {
+        if (cacheArgs != null && cacheArgs.getDefaultCacheDuration() != null) {
             defaultCacheDuration = cacheArgs.getDefaultCacheDuration();
-            cacheDurations = cacheArgs.getCacheDurations();
         }
+        cacheDurations = ApiCaching.resolveCacheDurations(cacheArgs, operationDurations);
         objectMapper = ObjectMappers.defaultMapper();
         cacheNamespaceDir = outputDirectory.resolve(CACHE_SUBIDR).resolve(namespace);
         cacheIndex = loadCacheIndex();
@@ -54,12 +73,14 @@ public class ApiCachingImpl implements ApiCaching {
 
     private void pruneExpiredEntries() {
         final Instant now = Instant.now();
+        final Instant revalidationCutoff = now.minus(MAX_REVALIDATION_AGE);
 
         cacheIndex.getOperations().forEach((operation, entryMap) -> {
             final Iterator<Map.Entry<String, CacheEntry>> entries = entryMap.entrySet().iterator();
             while (entries.hasNext()) {
                 final CacheEntry entry = entries.next().getValue();
-                if (entry.getExpiresAt().isBefore(now)) {
+                if (entry.getExpiresAt().isBefore(now)
+                    && (!entry.hasValidators() || entry.getExpiresAt().isBefore(revalidationCutoff))) {
                     final Path contentFile = resolveContentFile(operation, entry.getFilename());
                     try {
                         log.trace("Pruning cached content file {}", contentFile);
@@ -123,35 +144,101 @@ public class ApiCachingImpl implements ApiCaching {
 
     @Override
     public <R> Mono<R> cache(String operation, Class<R> returnType, Mono<R> resolver, Object... keys) {
-        final String keysKey = Stream.of(keys)
-            .map(Object::toString)
-            .collect(Collectors.joining(","));
+        final String keysKey = joinKeys(keys);
 
-        return Mono.fromCallable(() -> {
-            synchronized (cacheIndex) {
-                final Map<String, CacheEntry> entryMap = cacheIndex.getOperations().get(operation);
-                if (entryMap != null) {
-                    return entryMap.get(keysKey);
-                }
-                return null;
-            }
-        })
+        return Mono.fromCallable(() -> lookupEntry(operation, keysKey))
+            .filter(entry -> entry.getExpiresAt().isAfter(Instant.now()))
             .flatMap(entry -> loadFromCache(operation, keysKey, entry, returnType))
             .switchIfEmpty(
                 resolver
-                    .flatMap(r -> saveToCache(operation, keysKey, r))
+                    .flatMap(r -> saveToCache(operation, keysKey, r, null, null))
             );
     }
 
-    private <R> Mono<R> saveToCache(String operation, String keys, R value) {
+    @Override
+    public <R> Mono<R> cacheRevalidating(String operation, Class<R> returnType, ConditionalResolver<R> resolver,
+        Object... keys
+    ) {
+        final String keysKey = joinKeys(keys);
+
+        return Mono.fromCallable(() -> lookupEntry(operation, keysKey))
+            .flatMap(entry -> {
+                if (entry.getExpiresAt().isAfter(Instant.now())) {
+                    return loadFromCache(operation, keysKey, entry, returnType);
+                }
+                else if (entry.hasValidators()) {
+                    return resolver.resolve(entry.getEtag(), entry.getLastModified())
+                        .flatMap(resp -> {
+                            if (resp.isNotModified()) {
+                                log.debug("Cached content of {}({}) is not modified, renewing", operation, keysKey);
+                                renewEntry(operation, entry, resp);
+                                return loadFromCache(operation, keysKey, entry, returnType);
+                            }
+                            return saveToCache(operation, keysKey, resp.getValue(), resp.getEtag(), resp.getLastModified());
+                        });
+                }
+                return Mono.empty();
+            })
+            // also covers a not-modified response where the cached content has gone missing
+            .switchIfEmpty(Mono.defer(() ->
+                resolver.resolve(null, null)
+                    .flatMap(resp -> saveToCache(operation, keysKey, resp.getValue(), resp.getEtag(), resp.getLastModified()))
+            ));
+    }
+
+    private static String joinKeys(Object[] keys) {
+        return Stream.of(keys)
+            .map(Object::toString)
+            .collect(Collectors.joining(","));
+    }
+
+    private @Nullable CacheEntry lookupEntry(String operation, String keys) {
+        synchronized (cacheIndex) {
+            final Map<String, CacheEntry> entryMap = cacheIndex.getOperations().get(operation);
+            if (entryMap != null) {
+                return entryMap.get(keys);
+            }
+            return null;
+        }
+    }
+
+    private void renewEntry(String operation, CacheEntry entry, ConditionalResponse<?> resp) {
+        synchronized (cacheIndex) {
+            entry.setExpiresAt(Instant.now().plus(lookupCacheDuration(operation)))
+                .setEtag(resp.getEtag())
+                .setLastModified(resp.getLastModified());
+        }
+    }
+
+    private <R> Mono<R> saveToCache(String operation, String keys, @Nullable R value,
+        @Nullable String etag, @Nullable Instant lastModified
+    ) {
 
         return Mono.fromCallable(() -> {
-                final String filename = UUID.randomUUID() + ".json";
+                if (value == null) {
+                    return null;
+                }
                 try {
-                    final Path contentFile = Files.createDirectories(cacheNamespaceDir.resolve(operation))
-                        .resolve(filename);
+                    final Path operationDir = Files.createDirectories(cacheNamespaceDir.resolve(operation));
+                    // re-use the replaced entry's file, which is renamed over so that a concurrent load
+                    // of it reads either the previous or new content
+                    final CacheEntry existing = lookupEntry(operation, keys);
+                    final String filename = existing != null ? existing.getFilename() : UUID.randomUUID() + ".json";
+                    final Path contentFile = operationDir.resolve(filename);
+                    final Path tempFile = operationDir.resolve(UUID.randomUUID() + ".tmp");
+                    try {
+                        objectMapper.writeValue(tempFile.toFile(), value);
+                        try {
+                            Files.move(tempFile, contentFile,
+                                StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING
+                            );
+                        } catch (AtomicMoveNotSupportedException e) {
+                            Files.move(tempFile, contentFile, StandardCopyOption.REPLACE_EXISTING);
+                        }
+                    } finally {
+                        Files.deleteIfExists(tempFile);
+                    }
 
-                    objectMapper.writeValue(contentFile.toFile(), value);
                     synchronized (cacheIndex) {
                         cacheIndex.getOperations().computeIfAbsent(operation, s -> new HashMap<>())
                             .put(keys, new CacheEntry()
@@ -159,6 +246,8 @@ public class ApiCachingImpl implements ApiCaching {
                                     lookupCacheDuration(operation)
                                 ))
                                 .setFilename(filename)
+                                .setEtag(etag)
+                                .setLastModified(lastModified)
                             );
                     }
 
@@ -170,7 +259,7 @@ public class ApiCachingImpl implements ApiCaching {
                 return value;
 
             })
-            .subscribeOn(Schedulers.boundedElastic());
+            .subscribeOn(FileSchedulers.blockingIo());
     }
 
     private TemporalAmount lookupCacheDuration(String operation) {
@@ -191,7 +280,9 @@ public class ApiCachingImpl implements ApiCaching {
                     return null;
                 }
             })
-            .subscribeOn(Schedulers.boundedElastic());
+            // such as removed by another process after the exists check, which is treated as a miss
+            .onErrorResume(FileNotFoundException.class, e -> Mono.empty())
+            .subscribeOn(FileSchedulers.blockingIo());
     }
 
     @Override
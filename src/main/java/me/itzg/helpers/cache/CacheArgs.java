@@ -16,4 +16,10 @@ public class CacheArgs {
         description = "Set default/fallback TTL in ISO-8601 duration format.\nDefault: ${DEFAULT-VALUE}"
     )
     Duration defaultCacheDuration;
+
+    @Option(names = "--api-cache-store", defaultValue = "${env:API_CACHE_STORE:-files}", paramLabel = "STORE",
+        description = "Storage of cached API responses: ${COMPLETION-CANDIDATES}. The log store keeps all responses"
+            + " in a single append-only file.%nEnv: API_CACHE_STORE%nDefault: ${DEFAULT-VALUE}"
+    )
+    CacheStore store = CacheStore.files;
 }
@@ -1,5 +1,6 @@
 package me.itzg.helpers.cache;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import java.time.Instant;
 import java.util.HashMap;
 import java.util.Map;
@@ -13,5 +14,18 @@ public class CacheIndex {
     public static class CacheEntry {
         private String filename;
         private Instant expiresAt;
+        /**
+         * Response validator for revalidating an expired entry, may be null
+         */
+        private String etag;
+        /**
+         * Response validator for revalidating an expired entry, may be null
+         */
+        private Instant lastModified;
+
+        @JsonIgnore
+        public boolean hasValidators() {
+            return etag != null || lastModified != null;
+        }
     }
 }
@@ -0,0 +1,12 @@
+package me.itzg.helpers.cache;
+
+public enum CacheStore {
+    /**
+     * A JSON index with a file per cached response
+     */
+    files,
+    /**
+     * A single append-only log file, see {@link LogApiCaching}
+     */
+    log
+}
@@ -0,0 +1,20 @@
+package me.itzg.helpers.cache;
+
+import java.time.Instant;
+import me.itzg.helpers.http.ConditionalResponse;
+import org.jetbrains.annotations.Nullable;
+import reactor.core.publisher.Mono;
+
+/**
+ * Resolves a value with a conditional request, typically via
+ * {@link me.itzg.helpers.http.ObjectFetchBuilder#assembleConditional(String, Instant)}
+ */
+@FunctionalInterface
+public interface ConditionalResolver<R> {
+
+    /**
+     * @param etag the validator of the expired cache entry or null to request unconditionally
+     * @param lastModified the validator of the expired cache entry or null to request unconditionally
+     */
+    Mono<ConditionalResponse<R>> resolve(@Nullable String etag, @Nullable Instant lastModified);
+}
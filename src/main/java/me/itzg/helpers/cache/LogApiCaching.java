@@ -0,0 +1,480 @@
+package me.itzg.helpers.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import me.itzg.helpers.files.FileSchedulers;
+import me.itzg.helpers.http.ConditionalResponse;
+import me.itzg.helpers.json.ObjectMappers;
+import org.jetbrains.annotations.Blocking;
+import org.jetbrains.annotations.Nullable;
+import reactor.core.publisher.Mono;
+
+/**
+ * Stores cached API responses in a single, append-only log file with an in-memory index of the latest
+ * record of each operation and keys.
+ * <p>
+ * The log starts with the magic bytes {@code MCAL} and an int format version. A log of another version, or
+ * from before the version was recorded, is discarded on open rather than misread.
+ * Each record is written as
+ * <pre>
+ * int    payload length
+ * int    CRC-32 of payload
+ * payload:
+ *   long   expires at, epoch millis
+ *   UTF    operation
+ *   UTF    keys
+ *   UTF    ETag or empty
+ *   long   Last-Modified, epoch millis, or 0
+ *   int    content length
+ *   byte[] content as JSON
+ * </pre>
+ * On open, the log is scanned to rebuild the index and is truncated at the first incomplete or corrupt
+ * record, such as one left by a crash mid-write. Lookups only consult the concurrent index and use
+ * positional reads, so they don't lock. Appends are serialized. Expired records that have response
+ * validators are retained for revalidation; renewing one appends a copy with the new expiry. When closed,
+ * the log is compacted if expired or superseded records make up most of it.
+ * </p>
+ */
+@Slf4j
+public class LogApiCaching implements ApiCaching {
+
+    static final String LOG_FILENAME = "cache.log";
+    private static final String COMPACT_SUFFIX = ".compact";
+    private static final int MAGIC = 0x4D43414C; // MCAL
+    /**
+     * Version 2 added the ETag and Last-Modified validators to records
+     */
+    static final int FORMAT_VERSION = 2;
+    static final int FILE_HEADER_SIZE = Integer.BYTES * 2;
+    private static final int HEADER_SIZE = Integer.BYTES * 2;
+    /**
+     * Avoids compacting small logs where the savings are negligible
+     */
+    private static final long MIN_COMPACT_SIZE = 1024 * 1024;
+    private static final double COMPACT_DEAD_RATIO = 0.5;
+
+    private final ObjectMapper objectMapper;
+    private final Path logFile;
+    private final FileChannel channel;
+    private final Map<String, IndexEntry> index = new ConcurrentHashMap<>();
+    private final Object appendLock = new Object();
+    private final Duration defaultCacheDuration;
+    private final Map<String, Duration> cacheDurations;
+
+    /**
+     * Guarded by appendLock
+     */
+    private long size;
+
+    @RequiredArgsConstructor
+    static class IndexEntry {
+
+        /**
+         * Position of the record header
+         */
+        final long position;
+        /**
+         * Total size of the record including header
+         */
+        final int recordSize;
+        final long contentPosition;
+        final int contentLength;
+        final long expiresAt;
+        @Nullable
+        final String etag;
+        /**
+         * Epoch millis or 0 if none
+         */
+        final long lastModified;
+
+        boolean hasValidators() {
+            return etag != null || lastModified != 0;
+        }
+
+        /**
+         * @return true if the record is either fresh or can still be revalidated
+         */
+        boolean isRetained(long now) {
+            return expiresAt > now
+                || (hasValidators() && expiresAt + ApiCachingImpl.MAX_REVALIDATION_AGE.toMillis() > now);
+        }
+    }
+
+    @Blocking
+    public LogApiCaching(Path outputDirectory, String namespace, @Nullable CacheArgs cacheArgs) throws IOException {
+        this(outputDirectory, namespace, cacheArgs, Collections.emptyMap());
+    }
+
+    /**
+     * @param operationDurations see {@link ApiCaching#create(Path, String, CacheArgs, Map)}
+     */
+    @Blocking
+    public LogApiCaching(Path outputDirectory, String namespace, @Nullable CacheArgs cacheArgs,
+        Map<String, Duration> operationDurations
+    ) throws IOException {
+        defaultCacheDuration = cacheArgs != null && cacheArgs.getDefaultCacheDuration() != null ?
+            cacheArgs.getDefaultCacheDuration() : Duration.ofHours(48);
+        cacheDurations = ApiCaching.resolveCacheDurations(cacheArgs, operationDurations);
+        objectMapper = ObjectMappers.defaultMapper();
+
+        final Path namespaceDir = Files.createDirectories(
+            outputDirectory.resolve(ApiCachingImpl.CACHE_SUBIDR).resolve(namespace)
+        );
+        logFile = namespaceDir.resolve(LOG_FILENAME);
+        channel = FileChannel.open(logFile, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        size = recover();
+    }
+
+    /**
+     * @return the size of the valid portion of the log
+     */
+    private long recover() throws IOException {
+        if (!hasCurrentFileHeader()) {
+            if (channel.size() > 0) {
+                log.info("Discarding API cache log {} since it is from another version", logFile);
+            }
+            channel.truncate(0);
+            writeFully(channel, fileHeader(), 0);
+        }
+
+        final long now = System.currentTimeMillis();
+        final long fileSize = channel.size();
+        final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        long position = FILE_HEADER_SIZE;
+        int expired = 0;
+
+        while (position + HEADER_SIZE <= fileSize) {
+            header.clear();
+            readFully(header, position);
+            header.flip();
+            final int payloadLength = header.getInt();
+            final int crc = header.getInt();
+            if (payloadLength <= 0 || position + HEADER_SIZE + payloadLength > fileSize) {
+                break;
+            }
+
+            final ByteBuffer payload = ByteBuffer.allocate(payloadLength);
+            readFully(payload, position + HEADER_SIZE);
+            payload.flip();
+            if (crc(payload.array(), payloadLength) != crc) {
+                break;
+            }
+
+            final long expiresAt = payload.getLong();
+            final String operation = readUtf(payload);
+            final String keys = readUtf(payload);
+            final String etag = readUtf(payload);
+            final long lastModified = payload.getLong();
+            final int contentLength = payload.getInt();
+            final long contentPosition = position + HEADER_SIZE + payload.position();
+
+            final String indexKey = indexKey(operation, keys);
+            final IndexEntry entry = new IndexEntry(position, HEADER_SIZE + payloadLength,
+                contentPosition, contentLength, expiresAt, etag.isEmpty() ? null : etag, lastModified
+            );
+            if (entry.isRetained(now)) {
+                index.put(indexKey, entry);
+            }
+            else {
+                // also drops an older, unexpired record for the same key since the latest one wins
+                index.remove(indexKey);
+                ++expired;
+            }
+            position += HEADER_SIZE + payloadLength;
+        }
+
+        if (position < fileSize) {
+            log.warn("Truncating API cache log {} at {} of {} bytes due to incomplete record", logFile, position, fileSize);
+            channel.truncate(position);
+        }
+        log.debug("Loaded {} API cache entries from {}, expired={}", index.size(), logFile, expired);
+        return position;
+    }
+
+    private boolean hasCurrentFileHeader() throws IOException {
+        if (channel.size() < FILE_HEADER_SIZE) {
+            return false;
+        }
+        final ByteBuffer fileHeader = ByteBuffer.allocate(FILE_HEADER_SIZE);
+        readFully(fileHeader, 0);
+        fileHeader.flip();
+        return fileHeader.getInt() == MAGIC && fileHeader.getInt() == FORMAT_VERSION;
+    }
+
+    private static ByteBuffer fileHeader() {
+        final ByteBuffer fileHeader = ByteBuffer.allocate(FILE_HEADER_SIZE);
+        fileHeader.putInt(MAGIC);
+        fileHeader.putInt(FORMAT_VERSION);
+        fileHeader.flip();
+        return fileHeader;
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, position + buffer.position());
+        }
+    }
+
+    @Override
+    public <R> Mono<R> cache(String operation, Class<R> returnType, Mono<R> resolver, Object... keys) {
+        final String keysKey = joinKeys(keys);
+        final String indexKey = indexKey(operation, keysKey);
+
+        return Mono.fromCallable(() -> index.get(indexKey))
+            .filter(entry -> entry.expiresAt > System.currentTimeMillis())
+            .flatMap(entry -> loadFromCache(operation, keysKey, entry, returnType))
+            .switchIfEmpty(
+                resolver
+                    .flatMap(r -> saveToCache(operation, keysKey, indexKey, r, null, null))
+            );
+    }
+
+    @Override
+    public <R> Mono<R> cacheRevalidating(String operation, Class<R> returnType, ConditionalResolver<R> resolver,
+        Object... keys
+    ) {
+        final String keysKey = joinKeys(keys);
+        final String indexKey = indexKey(operation, keysKey);
+
+        return Mono.fromCallable(() -> index.get(indexKey))
+            .flatMap(entry -> {
+                if (entry.expiresAt > System.currentTimeMillis()) {
+                    return loadFromCache(operation, keysKey, entry, returnType);
+                }
+                else if (entry.hasValidators()) {
+                    return resolver.resolve(entry.etag, entry.lastModified != 0 ? Instant.ofEpochMilli(entry.lastModified) : null)
+                        .flatMap(resp -> {
+                            if (resp.isNotModified()) {
+                                log.debug("Cached content of {}({}) is not modified, renewing", operation, keysKey);
+                                return renewEntry(operation, keysKey, indexKey, entry, resp, returnType);
+                            }
+                            return saveToCache(operation, keysKey, indexKey, resp.getValue(),
+                                resp.getEtag(), resp.getLastModified()
+                            );
+                        });
+                }
+                return Mono.empty();
+            })
+            // also covers a not-modified response where the cached content could not be read
+            .switchIfEmpty(Mono.defer(() ->
+                resolver.resolve(null, null)
+                    .flatMap(resp -> saveToCache(operation, keysKey, indexKey, resp.getValue(),
+                        resp.getEtag(), resp.getLastModified()
+                    ))
+            ));
+    }
+
+    private <R> Mono<R> loadFromCache(String operation, String keys, IndexEntry entry, Class<R> returnType) {
+        return Mono.fromCallable(() -> {
+                log.debug("Loading cached content of {}({}) from log", operation, keys);
+                return objectMapper.readValue(readContent(entry), returnType);
+            })
+            .onErrorResume(IOException.class, e -> {
+                log.warn("Failed to load cached content of {}({})", operation, keys, e);
+                return Mono.empty();
+            })
+            .subscribeOn(FileSchedulers.blockingIo());
+    }
+
+    /**
+     * Appends a copy of the entry's content with a renewed expiry and the latest validators
+     */
+    private <R> Mono<R> renewEntry(String operation, String keys, String indexKey, IndexEntry entry,
+        ConditionalResponse<R> resp, Class<R> returnType
+    ) {
+        return Mono.fromCallable(() -> {
+                final byte[] content = readContent(entry);
+                final R value = objectMapper.readValue(content, returnType);
+                try {
+                    append(operation, keys, indexKey, content, resp.getEtag(), resp.getLastModified());
+                } catch (IOException e) {
+                    log.warn("Failed to renew cached content for operation={} keys={}", operation, keys, e);
+                }
+                return value;
+            })
+            .onErrorResume(IOException.class, e -> {
+                log.warn("Failed to load cached content of {}({})", operation, keys, e);
+                return Mono.empty();
+            })
+            .subscribeOn(FileSchedulers.blockingIo());
+    }
+
+    private <R> Mono<R> saveToCache(String operation, String keys, String indexKey, @Nullable R value,
+        @Nullable String etag, @Nullable Instant lastModified
+    ) {
+        return Mono.fromCallable(() -> {
+                if (value == null) {
+                    return null;
+                }
+                try {
+                    append(operation, keys, indexKey, objectMapper.writeValueAsBytes(value), etag, lastModified);
+                    log.trace("Saved cache content of {}({}) to log", operation, keys);
+                } catch (IOException e) {
+                    log.warn("Failed to cache content for operation={} keys={}", operation, keys, e);
+                }
+                return value;
+            })
+            .subscribeOn(FileSchedulers.blockingIo());
+    }
+
+    private byte[] readContent(IndexEntry entry) throws IOException {
+        final ByteBuffer content = ByteBuffer.allocate(entry.contentLength);
+        readFully(content, entry.contentPosition);
+        return content.array();
+    }
+
+    private void append(String operation, String keys, String indexKey, byte[] content,
+        @Nullable String etag, @Nullable Instant lastModified
+    ) throws IOException {
+        final long expiresAt = Instant.now().plus(lookupCacheDuration(operation)).toEpochMilli();
+        final long lastModifiedMillis = lastModified != null ? lastModified.toEpochMilli() : 0;
+
+        final ByteArrayOutputStream payloadBytes = new ByteArrayOutputStream(content.length + 128);
+        final DataOutputStream payloadOut = new DataOutputStream(payloadBytes);
+        payloadOut.writeLong(expiresAt);
+        payloadOut.writeUTF(operation);
+        payloadOut.writeUTF(keys);
+        payloadOut.writeUTF(etag != null ? etag : "");
+        payloadOut.writeLong(lastModifiedMillis);
+        payloadOut.writeInt(content.length);
+        final int contentOffset = payloadOut.size();
+        payloadOut.write(content);
+        payloadOut.flush();
+        final byte[] payload = payloadBytes.toByteArray();
+
+        final ByteBuffer record = ByteBuffer.allocate(HEADER_SIZE + payload.length);
+        record.putInt(payload.length);
+        record.putInt(crc(payload, payload.length));
+        record.put(payload);
+        record.flip();
+
+        synchronized (appendLock) {
+            final long position = size;
+            writeFully(channel, record, position);
+            size += record.limit();
+            index.put(indexKey, new IndexEntry(position, record.limit(),
+                position + HEADER_SIZE + contentOffset, content.length, expiresAt, etag, lastModifiedMillis
+            ));
+        }
+    }
+
+    private Duration lookupCacheDuration(String operation) {
+        return cacheDurations.getOrDefault(operation, defaultCacheDuration);
+    }
+
+    @Override
+    @Blocking
+    public void close() throws IOException {
+        synchronized (appendLock) {
+            try {
+                if (shouldCompact()) {
+                    compact();
+                }
+                else {
+                    channel.force(false);
+                }
+            } finally {
+                channel.close();
+            }
+        }
+    }
+
+    private boolean shouldCompact() {
+        if (size < MIN_COMPACT_SIZE) {
+            return false;
+        }
+        final long now = System.currentTimeMillis();
+        final long live = index.values().stream()
+            .filter(entry -> entry.isRetained(now))
+            .mapToLong(entry -> entry.recordSize)
+            .sum();
+        return (size - live) > size * COMPACT_DEAD_RATIO;
+    }
+
+    /**
+     * Copies the live records to a new log, which replaces the current one by atomic rename
+     */
+    private void compact() throws IOException {
+        final long now = System.currentTimeMillis();
+        final Path compactFile = logFile.resolveSibling(LOG_FILENAME + COMPACT_SUFFIX);
+        long written = FILE_HEADER_SIZE;
+        try (FileChannel out = FileChannel.open(compactFile,
+            StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING
+        )) {
+            // relative write so that the transfers follow it
+            final ByteBuffer fileHeader = fileHeader();
+            while (fileHeader.hasRemaining()) {
+                out.write(fileHeader);
+            }
+            for (final IndexEntry entry : index.values()) {
+                if (entry.isRetained(now)) {
+                    written += channel.transferTo(entry.position, entry.recordSize, out);
+                }
+            }
+            out.force(false);
+        }
+
+        try {
+            Files.move(compactFile, logFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(compactFile, logFile, StandardCopyOption.REPLACE_EXISTING);
+        }
+        log.debug("Compacted API cache log {} from {} to {} bytes", logFile, size, written);
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            final int read = channel.read(buffer, position + buffer.position());
+            if (read < 0) {
+                throw new IOException("Unexpected end of API cache log " + logFile);
+            }
+        }
+    }
+
+    private static String joinKeys(Object[] keys) {
+        return Stream.of(keys)
+            .map(Object::toString)
+            .collect(Collectors.joining(","));
+    }
+
+    private static String indexKey(String operation, String keys) {
+        return operation + '\0' + keys;
+    }
+
+    private static int crc(byte[] bytes, int length) {
+        final CRC32 crc32 = new CRC32();
+        crc32.update(bytes, 0, length);
+        return (int) crc32.getValue();
+    }
+
+    /**
+     * Reads a string written by {@link DataOutputStream#writeUTF(String)}, which is standard UTF-8
+     * for the operation names and keys used here
+     */
+    private static String readUtf(ByteBuffer buffer) {
+        final int length = buffer.getShort() & 0xFFFF;
+        final String value = new String(buffer.array(), buffer.position(), length, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+}
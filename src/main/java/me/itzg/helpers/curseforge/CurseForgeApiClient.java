@@ -8,10 +8,15 @@ import java.net.URI;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import lombok.extern.slf4j.Slf4j;
 import me.itzg.helpers.cache.ApiCaching;
@@ -19,25 +24,34 @@ import me.itzg.helpers.curseforge.model.Category;
 import me.itzg.helpers.curseforge.model.CurseForgeFile;
 import me.itzg.helpers.curseforge.model.CurseForgeMod;
 import me.itzg.helpers.curseforge.model.CurseForgeResponse;
+import me.itzg.helpers.curseforge.model.FileHash;
+import me.itzg.helpers.curseforge.model.FingerprintMatch;
 import me.itzg.helpers.curseforge.model.GetCategoriesResponse;
+import me.itzg.helpers.curseforge.model.GetFingerprintMatchesRequestBody;
+import me.itzg.helpers.curseforge.model.GetFingerprintMatchesResponse;
 import me.itzg.helpers.curseforge.model.GetModFileResponse;
+import me.itzg.helpers.curseforge.model.GetModFilesRequestBody;
 import me.itzg.helpers.curseforge.model.GetModFilesResponse;
 import me.itzg.helpers.curseforge.model.GetModResponse;
+import me.itzg.helpers.curseforge.model.GetModsByIdsListRequestBody;
+import me.itzg.helpers.curseforge.model.GetModsResponse;
 import me.itzg.helpers.curseforge.model.ModsSearchResponse;
 import me.itzg.helpers.errors.GenericException;
 import me.itzg.helpers.errors.InvalidApiKeyException;
 import me.itzg.helpers.errors.RateLimitException;
+import me.itzg.helpers.files.FileSchedulers;
 import me.itzg.helpers.http.FailedRequestException;
 import me.itzg.helpers.http.Fetch;
 import me.itzg.helpers.http.FileDownloadStatusHandler;
 import me.itzg.helpers.http.SharedFetch;
 import me.itzg.helpers.http.SharedFetch.Options;
+import me.itzg.helpers.http.SpecificFileFetchBuilder;
 import me.itzg.helpers.http.UriBuilder;
 import me.itzg.helpers.json.ObjectMappers;
 import org.jetbrains.annotations.VisibleForTesting;
 import org.slf4j.Logger;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
-import reactor.core.scheduler.Schedulers;
 
 /**
  * Implements parts of the <a href="https://docs.curseforge.com/rest-api">CurseForge REST API</a>
@@ -59,6 +73,13 @@ public class CurseForgeApiClient implements AutoCloseable {
     static final String MINECRAFT_GAME_ID = "432";
 
     public static final String OP_SEARCH_MOD_WITH_GAME_ID_SLUG_CLASS_ID = "searchModWithGameIdSlugClassId";
+    public static final String OP_GET_MOD_INFO = "getModInfo";
+    public static final String OP_GET_MOD_FILE_INFO = "getModFileInfo";
+    /**
+     * Keeps bulk request bodies and responses reasonably sized
+     */
+    static final int BULK_REQUEST_CHUNK_SIZE = 500;
+    private static final int BULK_REQUEST_CONCURRENCY = 2;
     private static final Map<String, Duration> CACHE_DURATIONS = new HashMap<>();
     static {
         CACHE_DURATIONS.put(OP_SEARCH_MOD_WITH_GAME_ID_SLUG_CLASS_ID, Duration.ofHours(1));
@@ -104,6 +125,9 @@ public class CurseForgeApiClient implements AutoCloseable {
                 case DOWNLOADED:
                     log.info("Downloaded mod file {}", outputDir.relativize(f));
                     break;
+                case RETRIEVED_FROM_STORE:
+                    log.info("Retrieved mod file {} from download store", outputDir.relativize(f));
+                    break;
             }
         };
     }
@@ -225,15 +249,15 @@ public class CurseForgeApiClient implements AutoCloseable {
     ) {
         log.debug("Getting mod metadata for {}", projectID);
 
-        return apiCaching.cache("getModInfo", CurseForgeMod.class,
-            preparedFetch.fetch(
+        return apiCaching.cacheRevalidating(OP_GET_MOD_INFO, CurseForgeMod.class,
+            (etag, lastModified) -> preparedFetch.fetch(
                     uriBuilder.resolve("/v1/mods/{modId}", projectID)
                 )
                 .toObject(GetModResponse.class)
-                .assemble()
+                .assembleConditional(etag, lastModified)
                 .onErrorMap(FailedRequestException::isForbidden, this::errorMapForbidden)
                 .checkpoint("Getting mod info for " + projectID)
-                .map(GetModResponse::getData),
+                .map(resp -> resp.map(GetModResponse::getData)),
             projectID
         );
     }
@@ -243,12 +267,12 @@ public class CurseForgeApiClient implements AutoCloseable {
     ) {
         log.debug("Getting mod file metadata for {}:{}", projectID, fileID);
 
-        return apiCaching.cache("getModFileInfo", CurseForgeFile.class,
-            preparedFetch.fetch(
+        return apiCaching.cacheRevalidating(OP_GET_MOD_FILE_INFO, CurseForgeFile.class,
+            (etag, lastModified) -> preparedFetch.fetch(
                     uriBuilder.resolve("/v1/mods/{modId}/files/{fileId}", projectID, fileID)
                 )
                 .toObject(GetModFileResponse.class)
-                .assemble()
+                .assembleConditional(etag, lastModified)
                 .onErrorMap(FailedRequestException.class::isInstance, e -> {
                     final FailedRequestException fre = (FailedRequestException) e;
                     if (fre.getStatusCode() == 400) {
@@ -262,22 +286,130 @@ public class CurseForgeApiClient implements AutoCloseable {
                     return e;
                 })
                 .onErrorMap(FailedRequestException::isForbidden, this::errorMapForbidden)
-                .map(GetModFileResponse::getData)
+                .map(resp -> resp.map(GetModFileResponse::getData))
                 .checkpoint(),
             projectID, fileID
         );
     }
 
+    /**
+     * Resolves the mod metadata of all the given projects using the bulk endpoint, where any already
+     * cached entries are used and newly retrieved ones populate the same cache entries as {@link #getModInfo(int)}.
+     *
+     * @return mapping of project ID to mod info. Projects unknown to CurseForge are absent.
+     */
+    public Mono<Map<Integer, CurseForgeMod>> getModInfos(Collection<Integer> projectIDs) {
+        return resolveInBulk(projectIDs, OP_GET_MOD_INFO, CurseForgeMod.class,
+            chunk -> preparedFetch.fetch(uriBuilder.resolve("/v1/mods"))
+                .sendJson(new GetModsByIdsListRequestBody()
+                    .setModIds(chunk)
+                    .setFilterPcOnly(true)
+                )
+                .toObject(GetModsResponse.class)
+                .assemble()
+                .map(GetModsResponse::getData),
+            CurseForgeMod::getId,
+            projectID -> new Object[]{projectID}
+        );
+    }
+
+    /**
+     * Resolves the metadata of all the given files using the bulk endpoint, where any already
+     * cached entries are used and newly retrieved ones populate the same cache entries as
+     * {@link #getModFileInfo(int, int)}.
+     *
+     * @param fileRefs file IDs mapped to their project IDs since both are used for cache keys
+     * @return mapping of file ID to file info. Files unknown to CurseForge are absent.
+     */
+    public Mono<Map<Integer, CurseForgeFile>> getModFileInfos(Map<Integer/*fileID*/, Integer/*projectID*/> fileRefs) {
+        return resolveInBulk(fileRefs.keySet(), OP_GET_MOD_FILE_INFO, CurseForgeFile.class,
+            chunk -> preparedFetch.fetch(uriBuilder.resolve("/v1/mods/files"))
+                .sendJson(new GetModFilesRequestBody()
+                    .setFileIds(chunk)
+                )
+                .toObject(GetModFilesResponse.class)
+                .assemble()
+                .map(GetModFilesResponse::getData),
+            CurseForgeFile::getId,
+            fileID -> new Object[]{fileRefs.get(fileID), fileID}
+        );
+    }
+
+    private <T> Mono<Map<Integer, T>> resolveInBulk(Collection<Integer> ids, String operation, Class<T> type,
+        Function<List<Integer>, Mono<List<T>>> bulkRetriever,
+        Function<T, Integer> idExtractor,
+        Function<Integer, Object[]> cacheKeys
+    ) {
+        final Map<Integer, T> results = new ConcurrentHashMap<>();
+
+        return Flux.fromIterable(new LinkedHashSet<>(ids))
+            // ...keep only those not already cached, where an empty resolver only consults existing cache entries
+            .filterWhen(id -> apiCaching.cache(operation, type, Mono.<T>empty(), cacheKeys.apply(id))
+                .doOnNext(value -> results.put(id, value))
+                .map(value -> false)
+                .defaultIfEmpty(true)
+            )
+            .buffer(BULK_REQUEST_CHUNK_SIZE)
+            .doOnNext(chunk -> log.debug("Bulk retrieving {} entries for {}", chunk.size(), operation))
+            .flatMap(bulkRetriever, BULK_REQUEST_CONCURRENCY)
+            .flatMapIterable(values -> values != null ? values : Collections.emptyList())
+            .flatMap(value -> {
+                final Integer id = idExtractor.apply(value);
+                results.put(id, value);
+                // populate individual cache entry
+                return apiCaching.cache(operation, type, Mono.just(value), cacheKeys.apply(id));
+            })
+            .onErrorMap(FailedRequestException::isForbidden, this::errorMapForbidden)
+            .checkpoint("Bulk retrieving " + operation)
+            .then(Mono.fromSupplier(() -> results));
+    }
+
+    /**
+     * @param fingerprints CurseForge murmur2 fingerprints, such as computed by {@link Murmur2Fingerprint}
+     * @return exactly matched files keyed by fingerprint
+     */
+    public Mono<Map<Long, CurseForgeFile>> getFingerprintMatches(Collection<Long> fingerprints) {
+        if (fingerprints.isEmpty()) {
+            return Mono.just(Collections.emptyMap());
+        }
+
+        return preparedFetch.fetch(uriBuilder.resolve("/v1/fingerprints/{gameId}", gameId))
+            .sendJson(new GetFingerprintMatchesRequestBody()
+                .setFingerprints(new ArrayList<>(fingerprints))
+            )
+            .toObject(GetFingerprintMatchesResponse.class)
+            .assemble()
+            .onErrorMap(FailedRequestException::isForbidden, this::errorMapForbidden)
+            .map(resp -> {
+                final Map<Long, CurseForgeFile> matches = new HashMap<>();
+                if (resp.getData() != null && resp.getData().getExactMatches() != null) {
+                    for (final FingerprintMatch match : resp.getData().getExactMatches()) {
+                        if (match.getFile() != null) {
+                            matches.put(match.getFile().getFileFingerprint(), match.getFile());
+                        }
+                    }
+                }
+                return matches;
+            })
+            .checkpoint("Matching fingerprints");
+    }
+
     public Mono<Path> download(CurseForgeFile cfFile, Path outputFile, FileDownloadStatusHandler handler) {
         final URI uriToDownload = cfFile.getDownloadUrl() != null ?
             normalizeDownloadUrl(cfFile.getDownloadUrl())
             : buildFallbackUrl(cfFile);
         log.trace("Downloading cfFile={} from normalizedUrl={}", cfFile, uriToDownload);
-        return preparedFetch.fetch(uriToDownload)
+        final SpecificFileFetchBuilder fetchBuilder = preparedFetch.fetch(uriToDownload)
             .toFile(outputFile)
             .skipExisting(true)
-            .handleStatus(handler)
-            .assemble();
+            .expectedSize(cfFile.getFileLength())
+            .handleStatus(handler);
+        // verified while downloading and allows for use of shared download store
+        final FileHash hash = FileHashVerifier.preferredHash(cfFile.getHashes());
+        if (hash != null) {
+            fetchBuilder.checksum(FileHashVerifier.checksumAlgo(hash.getAlgo()), hash.getValue());
+        }
+        return fetchBuilder.assemble();
     }
 
     private URI buildFallbackUrl(CurseForgeFile cfFile) {
@@ -305,7 +437,7 @@ public class CurseForgeApiClient implements AutoCloseable {
 
     public Mono<Path> downloadTemp(CurseForgeFile cfFile, String suffix, FileDownloadStatusHandler handler) {
         return Mono.just(cfFile)
-            .publishOn(Schedulers.boundedElastic())
+            .publishOn(FileSchedulers.blockingIo())
             .flatMap(curseForgeFile -> {
                     final Path outFile;
                     try {
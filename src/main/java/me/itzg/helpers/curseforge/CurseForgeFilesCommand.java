@@ -18,7 +18,6 @@ import lombok.extern.slf4j.Slf4j;
 import me.itzg.helpers.McImageHelper;
 import me.itzg.helpers.cache.ApiCaching;
 import me.itzg.helpers.cache.ApiCachingDisabled;
-import me.itzg.helpers.cache.ApiCachingImpl;
 import me.itzg.helpers.cache.CacheArgs;
 import me.itzg.helpers.curseforge.CurseForgeFilesManifest.FileEntry;
 import me.itzg.helpers.curseforge.OutputSubdirResolver.Result;
@@ -99,7 +98,7 @@ public class CurseForgeFilesCommand implements Callable<Integer> {
     boolean disableApiCaching;
 
     @ArgGroup(exclusive = false)
-    CacheArgs cacheArgs;
+    CacheArgs cacheArgs = new CacheArgs();
 
     @ArgGroup(exclusive = false)
     SharedFetchArgs sharedFetchArgs = new SharedFetchArgs();
@@ -131,8 +130,9 @@ public class CurseForgeFilesCommand implements Callable<Integer> {
         if (modFileRefs != null && !modFileRefs.isEmpty()) {
             try (
                 final ApiCaching apiCaching = disableApiCaching ? new ApiCachingDisabled()
-                    : new ApiCachingImpl(outputDir, CACHING_NAMESPACE, cacheArgs)
-                        .setCacheDurations(CurseForgeApiClient.getCacheDurations());
+                    : ApiCaching.create(outputDir, CACHING_NAMESPACE, cacheArgs,
+                        CurseForgeApiClient.getCacheDurations()
+                    );
                 final CurseForgeApiClient apiClient = new CurseForgeApiClient(
                     apiBaseUrl,
                     loadApiKey(apiKey, apiKeyFile),
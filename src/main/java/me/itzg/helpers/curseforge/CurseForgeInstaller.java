@@ -20,7 +20,9 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
@@ -35,9 +37,9 @@ import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 import me.itzg.helpers.cache.ApiCaching;
 import me.itzg.helpers.cache.ApiCachingDisabled;
-import me.itzg.helpers.cache.ApiCachingImpl;
 import me.itzg.helpers.cache.CacheArgs;
 import me.itzg.helpers.curseforge.ExcludeIncludesContent.ExcludeIncludes;
+import me.itzg.helpers.curseforge.FingerprintReconciler.ReconciledFile;
 import me.itzg.helpers.curseforge.OverridesApplier.Result;
 import me.itzg.helpers.curseforge.model.CurseForgeFile;
 import me.itzg.helpers.curseforge.model.CurseForgeMod;
@@ -49,7 +51,9 @@ import me.itzg.helpers.errors.GenericException;
 import me.itzg.helpers.errors.InvalidApiKeyException;
 import me.itzg.helpers.errors.InvalidParameterException;
 import me.itzg.helpers.fabric.FabricLauncherInstaller;
+import me.itzg.helpers.files.ExtractedEntry;
 import me.itzg.helpers.files.FileHashInvalidException;
+import me.itzg.helpers.files.FileSchedulers;
 import me.itzg.helpers.files.IoStreams;
 import me.itzg.helpers.files.Manifests;
 import me.itzg.helpers.files.ReactiveFileUtils;
@@ -58,17 +62,21 @@ import me.itzg.helpers.forge.ForgeInstallerResolver;
 import me.itzg.helpers.forge.ForgeLikeInstaller;
 import me.itzg.helpers.forge.ForgeUrlArgs;
 import me.itzg.helpers.forge.NeoForgeInstallerResolver;
+import me.itzg.helpers.http.DownloadScheduler;
 import me.itzg.helpers.http.FailedRequestException;
 import me.itzg.helpers.http.Fetch;
+import me.itzg.helpers.http.FetchMetrics;
 import me.itzg.helpers.http.SharedFetch;
 import me.itzg.helpers.http.Uris;
 import me.itzg.helpers.json.ObjectMappers;
+import me.itzg.helpers.trace.Span;
+import me.itzg.helpers.trace.Tracer;
 import org.jetbrains.annotations.Blocking;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
-import reactor.core.scheduler.Schedulers;
+import reactor.util.function.Tuple2;
 import reactor.util.retry.Retry;
 
 @RequiredArgsConstructor
@@ -141,6 +149,9 @@ public class CurseForgeInstaller {
     @Getter @Setter
     int maxConcurrentDownloads;
 
+    @Getter @Setter
+    boolean adaptiveDownloadConcurrency;
+
     @Getter @Setter
     int fileDownloadRetries = 5;
 
@@ -153,6 +164,13 @@ public class CurseForgeInstaller {
     @Getter @Setter
     private boolean excludeAllMods;
 
+    /**
+     * When enabled, mod files from the previous install are matched by fingerprint and only
+     * mismatched files are resolved and downloaded
+     */
+    @Getter @Setter
+    private boolean fingerprintReconcile;
+
     /**
      */
     public void installFromModpackZip(Path modpackZip, String slug) {
@@ -167,6 +185,7 @@ public class CurseForgeInstaller {
                     modpackManifest.getOverrides(),
                     levelFrom, overridesExclusions
                 )
+                    .setPreviousEntries(previousOverrideEntries(context))
             );
         });
     }
@@ -193,7 +212,7 @@ public class CurseForgeInstaller {
             }
 
             processModpackManifest(context, modpackManifest,
-                () -> new Result(Collections.emptyList(), null)
+                () -> new Result(Collections.emptyList(), null, null)
             );
         });
     }
@@ -219,8 +238,9 @@ public class CurseForgeInstaller {
 
         try (
             final ApiCaching apiCaching = disableApiCaching ? new ApiCachingDisabled()
-                : new ApiCachingImpl(outputDir, CACHING_NAMESPACE, cacheArgs)
-                    .setCacheDurations(CurseForgeApiClient.getCacheDurations());
+                : ApiCaching.create(outputDir, CACHING_NAMESPACE, cacheArgs,
+                    CurseForgeApiClient.getCacheDurations()
+                );
             final CurseForgeApiClient cfApi = new CurseForgeApiClient(
                 apiBaseUrl,
                 loadApiKey(apiKey, apiKeyFile),
@@ -314,6 +334,10 @@ public class CurseForgeInstaller {
         );
     }
 
+    private static @Nullable Map<String, ExtractedEntry> previousOverrideEntries(InstallContext context) {
+        return context.prevInstallManifest != null ? context.prevInstallManifest.getOverrideEntries() : null;
+    }
+
     private static boolean matchesPreviousInstall(InstallContext context, int modId, int fileId) {
         return context.prevInstallManifest != null
             && (context.prevInstallManifest.getModId() == modId
@@ -418,6 +442,7 @@ public class CurseForgeInstaller {
                     modpackManifest.getOverrides(),
                     levelFrom, overridesExclusions
                 )
+                    .setPreviousEntries(previousOverrideEntries(context))
             );
         } finally {
             Files.delete(modpackZip);
@@ -502,6 +527,8 @@ public class CurseForgeInstaller {
             .minecraftVersion(results.getMinecraftVersion())
             .modLoaderId(results.getModLoaderId())
             .levelName(results.getLevelName())
+            .fingerprints(results.getFingerprints())
+            .overrideEntries(results.getOverrideEntries())
             .build();
 
         Manifests.cleanup(outputDir, context.prevInstallManifest, newManifest, log);
@@ -554,10 +581,31 @@ public class CurseForgeInstaller {
 
         log.debug("Max concurrent downloads is {}", maxConcurrentDownloads);
 
-        // Go through all the files listed in modpack (given project ID + file ID)
-        final List<PathWithInfo> modFiles = Flux.fromIterable(modpackManifest.getFiles())
-            // ...does the modpack even say it's required?
+        // ...does the modpack even say it's required?
+        final List<ManifestFileRef> requiredFileRefs = modpackManifest.getFiles().stream()
             .filter(ManifestFileRef::isRequired)
+            .collect(Collectors.toList());
+
+        final Map<Integer, ReconciledFile> reconciled;
+        final PrefetchedMetadata prefetched;
+        try (Span ignored = Tracer.start(Tracer.PHASE, "resolve mods")) {
+            reconciled = fingerprintReconcile ?
+                new FingerprintReconciler(outputDir)
+                    .reconcile(context.cfApi, context.prevInstallManifest)
+                    .block()
+                : Collections.emptyMap();
+
+            prefetched = prefetchMetadata(context,
+                requiredFileRefs.stream()
+                    .filter(fileRef -> !reconciled.containsKey(fileRef.getFileID()))
+                    .collect(Collectors.toList())
+            );
+        }
+
+        // Go through all the files listed in modpack (given project ID + file ID)
+        final Span downloadSpan = Tracer.start(Tracer.PHASE, "download mods")
+            .arg("files", requiredFileRefs.size());
+        final List<PathWithInfo> modFiles = Flux.fromIterable(requiredFileRefs)
             // ...is this mod file excluded because it is a client mod that didn't declare as such
             .filterWhen(manifestFileRef -> {
                 final int projectID = manifestFileRef.getProjectID();
@@ -570,7 +618,7 @@ public class CurseForgeInstaller {
 
                 return Mono.just(forceInclude || !exclude)
                     .flatMap(proceed -> proceed ? Mono.just(true)
-                        : context.cfApi.getModInfo(projectID)
+                        : prefetched.getModInfo(context, projectID)
                             .map(mod -> {
                                 log.info("Excluding mod file '{}' ({}) due to configuration",
                                     mod.getName(), mod.getSlug()
@@ -580,20 +628,85 @@ public class CurseForgeInstaller {
                             })
                     );
             })
-            // ...download and possibly unzip world file
-            .flatMap(fileRef ->
-                processFileWithIds(context, outputSubdirResolver,
-                    excludeIncludeIds.getForceIncludeIds(), fileRef.getProjectID(), fileRef.getFileID()
-                )
-                    .checkpoint(),
-                maxConcurrentDownloads > 0 ? maxConcurrentDownloads : 10
-            )
             .collectList()
+            // ...download and possibly unzip world file, largest first where the size is already known
+            .flatMapMany(fileRefs -> new DownloadScheduler(maxConcurrentDownloads, adaptiveDownloadConcurrency).schedule(fileRefs,
+                fileRef -> {
+                    final CurseForgeFile file = prefetched.files.get(fileRef.getFileID());
+                    return file != null ? file.getFileLength() : 0;
+                },
+                fileRef -> {
+                    final ReconciledFile reconciledFile = FingerprintReconciler.installedFile(reconciled, fileRef,
+                        cfFile -> excludeIncludeIds.getForceIncludeIds().contains(fileRef.getProjectID())
+                            || isServerMod(cfFile)
+                    );
+                    if (reconciledFile != null) {
+                        log.debug("Mod file {} is already installed according to its fingerprint", reconciledFile.path);
+                        return Mono.just(new PathWithInfo(reconciledFile.path)
+                            .setCurseForgeFile(reconciledFile.curseForgeFile)
+                        );
+                    }
+
+                    return processFileWithIds(context, prefetched, outputSubdirResolver,
+                        excludeIncludeIds.getForceIncludeIds(), fileRef.getProjectID(), fileRef.getFileID()
+                    )
+                        .checkpoint();
+                }
+            ))
+            .collectList()
+            .doFinally(signalType -> downloadSpan.close())
             .block();
 
         return modFiles;
     }
 
+    /**
+     * Resolves the mod and file metadata of the given file references in a handful of bulk requests rather
+     * than two requests per file.
+     */
+    private PrefetchedMetadata prefetchMetadata(InstallContext context, List<ManifestFileRef> fileRefs) {
+        final Map<Integer, Integer> fileRefsToProjects = new HashMap<>();
+        for (final ManifestFileRef fileRef : fileRefs) {
+            fileRefsToProjects.put(fileRef.getFileID(), fileRef.getProjectID());
+        }
+
+        final PrefetchedMetadata prefetched = Mono.zip(
+                context.cfApi.getModInfos(fileRefsToProjects.values()),
+                context.cfApi.getModFileInfos(fileRefsToProjects)
+            )
+            .map(tuple -> new PrefetchedMetadata(tuple.getT1(), tuple.getT2()))
+            .onErrorResume(FailedRequestException.class, e -> {
+                log.warn("Bulk retrieval of mod metadata failed, so will retrieve individually: {}", e.getMessage());
+                log.debug("Bulk retrieval failure details", e);
+                return Mono.just(new PrefetchedMetadata(Collections.emptyMap(), Collections.emptyMap()));
+            })
+            .block();
+
+        log.debug("Prefetched metadata of {} mods and {} files", prefetched.mods.size(), prefetched.files.size());
+        return prefetched;
+    }
+
+    @RequiredArgsConstructor
+    static class PrefetchedMetadata {
+
+        final Map<Integer, CurseForgeMod> mods;
+        final Map<Integer, CurseForgeFile> files;
+
+        /**
+         * Falls back to an individual request for anything absent from the bulk results
+         */
+        Mono<CurseForgeMod> getModInfo(InstallContext context, int projectID) {
+            final CurseForgeMod mod = mods.get(projectID);
+            return mod != null ? Mono.just(mod) : context.cfApi.getModInfo(projectID);
+        }
+
+        Mono<CurseForgeFile> getModFileInfo(InstallContext context, int projectID, int fileID) {
+            final CurseForgeFile file = files.get(fileID);
+            return file != null && file.getModId() == projectID ? Mono.just(file)
+                : context.cfApi.getModFileInfo(projectID, fileID);
+        }
+    }
+
     private ModPackResults processModpack(InstallContext context,
         MinecraftModpackManifest modpackManifest, OverridesApplier overridesApplier
     ) throws IOException {
@@ -608,11 +721,22 @@ public class CurseForgeInstaller {
 
         final OutputSubdirResolver outputSubdirResolver = new OutputSubdirResolver(outputDir, context.categoryInfo);
 
-        final List<PathWithInfo> modFiles = getModFiles(context, modpackManifest, outputSubdirResolver);
-
-        final Result overridesResult = overridesApplier.apply();
+        // the mod loader doesn't depend on the mod files, so prepare it while those download.
+        // A failure of either cancels the other.
+        final List<PathWithInfo> modFiles = Mono.zip(
+                Mono.fromCallable(() -> getModFiles(context, modpackManifest, outputSubdirResolver))
+                    .subscribeOn(FileSchedulers.blockingIo()),
+                Mono.fromRunnable(() -> prepareModLoader(modLoader.getId(), modpackManifest.getMinecraft().getVersion()))
+                    .subscribeOn(FileSchedulers.blockingIo())
+                    .thenReturn(true)
+            )
+            .map(Tuple2::getT1)
+            .block();
 
-        prepareModLoader(modLoader.getId(), modpackManifest.getMinecraft().getVersion());
+        final Result overridesResult;
+        try (Span ignored = Tracer.start(Tracer.PHASE, "overrides")) {
+            overridesResult = overridesApplier.apply();
+        }
 
         return buildResults(modpackManifest, modLoader, modFiles, overridesResult);
     }
@@ -641,7 +765,9 @@ public class CurseForgeInstaller {
             )
             .setLevelName(resolveLevelName(modFiles, overridesResult))
             .setMinecraftVersion(modpackManifest.getMinecraft().getVersion())
-            .setModLoaderId(modLoader.getId());
+            .setModLoaderId(modLoader.getId())
+            .setFingerprints(FingerprintReconciler.collectFingerprints(outputDir, modFiles))
+            .setOverrideEntries(overridesResult.entries);
     }
 
     private String resolveLevelName(List<PathWithInfo> modFiles, Result overridesResult) {
@@ -724,12 +850,12 @@ public class CurseForgeInstaller {
      * Downloads the referenced project-file into the appropriate subdirectory from outputPaths
      */
     private Mono<PathWithInfo> processFileWithIds(
-        InstallContext context, OutputSubdirResolver outputSubdirResolver,
+        InstallContext context, PrefetchedMetadata prefetched, OutputSubdirResolver outputSubdirResolver,
         Set<Integer> forceIncludeIds, int projectID, int fileID
     ) {
-        return context.cfApi.getModInfo(projectID)
+        return prefetched.getModInfo(context, projectID)
             .flatMap(modInfo ->
-                context.cfApi.getModFileInfo(projectID, fileID)
+                prefetched.getModFileInfo(context, projectID, fileID)
                     .flatMap(cfFile -> processFile(context, outputSubdirResolver, forceIncludeIds, modInfo, cfFile)))
             .checkpoint(String.format("Processing file  %d:%d from modpack", projectID, fileID));
     }
@@ -770,7 +896,7 @@ public class CurseForgeInstaller {
                             .setCurseForgeFile(cfFile)
                         )
                         : Mono.fromCallable(() -> extractWorldZip(modInfo, downloadResult.path, outputSubdir))
-                            .subscribeOn(Schedulers.boundedElastic())
+                            .subscribeOn(FileSchedulers.blockingIo())
                 )
             : buildRetryableDownload(context, modInfo, cfFile, isWorld, outputSubdir)
                 .map(resolveResult ->
@@ -787,22 +913,26 @@ public class CurseForgeInstaller {
         final Path outputFile = resolveOutputFile(outputSubdir, cfFile);
 
         // use defer so that the download mono is rebuilt on each retry
-        return Mono.defer(() ->
+        return FetchMetrics.retryScope(Tracer.trace(Tracer.FILE, cfFile.getFileName(), span -> span
+            .arg("bytes", cfFile.getFileLength())
+            .countAttempts(Mono.defer(() ->
                 downloadOrResolveFile(context, modInfo, isWorld, outputSubdir, cfFile)
                     .checkpoint()
                     .onErrorResume(throwable ->
                         ReactiveFileUtils.removeFailedDownload(throwable, outputFile)
                     )
-            )
-            // retry the deferred part above if one of the expected failure cases
+            ))
+            // retry the deferred part above if one of the expected failure cases,
+            // but leave rate limiting to the host rate limiter and other throttling to the download scheduler
             .retryWhen(
                 Retry.backoff(fileDownloadRetries, fileDownloadRetryMinDelay)
-                    .filter(throwable ->
+                    .filter(throwable -> !FailedRequestException.isRateLimited(throwable)
+                        && !DownloadScheduler.isThrottled(throwable) && (
                         throwable instanceof FileHashInvalidException ||
                             throwable instanceof FailedRequestException ||
                             throwable instanceof IOException ||
                             throwable instanceof ChannelException
-                    )
+                    ))
                     .doBeforeRetry(retrySignal ->
                         log.warn("Retry #{} download of {} @ {}:{} due to {}: {}",
                             retrySignal.totalRetries() + 1,
@@ -811,7 +941,8 @@ public class CurseForgeInstaller {
                             retrySignal.failure().getMessage()
                         )
                     )
-            );
+            )
+        ));
     }
 
     @RequiredArgsConstructor
@@ -847,8 +978,8 @@ public class CurseForgeInstaller {
                 return copyFromDownloadsRepo(outputFile, fileInRepo);
             }
 
+            // hash is verified while downloading
             return context.cfApi.download(cfFile, outputFile, modFileDownloadStatusHandler(this.outputDir, log))
-                .flatMap(path -> verifyHash(cfFile, path))
                 .map(DownloadOrResolveResult::new)
                 .onErrorResume(
                     e -> e instanceof FailedRequestException
@@ -902,7 +1033,7 @@ public class CurseForgeInstaller {
                     );
                     return Files.copy(resolved, outputFile);
                 })
-                .subscribeOn(Schedulers.boundedElastic())
+                .subscribeOn(FileSchedulers.blockingIo())
                 .map(DownloadOrResolveResult::new);
     }
 
@@ -997,7 +1128,9 @@ public class CurseForgeInstaller {
             loaderVersion = customModLoaderVersion;
         }
 
-        try (SharedFetch sharedFetch = Fetch.sharedFetch("install-curseforge", sharedFetchOptions)) {
+        try (SharedFetch sharedFetch = Fetch.sharedFetch("install-curseforge", sharedFetchOptions);
+            Span ignored = Tracer.start(Tracer.PHASE, "mod loader").arg("id", id)
+        ) {
 
             switch (provider) {
                 case "forge":
@@ -1,9 +1,13 @@
 package me.itzg.helpers.curseforge;
 
+import java.util.Map;
+import lombok.Builder;
+import lombok.Data;
 import lombok.Getter;
 import lombok.experimental.SuperBuilder;
 import lombok.extern.jackson.Jacksonized;
 import me.itzg.helpers.files.BaseManifest;
+import me.itzg.helpers.files.ExtractedEntry;
 
 @Getter
 @SuperBuilder
@@ -21,4 +25,26 @@ public class CurseForgeManifest extends BaseManifest {
     private String minecraftVersion;
     private String modLoaderId;
     private String levelName;
+
+    /**
+     * CurseForge fingerprints of installed mod files keyed by relative path
+     */
+    private Map<String, FileFingerprint> fingerprints;
+
+    /**
+     * Extracted override entries keyed by relative path, used to skip re-writing unchanged entries
+     */
+    private Map<String, ExtractedEntry> overrideEntries;
+
+    /**
+     * A fingerprint is only re-used when the file's size and modified time still match
+     */
+    @Data
+    @Builder
+    @Jacksonized
+    public static class FileFingerprint {
+        final long size;
+        final long lastModified;
+        final long fingerprint;
+    }
 }
@@ -12,8 +12,11 @@ import me.itzg.helpers.curseforge.model.HashAlgo;
 import me.itzg.helpers.files.ChecksumAlgo;
 import me.itzg.helpers.files.Checksums;
 import me.itzg.helpers.files.FileHashInvalidException;
+import me.itzg.helpers.files.FileSchedulers;
+import me.itzg.helpers.trace.Span;
+import me.itzg.helpers.trace.Tracer;
+import org.jetbrains.annotations.Nullable;
 import reactor.core.publisher.Mono;
-import reactor.core.scheduler.Schedulers;
 
 @Slf4j
 public class FileHashVerifier {
@@ -25,6 +28,30 @@ public class FileHashVerifier {
         algos.put(HashAlgo.Sha1, ChecksumAlgo.SHA1);
     }
 
+    /**
+     * @return the hash to use for verifying a download, preferring sha1 over md5,
+     * or null if none of the hashes are compatible
+     */
+    public static @Nullable FileHash preferredHash(@Nullable List<FileHash> hashes) {
+        if (hashes == null) {
+            return null;
+        }
+        FileHash preferred = null;
+        for (final FileHash hash : hashes) {
+            if (hash.getAlgo() == HashAlgo.Sha1) {
+                return hash;
+            }
+            if (preferred == null && algos.containsKey(hash.getAlgo())) {
+                preferred = hash;
+            }
+        }
+        return preferred;
+    }
+
+    public static @Nullable ChecksumAlgo checksumAlgo(HashAlgo hashAlgo) {
+        return algos.get(hashAlgo);
+    }
+
     /**
      * @return Mono.error with {@link FileHashInvalidException}
      * or {@link IllegalArgumentException} when compatible checksum algorithm can't be found
@@ -40,15 +67,19 @@ public class FileHashVerifier {
                 return Mono.fromCallable(() -> {
                         log.debug("Verifying hash of {}", file);
 
-                        if (!Checksums.valid(file, checksumAlgo, hash.getValue())) {
-                            Files.delete(file);
-                            throw new FileHashInvalidException("Incorrect checksum: " + file);
-                        }
-                        else {
-                            return file;
+                        try (Span span = Tracer.start(Tracer.FILE, "verify " + file.getFileName())) {
+                            span.arg("algo", checksumAlgo);
+                            if (!Checksums.valid(file, checksumAlgo, hash.getValue())) {
+                                span.arg("valid", false);
+                                Files.delete(file);
+                                throw new FileHashInvalidException("Incorrect checksum: " + file);
+                            }
+                            else {
+                                return file;
+                            }
                         }
                     })
-                    .subscribeOn(Schedulers.boundedElastic());
+                    .subscribeOn(FileSchedulers.blockingIo());
             }
         }
 
@@ -0,0 +1,169 @@
+package me.itzg.helpers.curseforge;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import me.itzg.helpers.curseforge.CurseForgeManifest.FileFingerprint;
+import me.itzg.helpers.curseforge.model.CurseForgeFile;
+import me.itzg.helpers.curseforge.model.ManifestFileRef;
+import me.itzg.helpers.files.FileSchedulers;
+import me.itzg.helpers.files.Manifests;
+import org.jetbrains.annotations.Nullable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Matches mod files already installed by a previous run against CurseForge using fingerprints, so that
+ * only files which don't match the requested modpack need to be resolved and downloaded.
+ */
+@Slf4j
+@RequiredArgsConstructor
+class FingerprintReconciler {
+
+    private final Path outputDir;
+
+    @RequiredArgsConstructor
+    static class ReconciledFile {
+
+        final Path path;
+        final CurseForgeFile curseForgeFile;
+    }
+
+    @RequiredArgsConstructor
+    private static class LocalFingerprint {
+
+        final Path path;
+        final long fingerprint;
+    }
+
+    /**
+     * @return installed files keyed by CurseForge file ID, which is empty when the files can't be matched,
+     * such as when the fingerprint lookup fails, so that they are resolved and downloaded as usual
+     */
+    Mono<Map<Integer, ReconciledFile>> reconcile(CurseForgeApiClient cfApi, @Nullable CurseForgeManifest prevManifest) {
+        if (prevManifest == null || prevManifest.getFiles() == null) {
+            return Mono.just(Collections.emptyMap());
+        }
+
+        final Map<String, FileFingerprint> prevFingerprints = prevManifest.getFingerprints() != null ?
+            prevManifest.getFingerprints() : Collections.emptyMap();
+
+        final List<String> candidates = prevManifest.getFiles().stream()
+            .filter(file -> file.endsWith(".jar"))
+            .collect(Collectors.toList());
+
+        return Flux.fromIterable(candidates)
+            .flatMap(relPath ->
+                    Mono.fromCallable(() -> fingerprintFile(relPath, prevFingerprints.get(relPath)))
+                        .subscribeOn(FileSchedulers.blockingIo()),
+                Runtime.getRuntime().availableProcessors()
+            )
+            .collectList()
+            .flatMap(localFingerprints -> {
+                log.debug("Matching {} fingerprints of existing files", localFingerprints.size());
+                final Map<Long, Path> byFingerprint = new HashMap<>();
+                for (final LocalFingerprint localFingerprint : localFingerprints) {
+                    byFingerprint.put(localFingerprint.fingerprint, localFingerprint.path);
+                }
+
+                return cfApi.getFingerprintMatches(byFingerprint.keySet())
+                    .map(matches -> {
+                        final Map<Integer, ReconciledFile> reconciled = new HashMap<>();
+                        matches.forEach((fingerprint, cfFile) -> {
+                            final Path path = byFingerprint.get(fingerprint);
+                            if (path != null) {
+                                reconciled.put(cfFile.getId(), new ReconciledFile(path, cfFile));
+                            }
+                        });
+                        log.debug("Reconciled {} of {} existing files by fingerprint",
+                            reconciled.size(), byFingerprint.size()
+                        );
+                        return reconciled;
+                    });
+            })
+            .onErrorResume(throwable -> {
+                log.warn("Unable to reconcile existing files by fingerprint, so they will be downloaded as needed: {}",
+                    throwable.getMessage()
+                );
+                log.debug("Details of fingerprint reconcile failure", throwable);
+                return Mono.just(Collections.emptyMap());
+            });
+    }
+
+    /**
+     * @param wanted whether the installed file should still be kept, such as being a server mod
+     * @return the installed file of the given reference or null if it needs to be resolved and downloaded
+     */
+    static @Nullable ReconciledFile installedFile(Map<Integer, ReconciledFile> reconciled, ManifestFileRef fileRef,
+        Predicate<CurseForgeFile> wanted
+    ) {
+        final ReconciledFile reconciledFile = reconciled.get(fileRef.getFileID());
+        if (reconciledFile != null
+            && reconciledFile.curseForgeFile.getModId() == fileRef.getProjectID()
+            && wanted.test(reconciledFile.curseForgeFile)) {
+            return reconciledFile;
+        }
+        return null;
+    }
+
+    /**
+     * @return the fingerprint of the file or null if it no longer exists
+     */
+    private @Nullable LocalFingerprint fingerprintFile(String relPath, @Nullable FileFingerprint prev) throws IOException {
+        final Path path = outputDir.resolve(relPath);
+        if (!Files.exists(path)) {
+            return null;
+        }
+
+        final BasicFileAttributes attrs = Files.readAttributes(path, BasicFileAttributes.class);
+        if (prev != null
+            && prev.getSize() == attrs.size()
+            && prev.getLastModified() == attrs.lastModifiedTime().toMillis()) {
+            log.trace("Re-using fingerprint of unchanged file {}", relPath);
+            return new LocalFingerprint(path, prev.getFingerprint());
+        }
+
+        log.trace("Computing fingerprint of {}", relPath);
+        return new LocalFingerprint(path, Murmur2Fingerprint.compute(path));
+    }
+
+    /**
+     * Records the fingerprints CurseForge declared for the given installed files
+     * @return fingerprints keyed by path relative to output directory
+     */
+    static Map<String, FileFingerprint> collectFingerprints(Path outputDir, @Nullable List<PathWithInfo> modFiles) {
+        final Map<String, FileFingerprint> fingerprints = new HashMap<>();
+        if (modFiles == null) {
+            return fingerprints;
+        }
+
+        for (final PathWithInfo modFile : modFiles) {
+            final CurseForgeFile cfFile = modFile.getCurseForgeFile();
+            if (cfFile == null || modFile.isDownloadNeeded() || cfFile.getFileFingerprint() == 0) {
+                continue;
+            }
+            try {
+                final BasicFileAttributes attrs = Files.readAttributes(modFile.getPath(), BasicFileAttributes.class);
+                fingerprints.put(Manifests.relativize(outputDir, modFile.getPath()),
+                    FileFingerprint.builder()
+                        .size(attrs.size())
+                        .lastModified(attrs.lastModifiedTime().toMillis())
+                        .fingerprint(cfFile.getFileFingerprint())
+                        .build()
+                );
+            } catch (IOException e) {
+                log.debug("Unable to record fingerprint of {}", modFile.getPath(), e);
+            }
+        }
+        return fingerprints;
+    }
+}
@@ -189,7 +189,7 @@ public class InstallCurseForgeCommand implements Callable<Integer> {
     boolean disableApiCaching;
 
     @ArgGroup(exclusive = false)
-    CacheArgs cacheArgs;
+    CacheArgs cacheArgs = new CacheArgs();
 
     @ArgGroup(exclusive = false)
     ForgeUrlArgs forgeUrlArgs = new ForgeUrlArgs();
@@ -199,6 +199,19 @@ public class InstallCurseForgeCommand implements Callable<Integer> {
     )
     int maxConcurrentDownloads;
 
+    @Option(names = "--adaptive-download-concurrency", defaultValue = "${env:CF_ADAPTIVE_DOWNLOAD_CONCURRENCY:-false}",
+        description = "Start with half of --max-concurrent-downloads and increase while throughput improves"
+            + "%nDefault: ${DEFAULT-VALUE}"
+    )
+    boolean adaptiveDownloadConcurrency;
+
+    @Option(names = "--fingerprint-reconcile", defaultValue = "${env:CF_FINGERPRINT_RECONCILE:-false}",
+        description = "When upgrading a modpack, match existing mod files by CurseForge fingerprint"
+            + " and only resolve and download the files that changed."
+            + "%nDefault: ${DEFAULT-VALUE}"
+    )
+    boolean fingerprintReconcile;
+
     @Option(names = "--file-download-retries", paramLabel = "COUNT",
         description = "Default is ${DEFAULT-VALUE}"
     )
@@ -249,10 +262,12 @@ public class InstallCurseForgeCommand implements Callable<Integer> {
             .setCacheArgs(cacheArgs)
             .setForgeUrlArgs(forgeUrlArgs)
             .setMaxConcurrentDownloads(maxConcurrentDownloads)
+            .setAdaptiveDownloadConcurrency(adaptiveDownloadConcurrency)
             .setFileDownloadRetries(fileDownloadRetries)
             .setFileDownloadRetryMinDelay(fileDownloadRetryMinDelay)
             .setCustomModLoaderVersion(modLoaderVersion)
-            .setExcludeAllMods(excludeIncludeArgs.excludeAllMods);
+            .setExcludeAllMods(excludeIncludeArgs.excludeAllMods)
+            .setFingerprintReconcile(fingerprintReconcile);
 
         if (apiBaseUrl != null) {
             installer.setApiBaseUrl(apiBaseUrl);
@@ -14,10 +14,10 @@ import me.itzg.helpers.curseforge.model.CurseForgeMod;
 import me.itzg.helpers.curseforge.model.ModLoaderType;
 import me.itzg.helpers.errors.GenericException;
 import me.itzg.helpers.errors.InvalidParameterException;
+import me.itzg.helpers.files.FileSchedulers;
 import org.jetbrains.annotations.NotNull;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
-import reactor.core.scheduler.Schedulers;
 
 public class ModFileRefResolver {
 
@@ -86,7 +86,7 @@ public class ModFileRefResolver {
                     }
                 })
             )
-            .subscribeOn(Schedulers.boundedElastic());
+            .subscribeOn(FileSchedulers.blockingIo());
     }
 
     private Mono<CurseForgeFile> resolveModFileFromMod(String ref, String gameVersion, String category,
@@ -4,6 +4,9 @@ import lombok.Data;
 
 import java.nio.file.Path;
 import java.util.List;
+import java.util.Map;
+import me.itzg.helpers.curseforge.CurseForgeManifest.FileFingerprint;
+import me.itzg.helpers.files.ExtractedEntry;
 
 @Data
 public class ModPackResults {
@@ -14,4 +17,6 @@ public class ModPackResults {
     private String modLoaderId;
     private String levelName;
     private List<PathWithInfo> needsDownload;
+    private Map<String, FileFingerprint> fingerprints;
+    private Map<String, ExtractedEntry> overrideEntries;
 }
@@ -0,0 +1,91 @@
+package me.itzg.helpers.curseforge;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.jetbrains.annotations.Blocking;
+
+/**
+ * Computes the fingerprint CurseForge declares for each file, which is a 32-bit MurmurHash2 with
+ * seed 1 over the file's content excluding tab, newline, carriage return, and space bytes.
+ */
+public class Murmur2Fingerprint {
+
+    private static final int SEED = 1;
+    private static final int M = 0x5bd1e995;
+    private static final int R = 24;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private Murmur2Fingerprint() {
+    }
+
+    /**
+     * @return the fingerprint as an unsigned 32-bit value
+     */
+    @Blocking
+    public static long compute(Path file) throws IOException {
+        // The normalized length seeds the hash, so that needs a pass of its own
+        final long normalizedLength = countNormalizedBytes(file);
+
+        int h = SEED ^ (int) normalizedLength;
+        int k = 0;
+        int shift = 0;
+
+        try (InputStream in = Files.newInputStream(file)) {
+            final byte[] buffer = new byte[BUFFER_SIZE];
+            int len;
+            while ((len = in.read(buffer)) >= 0) {
+                for (int i = 0; i < len; i++) {
+                    final byte b = buffer[i];
+                    if (isWhitespace(b)) {
+                        continue;
+                    }
+                    k |= (b & 0xff) << shift;
+                    shift += 8;
+                    if (shift == 32) {
+                        k *= M;
+                        k ^= k >>> R;
+                        k *= M;
+                        h *= M;
+                        h ^= k;
+                        k = 0;
+                        shift = 0;
+                    }
+                }
+            }
+        }
+
+        if (shift > 0) {
+            // remaining tail bytes were accumulated little-endian just like the reference implementation
+            h ^= k;
+            h *= M;
+        }
+
+        h ^= h >>> 13;
+        h *= M;
+        h ^= h >>> 15;
+
+        return h & 0xFFFFFFFFL;
+    }
+
+    private static long countNormalizedBytes(Path file) throws IOException {
+        long count = 0;
+        try (InputStream in = Files.newInputStream(file)) {
+            final byte[] buffer = new byte[BUFFER_SIZE];
+            int len;
+            while ((len = in.read(buffer)) >= 0) {
+                for (int i = 0; i < len; i++) {
+                    if (!isWhitespace(buffer[i])) {
+                        count++;
+                    }
+                }
+            }
+        }
+        return count;
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == 9 || b == 10 || b == 13 || b == 32;
+    }
+}
@@ -3,7 +3,9 @@ package me.itzg.helpers.curseforge;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.util.List;
+import java.util.Map;
 import lombok.AllArgsConstructor;
+import me.itzg.helpers.files.ExtractedEntry;
 
 interface OverridesApplier {
 
@@ -14,5 +16,9 @@ interface OverridesApplier {
 
         List<Path> paths;
         String levelName;
+        /**
+         * Extracted entries keyed by path relative to output directory, if tracked by the applier
+         */
+        Map<String, ExtractedEntry> entries;
     }
 }
@@ -1,15 +1,16 @@
 package me.itzg.helpers.curseforge;
 
 import java.io.IOException;
-import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.Enumeration;
 import java.util.List;
+import java.util.Map;
 import lombok.extern.slf4j.Slf4j;
 import me.itzg.helpers.files.AntPathMatcher;
+import me.itzg.helpers.files.ExtractedEntry;
+import me.itzg.helpers.files.ZipExtractor;
 import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
 import org.apache.commons.compress.archivers.zip.ZipFile;
 
@@ -25,6 +26,7 @@ public class OverridesFromZipApplier implements OverridesApplier {
     private final String overridesDir;
     private final LevelFrom levelFrom;
     private final AntPathMatcher overridesExclusionsMatcher;
+    private Map<String, ExtractedEntry> previousEntries;
 
     public OverridesFromZipApplier(
         Path outputDir,
@@ -42,6 +44,15 @@ public class OverridesFromZipApplier implements OverridesApplier {
         this.overridesExclusionsMatcher = new AntPathMatcher(overridesExclusions);
     }
 
+    /**
+     * @param previousEntries override entries recorded by a previous install, keyed by relative path,
+     *                        which allows for unchanged entries to be skipped
+     */
+    public OverridesFromZipApplier setPreviousEntries(Map<String, ExtractedEntry> previousEntries) {
+        this.previousEntries = previousEntries;
+        return this;
+    }
+
     @Override
     public Result apply() throws IOException {
         log.debug("Applying overrides from '{}' in zip file", overridesDir);
@@ -60,61 +71,53 @@ public class OverridesFromZipApplier implements OverridesApplier {
         final int overridesPrefixLen = overridesDirPrefix.length();
 
         final List<Path> overrides = new ArrayList<>();
-        try (ZipFile zip = ZipFile.builder().setPath(modpackZip).get()) {
+        final ZipExtractor.Result extractResult = new ZipExtractor()
+            .setPreviousEntries(outputDir, previousEntries)
+            .extract(modpackZip, entry -> {
+                if (!entry.getName().startsWith(overridesDirPrefix)) {
+                    return null;
+                }
+                if (log.isTraceEnabled()) {
+                    log.trace("Processing override entry={}", entry.getName());
+                }
+                final String subpath = entry.getName().substring(overridesPrefixLen);
 
-            final Enumeration<ZipArchiveEntry> entries = zip.getEntries();
-            while (entries.hasMoreElements()) {
-                final ZipArchiveEntry entry = entries.nextElement();
+                if (overridesExclusionsMatcher.matches(subpath)) {
+                    return null;
+                }
+
+                final Path outPath = outputDir.resolve(subpath);
 
-                if (entry.getName().startsWith(overridesDirPrefix)) {
-                    if (!entry.isDirectory()) {
-                        if (log.isTraceEnabled()) {
-                            log.trace("Processing override entry={}:{}", entry.isDirectory() ? "D" : "F", entry.getName());
-                        }
-                        final String subpath = entry.getName().substring(overridesPrefixLen);
-
-                        if (overridesExclusionsMatcher.matches(subpath)) {
-                            continue;
-                        }
-
-                        final Path outPath = outputDir.resolve(subpath);
-
-                        // Rules
-                        // - don't ever overwrite world data
-                        // - user has option to not overwrite any existing file from overrides
-                        // - otherwise user will want latest modpack's overrides content
-
-                        final boolean isInWorldDirectory = levelEntryNamePrefix != null &&
-                            subpath.startsWith(levelEntryNamePrefix);
-
-                        if (worldOutputDirExists && isInWorldDirectory) {
-                            continue;
-                        }
-
-                        if (!(overridesSkipExisting && Files.exists(outPath))) {
-                            log.trace("Applying override {}", subpath);
-                            // zip files don't always list the directories before the files, so just create-as-needed
-                            Files.createDirectories(outPath.getParent());
-                            try (InputStream entryStream = zip.getInputStream(entry)) {
-                                Files.copy(entryStream, outPath, StandardCopyOption.REPLACE_EXISTING);
-                            }
-                        }
-                        else {
-                            log.trace("Skipping override={} since the file already existed", subpath);
-                        }
-
-                        // Track this path for later cleanup
-                        // UNLESS it is within a world/level directory
-                        if (levelEntryName == null || !isInWorldDirectory) {
-                            overrides.add(outPath);
-                        }
-                    }
+                // Rules
+                // - don't ever overwrite world data
+                // - user has option to not overwrite any existing file from overrides
+                // - otherwise user will want latest modpack's overrides content
+
+                final boolean isInWorldDirectory = levelEntryNamePrefix != null &&
+                    subpath.startsWith(levelEntryNamePrefix);
+
+                if (worldOutputDirExists && isInWorldDirectory) {
+                    return null;
                 }
-            }
-        }
+
+                // Track this path for later cleanup
+                // UNLESS it is within a world/level directory
+                if (levelEntryName == null || !isInWorldDirectory) {
+                    overrides.add(outPath);
+                }
+
+                if (overridesSkipExisting && Files.exists(outPath)) {
+                    log.trace("Skipping override={} since the file already existed", subpath);
+                    return null;
+                }
+
+                log.trace("Applying override {}", subpath);
+                return outPath;
+            });
 
         return new Result(overrides,
-            levelFrom == LevelFrom.OVERRIDES ? levelEntryName : null
+            levelFrom == LevelFrom.OVERRIDES ? levelEntryName : null,
+            extractResult.getEntries()
         );
     }
 
@@ -0,0 +1,12 @@
+package me.itzg.helpers.curseforge.model;
+
+import lombok.Data;
+
+@Data
+public class FingerprintMatch {
+    /**
+     * The mod ID
+     */
+    private int id;
+    private CurseForgeFile file;
+}
@@ -0,0 +1,11 @@
+package me.itzg.helpers.curseforge.model;
+
+import java.util.List;
+import lombok.Data;
+
+@Data
+public class FingerprintsMatchesResult {
+    private List<FingerprintMatch> exactMatches;
+    private List<Long> exactFingerprints;
+    private List<Long> unmatchedFingerprints;
+}
@@ -0,0 +1,9 @@
+package me.itzg.helpers.curseforge.model;
+
+import java.util.List;
+import lombok.Data;
+
+@Data
+public class GetFingerprintMatchesRequestBody {
+    private List<Long> fingerprints;
+}
@@ -0,0 +1,8 @@
+package me.itzg.helpers.curseforge.model;
+
+import lombok.Data;
+
+@Data
+public class GetFingerprintMatchesResponse {
+    private FingerprintsMatchesResult data;
+}
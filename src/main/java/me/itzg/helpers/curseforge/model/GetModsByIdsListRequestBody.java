@@ -0,0 +1,10 @@
+package me.itzg.helpers.curseforge.model;
+
+import java.util.List;
+import lombok.Data;
+
+@Data
+public class GetModsByIdsListRequestBody {
+    private List<Integer> modIds;
+    private Boolean filterPcOnly;
+}
@@ -16,6 +16,7 @@ import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 import me.itzg.helpers.errors.GenericException;
 import me.itzg.helpers.errors.InvalidParameterException;
+import me.itzg.helpers.files.FileSchedulers;
 import me.itzg.helpers.files.IoStreams;
 import me.itzg.helpers.files.Manifests;
 import me.itzg.helpers.files.ResultsFileWriter;
@@ -25,7 +26,6 @@ import me.itzg.helpers.http.SharedFetch.Options;
 import org.jetbrains.annotations.Blocking;
 import org.jetbrains.annotations.Nullable;
 import reactor.core.publisher.Mono;
-import reactor.core.scheduler.Schedulers;
 
 @RequiredArgsConstructor
 @Slf4j
@@ -109,7 +109,7 @@ public class FabricLauncherInstaller {
                     Fetch.loggingDownloadStatusHandler(log),
                     skipValidation
                 )
-                .publishOn(Schedulers.boundedElastic())
+                .publishOn(FileSchedulers.blockingIo())
                 .flatMap(launcherPath ->
                     {
                         try {
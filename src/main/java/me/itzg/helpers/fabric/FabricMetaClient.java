@@ -16,7 +16,9 @@ import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 import me.itzg.helpers.errors.GenericException;
 import me.itzg.helpers.errors.InvalidContentException;
+import me.itzg.helpers.files.FileSchedulers;
 import me.itzg.helpers.files.IoStreams;
+import me.itzg.helpers.http.FetchMetrics;
 import me.itzg.helpers.http.FileDownloadStatusHandler;
 import me.itzg.helpers.http.SharedFetch;
 import me.itzg.helpers.http.UriBuilder;
@@ -24,7 +26,6 @@ import org.apache.commons.codec.binary.Hex;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import reactor.core.publisher.Mono;
-import reactor.core.scheduler.Schedulers;
 import reactor.util.retry.Retry;
 
 @Slf4j
@@ -66,7 +67,7 @@ public class FabricMetaClient {
             return Mono.just(version);
         }
 
-        return sharedFetch.fetch(
+        return FetchMetrics.retryScope(sharedFetch.fetch(
                 uriBuilder.resolve("/v2/versions/game")
             )
             .toObjectList(VersionEntry.class)
@@ -85,7 +86,7 @@ public class FabricMetaClient {
                         .switchIfEmpty(Mono.error(() -> new GenericException("Unable to find requested version")));
                 }
             })
-            .retryWhen(Retry.backoff(retryMaxAttempts, retryMinBackoff).filter(IOException.class::isInstance))
+            .retryWhen(Retry.backoff(retryMaxAttempts, retryMinBackoff).filter(IOException.class::isInstance)))
             .checkpoint();
     }
 
@@ -94,7 +95,7 @@ public class FabricMetaClient {
             return Mono.just(loaderVersion);
         }
 
-        return sharedFetch.fetch(
+        return FetchMetrics.retryScope(sharedFetch.fetch(
                 uriBuilder.resolve("/v2/versions/loader/{game_version}", minecraftVersion))
             .toObjectList(LoaderResponseEntry.class)
             .assemble()
@@ -111,7 +112,7 @@ public class FabricMetaClient {
 
                 return Mono.just(loader.getVersion());
             })
-            .retryWhen(Retry.backoff(retryMaxAttempts, retryMinBackoff).filter(IOException.class::isInstance))
+            .retryWhen(Retry.backoff(retryMaxAttempts, retryMinBackoff).filter(IOException.class::isInstance)))
             .checkpoint();
     }
 
@@ -120,7 +121,7 @@ public class FabricMetaClient {
             return Mono.just(installerVersion);
         }
 
-        return sharedFetch.fetch(
+        return FetchMetrics.retryScope(sharedFetch.fetch(
                 uriBuilder.resolve("/v2/versions/installer")
             )
             .toObjectList(InstallerEntry.class)
@@ -133,7 +134,7 @@ public class FabricMetaClient {
                     () -> Mono.error(new GenericException("Failed to find stable installer from " + uriBuilder.getBaseUrl()))
                 )
             )
-            .retryWhen(Retry.backoff(retryMaxAttempts, retryMinBackoff).filter(IOException.class::isInstance))
+            .retryWhen(Retry.backoff(retryMaxAttempts, retryMinBackoff).filter(IOException.class::isInstance)))
             .checkpoint();
     }
 
@@ -142,7 +143,7 @@ public class FabricMetaClient {
         FileDownloadStatusHandler statusHandler,
         boolean skipValidation
     ) {
-        return sharedFetch.fetch(
+        return FetchMetrics.retryScope(sharedFetch.fetch(
                 uriBuilder.resolve(
                     "/v2/versions/loader/{game_version}/{loader_version}/{installer_version}/server/jar",
                     minecraftVersion, loaderVersion, installerVersion
@@ -154,12 +155,12 @@ public class FabricMetaClient {
             .retryWhen(Retry.backoff(downloadRetryMaxAttempts, downloadRetryMinBackoff).filter(IOException.class::isInstance))
             .flatMap(path -> skipValidation ?
                 Mono.just(path)
-                : validateLauncherJar(path).subscribeOn(Schedulers.boundedElastic())
+                : validateLauncherJar(path).subscribeOn(FileSchedulers.blockingIo())
             )
             .doOnError(InvalidContentException.class, e ->
                 log.warn("Invalid launcher jar, will try again: {}", e.getMessage())
             )
-            .retryWhen(Retry.backoff(downloadRetryMaxAttempts, downloadRetryMinBackoff).filter(InvalidContentException.class::isInstance))
+            .retryWhen(Retry.backoff(downloadRetryMaxAttempts, downloadRetryMinBackoff).filter(InvalidContentException.class::isInstance)))
             .checkpoint("downloadLauncher");
     }
 
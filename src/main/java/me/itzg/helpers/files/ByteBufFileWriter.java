@@ -0,0 +1,275 @@
+package me.itzg.helpers.files;
+
+import io.netty.buffer.ByteBuf;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.codec.binary.Hex;
+import org.jetbrains.annotations.Nullable;
+import org.reactivestreams.Subscription;
+import reactor.core.publisher.BaseSubscriber;
+import reactor.core.publisher.MonoSink;
+import reactor.core.scheduler.Scheduler;
+
+/**
+ * Writes retained {@link ByteBuf}s to a file without dedicating a thread to each file.
+ * <p>
+ * Buffers are queued as they arrive from the network and a drain task is scheduled only when the
+ * queue transitions from empty, so a file that's waiting on the network doesn't occupy a thread.
+ * Each drain pass gathers all queued buffers into a single {@link FileChannel#write(ByteBuffer[])} call.
+ * Demand is bounded to {@link #PREFETCH} buffers, which bounds memory held per download when
+ * the disk is slower than the network.
+ * </p>
+ * <p>
+ * When given a non-zero start offset, the existing content up to that offset is kept, included in the
+ * checksum digest, and the buffers are appended after it.
+ * </p>
+ */
+@Slf4j
+class ByteBufFileWriter extends BaseSubscriber<ByteBuf> {
+
+    static final int PREFETCH = 64;
+    private static final int MAX_BATCH = 32;
+
+    private final Path file;
+    private final long startOffset;
+    private final Scheduler scheduler;
+    private final MonoSink<Long> sink;
+    private final @Nullable MessageDigest digest;
+    private final @Nullable ChecksumAlgo checksumAlgo;
+    private final @Nullable String expectedChecksum;
+
+    private final Queue<ByteBuf> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger wip = new AtomicInteger();
+    private volatile boolean done;
+    private volatile Throwable error;
+    private volatile boolean cancelled;
+
+    // only accessed within drain, which is serialized by wip
+    private FileChannel channel;
+    private long totalBytes;
+    private boolean terminated;
+
+    ByteBufFileWriter(Path file, Scheduler scheduler, MonoSink<Long> sink,
+        @Nullable ChecksumAlgo checksumAlgo, @Nullable String expectedChecksum
+    ) {
+        this(file, 0, scheduler, sink, checksumAlgo, expectedChecksum);
+    }
+
+    ByteBufFileWriter(Path file, long startOffset, Scheduler scheduler, MonoSink<Long> sink,
+        @Nullable ChecksumAlgo checksumAlgo, @Nullable String expectedChecksum
+    ) {
+        this.file = file;
+        this.startOffset = startOffset;
+        this.scheduler = scheduler;
+        this.sink = sink;
+        this.checksumAlgo = checksumAlgo;
+        this.expectedChecksum = expectedChecksum;
+        this.digest = checksumAlgo != null && expectedChecksum != null ?
+            Checksums.newDigest(checksumAlgo) : null;
+
+        sink.onCancel(() -> {
+            cancelled = true;
+            cancel();
+            scheduleDrain();
+        });
+    }
+
+    @Override
+    protected void hookOnSubscribe(Subscription subscription) {
+        subscription.request(PREFETCH);
+    }
+
+    @Override
+    protected void hookOnNext(ByteBuf byteBuf) {
+        queue.offer(byteBuf);
+        scheduleDrain();
+    }
+
+    @Override
+    protected void hookOnComplete() {
+        done = true;
+        scheduleDrain();
+    }
+
+    @Override
+    protected void hookOnError(Throwable throwable) {
+        error = throwable;
+        done = true;
+        scheduleDrain();
+    }
+
+    private void scheduleDrain() {
+        if (wip.getAndIncrement() == 0) {
+            scheduler.schedule(this::drain);
+        }
+    }
+
+    private void drain() {
+        int missed = 1;
+        final List<ByteBuf> batch = new ArrayList<>(MAX_BATCH);
+        while (true) {
+            if (terminated) {
+                releaseQueued();
+            }
+            else if (cancelled) {
+                terminated = true;
+                releaseQueued();
+                closeChannel();
+            }
+            else {
+                try {
+                    if (channel == null) {
+                        channel = openChannel();
+                    }
+
+                    ByteBuf byteBuf;
+                    while ((byteBuf = queue.poll()) != null) {
+                        batch.add(byteBuf);
+                        if (batch.size() >= MAX_BATCH) {
+                            writeBatch(batch);
+                        }
+                    }
+                    if (!batch.isEmpty()) {
+                        writeBatch(batch);
+                    }
+
+                    // queue is re-checked since a buffer may have been added after the poll above and before done
+                    if (done && queue.isEmpty()) {
+                        terminated = true;
+                        closeChannel();
+                        if (error != null) {
+                            sink.error(error);
+                        }
+                        else {
+                            verifyAndSucceed();
+                        }
+                    }
+                } catch (IOException | RuntimeException e) {
+                    terminated = true;
+                    batch.forEach(ByteBuf::release);
+                    batch.clear();
+                    releaseQueued();
+                    closeChannel();
+                    cancel();
+                    sink.error(e);
+                }
+            }
+
+            missed = wip.addAndGet(-missed);
+            if (missed == 0) {
+                return;
+            }
+        }
+    }
+
+    private FileChannel openChannel() throws IOException {
+        if (startOffset <= 0) {
+            return FileChannel.open(file,
+                StandardOpenOption.WRITE,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING
+            );
+        }
+
+        final FileChannel resumed = FileChannel.open(file,
+            StandardOpenOption.READ,
+            StandardOpenOption.WRITE
+        );
+        try {
+            // discard anything beyond what is being resumed
+            resumed.truncate(startOffset);
+            if (digest != null) {
+                final ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+                long position = 0;
+                while (position < startOffset) {
+                    buffer.clear();
+                    final int read = resumed.read(buffer, position);
+                    if (read < 0) {
+                        throw new IOException("Existing content of " + file + " is shorter than " + startOffset);
+                    }
+                    buffer.flip();
+                    digest.update(buffer);
+                    position += read;
+                }
+            }
+            resumed.position(startOffset);
+            return resumed;
+        } catch (IOException | RuntimeException e) {
+            resumed.close();
+            throw e;
+        }
+    }
+
+    private void writeBatch(List<ByteBuf> batch) throws IOException {
+        try {
+            final List<ByteBuffer> nioBuffers = new ArrayList<>(batch.size());
+            long remaining = 0;
+            for (final ByteBuf byteBuf : batch) {
+                remaining += byteBuf.readableBytes();
+                // nioBuffers are views with independent positions, so the digest can consume its own
+                Collections.addAll(nioBuffers, byteBuf.nioBuffers());
+                if (digest != null) {
+                    for (final ByteBuffer nioBuffer : byteBuf.nioBuffers()) {
+                        digest.update(nioBuffer);
+                    }
+                }
+            }
+            totalBytes += remaining;
+
+            final ByteBuffer[] array = nioBuffers.toArray(new ByteBuffer[0]);
+            while (remaining > 0) {
+                remaining -= channel.write(array);
+            }
+        } finally {
+            final int count = batch.size();
+            batch.forEach(ByteBuf::release);
+            batch.clear();
+            request(count);
+        }
+    }
+
+    private void verifyAndSucceed() {
+        if (digest != null) {
+            final String actual = Hex.encodeHexString(digest.digest());
+            if (!actual.equalsIgnoreCase(expectedChecksum)) {
+                //noinspection DataFlowIssue since digest is only present when algo is given
+                sink.error(new FileHashInvalidException(
+                    String.format("Downloaded content of %s has %s checksum %s, but expected %s",
+                        file, checksumAlgo.getPrefix(), actual, expectedChecksum
+                    )
+                ));
+                return;
+            }
+        }
+        sink.success(totalBytes);
+    }
+
+    private void releaseQueued() {
+        ByteBuf byteBuf;
+        while ((byteBuf = queue.poll()) != null) {
+            byteBuf.release();
+        }
+    }
+
+    private void closeChannel() {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                log.debug("Failed to close {}", file, e);
+            }
+            channel = null;
+        }
+    }
+}
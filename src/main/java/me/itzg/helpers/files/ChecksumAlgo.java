@@ -1,19 +1,40 @@
 package me.itzg.helpers.files;
 
 import lombok.Getter;
+import org.jetbrains.annotations.Nullable;
 
 @Getter
 public enum ChecksumAlgo {
-    MD5("md5", "MD5"),
-    SHA1("sha1", "SHA-1"),
-    SHA256("sha256", "SHA-256"),;
+    MD5("md5", "MD5", 16),
+    SHA1("sha1", "SHA-1", 20),
+    SHA256("sha256", "SHA-256", 32),
+    SHA512("sha512", "SHA-512", 64),;
 
     private final String prefix;
 
     private final String jdkAlgo;
 
-    ChecksumAlgo(String prefix, String jdkAlgo) {
+    /**
+     * Length of the digest in bytes, where its hex encoding is twice as long
+     */
+    private final int digestLength;
+
+    ChecksumAlgo(String prefix, String jdkAlgo, int digestLength) {
         this.prefix = prefix;
         this.jdkAlgo = jdkAlgo;
+        this.digestLength = digestLength;
+    }
+
+    /**
+     * @param prefix such as the keys used by Modrinth hashes, "sha1" or "sha512"
+     * @return the matching algo or null if not known
+     */
+    public static @Nullable ChecksumAlgo fromPrefix(String prefix) {
+        for (final ChecksumAlgo algo : values()) {
+            if (algo.prefix.equalsIgnoreCase(prefix)) {
+                return algo;
+            }
+        }
+        return null;
     }
 }
@@ -16,23 +16,32 @@ public class Checksums {
 
     @Blocking
     public static boolean valid(Path file, ChecksumAlgo algo, String expectedCheckum) throws IOException {
-        final MessageDigest md;
-        try {
-            md = MessageDigest.getInstance(algo.getJdkAlgo());
-        } catch (NoSuchAlgorithmException e) {
-            throw new IllegalStateException(e);
-        }
+        return expectedCheckum.toLowerCase().equals(compute(file, algo));
+    }
+
+    /**
+     * @return the lowercase, hex encoded digest of the file's content
+     */
+    @Blocking
+    public static String compute(Path file, ChecksumAlgo algo) throws IOException {
+        final MessageDigest md = newDigest(algo);
 
         try (InputStream inputStream = Files.newInputStream(file)) {
-            final byte[] buffer = new byte[1024];
+            final byte[] buffer = new byte[8192];
             int len;
             while ((len = inputStream.read(buffer)) >= 0) {
                 md.update(buffer, 0, len);
             }
         }
-        final byte[] digest = md.digest();
+        return Hex.encodeHexString(md.digest());
+    }
 
-        return expectedCheckum.toLowerCase().equals(Hex.encodeHexString(digest));
+    public static MessageDigest newDigest(ChecksumAlgo algo) {
+        try {
+            return MessageDigest.getInstance(algo.getJdkAlgo());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
     }
 
 }
@@ -0,0 +1,378 @@
+package me.itzg.helpers.files;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributeView;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.jetbrains.annotations.Blocking;
+import reactor.core.publisher.Mono;
+
+/**
+ * A host-wide store of downloaded files keyed by their checksum, such as the sha1 given by CurseForge
+ * or the sha512 given by Modrinth. Files are placed into the requested location by copy, so that in-place
+ * modifications of installed files, such as edited configs, never alter the stored blob.
+ * <p>
+ * Multiple processes, such as several containers sharing a volume, can use the same store directory:
+ * <ul>
+ *     <li>blobs are staged in a temporary directory and committed by an atomic rename, so a partially written
+ *     blob is never visible</li>
+ *     <li>committing and eviction hold an exclusive lock on the store's lock file, which also records the total
+ *     size of the blobs so that the store only needs to be scanned when evicting</li>
+ *     <li>a blob that disappears due to eviction while being placed is treated as a cache miss</li>
+ * </ul>
+ * Blob last-access times are refreshed on each hit, which gives least-recently-used ordering for eviction.
+ * </p>
+ */
+@Slf4j
+public class ContentAddressedStore {
+
+    private static final String LOCK_FILENAME = ".lock";
+    private static final String STAGING_SUBDIR = ".staging";
+    private static final Duration STALE_STAGING_AGE = Duration.ofHours(1);
+    /**
+     * Eviction trims down to this fraction of the max size to avoid evicting on every store
+     */
+    private static final double EVICTION_TARGET_RATIO = 0.9;
+    private static final Pattern LOWER_HEX = Pattern.compile("[0-9a-f]+");
+
+    /**
+     * File locks are held by the whole JVM and overlapping ones throw, so instances sharing
+     * a store directory, such as those of separate fetches, take turns within the process first.
+     */
+    private static final Object lockMonitor = new Object();
+
+    @Getter
+    private final Path baseDir;
+    private final long maxSizeBytes;
+
+    public ContentAddressedStore(Path baseDir, long maxSizeBytes) {
+        this.baseDir = baseDir;
+        this.maxSizeBytes = maxSizeBytes;
+    }
+
+    /**
+     * @return true when the checksum, ignoring case, is hex of the algorithm's digest length, which
+     * also ensures it can't resolve outside the store
+     */
+    static boolean isValidChecksum(ChecksumAlgo algo, String checksum) {
+        return checksum != null
+            && checksum.length() == algo.getDigestLength() * 2
+            && LOWER_HEX.matcher(checksum.toLowerCase()).matches();
+    }
+
+    /**
+     * @throws IllegalArgumentException if the checksum is not valid for the algorithm
+     */
+    Path blobPath(ChecksumAlgo algo, String checksum) {
+        if (!isValidChecksum(algo, checksum)) {
+            throw new IllegalArgumentException("Invalid " + algo.getPrefix() + " checksum: " + checksum);
+        }
+        final String normalized = checksum.toLowerCase();
+        return baseDir.resolve(algo.getPrefix())
+            .resolve(normalized.substring(0, 2))
+            .resolve(normalized);
+    }
+
+    /**
+     * Copies the blob with the given checksum to the target location, if present in the store.
+     *
+     * @return true if the target was placed from the store
+     */
+    @Blocking
+    public boolean retrieve(ChecksumAlgo algo, String checksum, Path target) throws IOException {
+        if (!isValidChecksum(algo, checksum)) {
+            log.debug("Not retrieving {} from download store due to invalid {} checksum {}",
+                target, algo.getPrefix(), checksum
+            );
+            return false;
+        }
+        final Path blob = blobPath(algo, checksum);
+        if (!Files.exists(blob)) {
+            return false;
+        }
+
+        final Path tempTarget = target.resolveSibling(target.getFileName() + ".store");
+        try {
+            Files.copy(blob, tempTarget, StandardCopyOption.REPLACE_EXISTING);
+            Files.move(tempTarget, target, StandardCopyOption.REPLACE_EXISTING);
+        } catch (NoSuchFileException e) {
+            log.debug("Blob {} was evicted while retrieving", blob);
+            Files.deleteIfExists(tempTarget);
+            return false;
+        }
+
+        touch(blob);
+        log.debug("Retrieved {} from download store blob {}", target, blob);
+        return true;
+    }
+
+    /**
+     * Adds the given file to the store if its content matches the given checksum.
+     *
+     * @return true if the file is now present in the store
+     */
+    @Blocking
+    public boolean store(ChecksumAlgo algo, String checksum, Path file) throws IOException {
+        return store(algo, checksum, file, false);
+    }
+
+    /**
+     * @param alreadyVerified true when the caller already verified the file's content, such as while
+     *                        it was downloaded, so the content doesn't need to be re-read to verify it
+     * @return true if the file is now present in the store
+     */
+    @Blocking
+    public boolean store(ChecksumAlgo algo, String checksum, Path file, boolean alreadyVerified) throws IOException {
+        if (!isValidChecksum(algo, checksum)) {
+            log.warn("Not storing {} in download store due to invalid {} checksum {}",
+                file, algo.getPrefix(), checksum
+            );
+            return false;
+        }
+        final Path blob = blobPath(algo, checksum);
+        if (Files.exists(blob)) {
+            touch(blob);
+            return true;
+        }
+
+        if (!alreadyVerified && !Checksums.valid(file, algo, checksum)) {
+            log.warn("Not storing {} in download store since it did not match {} checksum {}",
+                file, algo.getPrefix(), checksum
+            );
+            return false;
+        }
+
+        final Path stagingDir = Files.createDirectories(baseDir.resolve(STAGING_SUBDIR));
+        final Path staged = stagingDir.resolve(UUID.randomUUID().toString());
+        try {
+            // copy rather than link so that later, in-place modifications of the given file don't corrupt the blob
+            Files.copy(file, staged);
+            Files.createDirectories(blob.getParent());
+            commit(staged, blob);
+        } finally {
+            Files.deleteIfExists(staged);
+        }
+        log.debug("Stored {} as download store blob {}", file, blob);
+        return true;
+    }
+
+    /**
+     * Reactive variant of {@link #retrieve(ChecksumAlgo, String, Path)}
+     */
+    public Mono<Boolean> retrieveAsync(ChecksumAlgo algo, String checksum, Path target) {
+        return Mono.fromCallable(() -> retrieve(algo, checksum, target))
+            .onErrorResume(IOException.class, e -> {
+                log.warn("Unable to retrieve {} from download store: {}", target, e.getMessage());
+                return Mono.just(false);
+            })
+            .subscribeOn(FileSchedulers.blockingIo());
+    }
+
+    /**
+     * Reactive variant of {@link #store(ChecksumAlgo, String, Path)} that never fails the
+     * surrounding chain since the store is only an optimization.
+     */
+    public Mono<Path> storeAsync(ChecksumAlgo algo, String checksum, Path file) {
+        return storeAsync(algo, checksum, file, false);
+    }
+
+    /**
+     * Reactive variant of {@link #store(ChecksumAlgo, String, Path, boolean)}
+     */
+    public Mono<Path> storeAsync(ChecksumAlgo algo, String checksum, Path file, boolean alreadyVerified) {
+        return Mono.fromCallable(() -> {
+                store(algo, checksum, file, alreadyVerified);
+                return file;
+            })
+            .onErrorResume(IOException.class, e -> {
+                log.warn("Unable to add {} to download store: {}", file, e.getMessage());
+                return Mono.just(file);
+            })
+            .subscribeOn(FileSchedulers.blockingIo());
+    }
+
+    private static void touch(Path blob) {
+        try {
+            Files.getFileAttributeView(blob, BasicFileAttributeView.class)
+                .setTimes(null, FileTime.from(Instant.now()), null);
+        } catch (IOException e) {
+            log.debug("Unable to update access time of {}", blob, e);
+        }
+    }
+
+    /**
+     * Renames the staged file into place, adds its size to the recorded total, and evicts when that exceeds
+     * the max size, all while holding the store's lock.
+     */
+    @Blocking
+    private void commit(Path staged, Path blob) throws IOException {
+        if (maxSizeBytes <= 0) {
+            move(staged, blob);
+            return;
+        }
+
+        synchronized (lockMonitor) {
+            try (FileChannel lockChannel = FileChannel.open(baseDir.resolve(LOCK_FILENAME),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE
+            )) {
+                final FileLock lock = lockChannel.lock();
+                try {
+                    if (Files.exists(blob)) {
+                        log.debug("Blob {} was concurrently stored", blob);
+                        return;
+                    }
+                    final long blobSize = Files.size(staged);
+                    move(staged, blob);
+
+                    long total = readTotalSize(lockChannel);
+                    total = total >= 0 ? total + blobSize : scanAndCleanup(null);
+                    if (total > maxSizeBytes) {
+                        total = evict();
+                    }
+                    writeTotalSize(lockChannel, total);
+                } finally {
+                    lock.release();
+                }
+            }
+        }
+    }
+
+    private static void move(Path staged, Path blob) throws IOException {
+        try {
+            Files.move(staged, blob, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(staged, blob, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * @return the total size recorded in the lock file or -1 if not yet recorded
+     */
+    private static long readTotalSize(FileChannel lockChannel) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.allocate(32);
+        lockChannel.read(buffer, 0);
+        buffer.flip();
+        final String content = StandardCharsets.US_ASCII.decode(buffer).toString().trim();
+        if (content.isEmpty()) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(content);
+        } catch (NumberFormatException e) {
+            log.debug("Ignoring invalid size recorded in download store lock file: {}", content);
+            return -1;
+        }
+    }
+
+    private static void writeTotalSize(FileChannel lockChannel, long total) throws IOException {
+        lockChannel.truncate(0);
+        lockChannel.write(StandardCharsets.US_ASCII.encode(Long.toString(total)), 0);
+    }
+
+    /**
+     * Removes least recently used blobs until the store is within the target size. The caller must hold the lock.
+     *
+     * @return the resulting total size
+     */
+    private long evict() throws IOException {
+        final List<BlobInfo> blobs = new ArrayList<>();
+        long total = scanAndCleanup(blobs);
+        if (total <= maxSizeBytes) {
+            return total;
+        }
+
+        final long target = (long) (maxSizeBytes * EVICTION_TARGET_RATIO);
+        log.debug("Evicting from download store {} since size {} exceeds max {}", baseDir, total, maxSizeBytes);
+        blobs.sort(Comparator.comparing(blobInfo -> blobInfo.lastAccess));
+        for (final BlobInfo blob : blobs) {
+            if (total <= target) {
+                break;
+            }
+            if (deleteQuietly(blob.path)) {
+                log.trace("Evicted {} from download store", blob.path);
+                total -= blob.size;
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Walks the store to total the size of the blobs and removes stale staged files. The caller must hold the lock.
+     *
+     * @param blobs when not null, receives each blob
+     * @return the total size of the blobs
+     */
+    private long scanAndCleanup(List<BlobInfo> blobs) throws IOException {
+        final Instant staleBefore = Instant.now().minus(STALE_STAGING_AGE);
+        final Path stagingDir = baseDir.resolve(STAGING_SUBDIR);
+        final long[] total = {0};
+
+        try (Stream<Path> paths = Files.walk(baseDir)) {
+            paths.forEach(path -> {
+                final BasicFileAttributes attrs;
+                try {
+                    attrs = Files.readAttributes(path, BasicFileAttributes.class);
+                } catch (IOException e) {
+                    // concurrently removed
+                    return;
+                }
+                if (!attrs.isRegularFile() || path.getFileName().toString().equals(LOCK_FILENAME)) {
+                    return;
+                }
+                if (path.startsWith(stagingDir)) {
+                    if (attrs.lastModifiedTime().toInstant().isBefore(staleBefore)) {
+                        deleteQuietly(path);
+                    }
+                    return;
+                }
+                total[0] += attrs.size();
+                if (blobs != null) {
+                    blobs.add(new BlobInfo(path, attrs.size(), attrs.lastAccessTime().toInstant()));
+                }
+            });
+        }
+        return total[0];
+    }
+
+    private static boolean deleteQuietly(Path path) {
+        try {
+            return Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.debug("Unable to delete {}", path, e);
+            return false;
+        }
+    }
+
+    private static class BlobInfo {
+
+        final Path path;
+        final long size;
+        final Instant lastAccess;
+
+        BlobInfo(Path path, long size, Instant lastAccess) {
+            this.path = path;
+            this.size = size;
+            this.lastAccess = lastAccess;
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package me.itzg.helpers.files;
+
+import lombok.Builder;
+import lombok.Data;
+import lombok.extern.jackson.Jacksonized;
+
+/**
+ * Records a zip entry extracted to a file so that a later extraction can skip re-writing it
+ * when neither the entry nor the file have changed.
+ */
+@Data
+@Builder
+@Jacksonized
+public class ExtractedEntry {
+
+    /**
+     * CRC-32 of the entry as declared in the zip
+     */
+    final long crc;
+    /**
+     * Uncompressed size of the entry, which is also the size of the extracted file
+     */
+    final long size;
+    /**
+     * Modified time of the extracted file in epoch millis
+     */
+    final long lastModified;
+}
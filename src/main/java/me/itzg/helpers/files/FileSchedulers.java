@@ -0,0 +1,26 @@
+package me.itzg.helpers.files;
+
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Provides the scheduler for blocking file operations, such as reading, writing, hashing, and copying files,
+ * which all go through here rather than a scheduler of their own.
+ * <p>
+ * This is the bounded elastic scheduler, which {@link me.itzg.helpers.McImageHelper#main(String[])} configures
+ * with {@value #VIRTUAL_THREADS_PROPERTY} to run each task on a virtual thread when running on Java 21 or newer.
+ * The thread and queued task caps are intentionally kept either way, since they also bound how many files
+ * are open at once.
+ * </p>
+ */
+public final class FileSchedulers {
+
+    public static final String VIRTUAL_THREADS_PROPERTY = "reactor.schedulers.defaultBoundedElasticOnVirtualThreads";
+
+    private FileSchedulers() {
+    }
+
+    public static Scheduler blockingIo() {
+        return Schedulers.boundedElastic();
+    }
+}
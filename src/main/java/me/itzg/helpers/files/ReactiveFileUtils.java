@@ -1,91 +1,84 @@
 package me.itzg.helpers.files;
 
-import io.netty.buffer.ByteBuf;
 import java.io.IOException;
-import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
-import java.nio.file.StandardOpenOption;
 import java.time.Instant;
 import java.util.function.Function;
-import java.util.stream.Collectors;
 import lombok.extern.slf4j.Slf4j;
+import me.itzg.helpers.trace.Tracer;
+import org.jetbrains.annotations.Nullable;
 import reactor.core.publisher.Mono;
-import reactor.core.scheduler.Schedulers;
 import reactor.netty.ByteBufFlux;
-import reactor.util.function.Tuple2;
 
 @Slf4j
 public class ReactiveFileUtils {
 
     /**
      * @return if the file exists, the last modified time or empty if file does not exist.
-     * Returned Mono is already subscribed on bounded elastic scheduler and is cached.
+     * Returned Mono is already subscribed on the blocking I/O scheduler and is cached.
      */
     public static Mono<Instant> getLastModifiedTime(Path file) {
         return Mono.fromCallable(() -> Files.exists(file) ?
                 Files.getLastModifiedTime(file).toInstant() : null
             )
             .cache()
-            .subscribeOn(Schedulers.boundedElastic());
+            .subscribeOn(FileSchedulers.blockingIo());
     }
 
     /**
-     * @return Returned Mono is already subscribed on bounded elastic scheduler.
+     * @return Returned Mono is already subscribed on the blocking I/O scheduler.
      */
     public static Mono<Boolean> fileExists(Path file) {
         return Mono.fromCallable(() -> Files.exists(file))
-            .subscribeOn(Schedulers.boundedElastic());
+            .subscribeOn(FileSchedulers.blockingIo());
     }
 
     public static Mono<Path> createDirectories(Path dir) {
         return Mono.fromCallable(() -> Files.createDirectories(dir))
-            .subscribeOn(Schedulers.boundedElastic());
+            .subscribeOn(FileSchedulers.blockingIo());
     }
 
     public static Mono<Long> writeByteBufFluxToFile(ByteBufFlux byteBufFlux, Path file) {
-        final ByteBufQueue byteBufQueue = new ByteBufQueue();
+        return writeByteBufFluxToFile(byteBufFlux, file, null, null);
+    }
 
-        // Separate this into a pair of concurrent mono's
-        return Mono.zip(
-                // ...file writer
-                Mono.fromCallable(() -> {
-                        try (FileChannel channel = FileChannel.open(file,
-                            StandardOpenOption.WRITE,
-                            StandardOpenOption.CREATE,
-                            StandardOpenOption.TRUNCATE_EXISTING
-                        )) {
-                            ByteBuf byteBuf;
-                            while ((byteBuf = byteBufQueue.take()) != null) {
-                                try {
-                                    //noinspection ResultOfMethodCallIgnored
-                                    channel.write(byteBuf.nioBuffer());
-                                } finally {
-                                    byteBuf.release();
-                                }
-                            }
+    /**
+     * Writes the content to the file while also digesting the same buffers, when a checksum is given,
+     * so that verification doesn't need to re-read the file afterward. Buffers are written in batches
+     * and a thread is only used while there are buffers to write.
+     * @param checksumAlgo if non-null, the algorithm of the expected checksum
+     * @param expectedChecksum hex encoded checksum the content must match
+     * @return the total bytes read from network or an error of {@link FileHashInvalidException} when the content
+     * didn't match the expected checksum. In that case, the partially written file is left for the caller to remove.
+     */
+    public static Mono<Long> writeByteBufFluxToFile(ByteBufFlux byteBufFlux, Path file,
+        @Nullable ChecksumAlgo checksumAlgo, @Nullable String expectedChecksum
+    ) {
+        return writeByteBufFluxToFile(byteBufFlux, file, 0, checksumAlgo, expectedChecksum);
+    }
 
-                            return file;
-                        }
-                    })
-                    // ...which runs in a separate thread
-                    .subscribeOn(Schedulers.boundedElastic()),
-                // ...and the network consumer flux
-                byteBufFlux
-                    // Mark the bytebufs as retained so they can be released after
-                    // they are written by the mono above
-                    .retain()
-                    .map(byteBuf -> {
-                        final int amount = byteBuf.readableBytes();
-                        byteBufQueue.add(byteBuf);
-                        return amount;
-                    })
-                    .doOnTerminate(byteBufQueue::finish)
-                    .collect(Collectors.<Integer>summingLong(value -> value))
-            )
-            // Just expose the total bytes read from network
-            .map(Tuple2::getT2);
+    /**
+     * Same as {@link #writeByteBufFluxToFile(ByteBufFlux, Path, ChecksumAlgo, String)}, but resumes a partially
+     * written file by appending the content after the first {@code startOffset} bytes of the existing file.
+     * The existing bytes are included when verifying the checksum.
+     * @return the bytes read from network, which excludes the existing bytes being resumed
+     */
+    public static Mono<Long> writeByteBufFluxToFile(ByteBufFlux byteBufFlux, Path file, long startOffset,
+        @Nullable ChecksumAlgo checksumAlgo, @Nullable String expectedChecksum
+    ) {
+        return Tracer.trace(Tracer.FILE, "write " + file.getFileName(), span ->
+            Mono.<Long>create(sink ->
+                    byteBufFlux
+                        // Mark the bytebufs as retained so they can be released after they are written
+                        .retain()
+                        .subscribe(new ByteBufFileWriter(file, startOffset, FileSchedulers.blockingIo(), sink,
+                            checksumAlgo, expectedChecksum
+                        ))
+                )
+                .doOnNext(bytes -> span.arg("bytes", bytes))
+        );
     }
 
     /**
@@ -107,7 +100,7 @@ public class ReactiveFileUtils {
                 }
                 sink.error(throwable);
             })
-            .subscribeOn(Schedulers.boundedElastic());
+            .subscribeOn(FileSchedulers.blockingIo());
     }
 
     public static Function<Path, Mono<Path>> moveTo(Path to) {
@@ -116,6 +109,6 @@ public class ReactiveFileUtils {
                 Files.move(from, to, StandardCopyOption.REPLACE_EXISTING);
                 return to;
             })
-            .subscribeOn(Schedulers.boundedElastic());
+            .subscribeOn(FileSchedulers.blockingIo());
     }
 }
@@ -0,0 +1,282 @@
+package me.itzg.helpers.files;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipFile;
+import org.apache.commons.io.FileUtils;
+import org.jetbrains.annotations.Blocking;
+import org.jetbrains.annotations.Nullable;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Extracts selected entries of a zip file concurrently.
+ * <p>
+ * The entries are planned from the zip's central directory, then the distinct parent directories
+ * are created once and the entries are written by a bounded number of workers, each with its own
+ * large buffer.
+ * </p>
+ * <p>
+ * When previously extracted entries are provided with {@link #setPreviousEntries(Path, Map)}, entries whose CRC
+ * and size match the record and whose file still has the recorded size and modified time are not re-written.
+ * </p>
+ */
+@Slf4j
+public class ZipExtractor {
+
+    public static final int DEFAULT_PARALLELISM = Math.max(4, Runtime.getRuntime().availableProcessors());
+    public static final int DEFAULT_BUFFER_SIZE = 256 * 1024;
+
+    private final int parallelism;
+    private final int bufferSize;
+
+    private Path baseDir;
+    private Map<String, ExtractedEntry> previousEntries;
+
+    public ZipExtractor() {
+        this(DEFAULT_PARALLELISM, DEFAULT_BUFFER_SIZE);
+    }
+
+    public ZipExtractor(int parallelism, int bufferSize) {
+        this.parallelism = Math.max(1, parallelism);
+        this.bufferSize = bufferSize;
+    }
+
+    /**
+     * @param baseDir the directory that the keys of the entries are relative to
+     * @param previousEntries entries recorded from {@link Result#getEntries()} of a previous extraction,
+     *                        keyed by path relative to baseDir. Can be null.
+     */
+    public ZipExtractor setPreviousEntries(Path baseDir, @Nullable Map<String, ExtractedEntry> previousEntries) {
+        this.baseDir = baseDir;
+        this.previousEntries = previousEntries != null ? previousEntries : Collections.emptyMap();
+        return this;
+    }
+
+    @FunctionalInterface
+    public interface EntryPlanner {
+
+        /**
+         * Invoked sequentially, in the physical order of the zip, for each non-directory entry.
+         * @return the path where the entry should be written or null to skip writing the entry.
+         * When more than one entry plans the same path, the last one is written.
+         */
+        @Nullable
+        Path plan(ZipArchiveEntry entry) throws IOException;
+    }
+
+    @Getter
+    @ToString
+    @RequiredArgsConstructor
+    public static class Result {
+
+        /**
+         * Planned paths, whether written or unchanged, in the physical order of the zip
+         */
+        @ToString.Exclude
+        private final List<Path> paths;
+        private final int writtenCount;
+        private final int unchangedCount;
+        private final int skippedCount;
+        private final long bytesWritten;
+        private final long durationMillis;
+        /**
+         * Only populated when {@link #setPreviousEntries(Path, Map)} was used, keyed by path relative to
+         * the base directory
+         */
+        @ToString.Exclude
+        private final Map<String, ExtractedEntry> entries;
+
+        public long getBytesPerSecond() {
+            return durationMillis > 0 ? bytesWritten * 1000 / durationMillis : bytesWritten;
+        }
+    }
+
+    @RequiredArgsConstructor
+    private static class PlannedEntry {
+
+        final ZipArchiveEntry entry;
+        final Path outPath;
+    }
+
+    @Blocking
+    public Result extract(Path zipFile, EntryPlanner planner) throws IOException {
+        final long start = System.currentTimeMillis();
+
+        try (ZipFile zip = ZipFile.builder().setPath(zipFile).get()) {
+            final Map<Path, PlannedEntry> planned = new LinkedHashMap<>();
+            int skipped = 0;
+
+            final Enumeration<ZipArchiveEntry> entries = zip.getEntriesInPhysicalOrder();
+            while (entries.hasMoreElements()) {
+                final ZipArchiveEntry entry = entries.nextElement();
+                if (entry.isDirectory()) {
+                    continue;
+                }
+                final Path outPath = planner.plan(entry);
+                if (outPath != null) {
+                    planned.put(outPath, new PlannedEntry(entry, outPath));
+                }
+                else {
+                    ++skipped;
+                }
+            }
+
+            final Map<String, ExtractedEntry> entriesByPath = new ConcurrentHashMap<>();
+            final List<Path> paths = new ArrayList<>(planned.keySet());
+            if (baseDir != null) {
+                // remove the ones that don't need to be written
+                planned.values().removeIf(plannedEntry -> {
+                    final String key = Manifests.relativize(baseDir, plannedEntry.outPath);
+                    final ExtractedEntry unchanged = unchangedEntry(plannedEntry, previousEntries.get(key));
+                    if (unchanged != null) {
+                        log.trace("Skipping unchanged entry {}", plannedEntry.entry.getName());
+                        entriesByPath.put(key, unchanged);
+                        return true;
+                    }
+                    return false;
+                });
+            }
+
+            // zip files don't always list the directories before the files, so create all of them up front.
+            // Sorted order means parents are created before children, so each createDirectories is cheap.
+            final Set<Path> parentDirs = new TreeSet<>();
+            for (final Path outPath : planned.keySet()) {
+                parentDirs.add(outPath.getParent());
+            }
+            for (final Path dir : parentDirs) {
+                Files.createDirectories(dir);
+            }
+
+            final BlockingQueue<byte[]> buffers = new ArrayBlockingQueue<>(parallelism);
+            for (int i = 0; i < parallelism; i++) {
+                buffers.add(new byte[bufferSize]);
+            }
+
+            final Long bytesWritten;
+            try {
+                bytesWritten = Flux.fromIterable(planned.values())
+                    .flatMap(plannedEntry ->
+                            Mono.fromCallable(() -> {
+                                    final long written = writeEntry(zip, plannedEntry, buffers);
+                                    if (baseDir != null) {
+                                        recordEntry(plannedEntry, entriesByPath);
+                                    }
+                                    return written;
+                                })
+                                .subscribeOn(FileSchedulers.blockingIo()),
+                        parallelism
+                    )
+                    .reduce(0L, Long::sum)
+                    .block();
+            } catch (RuntimeException e) {
+                final Throwable cause = Exceptions.unwrap(e);
+                if (cause instanceof IOException) {
+                    throw (IOException) cause;
+                }
+                throw e;
+            }
+
+            final Result result = new Result(paths, planned.size(), paths.size() - planned.size(), skipped,
+                bytesWritten != null ? bytesWritten : 0,
+                System.currentTimeMillis() - start,
+                entriesByPath
+            );
+            if (result.getWrittenCount() > 0) {
+                log.info("Extracted {} entries ({}) from {} in {}ms at {}/s, unchanged {}, skipped {}",
+                    result.getWrittenCount(), FileUtils.byteCountToDisplaySize(result.getBytesWritten()),
+                    zipFile.getFileName(), result.getDurationMillis(),
+                    FileUtils.byteCountToDisplaySize(result.getBytesPerSecond()), result.getUnchangedCount(), skipped
+                );
+            }
+            else {
+                log.debug("No entries extracted from {}, unchanged {}, skipped {}",
+                    zipFile, result.getUnchangedCount(), skipped
+                );
+            }
+            return result;
+        }
+    }
+
+    /**
+     * @return the previous entry if the zip entry and the file on disk are unchanged, otherwise null
+     */
+    private static @Nullable ExtractedEntry unchangedEntry(PlannedEntry plannedEntry, @Nullable ExtractedEntry prev) {
+        final ZipArchiveEntry entry = plannedEntry.entry;
+        if (prev == null || entry.getCrc() == -1 || prev.getCrc() != entry.getCrc() || prev.getSize() != entry.getSize()) {
+            return null;
+        }
+        try {
+            final BasicFileAttributes attrs = Files.readAttributes(plannedEntry.outPath, BasicFileAttributes.class);
+            return attrs.isRegularFile()
+                && attrs.size() == prev.getSize()
+                && attrs.lastModifiedTime().toMillis() == prev.getLastModified() ?
+                prev : null;
+        } catch (IOException e) {
+            // such as no longer exists
+            return null;
+        }
+    }
+
+    private void recordEntry(PlannedEntry plannedEntry, Map<String, ExtractedEntry> entriesByPath) throws IOException {
+        final ZipArchiveEntry entry = plannedEntry.entry;
+        if (entry.getCrc() == -1) {
+            return;
+        }
+        entriesByPath.put(Manifests.relativize(baseDir, plannedEntry.outPath),
+            ExtractedEntry.builder()
+                .crc(entry.getCrc())
+                .size(entry.getSize())
+                .lastModified(Files.getLastModifiedTime(plannedEntry.outPath).toMillis())
+                .build()
+        );
+    }
+
+    private static long writeEntry(ZipFile zip, PlannedEntry plannedEntry, BlockingQueue<byte[]> buffers)
+        throws IOException, InterruptedException {
+        final byte[] buffer = buffers.take();
+        try (InputStream in = zip.getInputStream(plannedEntry.entry);
+            FileChannel out = FileChannel.open(plannedEntry.outPath,
+                StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING
+            )
+        ) {
+            log.trace("Extracting {} to {}", plannedEntry.entry.getName(), plannedEntry.outPath);
+            long total = 0;
+            int len;
+            while ((len = in.read(buffer)) >= 0) {
+                final ByteBuffer byteBuffer = ByteBuffer.wrap(buffer, 0, len);
+                while (byteBuffer.hasRemaining()) {
+                    total += out.write(byteBuffer);
+                }
+            }
+            return total;
+        } catch (IOException e) {
+            throw new IOException(String.format("Failed to extract %s", plannedEntry.entry.getName()), e);
+        } finally {
+            buffers.add(buffer);
+        }
+    }
+}
@@ -13,6 +13,7 @@ import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import lombok.NonNull;
@@ -25,6 +26,8 @@ import me.itzg.helpers.json.ObjectMappers;
 import me.itzg.helpers.libraries.LibraryCleaner;
 import me.itzg.helpers.libraries.LibraryListPaths;
 
+import me.itzg.helpers.trace.Span;
+import me.itzg.helpers.trace.Tracer;
 import org.apache.maven.artifact.versioning.ComparableVersion;
 import org.jetbrains.annotations.Nullable;
 
@@ -192,6 +195,32 @@ public class ForgeLikeInstaller {
         }
     }
 
+    private static void readInstallerOutput(Process process, Path outputDir, AtomicReference<Path> entryFile) {
+        try (BufferedReader reader = new BufferedReader(
+            new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                final Matcher m = RESULT_INFO.matcher(line);
+                if (m.matches()) {
+                    final String exec = m.group("exec");
+                    if (exec != null) {
+                        entryFile.set(Paths.get(exec));
+                        log.debug("Observed entry file from exec line: {}", entryFile.get());
+                    } else {
+                        final String universalJar = m.group("universalJar");
+                        if (universalJar != null) {
+                            entryFile.set(outputDir.resolve(universalJar));
+                            log.debug("Observed entry file from universal jar log line: {}", entryFile.get());
+                        }
+                    }
+                }
+            }
+        } catch (IOException e) {
+            // such as when the installer was destroyed
+            log.debug("Stopped reading forge installer output", e);
+        }
+    }
+
     /**
      *
      */
@@ -200,7 +229,7 @@ public class ForgeLikeInstaller {
             variant, forgeVersion, minecraftVersion
         );
 
-        try {
+        try (Span ignored = Tracer.start(Tracer.PHASE, variant + " installer").arg("version", forgeVersion)) {
             final Process process = new ProcessBuilder(
                 "java", "-jar", installerJar.toAbsolutePath().toString(), "--installServer"
             )
@@ -208,31 +237,20 @@ public class ForgeLikeInstaller {
                 .redirectError(Redirect.INHERIT)
                 .start();
 
-            final BufferedReader reader = new BufferedReader(
-                new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
-
-            Path entryFile = null;
-            String line;
-            while ((line = reader.readLine()) != null) {
-                final Matcher m = RESULT_INFO.matcher(line);
-                if (m.matches()) {
-                    final String exec = m.group("exec");
-                    if (exec != null) {
-                        entryFile = Paths.get(exec);
-                        log.debug("Observed entry file from exec line: {}", entryFile);
-                    } else {
-                        final String universalJar = m.group("universalJar");
-                        if (universalJar != null) {
-                            entryFile = outputDir.resolve(universalJar);
-                            log.debug("Observed entry file from universal jar log line: {}", entryFile);
-                        }
-                    }
-                }
-            }
+            // output is read separately so that this thread waits interruptibly, which allows for
+            // destroying the installer when cancelled, such as when concurrent mod downloads failed
+            final AtomicReference<Path> observedEntryFile = new AtomicReference<>();
+            final Thread outputReader = new Thread(
+                () -> readInstallerOutput(process, outputDir, observedEntryFile),
+                "forge-installer-output"
+            );
+            outputReader.setDaemon(true);
+            outputReader.start();
 
             final Path installerLog = resolveInstallerLog(outputDir, installerJar);
             try {
                 final int exitCode = process.waitFor();
+                outputReader.join();
                 if (exitCode != 0) {
                     if (Files.exists(installerLog)) {
                         Files.copy(installerLog, System.err);
@@ -240,9 +258,12 @@ public class ForgeLikeInstaller {
                     throw new GenericException("Forge installer failed with exit code " + exitCode);
                 }
             } catch (InterruptedException e) {
+                process.destroyForcibly();
                 throw new GenericException("Interrupted waiting for forge installer", e);
             }
 
+            Path entryFile = observedEntryFile.get();
+
             // A 1.12.2 style installer that doesn't report entry point in logs
             // >= 1.20.4 where "Exec:" line is no longer included in logs
             if (entryFile == null) {
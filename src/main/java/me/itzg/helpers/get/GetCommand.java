@@ -4,6 +4,7 @@ import static me.itzg.helpers.McImageHelper.OPTION_SPLIT_COMMAS;
 import static me.itzg.helpers.http.Fetch.fetch;
 import static me.itzg.helpers.singles.NormalizeOptions.normalizeStream;
 
+import io.netty.handler.codec.http.HttpResponseStatus;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.net.URI;
@@ -15,13 +16,16 @@ import java.nio.file.Path;
 import java.nio.file.PathMatcher;
 import java.nio.file.Paths;
 import java.nio.file.attribute.FileTime;
+import java.time.Duration;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Base64;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.concurrent.Callable;
@@ -30,13 +34,21 @@ import java.util.stream.Stream;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import me.itzg.helpers.McImageHelper;
+import me.itzg.helpers.errors.GenericException;
 import me.itzg.helpers.errors.InvalidParameterException;
 import me.itzg.helpers.http.DeriveFilenameHandler;
+import me.itzg.helpers.http.FailedRequestException;
+import me.itzg.helpers.http.Fetch;
+import me.itzg.helpers.http.FetchBuilderBase;
+import me.itzg.helpers.http.FetchMetrics;
+import me.itzg.helpers.http.FileDownloadStatus;
 import me.itzg.helpers.http.LatchingUrisInterceptor;
 import me.itzg.helpers.http.LenientUriConverter;
 import me.itzg.helpers.http.NotModifiedHandler;
 import me.itzg.helpers.http.OutputResponseHandler;
 import me.itzg.helpers.http.OutputToDirectoryHandler;
+import me.itzg.helpers.http.SharedFetch;
+import me.itzg.helpers.http.SharedFetchArgs;
 import org.apache.hc.client5.http.HttpResponseException;
 import org.apache.hc.client5.http.classic.methods.HttpGet;
 import org.apache.hc.client5.http.classic.methods.HttpHead;
@@ -44,14 +56,17 @@ import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
 import org.apache.hc.client5.http.impl.classic.HttpClients;
 import org.apache.hc.core5.http.ContentType;
 import org.apache.hc.core5.http.HttpHeaders;
-import org.apache.hc.core5.http.HttpResponse;
 import org.apache.hc.core5.http.HttpStatus;
 import picocli.CommandLine;
+import picocli.CommandLine.ArgGroup;
 import picocli.CommandLine.ExitCode;
 import picocli.CommandLine.Option;
 import picocli.CommandLine.ParameterException;
 import picocli.CommandLine.Parameters;
 import picocli.CommandLine.Spec;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
 
 @CommandLine.Command(name = "get", description = "Download a file")
 @Slf4j
@@ -135,6 +150,16 @@ public class GetCommand implements Callable<Integer> {
     @Option(names = "--retry-delay", description = "in seconds", defaultValue = "2")
     int retryDelay;
 
+    @Option(names = "--concurrency", defaultValue = "1", paramLabel = "N",
+        description = "When more than one, the URIs retrieved into an output directory or checked with --exists"
+            + " are processed concurrently using a shared HTTP client"
+            + "%nDefault: ${DEFAULT-VALUE}"
+    )
+    int concurrency = 1;
+
+    @ArgGroup(exclusive = false)
+    SharedFetchArgs sharedFetchArgs = new SharedFetchArgs();
+
     @Parameters(split = OPTION_SPLIT_COMMAS, paramLabel = "URI",
         description = "The URI of the resource to retrieve. When the output is a directory,"
             + " more than one URI can be requested.",
@@ -142,6 +167,16 @@ public class GetCommand implements Callable<Integer> {
     )
     List<URI> uris;
 
+    /**
+     * Same as those retried by {@link ExtendedRequestRetryStrategy}
+     */
+    private static final Set<HttpResponseStatus> RETRYABLE_STATUSES = new HashSet<>(Arrays.asList(
+        HttpResponseStatus.TOO_MANY_REQUESTS,
+        HttpResponseStatus.SERVICE_UNAVAILABLE,
+        // some APIs, such as CurseForge, are intermittently responding 403
+        HttpResponseStatus.FORBIDDEN
+    ));
+
     private final static DateTimeFormatter httpDateTimeFormatter =
         DateTimeFormatter.RFC_1123_DATE_TIME.withZone(ZoneId.of("GMT"));
 
@@ -174,7 +209,7 @@ public class GetCommand implements Callable<Integer> {
             final PrintWriter stdout = spec.commandLine().getOut();
 
             if (checkExists) {
-                return checkUrisExist(client);
+                return checkUrisExist();
             } else if (jsonPath != null) {
                 validateSingleUri();
 
@@ -196,8 +231,8 @@ public class GetCommand implements Callable<Integer> {
                 validateSingleUri();
                 processSingleUri(uris.get(0), client, null, new PrintWriterHandler(stdout));
             } else if (Files.isDirectory(outputFile)) {
-                final Collection<Path> files = processUrisForDirectory(client,
-                    interceptor);
+                final Collection<Path> files = concurrency > 1 ? processUrisForDirectoryConcurrently()
+                    : processUrisForDirectory(client, interceptor);
                 if (outputFilename) {
                     files.forEach(stdout::println);
                 }
@@ -232,37 +267,72 @@ public class GetCommand implements Callable<Integer> {
         return ExitCode.OK;
     }
 
-    private int checkUrisExist(CloseableHttpClient client) {
-        if (uris.stream()
-            .allMatch(uri -> {
-                log.debug("Checking {}", uri);
-                final HttpHead request = new HttpHead(uri);
+    /**
+     * Sequential and concurrent checks both go through {@link #checkUriExists(SharedFetch, URI)}
+     * so that they retry the same way.
+     */
+    private int checkUrisExist() {
+        try (SharedFetch sharedFetch = Fetch.sharedFetch("get", sharedFetchArgs.options())) {
+            final List<Boolean> results = Flux.fromIterable(uris)
+                .flatMapSequential(uri -> checkUriExists(sharedFetch, uri), Math.max(concurrency, 1))
+                .collectList()
+                .block();
+
+            return results != null && results.stream().allMatch(exists -> exists) ?
+                ExitCode.OK : ExitCode.SOFTWARE;
+        }
+    }
+
+    private Mono<Boolean> checkUriExists(SharedFetch sharedFetch, URI uri) {
+        return sharedFetch.getReactiveClient()
+            .headers(headers -> {
                 if (acceptContentTypes != null) {
-                    for (String acceptContentType : acceptContentTypes) {
-                        request.addHeader(HttpHeaders.ACCEPT, acceptContentType);
-                    }
+                    headers.set(HttpHeaders.ACCEPT, acceptContentTypes);
                 }
                 if (apikeyHeader != null) {
-                    request.addHeader("x-api-key", apikeyHeader);
+                    headers.set("x-api-key", apikeyHeader);
                 }
-                try {
-                    final int statusCode = client.execute(request, HttpResponse::getCode);
-                    if (statusCode == HttpStatus.SC_OK) {
-                        return true;
-                    } else {
-                        log.warn("{} cannot be retrieved: status={}", uri, statusCode);
-                        return false;
-                    }
-                } catch (IOException e) {
-                    throw new IllegalStateException(String.format("Failed to retrieve: %s", uri),
-                        e);
+            })
+            .followRedirect(true)
+            .doOnRequest((req, connection) -> log.debug("Checking {}", uri))
+            .head()
+            .uri(uri)
+            .responseSingle((resp, bodyMono) -> {
+                if (RETRYABLE_STATUSES.contains(resp.status())) {
+                    return Mono.error(new FailedRequestException(resp.status(), uri, null,
+                        "Checking existence", resp.responseHeaders()
+                    ));
                 }
+                return Mono.just(resp.status().code());
             })
-        ) {
-            return ExitCode.OK;
-        } else {
-            return ExitCode.SOFTWARE;
-        }
+            // the reactive client is used directly, so rate limiting is not handled by the shared fetch
+            .retryWhen(retrySpec(true))
+            .onErrorResume(FailedRequestException.class, e -> Mono.just(e.getStatusCode()))
+            .onErrorMap(e -> !(e instanceof FailedRequestException),
+                e -> new IllegalStateException(String.format("Failed to retrieve: %s", uri), e)
+            )
+            .map(statusCode -> {
+                if (statusCode == HttpStatus.SC_OK) {
+                    return true;
+                }
+                else {
+                    log.warn("{} cannot be retrieved: status={}", uri, statusCode);
+                    return false;
+                }
+            });
+    }
+
+    /**
+     * @param retryRateLimited false when the request was made through the shared fetch, which already parks and
+     *                         retries rate limited requests
+     */
+    private Retry retrySpec(boolean retryRateLimited) {
+        return Retry.fixedDelay(retryCount, Duration.ofSeconds(retryDelay))
+            .filter(throwable -> (retryRateLimited || !FailedRequestException.isRateLimited(throwable))
+                && (throwable instanceof IOException
+                || FailedRequestException.isStatus(throwable, RETRYABLE_STATUSES.toArray(new HttpResponseStatus[0])))
+            )
+            .onRetryExhaustedThrow((retrySpec, signal) -> signal.failure());
     }
 
     private void readUris() throws IOException {
@@ -296,7 +366,8 @@ public class GetCommand implements Callable<Integer> {
             }
         }
 
-        final Set<Path> processed = new HashSet<>();
+        // retain URI order for output
+        final Set<Path> processed = new LinkedHashSet<>();
 
         for (URI uri : uris) {
             NeedsDownloadResult result = needsDownload(client, interceptor, uri, processed);
@@ -317,6 +388,83 @@ public class GetCommand implements Callable<Integer> {
         return processed;
     }
 
+    /**
+     * Same as {@link #processUrisForDirectory(CloseableHttpClient, LatchingUrisInterceptor)}, but the
+     * filename probes and downloads of each URI proceed concurrently
+     */
+    private Collection<Path> processUrisForDirectoryConcurrently() {
+        if (usingPrune()) {
+            if (pruneDepth <= 0) {
+                throw new ParameterException(spec.commandLine(),
+                    "Prune depth must be 1 or greater");
+            }
+        }
+
+        final Set<Path> processed;
+        try (SharedFetch sharedFetch = Fetch.sharedFetch("get", sharedFetchArgs.options())) {
+            final List<Path> files = Flux.fromIterable(uris)
+                // emits in the order of the URIs
+                .flatMapSequential(uri -> fetchToDirectory(sharedFetch, uri), concurrency)
+                .collectList()
+                .block();
+            processed = files != null ? new LinkedHashSet<>(files) : Collections.emptySet();
+        }
+
+        if (usingPrune()) {
+            try {
+                pruneOtherFiles(processed);
+            } catch (IOException e) {
+                throw new GenericException("Failed to prune other files", e);
+            }
+        }
+
+        return processed;
+    }
+
+    private Mono<Path> fetchToDirectory(SharedFetch sharedFetch, URI uri) {
+        final URI requestUri;
+        try {
+            requestUri = uri.getPath().startsWith("//") ?
+                alterUriPath(uri, uri.getPath().substring(1)) : uri;
+        } catch (URISyntaxException e) {
+            return Mono.error(new InvalidParameterException("A given URI is invalid", e));
+        }
+
+        final FetchBuilderBase<?> fetchBuilder = sharedFetch.fetch(requestUri)
+            .userAgentCommand("get");
+        if (apikeyHeader != null) {
+            fetchBuilder.header("x-api-key", apikeyHeader);
+        }
+        if (acceptContentTypes != null) {
+            fetchBuilder.acceptContentTypes(acceptContentTypes);
+        }
+
+        return FetchMetrics.retryScope(fetchBuilder
+            .toDirectory(outputFile)
+            .skipExisting(skipExisting)
+            .skipUpToDate(skipUpToDate)
+            .handleStatus((status, statusUri, file) -> {
+                if (status == FileDownloadStatus.SKIP_FILE_EXISTS || status == FileDownloadStatus.SKIP_FILE_UP_TO_DATE) {
+                    if (logProgressEach) {
+                        log.info("Skipping {} since {} is already present", uri, file);
+                    }
+                    else {
+                        log.debug("Skipping {} since {} is already present", uri, file);
+                    }
+                }
+            })
+            .handleDownloaded((downloadedUri, file, contentSizeBytes) -> {
+                if (logProgressEach) {
+                    log.info("Downloaded {}", file);
+                }
+            })
+            .assemble()
+            .retryWhen(retrySpec(false)))
+            .onErrorMap(FailedRequestException.class, e -> new GenericException(
+                String.format("Failed to retrieve %s: %s", uri, e.getMessage()), e
+            ));
+    }
+
     @RequiredArgsConstructor
     static class NeedsDownloadResult {
         final boolean needsDownload;
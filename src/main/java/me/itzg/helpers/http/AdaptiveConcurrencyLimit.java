@@ -0,0 +1,124 @@
+package me.itzg.helpers.http;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+import lombok.extern.slf4j.Slf4j;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Additive-increase, multiplicative-decrease limit of concurrent downloads.
+ * <p>
+ * After each window of completions, which is as many as the current limit, the limit is increased by one
+ * as long as the throughput of that window improved upon the previous one. When the server throttles or
+ * drops a request, the limit is halved and all downloads are paused for the requested or a default duration.
+ * </p>
+ */
+@Slf4j
+class AdaptiveConcurrencyLimit {
+
+    static final Duration DEFAULT_PAUSE = Duration.ofSeconds(1);
+    static final Duration MAX_DEFAULT_PAUSE = Duration.ofSeconds(30);
+
+    private final int ceiling;
+    private final LongSupplier nanoTime;
+    private int limit;
+
+    private long pausedUntilNanos;
+    private boolean paused;
+
+    private int windowCompletions;
+    private long windowUnits;
+    private long windowStartNanos;
+    private boolean decreasedInWindow;
+    private double previousThroughput;
+
+    /**
+     * @param ceiling the maximum limit, such as given by the user
+     * @param initial the starting limit, which is bounded to one and the ceiling
+     */
+    AdaptiveConcurrencyLimit(int ceiling, int initial) {
+        this(ceiling, initial, System::nanoTime);
+    }
+
+    AdaptiveConcurrencyLimit(int ceiling, int initial, LongSupplier nanoTime) {
+        this.ceiling = Math.max(1, ceiling);
+        this.limit = Math.max(1, Math.min(initial, this.ceiling));
+        this.nanoTime = nanoTime;
+        this.windowStartNanos = nanoTime.getAsLong();
+    }
+
+    synchronized int getLimit() {
+        return limit;
+    }
+
+    /**
+     * @return the remaining time that downloads should stay paused, which is zero when not paused
+     */
+    synchronized Duration pauseRemaining() {
+        if (!paused) {
+            return Duration.ZERO;
+        }
+        final long remaining = pausedUntilNanos - nanoTime.getAsLong();
+        if (remaining <= 0) {
+            paused = false;
+            return Duration.ZERO;
+        }
+        return Duration.ofNanos(remaining);
+    }
+
+    /**
+     * @param size the size of the completed download in bytes or zero if unknown, in which case it counts as one
+     */
+    synchronized void onSuccess(long size) {
+        windowUnits += Math.max(size, 1);
+        if (++windowCompletions < limit) {
+            return;
+        }
+
+        final long elapsed = Math.max(nanoTime.getAsLong() - windowStartNanos, 1);
+        final double throughput = (double) windowUnits / elapsed;
+        if (throughput >= previousThroughput && !decreasedInWindow && limit < ceiling) {
+            limit++;
+            log.debug("Increased download concurrency to {}", limit);
+        }
+        previousThroughput = throughput;
+        resetWindow();
+    }
+
+    /**
+     * @param retryAfter the pause requested by the server, if any
+     * @param attempt the number of consecutive times the same download has been throttled, starting at zero
+     * @return how long to wait before retrying the download
+     */
+    synchronized Duration onThrottled(@Nullable Duration retryAfter, long attempt) {
+        // several downloads are typically throttled together, so only back off once per window
+        if (!decreasedInWindow) {
+            limit = Math.max(1, limit / 2);
+            log.debug("Decreased download concurrency to {}", limit);
+            // the next throughput comparison shouldn't be against the pre-throttled rate
+            previousThroughput = 0;
+            resetWindow();
+            decreasedInWindow = true;
+        }
+
+        final Duration pause = retryAfter != null ? retryAfter : defaultPause(attempt);
+        final long until = nanoTime.getAsLong() + pause.toNanos();
+        if (!paused || until > pausedUntilNanos) {
+            pausedUntilNanos = until;
+            paused = true;
+        }
+        return pauseRemaining();
+    }
+
+    private static Duration defaultPause(long attempt) {
+        final Duration pause = DEFAULT_PAUSE.multipliedBy(1L << Math.min(attempt, 5));
+        return pause.compareTo(MAX_DEFAULT_PAUSE) > 0 ? MAX_DEFAULT_PAUSE : pause;
+    }
+
+    private void resetWindow() {
+        windowCompletions = 0;
+        windowUnits = 0;
+        windowStartNanos = nanoTime.getAsLong();
+        decreasedInWindow = false;
+    }
+}
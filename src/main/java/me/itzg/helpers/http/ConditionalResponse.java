@@ -0,0 +1,52 @@
+package me.itzg.helpers.http;
+
+import java.time.Instant;
+import java.util.function.Function;
+import lombok.Value;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Result of a conditional request made with
+ * {@link ObjectFetchBuilder#assembleConditional(String, Instant)}
+ *
+ * @param <T> the response type
+ */
+@Value
+public class ConditionalResponse<T> {
+
+    /**
+     * The parsed response or null when {@link #isNotModified()}
+     */
+    @Nullable
+    T value;
+    boolean notModified;
+    /**
+     * Validator to use in a later If-None-Match request, if the server provided one
+     */
+    @Nullable
+    String etag;
+    /**
+     * Validator to use in a later If-Modified-Since request, if the server provided one
+     */
+    @Nullable
+    Instant lastModified;
+
+    public static <T> ConditionalResponse<T> modified(T value, @Nullable String etag, @Nullable Instant lastModified) {
+        return new ConditionalResponse<>(value, false, etag, lastModified);
+    }
+
+    public static <T> ConditionalResponse<T> notModified(@Nullable String etag, @Nullable Instant lastModified) {
+        return new ConditionalResponse<>(null, true, etag, lastModified);
+    }
+
+    public boolean hasValidators() {
+        return etag != null || lastModified != null;
+    }
+
+    /**
+     * Maps the value, if modified, while retaining the validators
+     */
+    public <R> ConditionalResponse<R> map(Function<T, R> mapper) {
+        return new ConditionalResponse<>(value != null ? mapper.apply(value) : null, notModified, etag, lastModified);
+    }
+}
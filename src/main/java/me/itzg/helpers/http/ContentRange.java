@@ -0,0 +1,47 @@
+package me.itzg.helpers.http;
+
+import lombok.Value;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Parsed value of a Content-Range response header, such as {@code bytes 100-999/1000}
+ */
+@Value
+class ContentRange {
+
+    long start;
+    /**
+     * Inclusive position of the last byte
+     */
+    long end;
+    /**
+     * Total length of the content or -1 if the server declared it unknown
+     */
+    long totalLength;
+
+    /**
+     * @return the parsed range or null if absent or not a satisfied byte range
+     */
+    @Nullable
+    static ContentRange parse(@Nullable String contentRange) {
+        if (contentRange == null || !contentRange.startsWith("bytes ")) {
+            return null;
+        }
+        final String spec = contentRange.substring("bytes ".length()).trim();
+        final int dash = spec.indexOf('-');
+        final int slash = spec.indexOf('/');
+        if (dash < 0 || slash < dash) {
+            return null;
+        }
+        try {
+            final String total = spec.substring(slash + 1).trim();
+            return new ContentRange(
+                Long.parseLong(spec.substring(0, dash).trim()),
+                Long.parseLong(spec.substring(dash + 1, slash).trim()),
+                total.equals("*") ? -1 : Long.parseLong(total)
+            );
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
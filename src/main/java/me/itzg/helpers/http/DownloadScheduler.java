@@ -0,0 +1,229 @@
+package me.itzg.helpers.http;
+
+import io.netty.channel.ConnectTimeoutException;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+import lombok.extern.slf4j.Slf4j;
+import me.itzg.helpers.errors.RateLimitException;
+import me.itzg.helpers.http.HostRateLimiters.ThrottleListener;
+import org.jetbrains.annotations.Nullable;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+import reactor.util.retry.Retry;
+
+/**
+ * Schedules downloads of known sizes to minimize the overall time to download all of them.
+ * <p>
+ * Most lanes take the largest remaining download first, so that a large file doesn't start last and
+ * determine the tail of the whole operation. A portion of the lanes instead take the smallest remaining
+ * download first, so small files keep flowing rather than waiting behind the large ones.
+ * All lanes keep taking from the other end once their own end has been exhausted.
+ * </p>
+ * <p>
+ * Items with an unknown size, given as zero or less, are treated as small.
+ * </p>
+ * <p>
+ * All lanes are active to start with, unless adaptive concurrency is enabled, in which case half of them start
+ * and more become active as long as the observed throughput improves.
+ * When the server throttles a download, the number of lanes is reduced, all lanes pause for
+ * the duration given by Retry-After or a default backoff, and the download is retried. Rate limited
+ * responses are not retried here since the shared fetch's host rate limiter already retried them, but
+ * the host rate limiter reports each one so that the number of lanes is reduced all the same.
+ * </p>
+ */
+@Slf4j
+public class DownloadScheduler {
+
+    static final int MAX_THROTTLED_RETRIES = 5;
+    /**
+     * Throttling that asks for a longer pause than this fails the download instead
+     */
+    static final Duration MAX_PAUSE = Duration.ofMinutes(2);
+    private static final Duration IDLE_LANE_CHECK = Duration.ofMillis(100);
+
+    private final int concurrency;
+    private final int initialConcurrency;
+
+    /**
+     * @param concurrency the maximum number of concurrent downloads, where less than one uses the default of 10
+     */
+    public DownloadScheduler(int concurrency) {
+        this(concurrency, false);
+    }
+
+    /**
+     * @param concurrency the maximum number of concurrent downloads, where less than one uses the default of 10
+     * @param adaptive when true, start with half of the concurrency and increase while throughput improves
+     */
+    public DownloadScheduler(int concurrency, boolean adaptive) {
+        this(concurrency, adaptive ? (concurrency > 0 ? concurrency : 10) / 2 : concurrency);
+    }
+
+    DownloadScheduler(int concurrency, int initialConcurrency) {
+        this.concurrency = concurrency > 0 ? concurrency : 10;
+        this.initialConcurrency = initialConcurrency > 0 ? initialConcurrency : this.concurrency;
+    }
+
+    /**
+     * @return the number of lanes that take the smallest remaining download first
+     */
+    static int smallLanes(int lanes) {
+        if (lanes >= 4) {
+            return lanes / 4;
+        }
+        return lanes >= 2 ? 1 : 0;
+    }
+
+    /**
+     * @return true if the failure indicates the server is throttling requests, which is a 429 or 503 response
+     * or a connect timeout. Other connection failures and server errors are not a sign of throttling.
+     */
+    public static boolean isThrottled(Throwable throwable) {
+        if (throwable instanceof FailedRequestException) {
+            final int status = ((FailedRequestException) throwable).getStatusCode();
+            return status == HttpResponseStatus.TOO_MANY_REQUESTS.code()
+                || status == HttpResponseStatus.SERVICE_UNAVAILABLE.code();
+        }
+        return throwable instanceof RateLimitException
+            || throwable instanceof ConnectTimeoutException;
+    }
+
+    @Nullable
+    private static Duration requestedPause(Throwable throwable) {
+        if (throwable instanceof FailedRequestException) {
+            return ((FailedRequestException) throwable).getRetryAfter();
+        }
+        if (throwable instanceof RateLimitException) {
+            final Instant delayUntil = ((RateLimitException) throwable).getDelayUntil();
+            if (delayUntil != null) {
+                final Duration delay = Duration.between(Instant.now(), delayUntil);
+                return delay.isNegative() ? Duration.ZERO : delay;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @param items the items to download
+     * @param sizeOf provides the expected size of each item in bytes, or zero if unknown
+     * @param download performs the download of an item and will be re-invoked if the download is throttled
+     * @return the results of the downloads in the order they complete
+     */
+    public <T, R> Flux<R> schedule(Collection<T> items, ToLongFunction<T> sizeOf,
+        Function<T, ? extends Publisher<R>> download
+    ) {
+        return Flux.defer(() -> {
+            final List<T> sorted = new ArrayList<>(items);
+            // stable, so equal sizes retain their given order
+            sorted.sort(Comparator.comparingLong(sizeOf).reversed());
+            final Deque<T> queue = new ConcurrentLinkedDeque<>(sorted);
+
+            final long totalBytes = sorted.stream().mapToLong(item -> Math.max(sizeOf.applyAsLong(item), 0)).sum();
+            final long largestBytes = sorted.isEmpty() ? 0 : Math.max(sizeOf.applyAsLong(sorted.get(0)), 0);
+            final Stats stats = new Stats();
+            final AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(concurrency, initialConcurrency);
+
+            final List<Flux<R>> lanes = new ArrayList<>(concurrency);
+            for (int i = 0; i < concurrency; i++) {
+                lanes.add(lane(i, queue, limit, sizeOf, download, stats));
+            }
+
+            final long start = System.nanoTime();
+            return Flux.merge(lanes)
+                .doOnComplete(() -> stats.report(System.nanoTime() - start, totalBytes, largestBytes, sorted.size()));
+        });
+    }
+
+    private <T, R> Flux<R> lane(int index, Deque<T> queue, AdaptiveConcurrencyLimit limit, ToLongFunction<T> sizeOf,
+        Function<T, ? extends Publisher<R>> download, Stats stats
+    ) {
+        // deferred and repeated rather than a prefetching operator, so each lane only claims an item when ready
+        return Flux.<R>defer(() -> {
+                final Duration pause = limit.pauseRemaining();
+                final int activeLanes = limit.getLimit();
+                if (!pause.isZero() || index >= activeLanes) {
+                    return Mono.delay(pause.isZero() ? IDLE_LANE_CHECK : pause)
+                        .then(Mono.empty());
+                }
+
+                final T item = index < smallLanes(activeLanes) ? queue.pollLast() : queue.pollFirst();
+                if (item == null) {
+                    return Flux.empty();
+                }
+                return downloadItem(item, sizeOf.applyAsLong(item), download, limit, stats);
+            })
+            .repeat(() -> !queue.isEmpty());
+    }
+
+    private <T, R> Flux<R> downloadItem(T item, long size, Function<T, ? extends Publisher<R>> download,
+        AdaptiveConcurrencyLimit limit, Stats stats
+    ) {
+        final AtomicLong itemStart = new AtomicLong();
+        // the retries below and those of the download itself re-make its requests rather than new ones
+        return FetchMetrics.retryScope(Flux.<R>defer(() -> {
+                itemStart.set(System.nanoTime());
+                return download.apply(item);
+            })
+            .retryWhen(Retry.from(signals -> signals.concatMap(signal -> {
+                final Throwable failure = signal.failure();
+                // rate limited responses were already parked and retried by the host rate limiter
+                if (!isThrottled(failure) || FailedRequestException.isRateLimited(failure)
+                    || signal.totalRetriesInARow() >= MAX_THROTTLED_RETRIES) {
+                    return Mono.<Long>error(failure);
+                }
+                final Duration requested = requestedPause(failure);
+                if (requested != null && requested.compareTo(MAX_PAUSE) > 0) {
+                    return Mono.<Long>error(failure);
+                }
+                final Duration pause = limit.onThrottled(requested, signal.totalRetriesInARow());
+                log.warn("Download was throttled, so pausing downloads for {} ms: {}",
+                    pause.toMillis(), failure.getMessage()
+                );
+                return Mono.delay(pause);
+            }))
+            .contextWrite(Context.of(HostRateLimiters.THROTTLE_LISTENER, (ThrottleListener) limit::onThrottled)))
+            .doOnComplete(() -> {
+                limit.onSuccess(size);
+                stats.record(size, System.nanoTime() - itemStart.get());
+            });
+    }
+
+    private class Stats {
+        final AtomicLong bytes = new AtomicLong();
+        final AtomicLong nanos = new AtomicLong();
+
+        void record(long size, long elapsedNanos) {
+            if (size > 0) {
+                bytes.addAndGet(size);
+                nanos.addAndGet(elapsedNanos);
+            }
+        }
+
+        /**
+         * Compares the actual duration with the ideal duration, which is bounded by the larger of
+         * the largest download or the total evenly spread across all lanes, at the observed per-download rate
+         */
+        void report(long elapsedNanos, long totalBytes, long largestBytes, int count) {
+            if (!log.isDebugEnabled() || bytes.get() <= 0 || nanos.get() <= 0) {
+                return;
+            }
+            final double bytesPerNano = (double) bytes.get() / nanos.get();
+            final double predictedNanos = Math.max(largestBytes, (double) totalBytes / concurrency) / bytesPerNano;
+            log.debug("Downloaded {} items of {} bytes with concurrency {} in {} ms, predicted {} ms",
+                count, totalBytes, concurrency, elapsedNanos / 1_000_000, Math.round(predictedNanos / 1_000_000)
+            );
+        }
+    }
+}
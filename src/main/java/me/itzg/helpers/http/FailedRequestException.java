@@ -1,11 +1,17 @@
 package me.itzg.helpers.http;
 
+import io.netty.handler.codec.http.HttpHeaderNames;
 import io.netty.handler.codec.http.HttpHeaders;
 import io.netty.handler.codec.http.HttpResponseStatus;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import lombok.Getter;
 import lombok.ToString;
+import org.jetbrains.annotations.Nullable;
 
 @Getter @ToString
 public class FailedRequestException extends RuntimeException {
@@ -28,6 +34,35 @@ public class FailedRequestException extends RuntimeException {
         this.headers = headers;
     }
 
+    /**
+     * @return the delay given by the Retry-After response header, in either its seconds or HTTP-date form,
+     * or null if absent or invalid
+     */
+    @Nullable
+    public Duration getRetryAfter() {
+        return headers != null ? retryAfter(headers) : null;
+    }
+
+    @Nullable
+    static Duration retryAfter(HttpHeaders headers) {
+        final String value = headers.get(HttpHeaderNames.RETRY_AFTER);
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Duration.ofSeconds(Math.max(0, Long.parseLong(value.trim())));
+        } catch (NumberFormatException e) {
+            try {
+                final Duration delay = Duration.between(Instant.now(),
+                    DateTimeFormatter.RFC_1123_DATE_TIME.parse(value.trim(), Instant::from)
+                );
+                return delay.isNegative() ? Duration.ZERO : delay;
+            } catch (DateTimeParseException ex) {
+                return null;
+            }
+        }
+    }
+
     public static String obfuscate(URI uri) {
         try {
             return new URI(uri.getScheme(), uri.getUserInfo() != null ? "*:*" : null, uri.getHost(), uri.getPort(), uri.getPath(), uri.getQuery(), uri.getFragment())
@@ -46,6 +81,23 @@ public class FailedRequestException extends RuntimeException {
         return isStatus(throwable, HttpResponseStatus.FORBIDDEN);
     }
 
+    /**
+     * Rate limited requests made with a {@link SharedFetch} are already parked and retried for the host,
+     * so other retry layers should leave these failures alone.
+     * @return true if the response indicates the host is rate limiting or temporarily unavailable
+     */
+    public static boolean isRateLimited(Throwable throwable) {
+        if (isStatus(throwable, HttpResponseStatus.TOO_MANY_REQUESTS, HttpResponseStatus.SERVICE_UNAVAILABLE)) {
+            return true;
+        }
+        // GitHub uses 403 when the rate limit is exhausted
+        if (isForbidden(throwable)) {
+            final HttpHeaders headers = ((FailedRequestException) throwable).getHeaders();
+            return headers != null && "0".equals(headers.get("x-ratelimit-remaining"));
+        }
+        return false;
+    }
+
     public static boolean isStatus(Throwable throwable, HttpResponseStatus... statuses) {
         if (throwable instanceof FailedRequestException) {
             final int actualStatus = ((FailedRequestException) throwable).getStatusCode();
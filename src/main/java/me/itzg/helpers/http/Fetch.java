@@ -36,6 +36,9 @@ public class Fetch {
                 case SKIP_FILE_UP_TO_DATE:
                     log.info("The file {} is already up to date", file);
                     break;
+                case RETRIEVED_FROM_STORE:
+                    log.info("Retrieved {} from download store", file);
+                    break;
             }
         };
     }
@@ -27,8 +27,10 @@ import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import lombok.extern.slf4j.Slf4j;
 import me.itzg.helpers.errors.GenericException;
+import me.itzg.helpers.files.ContentAddressedStore;
 import me.itzg.helpers.http.SharedFetch.Options;
 import me.itzg.helpers.json.ObjectMappers;
+import me.itzg.helpers.trace.Tracer;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import reactor.core.publisher.Mono;
@@ -106,6 +108,14 @@ public class FetchBuilderBase<SELF extends FetchBuilderBase<SELF>> {
         return new OutputToDirectoryFetchBuilder(this.state, directory);
     }
 
+    /**
+     * Reads only the given entry of a remote zip file, when the server supports range requests
+     * @param entryName the path of the entry within the zip file
+     */
+    public ZipEntryFetchBuilder toZipEntry(String entryName) {
+        return new ZipEntryFetchBuilder(this.state, entryName);
+    }
+
     public StringFetchBuilder asString() {
         return new StringFetchBuilder(this.state);
     }
@@ -139,6 +149,13 @@ public class FetchBuilderBase<SELF extends FetchBuilderBase<SELF>> {
         return new FormFetchBuilder(state, prepareForm);
     }
 
+    /**
+     * Sends a POST request with the given object serialized as the JSON body
+     */
+    public JsonPostFetchBuilder sendJson(Object body) {
+        return new JsonPostFetchBuilder(state, body);
+    }
+
     protected URI uri() {
         return state.uri;
     }
@@ -153,6 +170,56 @@ public class FetchBuilderBase<SELF extends FetchBuilderBase<SELF>> {
             : state.uri;
     }
 
+    /**
+     * @return the shared download store, if configured, otherwise null
+     */
+    protected ContentAddressedStore downloadStore() {
+        return state.sharedFetch != null ? state.sharedFetch.getDownloadStore() : null;
+    }
+
+    /**
+     * @return the number of concurrent range requests to use for large files, where one disables segmenting
+     */
+    protected int downloadSegments() {
+        return state.sharedFetch != null ? state.sharedFetch.getDownloadSegments() : 1;
+    }
+
+    protected long segmentedDownloadThreshold() {
+        return state.sharedFetch != null ? state.sharedFetch.getSegmentedDownloadThreshold()
+            : Options.DEFAULT_SEGMENTED_DOWNLOAD_THRESHOLD;
+    }
+
+    /**
+     * Applies the shared fetch's rate limit of the request's host and waits out the host's rate limiting
+     * responses rather than failing. One-off fetches are not limited. Also traces the request, including
+     * its retries, when tracing is enabled, and counts it when {@link FetchMetrics} are enabled.
+     *
+     * @param request a cold request which is re-subscribed when retried
+     */
+    protected <R> Mono<R> limitedAndTraced(Mono<R> request) {
+        final FetchMetrics metrics = FetchMetrics.current();
+        return Tracer.trace(Tracer.FETCH, spanName(), span -> {
+            Mono<R> attempt = span.countAttempts(request);
+            if (span.isRecording()) {
+                span.arg("url", FailedRequestException.obfuscate(uri()));
+            }
+            if (metrics != null) {
+                attempt = metrics.countAttempts(uri().getHost(), attempt);
+            }
+            final Mono<R> limited = state.sharedFetch != null ?
+                state.sharedFetch.hostRateLimiters.limit(uri(), attempt) : attempt;
+            return metrics != null ? metrics.countRequest(uri(), limited) : limited;
+        });
+    }
+
+    private String spanName() {
+        final String path = uri().getPath();
+        if (path == null || path.isEmpty() || path.equals("/")) {
+            return uri().getHost();
+        }
+        return path.substring(path.lastIndexOf('/', path.length() - 2) + 1);
+    }
+
     public Set<String> getAcceptContentTypes() {
         return state.acceptContentTypes;
     }
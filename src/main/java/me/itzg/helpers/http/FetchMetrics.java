@@ -0,0 +1,474 @@
+package me.itzg.helpers.http;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import me.itzg.helpers.json.ObjectMappers;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.resources.ConnectionPoolMetrics;
+import reactor.util.context.Context;
+
+/**
+ * Collects per-host transfer and connection pool metrics of the requests made by {@link SharedFetch} when
+ * a metrics file was requested, such as by {@code --metrics-file}. The file is written by {@link #finish()}
+ * as JSON when its name ends with {@code .json}, otherwise in the Prometheus text format, which can be
+ * picked up by the textfile collector of the node exporter.
+ * <p>
+ * Like the trace, metrics are process-wide since an invocation creates several {@link SharedFetch} instances.
+ */
+@Slf4j
+public final class FetchMetrics {
+
+    static final String PREFIX = "mc_image_helper_fetch_";
+
+    private static volatile FetchMetrics current;
+
+    /**
+     * Connection pools register once, when first used, and outlive an invocation in batch mode, so they are
+     * tracked separately from the current metrics and only sampled for the hosts used by the current ones.
+     * Keyed by pool ID.
+     */
+    private static final Map<String, RegisteredPool> pools = new ConcurrentHashMap<>();
+
+    @Getter @Setter
+    private volatile Path metricsFile;
+
+    private final Map<String, HostMetrics> hosts = new ConcurrentHashMap<>();
+    private final Map<String, PoolPeaks> poolPeaks = new ConcurrentHashMap<>();
+
+    FetchMetrics(Path metricsFile) {
+        this.metricsFile = metricsFile;
+    }
+
+    /**
+     * Starts collecting, or changes the file of the current collection, which is written by {@link #finish()}
+     */
+    public static synchronized void enable(Path metricsFile) {
+        if (current == null) {
+            current = new FetchMetrics(metricsFile);
+        }
+        else {
+            current.setMetricsFile(metricsFile);
+        }
+    }
+
+    public static boolean isEnabled() {
+        return current != null;
+    }
+
+    /**
+     * @return the metrics being collected or null when disabled
+     */
+    static FetchMetrics current() {
+        return current;
+    }
+
+    /**
+     * Writes the collected metrics, if enabled, and disables collecting. Failing to write is logged rather than
+     * failing the invocation.
+     */
+    public static synchronized void finish() {
+        final FetchMetrics finished = current;
+        if (finished == null) {
+            return;
+        }
+        current = null;
+
+        try {
+            finished.write();
+            log.info("Wrote fetch metrics of {} hosts to {}", finished.hosts.size(), finished.getMetricsFile());
+        } catch (IOException e) {
+            log.warn("Failed to write fetch metrics file {}", finished.getMetricsFile(), e);
+        }
+    }
+
+    static void registerPool(String id, SocketAddress remoteAddress, ConnectionPoolMetrics metrics) {
+        pools.put(id, new RegisteredPool(hostOf(remoteAddress), metrics));
+    }
+
+    static void deregisterPool(String id) {
+        pools.remove(id);
+    }
+
+    static String hostOf(SocketAddress address) {
+        if (address instanceof InetSocketAddress) {
+            return ((InetSocketAddress) address).getHostString();
+        }
+        return String.valueOf(address);
+    }
+
+    HostMetrics host(String host) {
+        return hosts.computeIfAbsent(host, h -> new HostMetrics());
+    }
+
+    /**
+     * Marks the given publisher, including its retries, as the scope of the requests made within it, so that
+     * a request re-made by a retry of this or an enclosing scope is counted as a retry rather than
+     * a new request. Requests are told apart by their URI.
+     * Retry layers outside of {@link SharedFetch}, such as those of the download scheduler and installers,
+     * wrap their retrying publisher with this.
+     */
+    public static <R> Mono<R> retryScope(Mono<R> withRetries) {
+        return withRetries.contextWrite(RetryScope::enter);
+    }
+
+    /**
+     * @see #retryScope(Mono)
+     */
+    public static <R> Flux<R> retryScope(Flux<R> withRetries) {
+        return withRetries.contextWrite(RetryScope::enter);
+    }
+
+    /**
+     * Counts the request, or a retry of it when re-made within a {@link #retryScope(Mono)}, and whether it failed
+     *
+     * @param request the request including its retries
+     */
+    <R> Mono<R> countRequest(URI uri, Mono<R> request) {
+        final HostMetrics hostMetrics = host(uri.getHost());
+        return Mono.deferContextual(context -> {
+            final RetryScope scope = context.getOrDefault(RetryScope.KEY, null);
+            final AtomicBoolean failed = scope != null ? scope.retrying(uri) : null;
+            if (failed == null) {
+                hostMetrics.requests.increment();
+            }
+            // the failure of the attempt being retried is superseded by the outcome of this one
+            else if (failed.getAndSet(false)) {
+                hostMetrics.failures.decrement();
+            }
+            samplePools();
+            return request
+                .doOnError(throwable -> {
+                    hostMetrics.failures.increment();
+                    if (scope != null) {
+                        scope.failed(uri);
+                    }
+                });
+        });
+    }
+
+    /**
+     * Counts each attempt and tracks how many attempts to its host are in flight at once. Since it is applied
+     * within the host rate limiter, an attempt is in flight after any rate limiting delay.
+     *
+     * @param attempt a cold publisher that is re-subscribed on each attempt, where every attempt is counted
+     *                and the ones beyond the requests are retries
+     */
+    <R> Mono<R> countAttempts(String host, Mono<R> attempt) {
+        final HostMetrics hostMetrics = host(host);
+        return attempt
+            .doOnSubscribe(subscription -> {
+                hostMetrics.attempts.increment();
+                hostMetrics.inFlightStarted();
+            })
+            .doFinally(signalType -> hostMetrics.inFlight.decrementAndGet());
+    }
+
+    void recordResponseTime(SocketAddress remoteAddress, Duration time) {
+        host(hostOf(remoteAddress)).responseTime.record(time);
+        samplePools();
+    }
+
+    /**
+     * Keeps the peak usage of the connection pools of each host, since only a snapshot is available from a pool.
+     * A host can have several pools, such as one per resolved address, so those are summed before taking the peak.
+     * Pools outlive a collection in batch mode, so only those of hosts used by this collection are sampled.
+     */
+    void samplePools() {
+        final Map<String, PoolSnapshot> snapshots = new HashMap<>();
+        pools.values().forEach(pool -> {
+            if (hosts.containsKey(pool.getHost())) {
+                snapshots.computeIfAbsent(pool.getHost(), h -> new PoolSnapshot()).add(pool.getMetrics());
+            }
+        });
+        snapshots.forEach((host, snapshot) ->
+            poolPeaks.computeIfAbsent(host, h -> new PoolPeaks()).sample(snapshot)
+        );
+    }
+
+    void write() throws IOException {
+        samplePools();
+
+        final Path parent = metricsFile.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        if (metricsFile.getFileName().toString().endsWith(".json")) {
+            ObjectMappers.defaultMapper().writeValue(metricsFile.toFile(), toJson());
+        }
+        else {
+            try (BufferedWriter writer = Files.newBufferedWriter(metricsFile, StandardCharsets.UTF_8)) {
+                writePrometheus(writer);
+            }
+        }
+    }
+
+    Map<String, Object> toJson() {
+        final Map<String, Object> hostsJson = new TreeMap<>();
+        hosts.forEach((host, metrics) -> {
+            final Map<String, Object> hostJson = new LinkedHashMap<>();
+            hostJson.put("requests", metrics.requests.sum());
+            hostJson.put("retries", metrics.retries());
+            hostJson.put("failures", metrics.failures.sum());
+            hostJson.put("errors", metrics.errors.sum());
+            hostJson.put("responsesByProtocol", new TreeMap<>(sums(metrics.responsesByProtocol)));
+            hostJson.put("receivedBytes", metrics.receivedBytes.sum());
+            hostJson.put("sentBytes", metrics.sentBytes.sum());
+            hostJson.put("maxInFlight", metrics.maxInFlight.get());
+            hostJson.put("responseTime", histogramJson(metrics.responseTime));
+            hostJson.put("connectTime", histogramJson(metrics.connectTime));
+            hostJson.put("tlsHandshakeTime", histogramJson(metrics.tlsHandshakeTime));
+            hostsJson.put(host, hostJson);
+        });
+
+        final Map<String, Object> poolsJson = new TreeMap<>();
+        poolPeaks.forEach((host, peaks) -> {
+            final Map<String, Object> poolJson = new LinkedHashMap<>();
+            poolJson.put("maxActiveConnections", peaks.acquired.get());
+            poolJson.put("maxPendingAcquires", peaks.pending.get());
+            poolJson.put("maxIdleConnections", peaks.idle.get());
+            poolJson.put("maxAllocatedConnections", peaks.allocated.get());
+            poolJson.put("connectionLimit", peaks.limit.get());
+            poolsJson.put(host, poolJson);
+        });
+
+        final Map<String, Object> json = new LinkedHashMap<>();
+        json.put("hosts", hostsJson);
+        json.put("pools", poolsJson);
+        return json;
+    }
+
+    private static Map<String, Object> histogramJson(LatencyHistogram histogram) {
+        final Map<String, Object> json = new LinkedHashMap<>();
+        json.put("count", histogram.getCount());
+        json.put("sumSeconds", histogram.getSumSeconds());
+        json.put("buckets", histogram.cumulativeBuckets());
+        return json;
+    }
+
+    void writePrometheus(Writer writer) {
+        final PrintWriter out = new PrintWriter(writer);
+        final Map<String, HostMetrics> sortedHosts = new TreeMap<>(hosts);
+
+        counter(out, sortedHosts, "requests_total", "Requests made, excluding retries of any layer",
+            m -> m.requests.sum()
+        );
+        counter(out, sortedHosts, "retries_total", "Retried request attempts", HostMetrics::retries);
+        counter(out, sortedHosts, "failures_total", "Requests that failed after any retries", m -> m.failures.sum());
+        counter(out, sortedHosts, "errors_total", "Errors reported by the HTTP client", m -> m.errors.sum());
+        counter(out, sortedHosts, "received_bytes_total", "Bytes received, including headers", m -> m.receivedBytes.sum());
+        counter(out, sortedHosts, "sent_bytes_total", "Bytes sent, including headers", m -> m.sentBytes.sum());
+
+        header(out, "responses_total", "counter", "Responses by HTTP protocol version");
+        sortedHosts.forEach((host, metrics) ->
+            new TreeMap<>(sums(metrics.responsesByProtocol)).forEach((protocol, count) ->
+                out.printf("%sresponses_total{host=\"%s\",protocol=\"%s\"} %d%n",
+                    PREFIX, escape(host), escape(protocol), count
+                )
+            )
+        );
+
+        header(out, "in_flight_max", "gauge",
+            "Most request attempts to the host in progress at once, after any rate limiting delay"
+        );
+        sortedHosts.forEach((host, metrics) ->
+            out.printf("%sin_flight_max{host=\"%s\"} %d%n", PREFIX, escape(host), metrics.maxInFlight.get())
+        );
+
+        histogram(out, sortedHosts, "response_seconds", "Time from sending a request to receiving its response",
+            m -> m.responseTime
+        );
+        histogram(out, sortedHosts, "connect_seconds", "Time to establish a connection", m -> m.connectTime);
+        histogram(out, sortedHosts, "tls_handshake_seconds", "Time of TLS handshakes", m -> m.tlsHandshakeTime);
+
+        final Map<String, PoolPeaks> sortedPools = new TreeMap<>(poolPeaks);
+        pool(out, sortedPools, "pool_active_connections_max", "Most connections acquired from the pool at once",
+            p -> p.acquired.get()
+        );
+        pool(out, sortedPools, "pool_pending_acquire_max", "Most requests waiting at once for a pooled connection",
+            p -> p.pending.get()
+        );
+        pool(out, sortedPools, "pool_idle_connections_max", "Most idle connections in the pool at once",
+            p -> p.idle.get()
+        );
+        pool(out, sortedPools, "pool_allocated_connections_max", "Most connections open at once",
+            p -> p.allocated.get()
+        );
+        pool(out, sortedPools, "pool_connections_limit", "Maximum connections the pool allows",
+            p -> p.limit.get()
+        );
+
+        out.flush();
+    }
+
+    private static void counter(PrintWriter out, Map<String, HostMetrics> hosts, String name, String help,
+        ToLongFunction<HostMetrics> value
+    ) {
+        header(out, name, "counter", help);
+        hosts.forEach((host, metrics) ->
+            out.printf("%s%s{host=\"%s\"} %d%n", PREFIX, name, escape(host), value.applyAsLong(metrics))
+        );
+    }
+
+    private static void histogram(PrintWriter out, Map<String, HostMetrics> hosts, String name, String help,
+        Function<HostMetrics, LatencyHistogram> histogramGetter
+    ) {
+        header(out, name, "histogram", help);
+        hosts.forEach((host, metrics) -> {
+            final LatencyHistogram histogram = histogramGetter.apply(metrics);
+            final String hostLabel = escape(host);
+            histogram.cumulativeBuckets().forEach((le, count) ->
+                out.printf("%s%s_bucket{host=\"%s\",le=\"%s\"} %d%n", PREFIX, name, hostLabel, le, count)
+            );
+            out.printf("%s%s_sum{host=\"%s\"} %s%n", PREFIX, name, hostLabel, histogram.getSumSeconds());
+            out.printf("%s%s_count{host=\"%s\"} %d%n", PREFIX, name, hostLabel, histogram.getCount());
+        });
+    }
+
+    private static void pool(PrintWriter out, Map<String, PoolPeaks> pools, String name, String help,
+        ToLongFunction<PoolPeaks> value
+    ) {
+        header(out, name, "gauge", help);
+        pools.forEach((host, peaks) ->
+            out.printf("%s%s{host=\"%s\"} %d%n", PREFIX, name, escape(host), value.applyAsLong(peaks))
+        );
+    }
+
+    private static void header(PrintWriter out, String name, String type, String help) {
+        out.printf("# HELP %s%s %s%n", PREFIX, name, help);
+        out.printf("# TYPE %s%s %s%n", PREFIX, name, type);
+    }
+
+    private static String escape(String labelValue) {
+        return labelValue
+            .replace("\\", "\\\\")
+            .replace("\"", "\\\"")
+            .replace("\n", "\\n");
+    }
+
+    private static Map<String, Long> sums(Map<String, LongAdder> adders) {
+        final Map<String, Long> result = new LinkedHashMap<>();
+        adders.forEach((key, adder) -> result.put(key, adder.sum()));
+        return result;
+    }
+
+    static class HostMetrics {
+        final LongAdder requests = new LongAdder();
+        final LongAdder attempts = new LongAdder();
+        final LongAdder failures = new LongAdder();
+        final LongAdder errors = new LongAdder();
+        final LongAdder receivedBytes = new LongAdder();
+        final LongAdder sentBytes = new LongAdder();
+        final Map<String, LongAdder> responsesByProtocol = new ConcurrentHashMap<>();
+        final AtomicInteger inFlight = new AtomicInteger();
+        final AtomicInteger maxInFlight = new AtomicInteger();
+        final LatencyHistogram responseTime = new LatencyHistogram();
+        final LatencyHistogram connectTime = new LatencyHistogram();
+        final LatencyHistogram tlsHandshakeTime = new LatencyHistogram();
+
+        void inFlightStarted() {
+            final int now = inFlight.incrementAndGet();
+            maxInFlight.accumulateAndGet(now, Math::max);
+        }
+
+        void countResponse(String protocol) {
+            responsesByProtocol.computeIfAbsent(protocol, p -> new LongAdder()).increment();
+        }
+
+        long retries() {
+            return Math.max(0, attempts.sum() - requests.sum());
+        }
+    }
+
+    @Value
+    private static class RegisteredPool {
+        String host;
+        ConnectionPoolMetrics metrics;
+    }
+
+    /**
+     * Sum of the pools of a host at one point in time
+     */
+    private static class PoolSnapshot {
+        int acquired;
+        int pending;
+        int idle;
+        int allocated;
+        int limit;
+
+        void add(ConnectionPoolMetrics metrics) {
+            acquired += metrics.acquiredSize();
+            pending += metrics.pendingAcquireSize();
+            idle += metrics.idleSize();
+            allocated += metrics.allocatedSize();
+            limit += metrics.maxAllocatedSize();
+        }
+    }
+
+    private static class PoolPeaks {
+        final AtomicInteger acquired = new AtomicInteger();
+        final AtomicInteger pending = new AtomicInteger();
+        final AtomicInteger idle = new AtomicInteger();
+        final AtomicInteger allocated = new AtomicInteger();
+        final AtomicInteger limit = new AtomicInteger();
+
+        void sample(PoolSnapshot snapshot) {
+            acquired.accumulateAndGet(snapshot.acquired, Math::max);
+            pending.accumulateAndGet(snapshot.pending, Math::max);
+            idle.accumulateAndGet(snapshot.idle, Math::max);
+            allocated.accumulateAndGet(snapshot.allocated, Math::max);
+            limit.accumulateAndGet(snapshot.limit, Math::max);
+        }
+    }
+
+    /**
+     * The requests made within a {@link #retryScope(Mono)}, where the outermost scope is used when nested
+     */
+    private static class RetryScope {
+        static final Object KEY = RetryScope.class;
+
+        /**
+         * Keyed by the URI of each request made so far, where the value is whether it last failed
+         */
+        private final Map<URI, AtomicBoolean> requests = new ConcurrentHashMap<>();
+
+        static Context enter(Context context) {
+            return context.hasKey(KEY) ? context : context.put(KEY, new RetryScope());
+        }
+
+        /**
+         * @return null if this is the first time the request is made within this scope, otherwise whether
+         * it last failed
+         */
+        AtomicBoolean retrying(URI uri) {
+            return requests.putIfAbsent(uri, new AtomicBoolean());
+        }
+
+        void failed(URI uri) {
+            requests.get(uri).set(true);
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package me.itzg.helpers.http;
+
+import java.net.SocketAddress;
+import java.time.Duration;
+import reactor.netty.http.client.HttpClientMetricsRecorder;
+import reactor.netty.resources.ConnectionPoolMetrics;
+import reactor.netty.resources.ConnectionProvider;
+
+/**
+ * Receives the metrics of the HTTP client and its connection pools, which would otherwise need Micrometer,
+ * and passes them to the {@link FetchMetrics} being collected, if any. The client and pools are configured
+ * once but outlive a collection in batch mode, so the current collection is looked up on each call.
+ */
+class FetchMetricsRecorder implements HttpClientMetricsRecorder, ConnectionProvider.MeterRegistrar {
+
+    static final FetchMetricsRecorder INSTANCE = new FetchMetricsRecorder();
+
+    private FetchMetricsRecorder() {
+    }
+
+    @Override
+    public void registerMetrics(String poolName, String id, SocketAddress remoteAddress,
+        ConnectionPoolMetrics metrics
+    ) {
+        FetchMetrics.registerPool(id, remoteAddress, metrics);
+    }
+
+    @Override
+    public void deRegisterMetrics(String poolName, String id, SocketAddress remoteAddress) {
+        FetchMetrics.deregisterPool(id);
+    }
+
+    @Override
+    public void recordDataReceivedTime(SocketAddress remoteAddress, String uri, String method, String status,
+        Duration time
+    ) {
+        // response time covers it
+    }
+
+    @Override
+    public void recordDataSentTime(SocketAddress remoteAddress, String uri, String method, Duration time) {
+        // response time covers it
+    }
+
+    @Override
+    public void recordResponseTime(SocketAddress remoteAddress, String uri, String method, String status,
+        Duration time
+    ) {
+        final FetchMetrics metrics = FetchMetrics.current();
+        if (metrics != null) {
+            metrics.recordResponseTime(remoteAddress, time);
+        }
+    }
+
+    @Override
+    public void recordDataReceived(SocketAddress remoteAddress, String uri, long bytes) {
+        final FetchMetrics metrics = FetchMetrics.current();
+        if (metrics != null) {
+            metrics.host(FetchMetrics.hostOf(remoteAddress)).receivedBytes.add(bytes);
+        }
+    }
+
+    @Override
+    public void recordDataSent(SocketAddress remoteAddress, String uri, long bytes) {
+        final FetchMetrics metrics = FetchMetrics.current();
+        if (metrics != null) {
+            metrics.host(FetchMetrics.hostOf(remoteAddress)).sentBytes.add(bytes);
+        }
+    }
+
+    @Override
+    public void incrementErrorsCount(SocketAddress remoteAddress, String uri) {
+        incrementErrorsCount(remoteAddress);
+    }
+
+    @Override
+    public void recordDataReceived(SocketAddress remoteAddress, long bytes) {
+        // the per-request variant is counted instead
+    }
+
+    @Override
+    public void recordDataSent(SocketAddress remoteAddress, long bytes) {
+        // the per-request variant is counted instead
+    }
+
+    @Override
+    public void incrementErrorsCount(SocketAddress remoteAddress) {
+        final FetchMetrics metrics = FetchMetrics.current();
+        if (metrics != null) {
+            metrics.host(FetchMetrics.hostOf(remoteAddress)).errors.increment();
+        }
+    }
+
+    @Override
+    public void recordTlsHandshakeTime(SocketAddress remoteAddress, Duration time, String status) {
+        final FetchMetrics metrics = FetchMetrics.current();
+        if (metrics != null) {
+            metrics.host(FetchMetrics.hostOf(remoteAddress)).tlsHandshakeTime.record(time);
+        }
+    }
+
+    @Override
+    public void recordConnectTime(SocketAddress remoteAddress, Duration time, String status) {
+        final FetchMetrics metrics = FetchMetrics.current();
+        if (metrics != null) {
+            metrics.host(FetchMetrics.hostOf(remoteAddress)).connectTime.record(time);
+        }
+    }
+
+    @Override
+    public void recordResolveAddressTime(SocketAddress remoteAddress, Duration time, String status) {
+        // resolution is cached by the JVM, so it is not worth reporting
+    }
+}
@@ -4,5 +4,9 @@ public enum FileDownloadStatus {
     SKIP_FILE_EXISTS,
     SKIP_FILE_UP_TO_DATE,
     DOWNLOADING,
-    DOWNLOADED
+    DOWNLOADED,
+    /**
+     * Placed from the shared download store without a network request
+     */
+    RETRIEVED_FROM_STORE
 }
@@ -0,0 +1,185 @@
+package me.itzg.helpers.http;
+
+import io.netty.handler.codec.http.HttpHeaders;
+import java.net.URI;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+import lombok.extern.slf4j.Slf4j;
+import org.jetbrains.annotations.Nullable;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+/**
+ * Limits the rate of requests to each host with a token bucket and parks all requests to a host
+ * when it responds that it is rate limiting or temporarily unavailable. Parked requests are retried
+ * once the host's requested delay has passed rather than failing.
+ * <p>
+ * This is the only layer that retries rate limited responses, so that the total attempts stay bounded.
+ * Other retry layers skip failures matching {@link FailedRequestException#isRateLimited(Throwable)},
+ * but can still be told about parked requests by a {@link ThrottleListener} in the subscriber context.
+ * </p>
+ */
+@Slf4j
+class HostRateLimiters {
+
+    static final int MAX_PARKED_RETRIES = 5;
+    static final Duration DEFAULT_PARK = Duration.ofSeconds(1);
+    /**
+     * Hosts that ask for a longer delay than this fail the request instead
+     */
+    static final Duration MAX_PARK = Duration.ofMinutes(10);
+    /**
+     * Values larger than this are epoch seconds, such as GitHub's, rather than the seconds until reset
+     */
+    private static final long EPOCH_SECONDS_THRESHOLD = 1_000_000_000L;
+
+    /**
+     * Subscriber context key of the {@link ThrottleListener} to tell about parked requests
+     */
+    static final Object THROTTLE_LISTENER = ThrottleListener.class;
+
+    private final long intervalNanos;
+    private final long burstToleranceNanos;
+    private final LongSupplier nanoTime;
+    private final Map<String, HostState> hosts = new ConcurrentHashMap<>();
+
+    /**
+     * @param requestsPerSecond the sustained rate of requests allowed to each host, where zero or less is unlimited
+     * @param burst the number of requests allowed to each host at once before the rate applies
+     */
+    HostRateLimiters(double requestsPerSecond, int burst) {
+        this(requestsPerSecond, burst, System::nanoTime);
+    }
+
+    HostRateLimiters(double requestsPerSecond, int burst, LongSupplier nanoTime) {
+        this.intervalNanos = requestsPerSecond > 0 ? (long) (1_000_000_000L / requestsPerSecond) : 0;
+        this.burstToleranceNanos = intervalNanos * (Math.max(burst, 1) - 1);
+        this.nanoTime = nanoTime;
+    }
+
+    /**
+     * @param request a cold request which is re-subscribed when retried after being parked
+     */
+    <R> Mono<R> limit(URI uri, Mono<R> request) {
+        final String host = uri.getHost() != null ? uri.getHost() : "";
+        final HostState hostState = hosts.computeIfAbsent(host, k -> new HostState());
+
+        return Mono.deferContextual(context -> {
+            final ThrottleListener listener = context.getOrDefault(THROTTLE_LISTENER, null);
+            return Mono.defer(() -> {
+                    final Duration delay = hostState.reserve(nanoTime.getAsLong());
+                    return delay.isZero() ? request : Mono.delay(delay).then(request);
+                })
+                .retryWhen(retryParked(uri, host, hostState, listener));
+        });
+    }
+
+    private Retry retryParked(URI uri, String host, HostState hostState, @Nullable ThrottleListener listener) {
+        return Retry.from(signals -> signals.concatMap(signal -> {
+            final Throwable failure = signal.failure();
+            if (!FailedRequestException.isRateLimited(failure) || signal.totalRetriesInARow() >= MAX_PARKED_RETRIES) {
+                return Mono.<Long>error(failure);
+            }
+            final Duration requested = requestedDelay(((FailedRequestException) failure).getHeaders());
+            if (requested != null && requested.compareTo(MAX_PARK) > 0) {
+                return Mono.<Long>error(failure);
+            }
+            final Duration park = requested != null ? requested
+                : DEFAULT_PARK.multipliedBy(1L << signal.totalRetriesInARow());
+            hostState.park(nanoTime.getAsLong(), park);
+            log.warn("Requests to {} are rate limited, so waiting {} ms before retrying {}",
+                host, park.toMillis(), FailedRequestException.obfuscate(uri)
+            );
+            if (listener != null) {
+                listener.onThrottled(requested, signal.totalRetriesInARow());
+            }
+            // the retried request reserves again, which waits for the park to end
+            return Mono.just(signal.totalRetries());
+        }));
+    }
+
+    /**
+     * @return the delay given by Retry-After or x-ratelimit-reset, or null if neither was given
+     */
+    @Nullable
+    static Duration requestedDelay(@Nullable HttpHeaders headers) {
+        if (headers == null) {
+            return null;
+        }
+        final Duration retryAfter = FailedRequestException.retryAfter(headers);
+        if (retryAfter != null) {
+            return retryAfter;
+        }
+        final String reset = headers.get("x-ratelimit-reset");
+        if (reset == null) {
+            return null;
+        }
+        try {
+            final long value = Long.parseLong(reset.trim());
+            final Duration delay = value > EPOCH_SECONDS_THRESHOLD ?
+                Duration.between(Instant.now(), Instant.ofEpochSecond(value))
+                : Duration.ofSeconds(value);
+            return delay.isNegative() ? Duration.ZERO : delay;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Told each time a request is parked, such as to reduce the concurrency of the caller
+     */
+    @FunctionalInterface
+    interface ThrottleListener {
+
+        /**
+         * @param requested the delay requested by the host, if any
+         * @param attempt the number of consecutive times the same request has been parked, starting at zero
+         */
+        void onThrottled(@Nullable Duration requested, long attempt);
+    }
+
+    private class HostState {
+        /**
+         * Theoretical arrival time of the next request, as used by the generic cell rate algorithm
+         */
+        long theoreticalArrival;
+        boolean hasArrival;
+        long parkedUntil;
+        boolean parked;
+
+        /**
+         * @return how long the caller must wait before sending its request
+         */
+        synchronized Duration reserve(long now) {
+            long arrival = now;
+            if (parked) {
+                if (parkedUntil - now > 0) {
+                    arrival = parkedUntil;
+                }
+                else {
+                    parked = false;
+                }
+            }
+            if (intervalNanos <= 0) {
+                return Duration.ofNanos(arrival - now);
+            }
+
+            final long tat = !hasArrival || arrival - theoreticalArrival > 0 ? arrival : theoreticalArrival;
+            final long allowedAt = tat - burstToleranceNanos - arrival > 0 ? tat - burstToleranceNanos : arrival;
+            theoreticalArrival = tat + intervalNanos;
+            hasArrival = true;
+            return Duration.ofNanos(allowedAt - now);
+        }
+
+        synchronized void park(long now, Duration duration) {
+            final long until = now + duration.toNanos();
+            if (!parked || until - parkedUntil > 0) {
+                parkedUntil = until;
+                parked = true;
+            }
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package me.itzg.helpers.http;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import io.netty.buffer.Unpooled;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaderValues;
+import lombok.extern.slf4j.Slf4j;
+import me.itzg.helpers.errors.GenericException;
+import me.itzg.helpers.json.ObjectMappers;
+import reactor.core.publisher.Mono;
+
+@Slf4j
+public class JsonPostFetchBuilder extends FetchBuilderBase<JsonPostFetchBuilder> {
+
+    private final Object body;
+
+    protected JsonPostFetchBuilder(State state, Object body) {
+        super(state);
+        this.body = body;
+    }
+
+    public <T> ObjectFetchBuilder<T> toObject(Class<T> type) {
+        final String OPERATION = "json post";
+        final byte[] content = serializeBody();
+        return super.toObject(type, client -> client
+                .headers(headers -> {
+                    applyHeaders(headers);
+                    headers.set(HttpHeaderNames.CONTENT_TYPE, HttpHeaderValues.APPLICATION_JSON);
+                })
+                .followRedirect(true)
+                .doOnRequest(debugLogRequest(log, OPERATION))
+                .doOnResponse(debugLogResponse(log, OPERATION))
+                .post()
+                .uri(uri())
+                .send(Mono.fromSupplier(() -> Unpooled.wrappedBuffer(content)))
+        );
+    }
+
+    private byte[] serializeBody() {
+        try {
+            return ObjectMappers.defaultMapper().writeValueAsBytes(body);
+        } catch (JsonProcessingException e) {
+            throw new GenericException("Failed to serialize request body", e);
+        }
+    }
+}
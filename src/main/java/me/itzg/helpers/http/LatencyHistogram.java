@@ -0,0 +1,60 @@
+package me.itzg.helpers.http;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts durations into fixed buckets, like a Prometheus histogram, since only the distribution across
+ * an invocation is needed rather than exact percentiles.
+ */
+class LatencyHistogram {
+
+    /**
+     * Upper bounds, in seconds, spanning fast API responses to slow large downloads
+     */
+    static final double[] BOUNDS = {0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10, 30, 60, 120};
+
+    private final AtomicLongArray counts = new AtomicLongArray(BOUNDS.length + 1);
+    private final LongAdder sumNanos = new LongAdder();
+    private final LongAdder count = new LongAdder();
+
+    void record(Duration duration) {
+        final double seconds = duration.toNanos() / 1e9;
+        int bucket = 0;
+        while (bucket < BOUNDS.length && seconds > BOUNDS[bucket]) {
+            bucket++;
+        }
+        counts.incrementAndGet(bucket);
+        sumNanos.add(duration.toNanos());
+        count.increment();
+    }
+
+    long getCount() {
+        return count.sum();
+    }
+
+    double getSumSeconds() {
+        return sumNanos.sum() / 1e9;
+    }
+
+    /**
+     * @return cumulative counts keyed by upper bound, ending with +Inf, as Prometheus expects
+     */
+    Map<String, Long> cumulativeBuckets() {
+        final Map<String, Long> buckets = new LinkedHashMap<>();
+        long cumulative = 0;
+        for (int i = 0; i < BOUNDS.length; i++) {
+            cumulative += counts.get(i);
+            buckets.put(formatBound(BOUNDS[i]), cumulative);
+        }
+        buckets.put("+Inf", cumulative + counts.get(BOUNDS.length));
+        return buckets;
+    }
+
+    private static String formatBound(double bound) {
+        return bound == Math.rint(bound) ? String.valueOf((long) bound) : String.valueOf(bound);
+    }
+}
@@ -1,12 +1,20 @@
 package me.itzg.helpers.http;
 
+import static io.netty.handler.codec.http.HttpHeaderNames.ETAG;
+import static io.netty.handler.codec.http.HttpHeaderNames.IF_MODIFIED_SINCE;
+import static io.netty.handler.codec.http.HttpHeaderNames.IF_NONE_MATCH;
+import static io.netty.handler.codec.http.HttpHeaderNames.LAST_MODIFIED;
+
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.ObjectReader;
+import io.netty.handler.codec.http.HttpResponseStatus;
 import java.io.IOException;
+import java.time.Instant;
 import java.util.List;
 import lombok.extern.slf4j.Slf4j;
+import me.itzg.helpers.files.FileSchedulers;
+import org.jetbrains.annotations.Nullable;
 import reactor.core.publisher.Mono;
-import reactor.core.scheduler.Schedulers;
 import reactor.netty.ByteBufMono;
 import reactor.netty.http.client.HttpClient;
 import reactor.netty.http.client.HttpClientResponse;
@@ -47,15 +55,59 @@ public class ObjectFetchBuilder<T> extends FetchBuilderBase<ObjectFetchBuilder<T
         return assembleCommon();
     }
 
+    /**
+     * Performs a conditional GET using the validators from a previous response, such as one that was cached.
+     * When the server responds with 304 Not Modified, the result carries no value.
+     *
+     * @param etag previously provided ETag or null
+     * @param lastModified previously provided Last-Modified or null
+     */
+    public Mono<ConditionalResponse<T>> assembleConditional(@Nullable String etag, @Nullable Instant lastModified) {
+        final String OPERATION = "conditional json fetch";
+        return limitedAndTraced(useReactiveClient(client ->
+            client
+                .headers(headers -> {
+                    applyHeaders(headers);
+                    if (etag != null) {
+                        headers.set(IF_NONE_MATCH, etag);
+                    }
+                    if (lastModified != null) {
+                        headers.set(IF_MODIFIED_SINCE, httpDateTimeFormatter.format(lastModified));
+                    }
+                })
+                .followRedirect(true)
+                .doOnRequest(debugLogRequest(log, OPERATION))
+                .doOnResponse(debugLogResponse(log, OPERATION))
+                .get()
+                .uri(uri())
+                .responseSingle((resp, bodyMono) -> {
+                    final String respEtag = resp.responseHeaders().get(ETAG);
+                    final Long respLastModified = resp.responseHeaders().getTimeMillis(LAST_MODIFIED);
+
+                    if (resp.status().equals(HttpResponseStatus.NOT_MODIFIED)) {
+                        // servers may omit unchanged validators in a 304
+                        return Mono.just(ConditionalResponse.<T>notModified(
+                            respEtag != null ? respEtag : etag,
+                            respLastModified != null ? Instant.ofEpochMilli(respLastModified) : lastModified
+                        ));
+                    }
+                    return this.<T>handleResponse(resp, bodyMono)
+                        .map(value -> ConditionalResponse.modified(value, respEtag,
+                            respLastModified != null ? Instant.ofEpochMilli(respLastModified) : null
+                        ));
+                })
+        ));
+    }
+
     protected Mono<List<T>> assembleToList() {
         return assembleCommon();
     }
 
     private <R> Mono<R> assembleCommon() {
-        return useReactiveClient(client ->
+        return limitedAndTraced(useReactiveClient(client ->
             requestAssembler.assembleRequest(client)
                 .responseSingle(this::handleResponse)
-        );
+        ));
     }
 
     private HttpClient.ResponseReceiver<?> assembleRequest(HttpClient client) {
@@ -78,7 +130,7 @@ public class ObjectFetchBuilder<T> extends FetchBuilderBase<ObjectFetchBuilder<T
         }
 
         return bodyMono.asInputStream()
-            .publishOn(Schedulers.boundedElastic())
+            .publishOn(FileSchedulers.blockingIo())
             .flatMap(inputStream -> {
                 try {
                     try {
@@ -13,10 +13,10 @@ import java.time.Instant;
 import lombok.Setter;
 import lombok.experimental.Accessors;
 import lombok.extern.slf4j.Slf4j;
+import me.itzg.helpers.files.FileSchedulers;
 import me.itzg.helpers.files.ReactiveFileUtils;
 import org.jetbrains.annotations.NotNull;
 import reactor.core.publisher.Mono;
-import reactor.core.scheduler.Schedulers;
 import reactor.netty.ByteBufFlux;
 import reactor.netty.http.client.HttpClient;
 import reactor.netty.http.client.HttpClientResponse;
@@ -67,7 +67,7 @@ public class OutputToDirectoryFetchBuilder extends FetchBuilderBase<OutputToDire
     }
 
     public Mono<Path> assemble() {
-        return useReactiveClient(client ->
+        return limitedAndTraced(useReactiveClient(client ->
             client
                 .headers(this::applyHeaders)
                 .followRedirect(true)
@@ -92,9 +92,9 @@ public class OutputToDirectoryFetchBuilder extends FetchBuilderBase<OutputToDire
                         resp.resourceUrl()
                     );
                 })
-                .subscribeOn(Schedulers.boundedElastic())
+                .subscribeOn(FileSchedulers.blockingIo())
                 .checkpoint("Fetch HEAD of requested file")
-        );
+        ));
     }
 
     private Mono<Path> assembleFileDownloadNameViaGet(HttpClient client) {
@@ -0,0 +1,103 @@
+package me.itzg.helpers.http;
+
+import static io.netty.handler.codec.http.HttpHeaderNames.CONTENT_LENGTH;
+import static io.netty.handler.codec.http.HttpHeaderNames.ETAG;
+import static io.netty.handler.codec.http.HttpHeaderNames.LAST_MODIFIED;
+
+import io.netty.handler.codec.http.HttpHeaders;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import me.itzg.helpers.json.ObjectMappers;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Sidecar metadata kept next to a partially downloaded file, which allows a later attempt to resume
+ * the download with a range request as long as the remote content is still the same.
+ */
+@Data
+@Slf4j
+class PartialDownload {
+
+    /**
+     * Response validator that was given with the original, full response
+     */
+    private String etag;
+    /**
+     * Raw Last-Modified header value that was given with the original, full response
+     */
+    private String lastModified;
+    /**
+     * Total length of the content
+     */
+    private long contentLength;
+
+    static Path sidecarFor(Path partialFile) {
+        return partialFile.resolveSibling(partialFile.getFileName() + ".json");
+    }
+
+    /**
+     * @return the metadata to record for a full response or null if the response is missing a usable
+     * validator or content length
+     */
+    @Nullable
+    static PartialDownload fromResponse(HttpHeaders headers) {
+        final String contentLength = headers.get(CONTENT_LENGTH);
+        if (contentLength == null) {
+            return null;
+        }
+        final PartialDownload partialDownload;
+        try {
+            partialDownload = new PartialDownload()
+                .setEtag(headers.get(ETAG))
+                .setLastModified(headers.get(LAST_MODIFIED))
+                .setContentLength(Long.parseLong(contentLength));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        return partialDownload.ifRangeValue() != null && partialDownload.getContentLength() > 0 ?
+            partialDownload : null;
+    }
+
+    /**
+     * Weak entity tags are not allowed for If-Range, so the last modified value is used instead
+     * @return the value to use for If-Range or null if there is none
+     */
+    @Nullable
+    String ifRangeValue() {
+        if (etag != null && !etag.startsWith("W/")) {
+            return etag;
+        }
+        return lastModified;
+    }
+
+    /**
+     * @return the metadata or null if absent or unreadable
+     */
+    @Nullable
+    static PartialDownload load(Path sidecar) {
+        if (!Files.exists(sidecar)) {
+            return null;
+        }
+        try {
+            return ObjectMappers.defaultMapper().readValue(sidecar.toFile(), PartialDownload.class);
+        } catch (IOException e) {
+            log.debug("Ignoring unreadable partial download metadata {}", sidecar, e);
+            return null;
+        }
+    }
+
+    void save(Path sidecar) throws IOException {
+        ObjectMappers.defaultMapper().writeValue(sidecar.toFile(), this);
+    }
+
+    static void remove(Path sidecar) {
+        try {
+            Files.deleteIfExists(sidecar);
+        } catch (IOException e) {
+            log.warn("Unable to remove partial download metadata {}", sidecar, e);
+        }
+    }
+}
@@ -6,16 +6,20 @@ import io.netty.channel.ChannelPromise;
 import io.netty.handler.codec.http.HttpHeaderNames;
 import io.netty.handler.codec.http2.Http2SettingsFrame;
 import java.net.URI;
+import java.nio.file.Path;
 import java.time.Duration;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import lombok.Builder;
 import lombok.Builder.Default;
 import lombok.Getter;
+import lombok.Value;
 import lombok.extern.slf4j.Slf4j;
 import me.itzg.helpers.McImageHelper;
 import me.itzg.helpers.errors.GenericException;
+import me.itzg.helpers.files.ContentAddressedStore;
 import org.jspecify.annotations.NonNull;
 import reactor.netty.ChannelPipelineConfigurer;
 import reactor.netty.http.Http11SslContextSpec;
@@ -37,13 +41,35 @@ import reactor.netty.tcp.SslProvider.GenericSslContextSpec;
 @Slf4j
 public class SharedFetch implements AutoCloseable {
 
+    /**
+     * Connection pools are shared across instances, so that commands run by the batch command in one process
+     * re-use the connections of earlier commands.
+     */
+    private static final Map<ConnectionPoolKey, ConnectionProvider> connectionProviders = new ConcurrentHashMap<>();
+
+    @Value
+    private static class ConnectionPoolKey {
+        Duration maxIdleTimeout;
+        Duration pendingAcquireTimeout;
+        boolean metrics;
+    }
+
     private final Map<String, String> headers = new HashMap<>();
     final LatchingUrisInterceptor latchingUrisInterceptor = new LatchingUrisInterceptor();
+    final HostRateLimiters hostRateLimiters;
 
     private final HttpClient reactiveClient;
 
     private final URI filesViaUrl;
 
+    /**
+     * Null when no shared download store was configured
+     */
+    private final ContentAddressedStore downloadStore;
+
+    private final int downloadSegments;
+    private final long segmentedDownloadThreshold;
+
     public SharedFetch(String forCommand, Options options) {
         final String userAgent = String.format("%s/%s/%s (cmd=%s)",
             "itzg",
@@ -54,19 +80,15 @@ public class SharedFetch implements AutoCloseable {
 
         final String fetchSessionId = UUID.randomUUID().toString();
 
-        final ConnectionProvider.Builder connectionProviderBuilder = ConnectionProvider.create("custom")
-            .mutate();
-        if (connectionProviderBuilder == null) {
-            throw new GenericException("Unable to mutate default connection provider");
-        }
-
-        final ConnectionProvider connectionProvider = connectionProviderBuilder
-            .maxIdleTime(options.getMaxIdleTimeout())
-            .pendingAcquireTimeout(options.getPendingAcquireTimeout())
-            .build();
+        final ConnectionProvider connectionProvider = connectionProviders.computeIfAbsent(
+            new ConnectionPoolKey(options.getMaxIdleTimeout(), options.getPendingAcquireTimeout(),
+                FetchMetrics.isEnabled()
+            ),
+            SharedFetch::createConnectionProvider
+        );
 
         reactiveClient =
-            applyWiretap(
+            applyMetrics(applyWiretap(
                 applyHttp2Option(
                     HttpClient.create(connectionProvider)
                         .proxyWithSystemProperties()
@@ -84,11 +106,55 @@ public class SharedFetch implements AutoCloseable {
                     options
                 ),
                 options
-            );
+            ));
 
         headers.put("x-fetch-session", fetchSessionId);
 
         this.filesViaUrl = options.getFilesViaUrl();
+
+        this.downloadStore = options.getDownloadStoreDirectory() != null ?
+            new ContentAddressedStore(options.getDownloadStoreDirectory(), options.getDownloadStoreMaxSize())
+            : null;
+
+        this.downloadSegments = options.getDownloadSegments();
+        this.segmentedDownloadThreshold = options.getSegmentedDownloadThreshold();
+
+        this.hostRateLimiters = new HostRateLimiters(options.getHostRequestsPerSecond(), options.getHostRequestBurst());
+    }
+
+    private static ConnectionProvider createConnectionProvider(ConnectionPoolKey key) {
+        final ConnectionProvider.Builder connectionProviderBuilder = ConnectionProvider.create("custom")
+            .mutate();
+        if (connectionProviderBuilder == null) {
+            throw new GenericException("Unable to mutate default connection provider");
+        }
+
+        connectionProviderBuilder
+            .maxIdleTime(key.getMaxIdleTimeout())
+            .pendingAcquireTimeout(key.getPendingAcquireTimeout());
+        if (key.isMetrics()) {
+            connectionProviderBuilder.metrics(true, () -> FetchMetricsRecorder.INSTANCE);
+        }
+        return connectionProviderBuilder.build();
+    }
+
+    /**
+     * Reports to {@link FetchMetrics} when it was enabled before this instance was created, which is the case
+     * when enabled by an option.
+     */
+    private static HttpClient applyMetrics(HttpClient c) {
+        if (!FetchMetrics.isEnabled()) {
+            return c;
+        }
+        return c
+            .metrics(true, () -> FetchMetricsRecorder.INSTANCE)
+            .doOnResponse((response, connection) -> {
+                final FetchMetrics metrics = FetchMetrics.current();
+                if (metrics != null) {
+                    metrics.host(URI.create(response.resourceUrl()).getHost())
+                        .countResponse(response.version().text());
+                }
+            });
     }
 
     private HttpClient applyWiretap(HttpClient c, Options options) {
@@ -164,6 +230,9 @@ public class SharedFetch implements AutoCloseable {
     public static class Options {
 
         public static final Duration DEFAULT_MAX_IDLE_TIMEOUT = Duration.ofSeconds(30);
+        public static final long DEFAULT_DOWNLOAD_STORE_MAX_SIZE = 10L * 1024 * 1024 * 1024;
+        public static final long DEFAULT_SEGMENTED_DOWNLOAD_THRESHOLD = 64L * 1024 * 1024;
+        public static final int DEFAULT_HOST_REQUEST_BURST = 10;
 
         @Default
         private final Duration responseTimeout
@@ -203,6 +272,35 @@ public class SharedFetch implements AutoCloseable {
 
         private final boolean wiretap;
 
+        /**
+         * When set, files with known checksums are retrieved from and added to this content-addressed store
+         */
+        private final Path downloadStoreDirectory;
+
+        @Default
+        private final long downloadStoreMaxSize = DEFAULT_DOWNLOAD_STORE_MAX_SIZE;
+
+        /**
+         * When greater than one, files at least {@link #segmentedDownloadThreshold} in size are downloaded
+         * with this many concurrent range requests, if the server supports them
+         */
+        @Default
+        private final int downloadSegments = 1;
+
+        @Default
+        private final long segmentedDownloadThreshold = DEFAULT_SEGMENTED_DOWNLOAD_THRESHOLD;
+
+        /**
+         * Sustained rate of requests allowed to each host, where zero or less is unlimited
+         */
+        private final double hostRequestsPerSecond;
+
+        /**
+         * Number of requests allowed to each host at once before {@link #hostRequestsPerSecond} applies
+         */
+        @Default
+        private final int hostRequestBurst = DEFAULT_HOST_REQUEST_BURST;
+
         public Options withHeader(String key, String value) {
             final Map<String, String> newHeaders = extraHeaders != null ?
                 new HashMap<>(extraHeaders) : new HashMap<>();
@@ -210,7 +308,9 @@ public class SharedFetch implements AutoCloseable {
 
             return new Options(
                 responseTimeout, tlsHandshakeTimeout, maxIdleTimeout, pendingAcquireTimeout,
-                newHeaders, filesViaUrl, useHttp2, http2InitialWindowSize, http2MaxFrameSize, wiretap
+                newHeaders, filesViaUrl, useHttp2, http2InitialWindowSize, http2MaxFrameSize, wiretap,
+                downloadStoreDirectory, downloadStoreMaxSize, downloadSegments, segmentedDownloadThreshold,
+                hostRequestsPerSecond, hostRequestBurst
             );
         }
     }
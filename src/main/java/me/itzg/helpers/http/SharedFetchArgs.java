@@ -1,7 +1,9 @@
 package me.itzg.helpers.http;
 
+import java.nio.file.Path;
 import java.time.Duration;
 import me.itzg.helpers.http.SharedFetch.Options;
+import me.itzg.helpers.trace.Tracer;
 import picocli.CommandLine.Option;
 
 /**
@@ -98,6 +100,94 @@ public class SharedFetchArgs {
         optionsBuilder.wiretap(wiretap);
     }
 
+    @Option(names = "--download-store", defaultValue = "${env:FETCH_DOWNLOAD_STORE}",
+        paramLabel = "DIR",
+        description = "A directory, such as a volume shared across containers on a host, where downloaded files"
+            + " with known checksums are kept and re-used by later installs."
+            + "%nEnv: FETCH_DOWNLOAD_STORE"
+    )
+    public void setDownloadStore(Path downloadStore) {
+        optionsBuilder.downloadStoreDirectory(downloadStore);
+    }
+
+    @Option(names = "--download-store-max-size", defaultValue = "${env:FETCH_DOWNLOAD_STORE_MAX_SIZE}",
+        paramLabel = "BYTES",
+        description = "Least recently used files are evicted from the download store when it exceeds this size."
+            + " Zero or less disables eviction."
+            + "%nDefault: 10 GiB"
+            + "%nEnv: FETCH_DOWNLOAD_STORE_MAX_SIZE"
+    )
+    public void setDownloadStoreMaxSize(long size) {
+        optionsBuilder.downloadStoreMaxSize(size);
+    }
+
+    @Option(names = "--download-segments", defaultValue = "${env:FETCH_DOWNLOAD_SEGMENTS:-1}",
+        paramLabel = "COUNT",
+        description = "When greater than one, large files are downloaded using this many concurrent range requests,"
+            + " if supported by the server."
+            + "%nDefault: ${DEFAULT-VALUE}"
+            + "%nEnv: FETCH_DOWNLOAD_SEGMENTS"
+    )
+    public void setDownloadSegments(int segments) {
+        optionsBuilder.downloadSegments(segments);
+    }
+
+    @Option(names = "--segmented-download-threshold", defaultValue = "${env:FETCH_SEGMENTED_DOWNLOAD_THRESHOLD}",
+        paramLabel = "BYTES",
+        description = "Files at least this size are downloaded in segments when --download-segments is greater than one."
+            + "%nDefault: 64 MiB"
+            + "%nEnv: FETCH_SEGMENTED_DOWNLOAD_THRESHOLD"
+    )
+    public void setSegmentedDownloadThreshold(long threshold) {
+        optionsBuilder.segmentedDownloadThreshold(threshold);
+    }
+
+    @Option(names = "--host-requests-per-second", defaultValue = "${env:FETCH_HOST_REQUESTS_PER_SECOND:-0}",
+        paramLabel = "RATE",
+        description = "Limits the sustained rate of requests to each host. Zero means unlimited."
+            + " Regardless, requests that are rate limited by a host wait for it to allow them again."
+            + "%nDefault: ${DEFAULT-VALUE}"
+            + "%nEnv: FETCH_HOST_REQUESTS_PER_SECOND"
+    )
+    public void setHostRequestsPerSecond(double rate) {
+        optionsBuilder.hostRequestsPerSecond(rate);
+    }
+
+    @Option(names = "--host-request-burst", defaultValue = "${env:FETCH_HOST_REQUEST_BURST}",
+        paramLabel = "COUNT",
+        description = "The number of requests to each host allowed at once before --host-requests-per-second applies."
+            + "%nDefault: 10"
+            + "%nEnv: FETCH_HOST_REQUEST_BURST"
+    )
+    public void setHostRequestBurst(int burst) {
+        optionsBuilder.hostRequestBurst(burst);
+    }
+
+    @Option(names = "--trace-file", defaultValue = "${env:HELPER_TRACE_FILE}",
+        paramLabel = "FILE",
+        description = "Record the phases and file operations, with timings, bytes, and retries, to this file"
+            + " in Chrome trace event format, which can be opened with https://ui.perfetto.dev"
+            + "%nEnv: HELPER_TRACE_FILE"
+    )
+    public void setTraceFile(Path traceFile) {
+        if (traceFile != null) {
+            Tracer.enable(traceFile);
+        }
+    }
+
+    @Option(names = "--metrics-file", defaultValue = "${env:FETCH_METRICS_FILE}",
+        paramLabel = "FILE",
+        description = "Write per-host request counts, retries, bytes, latency histograms, and connection pool usage"
+            + " to this file at exit. Written as JSON when the name ends with .json, otherwise in the Prometheus"
+            + " text format"
+            + "%nEnv: FETCH_METRICS_FILE"
+    )
+    public void setMetricsFile(Path metricsFile) {
+        if (metricsFile != null) {
+            FetchMetrics.enable(metricsFile);
+        }
+    }
+
     public Options options() {
         return optionsBuilder.build();
     }
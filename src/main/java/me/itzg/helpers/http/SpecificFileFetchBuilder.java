@@ -1,22 +1,44 @@
 package me.itzg.helpers.http;
 
+import static io.netty.handler.codec.http.HttpHeaderNames.ACCEPT_RANGES;
+import static io.netty.handler.codec.http.HttpHeaderNames.CONTENT_RANGE;
 import static io.netty.handler.codec.http.HttpHeaderNames.IF_MODIFIED_SINCE;
+import static io.netty.handler.codec.http.HttpHeaderNames.IF_RANGE;
+import static io.netty.handler.codec.http.HttpHeaderNames.RANGE;
 import static io.netty.handler.codec.http.HttpResponseStatus.NOT_MODIFIED;
+import static io.netty.handler.codec.http.HttpResponseStatus.OK;
+import static io.netty.handler.codec.http.HttpResponseStatus.PARTIAL_CONTENT;
+import static io.netty.handler.codec.http.HttpResponseStatus.REQUESTED_RANGE_NOT_SATISFIABLE;
 import static java.lang.System.currentTimeMillis;
 import static java.util.Objects.requireNonNull;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.handler.codec.http.HttpHeaders;
 import io.netty.handler.codec.http.HttpResponseStatus;
 import java.io.IOException;
 import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.nio.file.attribute.FileTime;
+import java.util.Map;
 import lombok.Setter;
+import lombok.Value;
 import lombok.experimental.Accessors;
 import lombok.extern.slf4j.Slf4j;
 import me.itzg.helpers.errors.GenericException;
+import me.itzg.helpers.files.ChecksumAlgo;
+import me.itzg.helpers.files.Checksums;
+import me.itzg.helpers.files.ContentAddressedStore;
+import me.itzg.helpers.files.FileHashInvalidException;
+import me.itzg.helpers.files.FileSchedulers;
 import me.itzg.helpers.files.ReactiveFileUtils;
+import org.jetbrains.annotations.Nullable;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
 
 @Slf4j
 @Accessors(fluent = true)
@@ -31,6 +53,15 @@ public class SpecificFileFetchBuilder extends FetchBuilderBase<SpecificFileFetch
     @Setter
     private boolean skipExisting;
 
+    private ChecksumAlgo checksumAlgo;
+    private String checksum;
+    /**
+     * Size of the file, when known ahead of time such as from API metadata. When it is below the
+     * segmented download threshold, the segment probe is skipped. Zero when not known.
+     */
+    @Setter
+    private long expectedSize;
+
     SpecificFileFetchBuilder(State state, Path file) {
         super(state);
         this.file = file;
@@ -48,6 +79,37 @@ public class SpecificFileFetchBuilder extends FetchBuilderBase<SpecificFileFetch
         return self();
     }
 
+    /**
+     * Declares the expected checksum of the file, which allows for the file to be retrieved from and
+     * added to the shared download store, if configured.
+     * <p>
+     * Downloaded content is verified against the checksum as it is written, so the resulting mono will
+     * fail with {@link me.itzg.helpers.files.FileHashInvalidException} if the content didn't match.
+     * Files skipped due to {@link #skipExisting(boolean)} or {@link #skipUpToDate(boolean)} are not verified.
+     * </p>
+     */
+    public SpecificFileFetchBuilder checksum(ChecksumAlgo algo, String checksum) {
+        this.checksumAlgo = algo;
+        this.checksum = checksum;
+        return self();
+    }
+
+    /**
+     * Convenience for {@link #checksum(ChecksumAlgo, String)} that picks the strongest known algorithm
+     * @param hashes keyed by algorithm prefix, such as "sha1" and "sha512"
+     */
+    public SpecificFileFetchBuilder checksums(Map<String, String> hashes) {
+        if (hashes != null) {
+            for (final ChecksumAlgo algo : new ChecksumAlgo[]{ChecksumAlgo.SHA512, ChecksumAlgo.SHA256, ChecksumAlgo.SHA1}) {
+                final String value = hashes.get(algo.getPrefix());
+                if (value != null) {
+                    return checksum(algo, value);
+                }
+            }
+        }
+        return self();
+    }
+
     public Path execute() throws IOException {
         return assemble()
             .block();
@@ -62,55 +124,137 @@ public class SpecificFileFetchBuilder extends FetchBuilderBase<SpecificFileFetch
             return Mono.just(file);
         }
 
+        final ContentAddressedStore store = checksum != null ? downloadStore() : null;
+        if (store != null) {
+            return store.retrieveAsync(checksumAlgo, checksum, file)
+                .flatMap(retrieved -> {
+                    if (retrieved) {
+                        statusHandler.call(FileDownloadStatus.RETRIEVED_FROM_STORE, uri, file);
+                        return Mono.just(file);
+                    }
+                    return assembleDownload(uri)
+                        // content was verified while downloading unless an up-to-date, existing file was kept
+                        .flatMap(path -> store.storeAsync(checksumAlgo, checksum, path, !skipUpToDate));
+                });
+        }
+
+        return assembleDownload(uri);
+    }
+
+    private Mono<Path> assembleDownload(URI uri) {
         final boolean useIfModifiedSince = skipUpToDate && Files.exists(file);
 
         final Path tempDownloadFile = file.resolveSibling(file.getFileName() + ".download");
-        return useReactiveClient(client ->
-            client
-                .doOnRequest((httpClientRequest, connection) ->
-                    statusHandler.call(FileDownloadStatus.DOWNLOADING, uri, file)
+        final Path sidecarFile = PartialDownload.sidecarFor(tempDownloadFile);
+        return limitedAndTraced(useReactiveClient(client ->
+            // evaluated on each subscription so that a retry resumes from what was written by the previous attempt
+            Mono.fromCallable(() -> prepareResume(tempDownloadFile, sidecarFile))
+                .subscribeOn(FileSchedulers.blockingIo())
+                .flatMap(resume -> {
+                    if (resume.offset() == 0 && downloadSegments() > 1 && !knownToBeBelowSegmentThreshold()) {
+                        return probeForSegments(client, uri, useIfModifiedSince)
+                            .flatMap(probe -> probe.notModified() ?
+                                skippedUpToDate(uri)
+                                : segmentedDownload(client, uri, probe, tempDownloadFile, sidecarFile)
+                            )
+                            .switchIfEmpty(Mono.defer(() ->
+                                singleDownload(client, uri, resume, useIfModifiedSince, tempDownloadFile, sidecarFile)
+                            ));
+                    }
+                    return singleDownload(client, uri, resume, useIfModifiedSince, tempDownloadFile, sidecarFile);
+                })
+                .flatMap(path -> path.equals(tempDownloadFile) ?
+                    ReactiveFileUtils.moveTo(file).apply(path)
+                        .doOnNext(moved -> PartialDownload.remove(sidecarFile))
+                    : Mono.just(path)
                 )
-                .headers(headers -> {
-                    if (useIfModifiedSince) {
-                        try {
-                            final FileTime lastModifiedTime;
-                            lastModifiedTime = Files.getLastModifiedTime(file);
-                            headers.set(
-                                IF_MODIFIED_SINCE,
-                                httpDateTimeFormatter.format(lastModifiedTime.toInstant())
-                            );
-                        } catch (IOException e) {
-                            throw new GenericException("Unable to get last modified time of " + file, e);
-                        }
+                .contextWrite(context -> context.put("downloadStart", currentTimeMillis()))
+        ));
+    }
 
-                    }
+    private Mono<Path> singleDownload(HttpClient client, URI uri, Resume resume, boolean useIfModifiedSince,
+        Path tempDownloadFile, Path sidecarFile
+    ) {
+        return client
+            .doOnRequest((httpClientRequest, connection) ->
+                statusHandler.call(FileDownloadStatus.DOWNLOADING, uri, file)
+            )
+            .headers(headers -> {
+                if (useIfModifiedSince) {
+                    setIfModifiedSince(headers);
+                }
 
-                    applyHeaders(headers);
-                })
-                .followRedirect(true)
-                .doOnRequest(debugLogRequest(log, "file fetch"))
-                .doOnResponse(debugLogResponse(log, "file fetch"))
-                .get()
-                .uri(uri)
-                .response((resp, byteBufFlux) -> {
-                    final HttpResponseStatus status = resp.status();
-
-                    if (useIfModifiedSince && status == NOT_MODIFIED) {
-                        log.debug("The file {} is already up to date", file);
-                        statusHandler.call(FileDownloadStatus.SKIP_FILE_UP_TO_DATE, uri, file);
-                        return Mono.just(file);
-                    }
+                if (resume.offset() > 0) {
+                    headers.set(RANGE, "bytes=" + resume.offset() + "-");
+                    headers.set(IF_RANGE, resume.ifRange());
+                }
 
-                    if (notSuccess(resp)) {
-                        return failedRequestMono(resp, byteBufFlux.aggregate(), "Trying to retrieve file");
-                    }
+                applyHeaders(headers);
+            })
+            .followRedirect(true)
+            .doOnRequest(debugLogRequest(log, "file fetch"))
+            .doOnResponse(debugLogResponse(log, "file fetch"))
+            .get()
+            .uri(uri)
+            .response((resp, byteBufFlux) -> {
+                final HttpResponseStatus status = resp.status();
+
+                if (useIfModifiedSince && status == NOT_MODIFIED) {
+                    return skippedUpToDate(uri);
+                }
 
-                    if (notExpectedContentType(resp)) {
-                        return failedContentTypeMono(resp);
+                if (resume.offset() > 0 && status == REQUESTED_RANGE_NOT_SATISFIABLE) {
+                    return discardPartial(tempDownloadFile, sidecarFile)
+                        .then(failedRequestMono(resp, byteBufFlux.aggregate(), "Trying to resume file"));
+                }
+
+                if (notSuccess(resp)) {
+                    return failedRequestMono(resp, byteBufFlux.aggregate(), "Trying to retrieve file");
+                }
+
+                if (notExpectedContentType(resp)) {
+                    return failedContentTypeMono(resp);
+                }
+
+                final Mono<Long> startOffsetMono;
+                if (resume.offset() > 0 && status == PARTIAL_CONTENT) {
+                    final long rangeStart = contentRangeStart(resp.responseHeaders().get(CONTENT_RANGE));
+                    if (rangeStart != resume.offset()) {
+                        return discardPartial(tempDownloadFile, sidecarFile)
+                            .then(Mono.error(new IOException(
+                                String.format("Unexpected content range '%s' when resuming %s at %d",
+                                    resp.responseHeaders().get(CONTENT_RANGE), uri, resume.offset()
+                                ))));
                     }
+                    log.debug("Resuming download of {} at byte {}", uri, resume.offset());
+                    startOffsetMono = Mono.just(resume.offset());
+                }
+                else {
+                    // full content, so record what is needed to resume it if interrupted
+                    final PartialDownload partialDownload = PartialDownload.fromResponse(resp.responseHeaders());
+                    startOffsetMono = Mono.fromCallable(() -> {
+                            if (partialDownload != null) {
+                                partialDownload.save(sidecarFile);
+                            }
+                            else {
+                                PartialDownload.remove(sidecarFile);
+                            }
+                            return 0L;
+                        })
+                        .subscribeOn(FileSchedulers.blockingIo());
+                }
 
-                    return ReactiveFileUtils.writeByteBufFluxToFile(byteBufFlux, tempDownloadFile)
-                        .flatMap(fileSize -> {
+                return startOffsetMono.flatMap(startOffset ->
+                    ReactiveFileUtils.writeByteBufFluxToFile(byteBufFlux, tempDownloadFile, startOffset,
+                            checksumAlgo, checksum
+                        )
+                        .onErrorResume(FileHashInvalidException.class,
+                            // corrupted content must not be resumed
+                            e -> discardPartial(tempDownloadFile, sidecarFile)
+                                .then(Mono.error(e))
+                        )
+                        .flatMap(transferred -> {
+                            final long fileSize = startOffset + transferred;
                             statusHandler.call(FileDownloadStatus.DOWNLOADED, uri, file);
                             downloadedHandler.call(uri, file, fileSize);
                             return Mono
@@ -119,18 +263,283 @@ public class SpecificFileFetchBuilder extends FetchBuilderBase<SpecificFileFetch
                                         final long durationMillis =
                                             currentTimeMillis() - contextView.<Long>get("downloadStart");
                                         log.debug("Download of {} took {} at {}",
-                                            uri, formatDuration(durationMillis), transferRate(durationMillis, fileSize)
+                                            uri, formatDuration(durationMillis),
+                                            transferRate(durationMillis, transferred)
                                         );
                                     }
                                     return Mono.just(tempDownloadFile);
                                 });
-                        });
+                        })
+                );
 
-                })
-                .last()
-                .flatMap(ReactiveFileUtils.moveTo(file))
-                .contextWrite(context -> context.put("downloadStart", currentTimeMillis()))
-        );
+            })
+            .last();
+    }
+
+    private Mono<Path> skippedUpToDate(URI uri) {
+        log.debug("The file {} is already up to date", file);
+        statusHandler.call(FileDownloadStatus.SKIP_FILE_UP_TO_DATE, uri, file);
+        return Mono.just(file);
+    }
+
+    private void setIfModifiedSince(HttpHeaders headers) {
+        try {
+            final FileTime lastModifiedTime = Files.getLastModifiedTime(file);
+            headers.set(
+                IF_MODIFIED_SINCE,
+                httpDateTimeFormatter.format(lastModifiedTime.toInstant())
+            );
+        } catch (IOException e) {
+            throw new GenericException("Unable to get last modified time of " + file, e);
+        }
+    }
+
+    private boolean knownToBeBelowSegmentThreshold() {
+        return expectedSize > 0 && expectedSize < segmentedDownloadThreshold();
+    }
+
+    /**
+     * Uses a HEAD request to determine if the file is large enough to segment and the server supports
+     * range requests with a validator that can ensure all segments are of the same content.
+     * @return the probe result or empty if the file should be downloaded with a single request
+     */
+    private Mono<SegmentProbe> probeForSegments(HttpClient client, URI uri, boolean useIfModifiedSince) {
+        return client
+            .headers(headers -> {
+                if (useIfModifiedSince) {
+                    setIfModifiedSince(headers);
+                }
+                applyHeaders(headers);
+            })
+            .followRedirect(true)
+            .doOnRequest(debugLogRequest(log, "segment probe"))
+            .doOnResponse(debugLogResponse(log, "segment probe"))
+            .head()
+            .uri(uri)
+            .response((resp, byteBufFlux) -> {
+                if (useIfModifiedSince && resp.status() == NOT_MODIFIED) {
+                    return Mono.just(SegmentProbe.NOT_MODIFIED);
+                }
+                // anything unexpected is left for the single download to handle and report
+                if (resp.status() != OK
+                    || notExpectedContentType(resp)
+                    || !"bytes".equalsIgnoreCase(resp.responseHeaders().get(ACCEPT_RANGES))) {
+                    return Mono.empty();
+                }
+
+                final PartialDownload validators = PartialDownload.fromResponse(resp.responseHeaders());
+                if (validators == null || validators.getContentLength() < segmentedDownloadThreshold()) {
+                    return Mono.empty();
+                }
+                return Mono.just(new SegmentProbe(false, validators.getContentLength(), validators.ifRangeValue()));
+            })
+            .next()
+            .onErrorResume(e -> {
+                log.debug("Falling back to single download of {} since probe failed", uri, e);
+                return Mono.empty();
+            });
+    }
+
+    /**
+     * Downloads concurrent byte ranges of the file, writing each directly into its position in the temp
+     * file. The content is verified as a whole after all segments are written.
+     */
+    private Mono<Path> segmentedDownload(HttpClient client, URI uri, SegmentProbe probe,
+        Path tempDownloadFile, Path sidecarFile
+    ) {
+        final long contentLength = probe.contentLength();
+        final int segments = (int) Math.min(downloadSegments(), contentLength);
+        final long segmentSize = (contentLength + segments - 1) / segments;
+        log.debug("Downloading {} bytes of {} in {} segments", contentLength, uri, segments);
+
+        return Mono.using(
+                () -> {
+                    // segmented content cannot be resumed
+                    PartialDownload.remove(sidecarFile);
+                    return FileChannel.open(tempDownloadFile,
+                        StandardOpenOption.WRITE,
+                        StandardOpenOption.CREATE,
+                        StandardOpenOption.TRUNCATE_EXISTING
+                    );
+                },
+                channel -> Flux.range(0, segments)
+                    .flatMap(segment -> {
+                        final long start = segment * segmentSize;
+                        final long end = Math.min(start + segmentSize, contentLength) - 1;
+                        return downloadSegment(client, uri, probe.ifRange(), channel, start, end);
+                    }, segments)
+                    .reduce(0L, Long::sum),
+                channel -> {
+                    try {
+                        channel.close();
+                    } catch (IOException e) {
+                        log.debug("Failed to close {}", tempDownloadFile, e);
+                    }
+                }
+            )
+            .doOnSubscribe(subscription -> statusHandler.call(FileDownloadStatus.DOWNLOADING, uri, file))
+            .subscribeOn(FileSchedulers.blockingIo())
+            .flatMap(transferred -> {
+                if (transferred != contentLength) {
+                    return Mono.error(new IOException(
+                        String.format("Segmented download of %s transferred %d bytes, but expected %d",
+                            uri, transferred, contentLength
+                        )));
+                }
+                return verifyWholeFile(tempDownloadFile)
+                    .then(Mono.deferContextual(contextView -> {
+                        statusHandler.call(FileDownloadStatus.DOWNLOADED, uri, file);
+                        downloadedHandler.call(uri, file, transferred);
+                        if (log.isDebugEnabled()) {
+                            final long durationMillis =
+                                currentTimeMillis() - contextView.<Long>get("downloadStart");
+                            log.debug("Segmented download of {} took {} at {}",
+                                uri, formatDuration(durationMillis), transferRate(durationMillis, transferred)
+                            );
+                        }
+                        return Mono.just(tempDownloadFile);
+                    }));
+            });
+    }
+
+    /**
+     * @param end inclusive position of the last byte
+     * @return the number of bytes written
+     */
+    private Mono<Long> downloadSegment(HttpClient client, URI uri, String ifRange, FileChannel channel,
+        long start, long end
+    ) {
+        return client
+            .headers(headers -> {
+                applyHeaders(headers);
+                headers.set(RANGE, "bytes=" + start + "-" + end);
+                headers.set(IF_RANGE, ifRange);
+            })
+            .followRedirect(true)
+            .doOnRequest(debugLogRequest(log, "segment fetch"))
+            .doOnResponse(debugLogResponse(log, "segment fetch"))
+            .get()
+            .uri(uri)
+            .response((resp, byteBufFlux) -> {
+                if (notSuccess(resp)) {
+                    return failedRequestMono(resp, byteBufFlux.aggregate(), "Trying to retrieve file segment");
+                }
+                if (resp.status() != PARTIAL_CONTENT
+                    || contentRangeStart(resp.responseHeaders().get(CONTENT_RANGE)) != start) {
+                    // most likely the content changed since If-Range didn't match
+                    return Mono.error(new IOException(
+                        String.format("Expected content range starting at %d of %s, but got status=%s range='%s'",
+                            start, uri, resp.status(), resp.responseHeaders().get(CONTENT_RANGE)
+                        )));
+                }
+
+                final long[] position = {start};
+                return byteBufFlux
+                    .retain()
+                    .publishOn(FileSchedulers.blockingIo())
+                    .doOnDiscard(ByteBuf.class, ByteBuf::release)
+                    .<Long>handle((byteBuf, sink) -> {
+                        try {
+                            final ByteBuffer nioBuffer = byteBuf.nioBuffer();
+                            long written = 0;
+                            while (nioBuffer.hasRemaining()) {
+                                written += channel.write(nioBuffer, position[0] + written);
+                            }
+                            position[0] += written;
+                            if (position[0] > end + 1) {
+                                sink.error(new IOException(
+                                    String.format("Segment of %s starting at %d exceeded its end at %d", uri, start, end)
+                                ));
+                                return;
+                            }
+                            sink.next(written);
+                        } catch (IOException e) {
+                            sink.error(e);
+                        } finally {
+                            byteBuf.release();
+                        }
+                    })
+                    .reduce(0L, Long::sum);
+            })
+            .next();
+    }
+
+    private Mono<Void> verifyWholeFile(Path tempDownloadFile) {
+        if (checksumAlgo == null || checksum == null) {
+            return Mono.empty();
+        }
+        return Mono.<Void>fromCallable(() -> {
+                final String actual = Checksums.compute(tempDownloadFile, checksumAlgo);
+                if (!actual.equalsIgnoreCase(checksum)) {
+                    Files.deleteIfExists(tempDownloadFile);
+                    throw new FileHashInvalidException(
+                        String.format("Downloaded content of %s has %s checksum %s, but expected %s",
+                            tempDownloadFile, checksumAlgo.getPrefix(), actual, checksum
+                        ));
+                }
+                return null;
+            })
+            .subscribeOn(FileSchedulers.blockingIo());
+    }
+
+    /**
+     * Blocking
+     * @return the offset to resume from and the If-Range value, or {@link Resume#NONE}
+     */
+    private static Resume prepareResume(Path tempDownloadFile, Path sidecarFile) throws IOException {
+        if (!Files.exists(tempDownloadFile)) {
+            PartialDownload.remove(sidecarFile);
+            return Resume.NONE;
+        }
+
+        final PartialDownload partialDownload = PartialDownload.load(sidecarFile);
+        if (partialDownload == null || partialDownload.ifRangeValue() == null) {
+            return Resume.NONE;
+        }
+
+        final long size = Files.size(tempDownloadFile);
+        if (size > 0 && size < partialDownload.getContentLength()) {
+            return new Resume(size, partialDownload.ifRangeValue());
+        }
+        return Resume.NONE;
+    }
+
+    private static Mono<Void> discardPartial(Path tempDownloadFile, Path sidecarFile) {
+        return Mono.<Void>fromRunnable(() -> {
+                PartialDownload.remove(sidecarFile);
+                try {
+                    Files.deleteIfExists(tempDownloadFile);
+                } catch (IOException e) {
+                    log.warn("Unable to remove partial download {}", tempDownloadFile, e);
+                }
+            })
+            .subscribeOn(FileSchedulers.blockingIo());
+    }
+
+    /**
+     * @param contentRange such as "bytes 100-999/1000"
+     * @return the first byte position or -1 if not parseable
+     */
+    static long contentRangeStart(@Nullable String contentRange) {
+        final ContentRange parsed = ContentRange.parse(contentRange);
+        return parsed != null ? parsed.getStart() : -1;
+    }
+
+    @Value @Accessors(fluent = true)
+    private static class SegmentProbe {
+        static final SegmentProbe NOT_MODIFIED = new SegmentProbe(true, 0, null);
+
+        boolean notModified;
+        long contentLength;
+        String ifRange;
+    }
+
+    @Value @Accessors(fluent = true)
+    private static class Resume {
+        static final Resume NONE = new Resume(0, null);
+
+        long offset;
+        String ifRange;
     }
 
 }
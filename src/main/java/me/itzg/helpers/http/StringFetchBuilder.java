@@ -12,7 +12,7 @@ public class StringFetchBuilder extends FetchBuilderBase<StringFetchBuilder> {
     }
 
     public Mono<String> assemble() {
-        return useReactiveClient(client ->
+        return limitedAndTraced(useReactiveClient(client ->
             client
                 .headers(this::applyHeaders)
                 .followRedirect(true)
@@ -21,7 +21,7 @@ public class StringFetchBuilder extends FetchBuilderBase<StringFetchBuilder> {
                 .get()
                 .uri(uri())
                 .responseSingle(this::handleResponse)
-        );
+        ));
     }
 
     private Mono<String> handleResponse(HttpClientResponse resp, ByteBufMono byteBufMono) {
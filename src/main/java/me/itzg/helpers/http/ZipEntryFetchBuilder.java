@@ -0,0 +1,264 @@
+package me.itzg.helpers.http;
+
+import static io.netty.handler.codec.http.HttpHeaderNames.CONTENT_RANGE;
+import static io.netty.handler.codec.http.HttpHeaderNames.RANGE;
+import static io.netty.handler.codec.http.HttpResponseStatus.PARTIAL_CONTENT;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import me.itzg.helpers.files.FileSchedulers;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+
+/**
+ * Reads a single entry of a remote zip file by using range requests to retrieve the end of central
+ * directory record, the central directory, and then only the requested entry, rather than the whole zip file.
+ * <p>
+ * The resulting mono is empty when the server doesn't support range requests or the entry couldn't be located,
+ * in which case the caller should fall back to downloading the whole zip file.
+ * </p>
+ */
+@Slf4j
+public class ZipEntryFetchBuilder extends FetchBuilderBase<ZipEntryFetchBuilder> {
+
+    private static final int EOCD_SIGNATURE = 0x06054b50;
+    private static final int CENTRAL_HEADER_SIGNATURE = 0x02014b50;
+    private static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+    private static final int EOCD_SIZE = 22;
+    private static final int MAX_COMMENT_LENGTH = 0xFFFF;
+    private static final int CENTRAL_HEADER_SIZE = 46;
+    private static final int LOCAL_HEADER_SIZE = 30;
+    private static final int MAX_EXTRA_LENGTH = 0xFFFF;
+    private static final long ZIP64_MARKER = 0xFFFFFFFFL;
+    private static final int METHOD_STORED = 0;
+    private static final int METHOD_DEFLATED = 8;
+    /**
+     * Entries larger than this are not worth holding in memory
+     */
+    private static final long MAX_ENTRY_SIZE = 64L * 1024 * 1024;
+
+    private final String entryName;
+
+    ZipEntryFetchBuilder(State state, String entryName) {
+        super(state);
+        this.entryName = entryName;
+    }
+
+    public byte[] execute() {
+        return assemble()
+            .block();
+    }
+
+    public Mono<byte[]> assemble() {
+        final URI uri = uri();
+
+        return limitedAndTraced(useReactiveClient(client ->
+            fetchRange(client, uri, "bytes=-" + (EOCD_SIZE + MAX_COMMENT_LENGTH))
+                .flatMap(tail -> {
+                    final CentralDirectory centralDirectory = locateCentralDirectory(tail);
+                    if (centralDirectory == null) {
+                        log.debug("Unable to locate central directory of {}", uri);
+                        return Mono.empty();
+                    }
+                    if (centralDirectory.getOffset() >= tail.getStart()
+                        && centralDirectory.getOffset() + centralDirectory.getSize()
+                        <= tail.getStart() + tail.getContent().length) {
+                        final int from = (int) (centralDirectory.getOffset() - tail.getStart());
+                        return Mono.just(
+                            new CentralDirectoryContent(centralDirectory,
+                                Arrays.copyOfRange(tail.getContent(), from, from + (int) centralDirectory.getSize())
+                            ));
+                    }
+                    return fetchRange(client, uri,
+                        rangeOf(centralDirectory.getOffset(), centralDirectory.getSize())
+                    )
+                        .map(range -> new CentralDirectoryContent(centralDirectory, range.getContent()));
+                })
+                .flatMap(centralDirectoryContent -> {
+                    final EntryLocation entry = findEntry(centralDirectoryContent.getContent());
+                    if (entry == null) {
+                        log.debug("Entry {} is not present or not supported in {}", entryName, uri);
+                        return Mono.empty();
+                    }
+                    // the local extra field can differ from the central one, so allow for its maximum
+                    final long end = Math.min(
+                        centralDirectoryContent.getCentralDirectory().getOffset(),
+                        entry.getLocalHeaderOffset() + LOCAL_HEADER_SIZE
+                            + entry.getNameLength() + MAX_EXTRA_LENGTH + entry.getCompressedSize()
+                    );
+                    return fetchRange(client, uri,
+                        rangeOf(entry.getLocalHeaderOffset(), end - entry.getLocalHeaderOffset())
+                    )
+                        .publishOn(FileSchedulers.blockingIo())
+                        .flatMap(range -> Mono.fromCallable(() -> extract(entry, range.getContent())));
+                })
+        ));
+    }
+
+    private static String rangeOf(long offset, long length) {
+        return "bytes=" + offset + "-" + (offset + length - 1);
+    }
+
+    /**
+     * @return the retrieved range or empty if the server responded with the whole content
+     */
+    private Mono<RangeContent> fetchRange(HttpClient client, URI uri, String range) {
+        return client
+            .headers(headers -> {
+                applyHeaders(headers);
+                headers.set(RANGE, range);
+            })
+            .followRedirect(true)
+            .doOnRequest(debugLogRequest(log, "zip entry fetch"))
+            .doOnResponse(debugLogResponse(log, "zip entry fetch"))
+            .get()
+            .uri(uri)
+            .responseSingle((resp, bodyMono) -> {
+                if (notSuccess(resp)) {
+                    return failedRequestMono(resp, bodyMono, "Trying to retrieve zip range");
+                }
+                final ContentRange contentRange = ContentRange.parse(resp.responseHeaders().get(CONTENT_RANGE));
+                if (resp.status() != PARTIAL_CONTENT || contentRange == null) {
+                    log.debug("Range requests are not supported for {}", uri);
+                    return Mono.empty();
+                }
+                return bodyMono.asByteArray()
+                    .map(content -> new RangeContent(contentRange.getStart(), content));
+            });
+    }
+
+    private static CentralDirectory locateCentralDirectory(RangeContent tail) {
+        final byte[] content = tail.getContent();
+        final ByteBuffer buffer = ByteBuffer.wrap(content).order(ByteOrder.LITTLE_ENDIAN);
+        for (int pos = content.length - EOCD_SIZE; pos >= 0; pos--) {
+            if (buffer.getInt(pos) == EOCD_SIGNATURE) {
+                final int commentLength = Short.toUnsignedInt(buffer.getShort(pos + 20));
+                // otherwise the signature bytes happened to be within the comment
+                if (pos + EOCD_SIZE + commentLength == content.length) {
+                    final long size = Integer.toUnsignedLong(buffer.getInt(pos + 12));
+                    final long offset = Integer.toUnsignedLong(buffer.getInt(pos + 16));
+                    if (size == ZIP64_MARKER || offset == ZIP64_MARKER) {
+                        // zip64 isn't needed for the pack files this is used with
+                        return null;
+                    }
+                    return new CentralDirectory(offset, size);
+                }
+            }
+        }
+        return null;
+    }
+
+    private EntryLocation findEntry(byte[] centralDirectory) {
+        final ByteBuffer buffer = ByteBuffer.wrap(centralDirectory).order(ByteOrder.LITTLE_ENDIAN);
+        int pos = 0;
+        while (pos + CENTRAL_HEADER_SIZE <= centralDirectory.length
+            && buffer.getInt(pos) == CENTRAL_HEADER_SIGNATURE) {
+            final int nameLength = Short.toUnsignedInt(buffer.getShort(pos + 28));
+            final int extraLength = Short.toUnsignedInt(buffer.getShort(pos + 30));
+            final int commentLength = Short.toUnsignedInt(buffer.getShort(pos + 32));
+            final String name = new String(centralDirectory, pos + CENTRAL_HEADER_SIZE, nameLength, StandardCharsets.UTF_8);
+
+            if (name.equals(entryName)) {
+                final int method = Short.toUnsignedInt(buffer.getShort(pos + 10));
+                final long compressedSize = Integer.toUnsignedLong(buffer.getInt(pos + 20));
+                final long uncompressedSize = Integer.toUnsignedLong(buffer.getInt(pos + 24));
+                final long localHeaderOffset = Integer.toUnsignedLong(buffer.getInt(pos + 42));
+                if ((method != METHOD_STORED && method != METHOD_DEFLATED)
+                    || compressedSize > MAX_ENTRY_SIZE || uncompressedSize > MAX_ENTRY_SIZE
+                    || localHeaderOffset == ZIP64_MARKER) {
+                    return null;
+                }
+                return new EntryLocation(method, Integer.toUnsignedLong(buffer.getInt(pos + 16)),
+                    compressedSize, uncompressedSize, nameLength, localHeaderOffset
+                );
+            }
+
+            pos += CENTRAL_HEADER_SIZE + nameLength + extraLength + commentLength;
+        }
+        return null;
+    }
+
+    private byte[] extract(EntryLocation entry, byte[] content) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.wrap(content).order(ByteOrder.LITTLE_ENDIAN);
+        if (content.length < LOCAL_HEADER_SIZE || buffer.getInt(0) != LOCAL_HEADER_SIGNATURE) {
+            throw new IOException("Invalid local header for zip entry " + entryName);
+        }
+        final int dataStart = LOCAL_HEADER_SIZE
+            + Short.toUnsignedInt(buffer.getShort(26))
+            + Short.toUnsignedInt(buffer.getShort(28));
+        if (dataStart + entry.getCompressedSize() > content.length) {
+            throw new IOException("Truncated content of zip entry " + entryName);
+        }
+
+        final byte[] result;
+        if (entry.getMethod() == METHOD_STORED) {
+            result = Arrays.copyOfRange(content, dataStart, dataStart + (int) entry.getCompressedSize());
+        }
+        else {
+            result = new byte[(int) entry.getUncompressedSize()];
+            final Inflater inflater = new Inflater(true);
+            try {
+                inflater.setInput(content, dataStart, (int) entry.getCompressedSize());
+                int total = 0;
+                while (total < result.length && !inflater.finished()) {
+                    final int inflated = inflater.inflate(result, total, result.length - total);
+                    if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                        break;
+                    }
+                    total += inflated;
+                }
+                if (total != result.length) {
+                    throw new IOException("Incomplete content of zip entry " + entryName);
+                }
+            } catch (DataFormatException e) {
+                throw new IOException("Invalid compressed content of zip entry " + entryName, e);
+            } finally {
+                inflater.end();
+            }
+        }
+
+        final CRC32 crc32 = new CRC32();
+        crc32.update(result, 0, result.length);
+        if (crc32.getValue() != entry.getCrc()) {
+            throw new IOException("CRC mismatch of zip entry " + entryName);
+        }
+        return result;
+    }
+
+    @Value
+    private static class RangeContent {
+        long start;
+        byte[] content;
+    }
+
+    @Value
+    private static class CentralDirectory {
+        long offset;
+        long size;
+    }
+
+    @Value
+    private static class CentralDirectoryContent {
+        CentralDirectory centralDirectory;
+        byte[] content;
+    }
+
+    @Value
+    private static class EntryLocation {
+        int method;
+        long crc;
+        long compressedSize;
+        long uncompressedSize;
+        int nameLength;
+        long localHeaderOffset;
+    }
+}
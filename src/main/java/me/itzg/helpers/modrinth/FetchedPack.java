@@ -1,11 +1,23 @@
 package me.itzg.helpers.modrinth;
 
+import java.net.URI;
 import java.nio.file.Path;
 import lombok.Value;
+import org.jetbrains.annotations.Nullable;
+import reactor.core.publisher.Mono;
 
 @Value
 public class FetchedPack {
-    Path mrPackFile;
+    /**
+     * Completes when the pack file is fully available. Remote packs are not downloaded until subscribed.
+     */
+    Mono<Path> mrPackFile;
+
+    /**
+     * The remote location of the pack file or null if the pack file is local
+     */
+    @Nullable
+    URI mrPackUri;
 
     String projectSlug;
 
@@ -29,7 +29,7 @@ public class FilePackFetcher implements ModrinthPackFetcher {
         }
 
         return Mono.just(
-            new FetchedPack(file, projectRef.getIdOrSlug(), deriveVersionId(), "local")
+            new FetchedPack(Mono.just(file), null, projectRef.getIdOrSlug(), deriveVersionId(), "local")
         );
     }
 
@@ -4,6 +4,7 @@ import static me.itzg.helpers.singles.NormalizeOptions.normalizeOptionList;
 
 import java.io.IOException;
 import java.nio.file.Path;
+import java.time.Duration;
 import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.Callable;
@@ -13,6 +14,7 @@ import lombok.extern.slf4j.Slf4j;
 import me.itzg.helpers.McImageHelper;
 import me.itzg.helpers.errors.GenericException;
 import me.itzg.helpers.errors.InvalidParameterException;
+import me.itzg.helpers.files.FileSchedulers;
 import me.itzg.helpers.files.Manifests;
 import me.itzg.helpers.files.ResultsFileWriter;
 import me.itzg.helpers.forge.ForgeUrlArgs;
@@ -29,7 +31,6 @@ import picocli.CommandLine.ArgGroup;
 import picocli.CommandLine.ExitCode;
 import picocli.CommandLine.Option;
 import reactor.core.publisher.Mono;
-import reactor.core.scheduler.Schedulers;
 
 @CommandLine.Command(name = "install-modrinth-modpack",
     description = "Supports installation of Modrinth modpacks along with the associated mod loader",
@@ -142,6 +143,24 @@ public class InstallModrinthModpackCommand implements Callable<Integer> {
     )
     int maxConcurrentDownloads = 1;
 
+    @Option(names = "--adaptive-download-concurrency",
+        defaultValue = "${env:MODRINTH_ADAPTIVE_DOWNLOAD_CONCURRENCY:-false}",
+        description = "Start with half of --max-concurrent-downloads and increase while throughput improves."
+            + " Can also set env var MODRINTH_ADAPTIVE_DOWNLOAD_CONCURRENCY%n"
+            + "Default is ${DEFAULT-VALUE}"
+    )
+    boolean adaptiveDownloadConcurrency;
+
+    @Option(names = "--file-download-retries", paramLabel = "COUNT",
+        description = "Default is ${DEFAULT-VALUE}"
+    )
+    int fileDownloadRetries = 5;
+
+    @Option(names = "--file-download-retry-min-delay", paramLabel = "DURATION",
+        description = "Default is ${DEFAULT-VALUE}"
+    )
+    Duration fileDownloadRetryMinDelay = Duration.ofSeconds(5);
+
     @Override
     public Integer call() throws IOException {
 
@@ -168,7 +187,7 @@ public class InstallModrinthModpackCommand implements Callable<Integer> {
                 .flatMap(fetchedPack ->
                     installerFactory.create(
                             apiClient,
-                            fetchedPack.getMrPackFile(),
+                            fetchedPack,
                             createFileInclusionCalculator(
                                 fetchedPack.getProjectSlug(),
                                 sharedFetch
@@ -176,6 +195,10 @@ public class InstallModrinthModpackCommand implements Callable<Integer> {
                         )
                         .setOverridesExclusions(normalizeOptionList(overridesExclusions))
                         .setMaxConcurrentDownloads(maxConcurrentDownloads)
+                        .setAdaptiveDownloadConcurrency(adaptiveDownloadConcurrency)
+                        .setFileDownloadRetries(fileDownloadRetries)
+                        .setFileDownloadRetryMinDelay(fileDownloadRetryMinDelay)
+                        .setPreviousOverrideEntries(prevManifest != null ? prevManifest.getOverrideEntries() : null)
                         .processModpack(sharedFetch)
                         .flatMap(installation -> {
                             if (resultsFile != null) {
@@ -191,6 +214,7 @@ public class InstallModrinthModpackCommand implements Callable<Integer> {
                                 .projectSlug(fetchedPack.getProjectSlug())
                                 .versionId(fetchedPack.getVersionId())
                                 .dependencies(installation.index.getDependencies())
+                                .overrideEntries(installation.getOverrideEntries())
                                 .build())
                 )
                 .block();
@@ -235,17 +259,17 @@ public class InstallModrinthModpackCommand implements Callable<Integer> {
     @FunctionalInterface
     interface ModrinthModpackInstallerFactory {
 
-        ModrinthPackInstaller create(ModrinthApiClient apiClient, Path mrPackFile,
+        ModrinthPackInstaller create(ModrinthApiClient apiClient, FetchedPack fetchedPack,
             FileInclusionCalculator fileInclusionCalculator
             );
     }
 
     @VisibleForTesting
     @Setter(AccessLevel.PACKAGE)
-    private ModrinthModpackInstallerFactory installerFactory = (apiClient, mrPackFile, fileInclusionCalculator) ->
+    private ModrinthModpackInstallerFactory installerFactory = (apiClient, fetchedPack, fileInclusionCalculator) ->
         new ModrinthPackInstaller(
             apiClient, this.sharedFetchArgs.options(),
-            mrPackFile, this.outputDirectory, this.resultsFile,
+            fetchedPack.getMrPackFile(), fetchedPack.getMrPackUri(), this.outputDirectory, this.resultsFile,
             this.forceModloaderReinstall,
             fileInclusionCalculator
         )
@@ -259,7 +283,7 @@ public class InstallModrinthModpackCommand implements Callable<Integer> {
                 }
                 return installation;
             })
-            .subscribeOn(Schedulers.boundedElastic());
+            .subscribeOn(FileSchedulers.blockingIo());
     }
 
     private ModrinthPackFetcher buildModpackFetcher(
@@ -2,7 +2,9 @@ package me.itzg.helpers.modrinth;
 
 import java.nio.file.Path;
 import java.util.List;
+import java.util.Map;
 import lombok.Data;
+import me.itzg.helpers.files.ExtractedEntry;
 import me.itzg.helpers.modrinth.model.ModpackIndex;
 
 @Data
@@ -10,4 +12,5 @@ public class Installation {
 
     ModpackIndex index;
     List<Path> files;
+    Map<String, ExtractedEntry> overrideEntries;
 }
@@ -20,19 +20,22 @@ import java.util.stream.Stream;
 import lombok.extern.slf4j.Slf4j;
 import me.itzg.helpers.errors.GenericException;
 import me.itzg.helpers.errors.InvalidParameterException;
+import me.itzg.helpers.files.FileSchedulers;
 import me.itzg.helpers.http.FailedRequestException;
 import me.itzg.helpers.http.Fetch;
 import me.itzg.helpers.http.SharedFetch;
 import me.itzg.helpers.http.SharedFetch.Options;
 import me.itzg.helpers.http.UriBuilder;
 import me.itzg.helpers.http.Uris.QueryParameters;
+import me.itzg.helpers.modrinth.model.GetLatestVersionsFromHashesRequestBody;
+import me.itzg.helpers.modrinth.model.GetVersionsFromHashesRequestBody;
 import me.itzg.helpers.modrinth.model.Project;
 import me.itzg.helpers.modrinth.model.Version;
 import me.itzg.helpers.modrinth.model.VersionFile;
 import me.itzg.helpers.modrinth.model.VersionType;
+import me.itzg.helpers.modrinth.model.VersionsByHash;
 import org.jetbrains.annotations.Nullable;
 import reactor.core.publisher.Mono;
-import reactor.core.scheduler.Schedulers;
 
 /**
  * Provides a client for <a href="https://docs.modrinth.com/api/">Modrinth Labrinth API</a>
@@ -206,7 +209,7 @@ public class ModrinthApiClient implements AutoCloseable {
 
     public Mono<Path> downloadMrPack(VersionFile versionFile) {
         return Mono.just(versionFile)
-            .publishOn(Schedulers.boundedElastic())
+            .publishOn(FileSchedulers.blockingIo())
             .<Path>handle((unused, sink) -> {
                 try {
                     sink.next(Files.createTempFile("pack-", ".mrpack"));
@@ -296,6 +299,74 @@ public class ModrinthApiClient implements AutoCloseable {
             .assemble();
     }
 
+    /**
+     * Retrieves several versions in one request
+     *
+     * @return the versions that exist, in no particular order
+     */
+    public Mono<List<Version>> getVersionsFromIds(Collection<String> versionIds) {
+        if (versionIds.isEmpty()) {
+            return Mono.just(Collections.emptyList());
+        }
+        return sharedFetch.fetch(
+                uriBuilder.resolve("/v2/versions", queryParameters()
+                    .addStringArray("ids", versionIds)
+                )
+            )
+            .toObjectList(Version.class)
+            .assemble();
+    }
+
+    /**
+     * Identifies the versions that contain files with the given hashes
+     *
+     * @param algorithm sha1 or sha512
+     * @return versions keyed by hash, where unknown hashes are absent
+     */
+    public Mono<Map<String, Version>> getVersionsFromHashes(Collection<String> hashes, String algorithm) {
+        if (hashes.isEmpty()) {
+            return Mono.just(Collections.emptyMap());
+        }
+        return sharedFetch.fetch(
+                uriBuilder.resolve("/v2/version_files")
+            )
+            .sendJson(new GetVersionsFromHashesRequestBody()
+                .setHashes(hashes)
+                .setAlgorithm(algorithm)
+            )
+            .toObject(VersionsByHash.class)
+            .assemble()
+            .map(Collections::unmodifiableMap);
+    }
+
+    /**
+     * Retrieves the latest version of each project that contains a file with one of the given hashes
+     *
+     * @param algorithm sha1 or sha512
+     * @param loader can be null for any
+     * @return latest versions keyed by the given hash, where unknown hashes and projects without
+     * an applicable version are absent
+     */
+    public Mono<Map<String, Version>> getLatestVersionsFromHashes(Collection<String> hashes, String algorithm,
+        @Nullable Loader loader, String gameVersion
+    ) {
+        if (hashes.isEmpty()) {
+            return Mono.just(Collections.emptyMap());
+        }
+        return sharedFetch.fetch(
+                uriBuilder.resolve("/v2/version_files/update")
+            )
+            .sendJson(new GetLatestVersionsFromHashesRequestBody()
+                .setHashes(hashes)
+                .setAlgorithm(algorithm)
+                .setLoaders(loader != null ? Collections.singletonList(loader.toString()) : null)
+                .setGameVersions(Collections.singletonList(gameVersion))
+            )
+            .toObject(VersionsByHash.class)
+            .assemble()
+            .map(Collections::unmodifiableMap);
+    }
+
     private Version pickVersion(Project project, List<Version> versions, VersionType versionType) {
         for (final Version version : versions) {
             if (version.getVersionType().sufficientFor(versionType)) {
@@ -314,10 +385,22 @@ public class ModrinthApiClient implements AutoCloseable {
     }
 
     public Mono<Path> downloadFileFromUrl(Path outputFile, URI uri) {
+        return downloadFileFromUrl(outputFile, uri, null, 0);
+    }
+
+    /**
+     * @param hashes optional hashes keyed by algorithm, such as given in a modpack index
+     * @param fileSize size of the file, if known, otherwise zero
+     */
+    public Mono<Path> downloadFileFromUrl(Path outputFile, URI uri, @Nullable Map<String, String> hashes,
+        long fileSize
+    ) {
         return sharedFetch.fetch(uri)
             .toFile(outputFile)
             .handleStatus(Fetch.loggingDownloadStatusHandler(log))
             .skipExisting(true)
+            .checksums(hashes)
+            .expectedSize(fileSize)
             .assemble();
     }
 }
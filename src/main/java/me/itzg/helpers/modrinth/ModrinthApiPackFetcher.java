@@ -1,5 +1,6 @@
 package me.itzg.helpers.modrinth;
 
+import java.net.URI;
 import java.nio.file.Path;
 import java.util.List;
 import java.util.Objects;
@@ -9,6 +10,7 @@ import me.itzg.helpers.errors.InvalidParameterException;
 import me.itzg.helpers.files.Manifests;
 import me.itzg.helpers.http.FailedRequestException;
 import me.itzg.helpers.modrinth.model.Version;
+import me.itzg.helpers.modrinth.model.VersionFile;
 import me.itzg.helpers.modrinth.model.VersionType;
 import org.jetbrains.annotations.Nullable;
 import reactor.core.publisher.Mono;
@@ -62,12 +64,13 @@ public class ModrinthApiPackFetcher implements ModrinthPackFetcher {
                     ))))
                     .filter(version -> needsInstall(prevManifest, project.getSlug(), version))
                     .doOnNext(version -> log.info("Downloading modpack for {} {}", project.getTitle(), version.getName()))
-                    .flatMap(version ->
-                        apiClient.downloadMrPack(ModrinthApiClient.pickVersionFile(version))
-                            .map(mrPackFile -> new FetchedPack(
-                                mrPackFile, project.getSlug(), version.getId(), version.getVersionNumber()
-                            ))
-                    )
+                    .map(version -> {
+                        final VersionFile versionFile = ModrinthApiClient.pickVersionFile(version);
+                        return new FetchedPack(
+                            apiClient.downloadMrPack(versionFile), URI.create(versionFile.getUrl()),
+                            project.getSlug(), version.getId(), version.getVersionNumber()
+                        );
+                    })
             );
     }
 
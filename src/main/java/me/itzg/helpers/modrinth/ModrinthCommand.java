@@ -14,17 +14,24 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import me.itzg.helpers.errors.GenericException;
 import me.itzg.helpers.errors.InvalidParameterException;
+import me.itzg.helpers.files.ChecksumAlgo;
+import me.itzg.helpers.files.Checksums;
+import me.itzg.helpers.files.FileSchedulers;
 import me.itzg.helpers.files.Manifests;
 import me.itzg.helpers.http.Fetch;
 import me.itzg.helpers.http.SharedFetch;
@@ -37,10 +44,14 @@ import me.itzg.helpers.modrinth.model.Version;
 import me.itzg.helpers.modrinth.model.VersionDependency;
 import me.itzg.helpers.modrinth.model.VersionFile;
 import me.itzg.helpers.modrinth.model.VersionType;
+import org.jetbrains.annotations.Nullable;
 import picocli.CommandLine.ArgGroup;
 import picocli.CommandLine.Command;
 import picocli.CommandLine.ExitCode;
 import picocli.CommandLine.Option;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 @Command(name = "modrinth", description = "Automates downloading of modrinth resources")
 @Slf4j
@@ -110,6 +121,19 @@ public class ModrinthCommand implements Callable<Integer> {
     )
     Path worldDirectory;
 
+    @Option(names = "--max-concurrent-downloads", defaultValue = "${env:MODRINTH_MAX_CONCURRENT_DOWNLOADS:-10}",
+        description = "Maximum number of projects resolved and files downloaded concurrently"
+            + "%nEnv: MODRINTH_MAX_CONCURRENT_DOWNLOADS%nDefault: ${DEFAULT-VALUE}"
+    )
+    int maxConcurrentDownloads;
+
+    @Option(names = "--hash-reconcile", defaultValue = "${env:MODRINTH_HASH_RECONCILE:-true}",
+        description = "Hash the files of the previous install and look up the latest versions of their projects"
+            + " in one request rather than one request per project"
+            + "%nEnv: MODRINTH_HASH_RECONCILE%nDefault: ${DEFAULT-VALUE}"
+    )
+    boolean hashReconcile = true;
+
     @ArgGroup(exclusive = false)
     SharedFetchArgs sharedFetchArgs = new SharedFetchArgs();
 
@@ -120,25 +144,80 @@ public class ModrinthCommand implements Callable<Integer> {
 
     private final Map<String/*projectId*/, VersionType> allowedVersionTypesByProject = new HashMap<>();
 
+    /**
+     * Latest applicable versions of the previously installed projects, when reconciled by hash
+     */
+    private Map<String/*projectId*/, Version> reconciledVersions = Collections.emptyMap();
+
+    /**
+     * Dependency version lookups, keyed by {@link #dependencyKey(VersionDependency, Loader)}, shared by the
+     * concurrent graph walks of each project
+     */
+    private final Map<String, Mono<Resolution>> dependencyResolutions = new ConcurrentHashMap<>();
+    /**
+     * Completed outcomes of {@link #dependencyResolutions}, which is all that the walk in
+     * {@link #planProject(ProjectResolution)} consults
+     */
+    private final Map<String, Resolution> resolvedDependencies = new ConcurrentHashMap<>();
+
+    /**
+     * The version, or the failure, from resolving a project or dependency. Failures are retained
+     * rather than propagated so that they only surface if the deterministic walk actually reaches them.
+     */
+    @RequiredArgsConstructor
+    private static class Resolution {
+
+        @Nullable
+        final Version version;
+        @Nullable
+        final Throwable error;
+
+        static final Resolution EMPTY = new Resolution(null, null);
+
+        Version get() {
+            if (error != null) {
+                throw Exceptions.propagate(error);
+            }
+            return version;
+        }
+    }
+
+    @RequiredArgsConstructor
+    private static class ProjectResolution {
+
+        final ResolvedProject resolvedProject;
+        final Loader effectiveLoader;
+        @Nullable
+        final Resolution resolution;
+    }
+
+    @RequiredArgsConstructor
+    private static class PlannedDownload {
+
+        final Loader effectiveLoader;
+        final VersionFile versionFile;
+    }
+
     @Override
     public Integer call() throws Exception {
         Files.createDirectories(outputDirectory);
 
-        final List<Path> outputFiles = processProjects(projects);
+        final ModrinthManifest prevManifest = loadManifest();
+
+        final List<Path> outputFiles = processProjects(projects, prevManifest);
 
         final ModrinthManifest newManifest = ModrinthManifest.builder()
             .files(Manifests.relativizeAll(outputDirectory, outputFiles))
             .projects(projects)
             .build();
 
-        final ModrinthManifest prevManifest = loadManifest();
         Manifests.cleanup(outputDirectory, prevManifest, newManifest, log);
         Manifests.apply(outputDirectory, ModrinthManifest.ID, newManifest);
 
         return ExitCode.OK;
     }
 
-    private List<Path> processProjects(List<String> projects) {
+    private List<Path> processProjects(List<String> projects, @Nullable ModrinthManifest prevManifest) {
         if (projects == null || projects.isEmpty()) {
             return Collections.emptyList();
         }
@@ -183,15 +262,33 @@ public class ModrinthCommand implements Callable<Integer> {
                     )
                 );
 
-            return resolvedProjects.stream()
-                .flatMap(resolvedProject ->
-                    processProject(
-                        modrinthApiClient,
-                        sharedFetch, resolvedProject.getProjectRef(),
-                        resolvedProject.getProject()
-                    )
+            final int concurrency = maxConcurrentDownloads > 0 ? maxConcurrentDownloads : 10;
+            log.debug("Max concurrent downloads is {}", concurrency);
+
+            if (hashReconcile) {
+                reconciledVersions = reconcileInstalledFiles(modrinthApiClient, prevManifest, concurrency);
+            }
+
+            final List<Path> outputFiles = Flux.fromIterable(resolvedProjects)
+                // resolve each project's dependency graph concurrently, but emit them in the requested order
+                .flatMapSequential(resolvedProject -> resolveProject(modrinthApiClient, resolvedProject), concurrency)
+                // ...so that the selection of dependencies is serialized and deterministic
+                .concatMapIterable(this::planProject)
+                .flatMapSequential(planned ->
+                        download(sharedFetch, planned.effectiveLoader, planned.versionFile)
+                            .map(downloadedFile -> {
+                                // Only expand ZIPs for non-datapack loaders
+                                return planned.effectiveLoader == Loader.datapack
+                                    ? Collections.singletonList(downloadedFile)
+                                    : expandIfZip(downloadedFile).collect(Collectors.toList());
+                            }),
+                    concurrency
                 )
-                .collect(Collectors.toList());
+                .concatMapIterable(paths -> paths)
+                .collectList()
+                .block();
+
+            return outputFiles != null ? outputFiles : Collections.emptyList();
         }
     }
 
@@ -219,6 +316,65 @@ public class ModrinthCommand implements Callable<Integer> {
             .collect(Collectors.toList());
     }
 
+    /**
+     * Hashes the files of the previous install and retrieves, in one request, the latest applicable
+     * version of each of their projects. Failures only log since projects are otherwise resolved individually.
+     *
+     * @return latest versions keyed by project ID
+     */
+    private Map<String, Version> reconcileInstalledFiles(ModrinthApiClient modrinthApiClient,
+        @Nullable ModrinthManifest prevManifest, int concurrency
+    ) {
+        if (prevManifest == null || prevManifest.getFiles() == null || prevManifest.getFiles().isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        final Map<String, Version> latestByHash = Flux.fromIterable(prevManifest.getFiles())
+            .filter(file -> file.endsWith(".jar") || file.endsWith(".zip"))
+            .map(outputDirectory::resolve)
+            .flatMap(path ->
+                    Mono.fromCallable(() ->
+                            Files.isRegularFile(path) ? Checksums.compute(path, ChecksumAlgo.SHA1) : null
+                        )
+                        .subscribeOn(FileSchedulers.blockingIo()),
+                concurrency
+            )
+            .collectList()
+            .flatMap(hashes -> {
+                log.debug("Reconciling {} previously installed files by hash", hashes.size());
+                return modrinthApiClient.getLatestVersionsFromHashes(hashes, ChecksumAlgo.SHA1.getPrefix(),
+                    loader, gameVersion
+                );
+            })
+            .onErrorResume(e -> {
+                log.warn("Unable to reconcile previously installed files: {}", e.getMessage());
+                log.debug("Details", e);
+                return Mono.just(Collections.<String, Version>emptyMap());
+            })
+            .block();
+
+        if (latestByHash == null || latestByHash.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        final Map<String, Version> byProject = new HashMap<>();
+        for (final Version version : latestByHash.values()) {
+            byProject.put(version.getProjectId(), version);
+        }
+        log.debug("Reconciled latest versions of {} projects from previous install", byProject.size());
+        return byProject;
+    }
+
+    /**
+     * @return the reconciled version, if it was resolved for the same loader and is of an allowed version type
+     */
+    private @Nullable Version reconciledVersion(String projectId, Loader loader, VersionType versionType) {
+        if (loader != this.loader) {
+            return null;
+        }
+        final Version version = reconciledVersions.get(projectId);
+        return version != null && version.getVersionType().sufficientFor(versionType) ? version : null;
+    }
+
     private ModrinthManifest loadManifest() throws IOException {
         final Path legacyManifestPath = outputDirectory.resolve(LegacyModrinthManifest.FILENAME);
 
@@ -241,10 +397,13 @@ public class ModrinthCommand implements Callable<Integer> {
         return Manifests.load(outputDirectory, ModrinthManifest.ID, ModrinthManifest.class);
     }
 
+    /**
+     * Walks the dependencies in the same order that they are declared, applying the precedence rules of
+     * {@link #trackDependencyProjectProcessed(VersionDependency)}. The dependency versions must have been
+     * resolved by {@link #resolveDependencies(ModrinthApiClient, Loader, Version, Set)}.
+     */
     private Stream<Version> expandDependencies(
-        ModrinthApiClient modrinthApiClient,
         Loader loader,
-        String gameVersion,
         Project project,
         Version version
     ) {
@@ -255,18 +414,11 @@ public class ModrinthCommand implements Callable<Integer> {
             .flatMap(dep -> {
                 final Version depVersion;
                 try {
-                    if (dep.getVersionId() == null) {
-                        log.debug("Fetching versions of dep={} and picking", dep);
-                        depVersion = pickVersion(
-                            dep.getProjectId(),
-                            getVersionsForProject(modrinthApiClient, dep.getProjectId(), loader, gameVersion)
-                        );
-                    }
-                    else {
-                        log.debug("Fetching version for dep={}", dep);
-                        depVersion = modrinthApiClient.getVersionFromId(dep.getVersionId())
-                            .block();
+                    final Resolution resolution = resolvedDependencies.get(dependencyKey(dep, loader));
+                    if (resolution == null) {
+                        throw new GenericException("Dependency was not resolved: " + dep);
                     }
+                    depVersion = resolution.get();
                 } catch (GenericException e) {
                     throw new GenericException(String.format("Failed to expand %s of project '%s'",
                         dep, project.getTitle()), e);
@@ -281,8 +433,8 @@ public class ModrinthCommand implements Callable<Integer> {
                 if (depVersion != null) {
                     log.debug("Resolved version={} for dep={}", depVersion.getVersionNumber(), dep);
                     return Stream.concat(
-                        Stream.of(depVersion),
-                            expandDependencies(modrinthApiClient, loader, gameVersion, project, depVersion)
+                            Stream.of(depVersion),
+                            expandDependencies(loader, project, depVersion)
                         )
                         .peek(expandedVer -> log.debug("Expanded dependency={} into version={}", dep, expandedVer));
                 }
@@ -292,6 +444,109 @@ public class ModrinthCommand implements Callable<Integer> {
             });
     }
 
+    /**
+     * Concurrently resolves the versions of all dependencies reachable from the given version that could
+     * be selected by {@link #expandDependencies(Loader, Project, Version)}. Lookups are shared across projects.
+     *
+     * @param visited dependency keys already visited by this graph walk, used to stop at cycles
+     * @return completes when all reachable dependencies have been resolved
+     */
+    private Mono<Void> resolveDependencies(ModrinthApiClient modrinthApiClient, Loader loader, Version version,
+        Set<String> visited
+    ) {
+        return Flux.fromIterable(version.getDependencies())
+            .filter(this::filterDependency)
+            .filter(dep -> !explicitProjectIds.contains(dep.getProjectId()))
+            .filter(dep -> visited.add(dependencyKey(dep, loader)))
+            .collectList()
+            .flatMapIterable(deps -> {
+                resolvePinnedDependencies(modrinthApiClient, deps);
+                return deps;
+            })
+            .flatMap(dep ->
+                dependencyResolutions.computeIfAbsent(dependencyKey(dep, loader),
+                        key -> resolveDependency(modrinthApiClient, loader, dep)
+                            .doOnNext(resolution -> resolvedDependencies.put(key, resolution))
+                            .cache()
+                    )
+                    .flatMap(resolution -> resolution.version != null ?
+                        resolveDependencies(modrinthApiClient, loader, resolution.version, visited)
+                        : Mono.empty()
+                    )
+            )
+            .then();
+    }
+
+    /**
+     * Registers the resolutions of the not yet known, version pinned dependencies from a single bulk request
+     */
+    private void resolvePinnedDependencies(ModrinthApiClient modrinthApiClient, List<VersionDependency> deps) {
+        final Set<String> versionIds = deps.stream()
+            .filter(dep -> dep.getVersionId() != null)
+            .filter(dep -> !dependencyResolutions.containsKey(dependencyKey(dep, null)))
+            .map(VersionDependency::getVersionId)
+            .collect(Collectors.toCollection(LinkedHashSet::new));
+        if (versionIds.isEmpty()) {
+            return;
+        }
+
+        log.debug("Fetching versions {} of pinned dependencies", versionIds);
+        final Mono<Map<String, Version>> versionsById = modrinthApiClient.getVersionsFromIds(versionIds)
+            .map(versions -> versions.stream()
+                .collect(Collectors.toMap(Version::getId, Function.identity()))
+            )
+            .cache();
+
+        for (final String versionId : versionIds) {
+            final String key = "version:" + versionId;
+            dependencyResolutions.computeIfAbsent(key, k ->
+                versionsById
+                    .map(byId -> {
+                        final Version depVersion = byId.get(versionId);
+                        return depVersion != null ? new Resolution(depVersion, null)
+                            : new Resolution(null, new GenericException("Version " + versionId + " does not exist"));
+                    })
+                    .onErrorResume(e -> Mono.just(new Resolution(null, e)))
+                    .doOnNext(resolution -> resolvedDependencies.put(key, resolution))
+                    .cache()
+            );
+        }
+    }
+
+    private Mono<Resolution> resolveDependency(ModrinthApiClient modrinthApiClient, Loader loader, VersionDependency dep) {
+        final Mono<Version> versionMono;
+        if (dep.getVersionId() == null) {
+            final Version reconciled = reconciledVersion(dep.getProjectId(), loader,
+                allowedVersionTypesByProject.getOrDefault(dep.getProjectId(), defaultVersionType)
+            );
+            if (reconciled != null) {
+                log.debug("Using reconciled version={} for dep={}", reconciled, dep);
+                return Mono.just(new Resolution(reconciled, null));
+            }
+
+            log.debug("Fetching versions of dep={} and picking", dep);
+            versionMono = modrinthApiClient.getVersionsForProject(dep.getProjectId(), loader, gameVersion)
+                .switchIfEmpty(Mono.error(() ->
+                    new GenericException("Unable to retrieve versions for project " + dep.getProjectId())
+                ))
+                .mapNotNull(versions -> pickVersion(dep.getProjectId(), versions));
+        }
+        else {
+            log.debug("Fetching version for dep={}", dep);
+            versionMono = modrinthApiClient.getVersionFromId(dep.getVersionId());
+        }
+
+        return versionMono
+            .map(version -> new Resolution(version, null))
+            .defaultIfEmpty(Resolution.EMPTY)
+            .onErrorResume(e -> Mono.just(new Resolution(null, e)));
+    }
+
+    private static String dependencyKey(VersionDependency dep, @Nullable Loader loader) {
+        return dep.getVersionId() != null ? "version:" + dep.getVersionId()
+            : "project:" + dep.getProjectId() + ":" + loader;
+    }
+
     /**
      * @return true if the project was not previously processed
      */
@@ -361,65 +616,105 @@ public class ModrinthCommand implements Callable<Integer> {
         return null;
     }
 
-    private Path download(SharedFetch sharedFetch, Loader loader, VersionFile versionFile) {
-        final Path outPath;
-        try {
-            final Loader effectiveLoader = loader != null ? loader : this.loader;
-            final String outputType = effectiveLoader.getType();
-
-            if (outputType == null) {
-                // Datapack case
-                if (worldDirectory.isAbsolute()) {
-                    outPath = Files.createDirectories(worldDirectory
-                            .resolve(DATAPACKS_SUBDIR)
-                        )
-                        .resolve(versionFile.getFilename());
+    private Mono<Path> download(SharedFetch sharedFetch, Loader loader, VersionFile versionFile) {
+        return Mono.fromCallable(() -> {
+                final Loader effectiveLoader = loader != null ? loader : this.loader;
+                final String outputType = effectiveLoader.getType();
+
+                if (outputType == null) {
+                    // Datapack case
+                    if (worldDirectory.isAbsolute()) {
+                        return Files.createDirectories(worldDirectory
+                                .resolve(DATAPACKS_SUBDIR)
+                            )
+                            .resolve(versionFile.getFilename());
+                    }
+                    else {
+                        return Files.createDirectories(outputDirectory
+                                .resolve(worldDirectory)
+                                .resolve(DATAPACKS_SUBDIR)
+                            )
+                            .resolve(versionFile.getFilename());
+                    }
                 }
                 else {
-                    outPath = Files.createDirectories(outputDirectory
-                            .resolve(worldDirectory)
-                            .resolve(DATAPACKS_SUBDIR)
+                    return Files.createDirectories(outputDirectory
+                            .resolve(outputType)
                         )
                         .resolve(versionFile.getFilename());
                 }
-            }
-            else {
-                outPath = Files.createDirectories(outputDirectory
-                        .resolve(outputType)
-                    )
-                    .resolve(versionFile.getFilename());
-            }
+            })
+            .onErrorMap(IOException.class, e -> new RuntimeException("Creating output directory", e))
+            .subscribeOn(FileSchedulers.blockingIo())
+            .flatMap(outPath ->
+                sharedFetch.fetch(URI.create(versionFile.getUrl()))
+                    .userAgentCommand("modrinth")
+                    .toFile(outPath)
+                    .skipExisting(skipExisting)
+                    .skipUpToDate(skipUpToDate)
+                    .checksums(versionFile.getHashes())
+                    .expectedSize(versionFile.getSize())
+                    .handleStatus(Fetch.loggingDownloadStatusHandler(log))
+                    .assemble()
+                    .onErrorMap(IOException.class, e -> new RuntimeException("Downloading file", e))
+            )
+            // zip expansion is blocking file access
+            .publishOn(FileSchedulers.blockingIo());
+    }
 
-        } catch (IOException e) {
-            throw new RuntimeException("Creating output directory", e);
+    /**
+     * Concurrently resolves the requested version of the project and the versions of its dependency graph.
+     * Errors are retained in the result, which is evaluated by {@link #planProject(ProjectResolution)}.
+     */
+    private Mono<ProjectResolution> resolveProject(ModrinthApiClient modrinthApiClient, ResolvedProject resolvedProject) {
+        final ProjectRef projectRef = resolvedProject.getProjectRef();
+        final Project project = resolvedProject.getProject();
+        final Loader effectiveLoader = projectRef.getLoader() != null
+            ? projectRef.getLoader()
+            : this.loader;
+
+        if (project.getProjectType() != ProjectType.mod) {
+            // planning will report this
+            return Mono.just(new ProjectResolution(resolvedProject, effectiveLoader, null));
         }
 
-        try {
-            return sharedFetch.fetch(URI.create(versionFile.getUrl()))
-                .userAgentCommand("modrinth")
-                .toFile(outPath)
-                .skipExisting(skipExisting)
-                .skipUpToDate(skipUpToDate)
-                .handleStatus(Fetch.loggingDownloadStatusHandler(log))
-                .execute();
-        } catch (IOException e) {
-            throw new RuntimeException("Downloading file", e);
+        final Version reconciled = projectRef.hasVersionName() || projectRef.hasVersionId() ? null
+            : reconciledVersion(project.getId(), effectiveLoader,
+                projectRef.hasVersionType() ? projectRef.getVersionType() : defaultVersionType
+            );
+        if (reconciled != null) {
+            log.debug("Using reconciled version={} for project={}", reconciled, project.getSlug());
         }
-    }
 
-    private List<Version> getVersionsForProject(ModrinthApiClient modrinthApiClient, String project, Loader loader, String gameVersion) {
-        final List<Version> versions = modrinthApiClient.getVersionsForProject(
-                project, loader, gameVersion
+        final Set<String> visited = ConcurrentHashMap.newKeySet();
+        return (reconciled != null ? Mono.just(reconciled)
+            : modrinthApiClient
+                .resolveProjectVersion(
+                    project,
+                    projectRef,
+                    effectiveLoader,
+                    gameVersion,
+                    defaultVersionType
+                )
+        )
+            .flatMap(version ->
+                resolveDependencies(modrinthApiClient, effectiveLoader, version, visited)
+                    .thenReturn(new Resolution(version, null))
             )
-            .block();
-        if (versions == null) {
-            throw new GenericException("Unable to retrieve versions for project " + project);
-        }
-        return versions;
+            .defaultIfEmpty(Resolution.EMPTY)
+            .onErrorResume(e -> Mono.just(new Resolution(null, e)))
+            .map(resolution -> new ProjectResolution(resolvedProject, effectiveLoader, resolution));
     }
 
+    /**
+     * Selects the files of the project and its dependencies. Invoked sequentially in the order projects
+     * were requested since the tracking of processed projects depends on that order.
+     */
+    private List<PlannedDownload> planProject(ProjectResolution projectResolution) {
+        final ProjectRef projectRef = projectResolution.resolvedProject.getProjectRef();
+        final Project project = projectResolution.resolvedProject.getProject();
+        final Loader effectiveLoader = projectResolution.effectiveLoader;
 
-    private Stream<Path> processProject(ModrinthApiClient modrinthApiClient, SharedFetch sharedFetch, ProjectRef projectRef, Project project) {
         if (project.getProjectType() != ProjectType.mod) {
             throw new InvalidParameterException(
                 String.format("Requested project '%s' is not a mod, but has type %s",
@@ -430,26 +725,15 @@ public class ModrinthCommand implements Callable<Integer> {
         log.debug("Starting with project='{}' optional={}", project, projectRef.isOptional());
 
         if (trackProjectProcessed(project.getId())) {
-            final Loader effectiveLoader = projectRef.getLoader() != null
-                ? projectRef.getLoader()
-                : this.loader;
-
             final Version version;
             try {
-                version = modrinthApiClient
-                    .resolveProjectVersion(
-                        project,
-                        projectRef,
-                        effectiveLoader,
-                        gameVersion,
-                        defaultVersionType
-                    )
-                    .block();
+                //noinspection DataFlowIssue since always set for mod projects
+                version = projectResolution.resolution.get();
             } catch (NoApplicableVersionsException | NoFilesAvailableException e) {
                 if (projectRef.isOptional()) {
                     log.warn("Optional project '{}' has no compatible version for {}/{} — skipping",
                         project.getTitle(), gameVersion, effectiveLoader);
-                    return Stream.empty();
+                    return Collections.emptyList();
                 }
                 throw new InvalidParameterException(e.getMessage(), e);
             }
@@ -467,26 +751,19 @@ public class ModrinthCommand implements Callable<Integer> {
                 return Stream.concat(
                     Stream.of(version),
                     expandDependencies(
-                        modrinthApiClient,
                         effectiveLoader,
-                        gameVersion,
                         project,
                         version
                     )
                 )
                     .map(ModrinthApiClient::pickVersionFile)
-                    .map(versionFile -> download(sharedFetch, effectiveLoader, versionFile))
-                    .flatMap(downloadedFile -> {
-                        // Only expand ZIPs for non-datapack loaders
-                        return effectiveLoader == Loader.datapack
-                            ? Stream.of(downloadedFile)
-                            : expandIfZip(downloadedFile);
-                    });
+                    .map(versionFile -> new PlannedDownload(effectiveLoader, versionFile))
+                    .collect(Collectors.toList());
             } else {
                 if (projectRef.isOptional()) {
                     log.warn("Optional project '{}' has no matching versions for loader {}, game version {} — skipping",
                         projectRef, effectiveLoader, gameVersion);
-                    return Stream.empty();
+                    return Collections.emptyList();
                 }
                 throw new InvalidParameterException(
                     String.format(
@@ -498,7 +775,7 @@ public class ModrinthCommand implements Callable<Integer> {
                 );
             }
         }
-        return Stream.empty();
+        return Collections.emptyList();
     }
 
     /**
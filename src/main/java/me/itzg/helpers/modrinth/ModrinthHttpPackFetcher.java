@@ -21,10 +21,10 @@ public class ModrinthHttpPackFetcher implements ModrinthPackFetcher {
 
     @Override
     public Mono<FetchedPack> fetchModpack(ModrinthModpackManifest prevManifest) {
-        return apiClient.downloadFileFromUrl(
-                destFilePath, modpackUri
-            )
-            .map(mrPackFile -> new FetchedPack(mrPackFile, "custom", deriveVersionId(), deriveVersionName()));
+        return Mono.just(new FetchedPack(
+            apiClient.downloadFileFromUrl(destFilePath, modpackUri),
+            modpackUri, "custom", deriveVersionId(), deriveVersionName()
+        ));
     }
 
     private String deriveVersionName() {
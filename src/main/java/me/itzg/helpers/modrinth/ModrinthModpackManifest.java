@@ -5,6 +5,7 @@ import lombok.Getter;
 import lombok.experimental.SuperBuilder;
 import lombok.extern.jackson.Jacksonized;
 import me.itzg.helpers.files.BaseManifest;
+import me.itzg.helpers.files.ExtractedEntry;
 import me.itzg.helpers.modrinth.model.DependencyId;
 
 @SuperBuilder
@@ -18,4 +19,9 @@ public class ModrinthModpackManifest extends BaseManifest {
 
     private Map<DependencyId, String> dependencies;
 
+    /**
+     * Extracted override entries keyed by relative path, used to skip re-writing unchanged entries
+     */
+    private Map<String, ExtractedEntry> overrideEntries;
+
 }
@@ -1,9 +1,11 @@
 package me.itzg.helpers.modrinth;
 
 import java.io.IOException;
+import java.net.URI;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -12,7 +14,6 @@ import java.util.Objects;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
-import java.util.zip.ZipFile;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
@@ -20,11 +21,17 @@ import me.itzg.helpers.errors.GenericException;
 import me.itzg.helpers.errors.InvalidParameterException;
 import me.itzg.helpers.fabric.FabricLauncherInstaller;
 import me.itzg.helpers.files.AntPathMatcher;
+import me.itzg.helpers.files.ExtractedEntry;
+import me.itzg.helpers.files.FileHashInvalidException;
+import me.itzg.helpers.files.FileSchedulers;
 import me.itzg.helpers.files.IoStreams;
+import me.itzg.helpers.files.ZipExtractor;
 import me.itzg.helpers.forge.ForgeInstallerResolver;
 import me.itzg.helpers.forge.ForgeLikeInstaller;
 import me.itzg.helpers.forge.ForgeUrlArgs;
 import me.itzg.helpers.forge.NeoForgeInstallerResolver;
+import me.itzg.helpers.http.DownloadScheduler;
+import me.itzg.helpers.http.FetchMetrics;
 import me.itzg.helpers.http.SharedFetch;
 import me.itzg.helpers.http.SharedFetch.Options;
 import me.itzg.helpers.json.ObjectMappers;
@@ -32,16 +39,31 @@ import me.itzg.helpers.modrinth.model.DependencyId;
 import me.itzg.helpers.modrinth.model.ModpackIndex;
 import me.itzg.helpers.modrinth.model.ModpackIndex.ModpackFile;
 import me.itzg.helpers.quilt.QuiltInstaller;
+import me.itzg.helpers.trace.Span;
+import me.itzg.helpers.trace.Tracer;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipFile;
 import org.jetbrains.annotations.Blocking;
+import org.jetbrains.annotations.Nullable;
 import org.jetbrains.annotations.VisibleForTesting;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
-import reactor.core.scheduler.Schedulers;
+import reactor.util.retry.Retry;
 
 @Slf4j
 public class ModrinthPackInstaller {
+    private static final String MODPACK_INDEX = "modrinth.index.json";
+
     private final ModrinthApiClient apiClient;
-    private final Path zipFile;
+    /**
+     * Completes when the pack file is fully available, which might still be downloading
+     */
+    private final Mono<Path> zipFile;
+    /**
+     * When non-null, the remote location of the pack file, which allows for reading the index before the
+     * pack file has been fully downloaded
+     */
+    private final URI zipUri;
     private final Path outputDirectory;
     private final Path resultsFile;
     private final boolean forceModloaderReinstall;
@@ -51,8 +73,19 @@ public class ModrinthPackInstaller {
     private ForgeUrlArgs forgeUrlArgs = new ForgeUrlArgs();
     @Setter @Getter
     private int maxConcurrentDownloads = 1;
+    @Setter @Getter
+    private boolean adaptiveDownloadConcurrency;
+    @Setter @Getter
+    private int fileDownloadRetries = 5;
+    @Setter @Getter
+    private Duration fileDownloadRetryMinDelay = Duration.ofSeconds(5);
 
     private AntPathMatcher overridesExclusions;
+    /**
+     * Override entries recorded by the previous install, keyed by path relative to output directory
+     */
+    @Setter
+    private Map<String, ExtractedEntry> previousOverrideEntries;
 
     @FunctionalInterface
     interface ModloaderPreparer {
@@ -73,10 +106,28 @@ public class ModrinthPackInstaller {
             Path zipFile, Path outputDirectory, Path resultsFile,
             boolean forceModloaderReinstall,
             FileInclusionCalculator fileInclusionCalculator)
+    {
+        this(apiClient, sharedFetchOpts, Mono.just(zipFile), null, outputDirectory, resultsFile,
+            forceModloaderReinstall, fileInclusionCalculator
+        );
+    }
+
+    /**
+     * @param zipFile completes when the pack file is fully available, such as a download in progress
+     * @param zipUri if non-null, the index is read from the remote pack file with range requests, which allows
+     *               mod files to download while the rest of the pack file is still downloading
+     */
+    public ModrinthPackInstaller(
+            ModrinthApiClient apiClient, Options sharedFetchOpts,
+            Mono<Path> zipFile, @Nullable URI zipUri, Path outputDirectory, Path resultsFile,
+            boolean forceModloaderReinstall,
+            FileInclusionCalculator fileInclusionCalculator)
     {
         this.apiClient = apiClient;
         this.sharedFetchOpts = sharedFetchOpts;
-        this.zipFile = zipFile;
+        // subscribed by both the index read and the overrides extraction
+        this.zipFile = zipFile.cache();
+        this.zipUri = zipUri;
         this.outputDirectory = outputDirectory;
         this.resultsFile = resultsFile;
         this.forceModloaderReinstall = forceModloaderReinstall;
@@ -89,24 +140,15 @@ public class ModrinthPackInstaller {
     }
 
     public Mono<Installation> processModpack(SharedFetch sharedFetch) {
-        final ModpackIndex modpackIndex;
-        try {
-            modpackIndex = IoStreams.readFileFromZip(
-                this.zipFile, "modrinth.index.json", in ->
-                    ObjectMappers.defaultMapper().readValue(in, ModpackIndex.class)
-            );
-        } catch (IOException e) {
-            return Mono.error(
-                new GenericException("Failed to read modpack index", e));
-        }
-
-        if (modpackIndex == null) {
-            return Mono.error(
+        return Tracer.trace(Tracer.PHASE, "read index", span -> readModpackIndex(sharedFetch))
+            .switchIfEmpty(Mono.error(() ->
                 new InvalidParameterException(
-                    "Modpack is missing modrinth.index.json")
-            );
-        }
+                    "Modpack is missing " + MODPACK_INDEX)
+            ))
+            .flatMap(modpackIndex -> processModpack(sharedFetch, modpackIndex));
+    }
 
+    private Mono<Installation> processModpack(SharedFetch sharedFetch, ModpackIndex modpackIndex) {
         if (log.isDebugEnabled()) {
             debugLogModpackIndex(modpackIndex);
         }
@@ -120,26 +162,73 @@ public class ModrinthPackInstaller {
 
         log.info("Processing modpack files for {} {}", modpackIndex.getName(), modpackIndex.getVersionId());
 
-        return processModFiles(modpackIndex)
-            .collectList()
-            .map(modFiles ->
-                Stream.of(
-                        modFiles.stream(),
-                        extractOverrides("overrides", "server-overrides")
-                    )
-                    .flatMap(Function.identity())
-                    .collect(Collectors.toList())
+        final Map<String, ExtractedEntry> overrideEntries = new HashMap<>();
+        // the pack file might still be downloading, so let that continue alongside the mod files.
+        // The mod loader doesn't depend on either, so it is also prepared meanwhile.
+        // A failure of any cancels the others.
+        return Mono.zip(
+                Tracer.trace(Tracer.PHASE, "download mods", span -> processModFiles(modpackIndex).collectList()),
+                zipFile,
+                Mono.fromRunnable(() -> applyModLoader(sharedFetch, modpackIndex.getDependencies()))
+                    .subscribeOn(FileSchedulers.blockingIo())
+                    .thenReturn(true)
             )
-            .flatMap(paths -> Mono.fromCallable(() -> {
-                    applyModLoader(sharedFetch, modpackIndex.getDependencies());
-
-                    return new Installation()
-                        .setIndex(modpackIndex)
-                        .setFiles(paths);
-                }).subscribeOn(Schedulers.boundedElastic())
+            // extracting overrides blocks
+            .publishOn(FileSchedulers.blockingIo())
+            .map(results ->
+                new Installation()
+                    .setIndex(modpackIndex)
+                    .setFiles(
+                        Stream.of(
+                                results.getT1().stream(),
+                                extractOverridesTraced(results.getT2(), overrideEntries)
+                            )
+                            .flatMap(Function.identity())
+                            .collect(Collectors.toList())
+                    )
+                    .setOverrideEntries(overrideEntries)
             );
     }
 
+    /**
+     * Reads the index from the remote pack file, when possible, otherwise from the pack file once available
+     */
+    private Mono<ModpackIndex> readModpackIndex(SharedFetch sharedFetch) {
+        final Mono<ModpackIndex> fromZipFile = zipFile
+            .publishOn(FileSchedulers.blockingIo())
+            .flatMap(zip -> {
+                try {
+                    return Mono.justOrEmpty(IoStreams.readFileFromZip(zip, MODPACK_INDEX, in ->
+                        ObjectMappers.defaultMapper().readValue(in, ModpackIndex.class)
+                    ));
+                } catch (IOException e) {
+                    return Mono.error(
+                        new GenericException("Failed to read modpack index", e));
+                }
+            });
+
+        if (zipUri == null) {
+            return fromZipFile;
+        }
+
+        return sharedFetch.fetch(zipUri)
+            .toZipEntry(MODPACK_INDEX)
+            .assemble()
+            .<ModpackIndex>handle((content, sink) -> {
+                try {
+                    sink.next(ObjectMappers.defaultMapper().readValue(content, ModpackIndex.class));
+                } catch (IOException e) {
+                    sink.error(e);
+                }
+            })
+            .doOnNext(modpackIndex -> log.debug("Read modpack index remotely from {}", zipUri))
+            .onErrorResume(throwable -> {
+                log.debug("Unable to read modpack index remotely from {}", zipUri, throwable);
+                return Mono.empty();
+            })
+            .switchIfEmpty(fromZipFile);
+    }
+
     private void debugLogModpackIndex(ModpackIndex modpackIndex) {
         log.debug("Modpack index: name={}, game={}, versionId={}",
             modpackIndex.getName(), modpackIndex.getGame(), modpackIndex.getVersionId()
@@ -150,12 +239,12 @@ public class ModrinthPackInstaller {
     }
 
     private Flux<Path> processModFiles(ModpackIndex modpackIndex) {
-        return Flux.fromStream(
+        return new DownloadScheduler(maxConcurrentDownloads, adaptiveDownloadConcurrency).schedule(
             modpackIndex.getFiles().stream()
                 .filter(fileInclusionCalculator::includeModFile)
-            )
-            .publishOn(Schedulers.boundedElastic())
-            .flatMap(modpackFile -> {
+                .collect(Collectors.toList()),
+            ModpackFile::getFileSize,
+            modpackFile -> Mono.defer(() -> {
                 final String modpackFilePath = FileInclusionCalculator.sanitizeModFilePath(modpackFile.getPath());
 
                 final Path outFilePath =
@@ -168,53 +257,126 @@ public class ModrinthPackInstaller {
                         "Failed to created directory for file to download", e));
                 }
 
-                return this.apiClient.downloadFileFromUrl(
-                    outFilePath,
-                    modpackFile.getDownloads().get(0)
-                );
-            }, maxConcurrentDownloads);
+                // hashes are verified while downloading, so defer to rebuild the download on each retry
+                return FetchMetrics.retryScope(Tracer.trace(Tracer.FILE, modpackFilePath, span -> span
+                    .arg("bytes", modpackFile.getFileSize())
+                    .countAttempts(Mono.defer(() ->
+                        this.apiClient.downloadFileFromUrl(
+                            outFilePath,
+                            modpackFile.getDownloads().get(0),
+                            modpackFile.getHashes(),
+                            modpackFile.getFileSize()
+                        )
+                    ))
+                    .retryWhen(
+                        Retry.backoff(fileDownloadRetries, fileDownloadRetryMinDelay)
+                            .filter(FileHashInvalidException.class::isInstance)
+                            .doBeforeRetry(retrySignal ->
+                                log.warn("Retry #{} download of {} due to {}",
+                                    retrySignal.totalRetries() + 1, modpackFilePath,
+                                    retrySignal.failure().getMessage()
+                                )
+                            )
+                    )
+                ));
+            })
+                // creating directories blocks
+                .subscribeOn(FileSchedulers.blockingIo())
+        );
     }
 
-    @SuppressWarnings("SameParameterValue")
-    private Stream<Path> extractOverrides(String... overridesDirs) {
-        try (ZipFile zipFileReader = new ZipFile(zipFile.toFile())) {
-            return Stream.of(overridesDirs)
-                .flatMap(dir -> {
-                    final String prefix = dir + "/";
-                    return zipFileReader.stream()
-                        .filter(entry -> !entry.isDirectory()
-                            && entry.getName().startsWith(prefix)
-                        )
-                        .map(entry -> {
-                            final String subpath = entry.getName().substring(prefix.length());
-                            if (overridesExclusions != null && overridesExclusions.matches(subpath)) {
-                                log.debug("Excluding file from overrides: {}", subpath);
-                                return null;
-                            }
-
-                            final Path outFile = outputDirectory.resolve(subpath);
-
-                            try {
-                                Files.createDirectories(outFile.getParent());
-
-                                log.trace("Copying from overrides: {}", subpath);
-                                Files.copy(zipFileReader.getInputStream(entry), outFile, StandardCopyOption.REPLACE_EXISTING);
-
-                                return outFile;
-                            } catch (IOException e) {
-                                throw new GenericException(
-                                    String.format("Failed to extract %s from overrides", entry.getName()), e
-                                );
-                            }
-                        })
-                        .filter(Objects::nonNull);
-                })
-                // need to eager load the stream while the zip file is open
-                .collect(Collectors.toList())
-                .stream();
+    /**
+     * Later overrides directories take precedence over earlier ones for the same file.
+     */
+    @VisibleForTesting
+    Stream<Path> extractOverrides(String... overridesDirs) {
+        return extractOverrides(zipFile.block(), new HashMap<>(), overridesDirs);
+    }
+
+    private Stream<Path> extractOverridesTraced(Path packFile, Map<String, ExtractedEntry> extractedEntries) {
+        try (Span ignored = Tracer.start(Tracer.PHASE, "overrides")) {
+            return extractOverrides(packFile, extractedEntries, "overrides", "server-overrides");
+        }
+    }
+
+    /**
+     * Extracts the overrides directories in one pass where, for a path provided by more than one of them, only
+     * the entry of the later directory is planned. That way each path is compared against previously extracted
+     * entries only once, with the content that is finally installed.
+     *
+     * @param extractedEntries populated with the override entries that were extracted or unchanged
+     */
+    private Stream<Path> extractOverrides(Path packFile, Map<String, ExtractedEntry> extractedEntries,
+        String... overridesDirs
+    ) {
+        try {
+            final Map<String, String> winningEntryNames = winningOverrideEntryNames(packFile, overridesDirs);
+
+            final ZipExtractor.Result result = new ZipExtractor()
+                .setPreviousEntries(outputDirectory, previousOverrideEntries)
+                .extract(packFile, entry -> {
+                    final String subpath = overrideSubpath(entry.getName(), overridesDirs);
+                    if (subpath == null || !entry.getName().equals(winningEntryNames.get(subpath))) {
+                        return null;
+                    }
+                    if (overridesExclusions != null && overridesExclusions.matches(subpath)) {
+                        log.debug("Excluding file from overrides: {}", subpath);
+                        return null;
+                    }
+
+                    log.trace("Copying from overrides: {}", entry.getName());
+                    return outputDirectory.resolve(subpath);
+                });
+            extractedEntries.putAll(result.getEntries());
+            return result.getPaths().stream();
         } catch (IOException e) {
-            throw new GenericException("Failed to extract overrides", e);
+            throw new GenericException(String.format("Failed to extract %s from modpack",
+                String.join(" and ", overridesDirs)), e);
+        }
+    }
+
+    /**
+     * @return the name of the zip entry that provides each override subpath, where later overrides directories
+     * take precedence
+     */
+    private static Map<String, String> winningOverrideEntryNames(Path packFile, String[] overridesDirs)
+        throws IOException {
+        final Map<String, String> winners = new HashMap<>();
+        final Map<String, Integer> winnerDirIndexes = new HashMap<>();
+        try (ZipFile zip = ZipFile.builder().setPath(packFile).get()) {
+            final Enumeration<ZipArchiveEntry> entries = zip.getEntries();
+            while (entries.hasMoreElements()) {
+                final ZipArchiveEntry entry = entries.nextElement();
+                final int dirIndex = overridesDirIndex(entry.getName(), overridesDirs);
+                if (entry.isDirectory() || dirIndex < 0) {
+                    continue;
+                }
+                final String subpath = entry.getName().substring(overridesDirs[dirIndex].length() + 1);
+                final Integer existing = winnerDirIndexes.get(subpath);
+                if (existing == null || existing <= dirIndex) {
+                    winners.put(subpath, entry.getName());
+                    winnerDirIndexes.put(subpath, dirIndex);
+                }
+            }
         }
+        return winners;
+    }
+
+    /**
+     * @return the path of the entry within its overrides directory or null if not an override
+     */
+    private static @Nullable String overrideSubpath(String entryName, String[] overridesDirs) {
+        final int dirIndex = overridesDirIndex(entryName, overridesDirs);
+        return dirIndex >= 0 ? entryName.substring(overridesDirs[dirIndex].length() + 1) : null;
+    }
+
+    private static int overridesDirIndex(String entryName, String[] overridesDirs) {
+        for (int i = 0; i < overridesDirs.length; i++) {
+            if (entryName.startsWith(overridesDirs[i] + "/")) {
+                return i;
+            }
+        }
+        return -1;
     }
 
     @Blocking
@@ -237,7 +399,11 @@ public class ModrinthPackInstaller {
                         "neoforge": "26.1.2.59-beta"
                     }
                  */
-                entry.getValue().prepare(sharedFetch, minecraftVersion, version);
+                try (Span ignored = Tracer.start(Tracer.PHASE, "mod loader")
+                    .arg("id", entry.getKey() + "-" + version)
+                ) {
+                    entry.getValue().prepare(sharedFetch, minecraftVersion, version);
+                }
                 return;
             }
         }
@@ -0,0 +1,25 @@
+package me.itzg.helpers.modrinth.model;
+
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.fasterxml.jackson.databind.annotation.JsonNaming;
+import java.util.Collection;
+import lombok.Data;
+
+/**
+ * Refer to <a href="https://docs.modrinth.com/api/operations/getlatestversionsfromhashes/">getLatestVersionsFromHashes</a>
+ */
+@Data
+@JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
+public class GetLatestVersionsFromHashesRequestBody {
+
+    private Collection<String> hashes;
+
+    /**
+     * sha1 or sha512
+     */
+    private String algorithm;
+
+    private Collection<String> loaders;
+
+    private Collection<String> gameVersions;
+}
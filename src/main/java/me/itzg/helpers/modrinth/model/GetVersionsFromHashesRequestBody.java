@@ -0,0 +1,18 @@
+package me.itzg.helpers.modrinth.model;
+
+import java.util.Collection;
+import lombok.Data;
+
+/**
+ * Refer to <a href="https://docs.modrinth.com/api/operations/versionsfromhashes/">versionsFromHashes</a>
+ */
+@Data
+public class GetVersionsFromHashesRequestBody {
+
+    private Collection<String> hashes;
+
+    /**
+     * sha1 or sha512
+     */
+    private String algorithm;
+}
@@ -19,4 +19,6 @@ public class VersionFile {
     String filename;
 
     boolean primary;
+
+    long size;
 }
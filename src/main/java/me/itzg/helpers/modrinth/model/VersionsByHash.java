@@ -0,0 +1,11 @@
+package me.itzg.helpers.modrinth.model;
+
+import java.util.HashMap;
+
+/**
+ * Response of the version_files endpoints, keyed by the requested hash. Hashes that are
+ * not known to Modrinth are absent.
+ */
+public class VersionsByHash extends HashMap<String, Version> {
+
+}
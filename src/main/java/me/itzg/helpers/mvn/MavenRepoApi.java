@@ -14,11 +14,11 @@ import java.util.function.Supplier;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 import me.itzg.helpers.errors.GenericException;
+import me.itzg.helpers.files.FileSchedulers;
 import me.itzg.helpers.http.SharedFetch;
 import me.itzg.helpers.http.UriBuilder;
 import org.jetbrains.annotations.NotNull;
 import reactor.core.publisher.Mono;
-import reactor.core.scheduler.Schedulers;
 
 @Slf4j
 public class MavenRepoApi {
@@ -91,7 +91,7 @@ public class MavenRepoApi {
                 }
                 return mavenMetadata;
             })
-            .subscribeOn(Schedulers.boundedElastic());
+            .subscribeOn(FileSchedulers.blockingIo());
     }
 
     /**
@@ -117,7 +117,7 @@ public class MavenRepoApi {
                     return Mono.error(new GenericException("Reading metadata cache", e));
                 }
             })
-                .subscribeOn(Schedulers.boundedElastic());
+                .subscribeOn(FileSchedulers.blockingIo());
         }
         else {
             cachedMono = Mono.empty();
@@ -13,6 +13,7 @@ import lombok.Builder;
 import lombok.extern.slf4j.Slf4j;
 import me.itzg.helpers.errors.GenericException;
 import me.itzg.helpers.errors.InvalidParameterException;
+import me.itzg.helpers.files.FileSchedulers;
 import me.itzg.helpers.files.IoStreams;
 import me.itzg.helpers.files.ManifestException;
 import me.itzg.helpers.files.Manifests;
@@ -35,7 +36,6 @@ import picocli.CommandLine.Option;
 import picocli.CommandLine.ParameterException;
 import picocli.CommandLine.Spec;
 import reactor.core.publisher.Mono;
-import reactor.core.scheduler.Schedulers;
 
 @Command(name = "install-paper", description = "Installs selected PaperMC")
 @Slf4j
@@ -291,7 +291,7 @@ public class InstallPaperCommand implements Callable<Integer> {
                 .skipUpToDate(true)
                 .handleStatus(Fetch.loggingDownloadStatusHandler(log))
                 .assemble()
-                .publishOn(Schedulers.boundedElastic())
+                .publishOn(FileSchedulers.blockingIo())
                 .flatMap(serverJar -> {
                     final String version;
                     try {
@@ -7,10 +7,12 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import me.itzg.helpers.errors.GenericException;
 import me.itzg.helpers.errors.InvalidParameterException;
+import me.itzg.helpers.files.ChecksumAlgo;
 import me.itzg.helpers.http.FailedRequestException;
 import me.itzg.helpers.http.Fetch;
 import me.itzg.helpers.http.FileDownloadStatusHandler;
 import me.itzg.helpers.http.SharedFetch;
+import me.itzg.helpers.http.SpecificFileFetchBuilder;
 import me.itzg.helpers.http.UriBuilder;
 import me.itzg.helpers.paper.model.BuildResponse;
 import me.itzg.helpers.paper.model.Channel;
@@ -206,11 +208,14 @@ public class PaperDownloadsClient implements AutoCloseable{
         FileDownloadStatusHandler downloadStatusHandler,
         Download download
     ) {
-        return sharedFetch.fetch(URI.create(download.getUrl()))
+        final SpecificFileFetchBuilder fetchBuilder = sharedFetch.fetch(URI.create(download.getUrl()))
             .toFile(outputDirectory.resolve(download.getName()))
             .skipExisting(true)
-            .handleStatus(downloadStatusHandler)
-            .assemble();
+            .handleStatus(downloadStatusHandler);
+        if (download.getChecksums() != null && download.getChecksums().getSha256() != null) {
+            fetchBuilder.checksum(ChecksumAlgo.SHA256, download.getChecksums().getSha256());
+        }
+        return fetchBuilder.assemble();
     }
 
     @Override
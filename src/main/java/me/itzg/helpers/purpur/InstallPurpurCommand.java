@@ -13,6 +13,7 @@ import lombok.extern.slf4j.Slf4j;
 import me.itzg.helpers.errors.GenericException;
 import me.itzg.helpers.errors.InvalidParameterException;
 import me.itzg.helpers.errors.Validators;
+import me.itzg.helpers.files.FileSchedulers;
 import me.itzg.helpers.files.IoStreams;
 import me.itzg.helpers.files.ManifestException;
 import me.itzg.helpers.files.Manifests;
@@ -32,7 +33,6 @@ import picocli.CommandLine.ExitCode;
 import picocli.CommandLine.Option;
 import picocli.CommandLine.Spec;
 import reactor.core.publisher.Mono;
-import reactor.core.scheduler.Schedulers;
 
 @Command(name = "install-purpur", description = "Downloads latest or selected version of Purpur")
 @Slf4j
@@ -162,7 +162,7 @@ public class InstallPurpurCommand implements Callable<Integer> {
                 .skipUpToDate(true)
                 .handleStatus(Fetch.loggingDownloadStatusHandler(log))
                 .assemble()
-                .publishOn(Schedulers.boundedElastic())
+                .publishOn(FileSchedulers.blockingIo())
                 .flatMap(serverJar -> {
                     @SuppressWarnings("DuplicatedCode") // same as Paper
                     final String version;
@@ -14,6 +14,7 @@ import java.nio.file.StandardCopyOption;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 import me.itzg.helpers.errors.GenericException;
+import me.itzg.helpers.files.FileSchedulers;
 import me.itzg.helpers.files.Manifests;
 import me.itzg.helpers.files.ResultsFileWriter;
 import me.itzg.helpers.http.Fetch;
@@ -22,7 +23,6 @@ import me.itzg.helpers.mvn.MavenRepoApi;
 import me.itzg.helpers.versions.MinecraftVersionsApi;
 import org.jetbrains.annotations.Blocking;
 import reactor.core.publisher.Mono;
-import reactor.core.scheduler.Schedulers;
 
 @Slf4j
 public class QuiltInstaller implements AutoCloseable {
@@ -72,7 +72,7 @@ public class QuiltInstaller implements AutoCloseable {
                                     )
                                     .switchIfEmpty(
                                         Mono.defer(() -> Mono.error(new GenericException("Unable to obtain Quilt installer"))))
-                                    .publishOn(Schedulers.boundedElastic())
+                                    .publishOn(FileSchedulers.blockingIo())
                                     .map(installerPath -> runInstaller(resolvedMinecraftVersion.getVersion(), installerPath, resolvedLoaderVersion))
                             )
                     )
@@ -89,7 +89,7 @@ public class QuiltInstaller implements AutoCloseable {
                     )
                     .flatMap(resolvedLoaderVersion ->
                         downloadFromCustomInstallerUrl(installerUrl)
-                            .publishOn(Schedulers.boundedElastic())
+                            .publishOn(FileSchedulers.blockingIo())
                             .map(installerPath -> runInstaller(resolvedMinecraftVersion.getVersion(), installerPath, resolvedLoaderVersion))
                     )
             )
@@ -1,22 +1,18 @@
 package me.itzg.helpers.singles;
 
 import java.util.Arrays;
-import java.util.Map;
 import java.util.concurrent.Callable;
+import me.itzg.helpers.McImageHelper;
 import picocli.CommandLine;
 import picocli.CommandLine.Command;
 import picocli.CommandLine.ExitCode;
 import picocli.CommandLine.Model.CommandSpec;
 import picocli.CommandLine.Parameters;
-import picocli.CommandLine.Spec;
 
 @Command(name = "has-feature",
     description = "Check if a subcommand is available and optionally if it has specific options (arguments)")
 public class HasFeatureCommand implements Callable<Integer> {
 
-    @Spec
-    CommandSpec spec;
-
     @Parameters(index = "0", description = "The subcommand name to check for availability")
     String subcommand;
 
@@ -25,14 +21,15 @@ public class HasFeatureCommand implements Callable<Integer> {
 
     @Override
     public Integer call() throws Exception {
-        Map<String, CommandLine> subcommands = spec.parent().subcommands();
+        // resolved directly since only the invoked subcommand is registered with the parent
+        final Class<?> subcommandClass = McImageHelper.subcommandClass(subcommand);
 
-        if (!subcommands.containsKey(subcommand)) {
+        if (subcommandClass == null) {
             return ExitCode.SOFTWARE; // Subcommand not found
         }
 
         if (arguments != null && arguments.length > 0) {
-            CommandSpec subSpec = subcommands.get(subcommand).getCommandSpec();
+            CommandSpec subSpec = new CommandLine(subcommandClass).getCommandSpec();
             for (String argument : arguments) {
                 boolean hasOption = subSpec.options().stream()
                     .anyMatch(opt -> Arrays.stream(opt.names())
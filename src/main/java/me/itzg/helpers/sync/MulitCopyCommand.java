@@ -18,6 +18,7 @@ import java.util.concurrent.Callable;
 import lombok.extern.slf4j.Slf4j;
 import me.itzg.helpers.errors.GenericException;
 import me.itzg.helpers.errors.InvalidParameterException;
+import me.itzg.helpers.files.FileSchedulers;
 import me.itzg.helpers.files.Manifests;
 import me.itzg.helpers.files.ReactiveFileUtils;
 import me.itzg.helpers.http.FailedRequestException;
@@ -36,7 +37,6 @@ import picocli.CommandLine.Option;
 import picocli.CommandLine.Parameters;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
-import reactor.core.scheduler.Schedulers;
 
 @Command(name = "mcopy", description = "Multi-source file copy operation with with managed cleanup. "
     + "Supports auto-detected sourcing from file list, directories, and URLs")
@@ -178,7 +178,7 @@ public class MulitCopyCommand implements Callable<Integer> {
 
     private Flux<Path> processListingFile(SharedFetch sharedFetch, Path listingFile, Path destination) {
         return Mono.just(listingFile)
-            .publishOn(Schedulers.boundedElastic())
+            .publishOn(FileSchedulers.blockingIo())
             .flatMapMany(path -> {
                 try {
                     @SuppressWarnings("BlockingMethodInNonBlockingContext") // false warning from IntelliJ
@@ -199,7 +199,7 @@ public class MulitCopyCommand implements Callable<Integer> {
     private Mono<Path> processFile(Path source, Path destination) {
 
         return Mono.just(source)
-            .publishOn(Schedulers.boundedElastic())
+            .publishOn(FileSchedulers.blockingIo())
             .map(path -> processFileImmediate(source, destination));
     }
 
@@ -249,7 +249,7 @@ public class MulitCopyCommand implements Callable<Integer> {
 
     private Flux<Path> processDirectory(Path srcDir, Path destination) {
         return Mono.just(srcDir)
-            .publishOn(Schedulers.boundedElastic())
+            .publishOn(FileSchedulers.blockingIo())
             .flatMapMany(path -> {
                 if (!Files.exists(srcDir)) {
                     return Mono.error(new InvalidParameterException("Source directory does not exist: " + srcDir));
@@ -0,0 +1,83 @@
+package me.itzg.helpers.trace;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import reactor.core.publisher.Mono;
+
+/**
+ * A timed phase or operation of a trace, which is recorded when closed. Spans obtained while tracing
+ * is disabled are a shared no-op instance, so setting arguments on them costs nothing.
+ */
+public class Span implements AutoCloseable {
+
+    static final Span NOOP = new Span(null, null, null, 0, 0);
+
+    private final TraceRecorder recorder;
+    private final String category;
+    private final String name;
+    private final long startNanos;
+    private final int lane;
+    private final Map<String, Object> args = new LinkedHashMap<>();
+    private int attempts;
+    private boolean ended;
+
+    Span(TraceRecorder recorder, String category, String name, long startNanos, int lane) {
+        this.recorder = recorder;
+        this.category = category;
+        this.name = name;
+        this.startNanos = startNanos;
+        this.lane = lane;
+    }
+
+    public boolean isRecording() {
+        return recorder != null;
+    }
+
+    /**
+     * Adds an argument, such as bytes or a URL, that is shown with the span
+     */
+    public Span arg(String key, Object value) {
+        if (recorder != null) {
+            synchronized (this) {
+                args.put(key, value);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * @param attempt a cold publisher that is re-subscribed on each attempt, where every attempt after the first
+     * counts as a retry of this span
+     */
+    public <T> Mono<T> countAttempts(Mono<T> attempt) {
+        if (recorder == null) {
+            return attempt;
+        }
+        return attempt.doOnSubscribe(subscription -> {
+            synchronized (this) {
+                if (++attempts > 1) {
+                    args.put("retries", attempts - 1);
+                }
+            }
+        });
+    }
+
+    /**
+     * Records the span, where only the first call has an effect
+     */
+    @Override
+    public void close() {
+        if (recorder == null) {
+            return;
+        }
+        final Map<String, Object> finalArgs;
+        synchronized (this) {
+            if (ended) {
+                return;
+            }
+            ended = true;
+            finalArgs = new LinkedHashMap<>(args);
+        }
+        recorder.record(category, name, startNanos, lane, finalArgs);
+    }
+}
@@ -0,0 +1,119 @@
+package me.itzg.helpers.trace;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.LongSupplier;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.Value;
+import me.itzg.helpers.json.ObjectMappers;
+
+/**
+ * Collects the spans of one invocation and writes them in the Chrome trace event format, which can be opened with
+ * <a href="https://ui.perfetto.dev">Perfetto</a> or chrome://tracing.
+ * <p>
+ * Spans of reactive operations overlap arbitrarily, so each is placed on the lowest numbered lane, shown as a thread,
+ * that is free when it starts. That keeps the spans of each lane from overlapping, which the complete events
+ * of the format require.
+ */
+class TraceRecorder {
+
+    static final int PID = 1;
+
+    private final LongSupplier nanoTime;
+    private final long originNanos;
+    private final Queue<TraceEvent> events = new ConcurrentLinkedQueue<>();
+    private final BitSet busyLanes = new BitSet();
+    private int laneCount;
+
+    @Getter @Setter
+    private volatile Path traceFile;
+
+    TraceRecorder(Path traceFile, LongSupplier nanoTime) {
+        this.traceFile = traceFile;
+        this.nanoTime = nanoTime;
+        this.originNanos = nanoTime.getAsLong();
+    }
+
+    Span start(String category, String name) {
+        final int lane;
+        synchronized (busyLanes) {
+            lane = busyLanes.nextClearBit(0);
+            busyLanes.set(lane);
+            laneCount = Math.max(laneCount, lane + 1);
+        }
+        return new Span(this, category, name, nanoTime.getAsLong(), lane);
+    }
+
+    void record(String category, String name, long startNanos, int lane, Map<String, Object> args) {
+        final long endNanos = nanoTime.getAsLong();
+        synchronized (busyLanes) {
+            busyLanes.clear(lane);
+        }
+        events.add(new TraceEvent(name, category, "X",
+            toMicros(startNanos - originNanos), toMicros(endNanos - startNanos),
+            PID, lane, args.isEmpty() ? null : args
+        ));
+    }
+
+    int size() {
+        return events.size();
+    }
+
+    void write() throws IOException {
+        final List<TraceEvent> traceEvents = new ArrayList<>();
+        traceEvents.add(metadata("process_name", 0, "mc-image-helper"));
+        final int lanes;
+        synchronized (busyLanes) {
+            lanes = laneCount;
+        }
+        for (int lane = 0; lane < lanes; lane++) {
+            traceEvents.add(metadata("thread_name", lane, "lane " + lane));
+        }
+        traceEvents.addAll(events);
+
+        final Map<String, Object> trace = new LinkedHashMap<>();
+        trace.put("traceEvents", traceEvents);
+        trace.put("displayTimeUnit", "ms");
+
+        final Path parent = traceFile.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        ObjectMappers.defaultMapper().writeValue(traceFile.toFile(), trace);
+    }
+
+    private static TraceEvent metadata(String name, int lane, String value) {
+        return new TraceEvent(name, null, "M", 0, null, PID, lane, Collections.singletonMap("name", value));
+    }
+
+    private static long toMicros(long nanos) {
+        return nanos / 1_000;
+    }
+
+    @Value
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    static class TraceEvent {
+        String name;
+        String cat;
+        /**
+         * The event type, where X is a complete event with a duration and M is metadata
+         */
+        String ph;
+        long ts;
+        Long dur;
+        int pid;
+        int tid;
+        Map<String, Object> args;
+    }
+}
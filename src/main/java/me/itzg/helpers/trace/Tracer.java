@@ -0,0 +1,111 @@
+package me.itzg.helpers.trace;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.function.Function;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+/**
+ * Records spans of the phases and file operations of an invocation when a trace file was requested,
+ * such as by {@code --trace-file}. While disabled, the only cost of instrumentation is checking a field.
+ * <p>
+ * Synchronous phases use try-with-resources:
+ * <pre>
+ * {@code
+ *     try (Span ignored = Tracer.start(Tracer.PHASE, "overrides")) {
+ *         ...
+ *     }
+ * }
+ * </pre>
+ * and reactive operations use {@link #trace(String, String, Function)}.
+ */
+@Slf4j
+public final class Tracer {
+
+    /**
+     * Category of the major steps of an install, such as resolving, downloading, and extracting
+     */
+    public static final String PHASE = "phase";
+    /**
+     * Category of HTTP requests
+     */
+    public static final String FETCH = "fetch";
+    /**
+     * Category of operations on individual files, such as a mod file download or hash verification
+     */
+    public static final String FILE = "file";
+
+    private static volatile TraceRecorder recorder;
+
+    private Tracer() {
+    }
+
+    /**
+     * Starts recording, or changes the file of the current recording, which is written by {@link #finish()}
+     */
+    public static synchronized void enable(Path traceFile) {
+        if (recorder == null) {
+            recorder = new TraceRecorder(traceFile, System::nanoTime);
+        }
+        else {
+            recorder.setTraceFile(traceFile);
+        }
+    }
+
+    public static boolean isEnabled() {
+        return recorder != null;
+    }
+
+    /**
+     * Writes the recorded spans, if enabled, and disables recording. Failing to write is logged rather than
+     * failing the invocation.
+     */
+    public static synchronized void finish() {
+        final TraceRecorder finished = recorder;
+        if (finished == null) {
+            return;
+        }
+        recorder = null;
+
+        try {
+            finished.write();
+            log.info("Wrote trace of {} spans to {}", finished.size(), finished.getTraceFile());
+        } catch (IOException e) {
+            log.warn("Failed to write trace file {}", finished.getTraceFile(), e);
+        }
+    }
+
+    /**
+     * @return a started span, which needs to be closed, or a no-op span when disabled
+     */
+    public static Span start(String category, String name) {
+        final TraceRecorder current = recorder;
+        return current != null ? current.start(category, name) : Span.NOOP;
+    }
+
+    /**
+     * Records a span from each subscription to the assembled publisher until it terminates or is cancelled.
+     *
+     * @param assembly assembles the publisher given the span, which it can use to add arguments or count attempts.
+     *                 It is invoked on each subscription while enabled, or immediately with a no-op span when disabled,
+     *                 so it should not have side effects.
+     */
+    public static <T> Mono<T> trace(String category, String name, Function<Span, Mono<T>> assembly) {
+        if (recorder == null) {
+            return assembly.apply(Span.NOOP);
+        }
+        return Mono.defer(() -> {
+            final Span span = start(category, name);
+            return assembly.apply(span)
+                .doOnError(throwable -> span.arg("error", throwable.getClass().getSimpleName()))
+                .doFinally(signalType -> {
+                    if (signalType == SignalType.CANCEL) {
+                        span.arg("cancelled", true);
+                    }
+                    span.close();
+                });
+        });
+    }
+}
@@ -1,8 +1,7 @@
 package me.itzg.helpers.vanilla;
 
 import lombok.extern.slf4j.Slf4j;
-import me.itzg.helpers.files.Checksums;
-import me.itzg.helpers.files.FileHashInvalidException;
+import me.itzg.helpers.files.FileSchedulers;
 import me.itzg.helpers.files.Manifests;
 import me.itzg.helpers.files.OsUtils;
 import me.itzg.helpers.files.ResultsFileWriter;
@@ -11,7 +10,6 @@ import me.itzg.helpers.versions.McVersioning;
 import me.itzg.helpers.versions.MinecraftVersionInfo;
 import me.itzg.helpers.versions.MinecraftVersionsApi;
 import reactor.core.publisher.Mono;
-import reactor.core.scheduler.Schedulers;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -96,19 +94,12 @@ public class VanillaInstaller {
             .flatMap(jarInfo -> sharedFetch
                 .fetch(jarInfo.getUrl())
                 .toFile(outputDirectory.resolve(String.format("minecraft_server.%s.jar", version.getVersion().replace(' ', '_'))))
+                // verified while downloading
+                .checksum(jarInfo.getChecksumAlgo(), jarInfo.getChecksum())
+                .expectedSize(jarInfo.getSize())
                 .assemble()
-                .publishOn(Schedulers.boundedElastic())
+                .publishOn(FileSchedulers.blockingIo())
                 .flatMap(jarPath -> {
-                    try {
-                        if (!Checksums.valid(jarPath, jarInfo.getChecksumAlgo(), jarInfo.getChecksum())) {
-                            Files.delete(jarPath);
-                            log.error("Checksum failed for server jar");
-                            return Mono.error(new FileHashInvalidException("Hash mismatch for " + jarPath + ", aborting"));
-                        }
-                    } catch (IOException e) {
-                        return Mono.error(e);
-                    }
-
                     final List<Path> files = new ArrayList<>();
                     String serverEntry = outputDirectory.relativize(jarPath).toString();
                     if (McVersioning.compare(version.getVersion(), "1.6") < 0) {
@@ -28,6 +28,7 @@ import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import me.itzg.helpers.errors.GenericException;
 import me.itzg.helpers.errors.InvalidParameterException;
+import me.itzg.helpers.files.FileSchedulers;
 import me.itzg.helpers.files.Manifests;
 import me.itzg.helpers.http.FailedRequestException;
 import me.itzg.helpers.http.Fetch;
@@ -47,7 +48,6 @@ import picocli.CommandLine.ExitCode;
 import picocli.CommandLine.Option;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
-import reactor.core.scheduler.Schedulers;
 
 @Command(name = "vanillatweaks", description = "Downloads Vanilla Tweaks resource packs, data packs, or crafting tweaks"
     + " given a share code or pack file")
@@ -307,7 +307,7 @@ public class VanillaTweaksCommand implements Callable<Integer> {
 
             case datapacks:
                 return Mono.just("")
-                    .publishOn(Schedulers.boundedElastic())
+                    .publishOn(FileSchedulers.blockingIo())
                     .flatMapMany(s -> {
                         final Path tempZip;
                         try {
@@ -321,7 +321,7 @@ public class VanillaTweaksCommand implements Callable<Integer> {
                             .toFile(tempZip)
                             .assemble()
                             .checkpoint("Downloading datapack zip")
-                            .publishOn(Schedulers.boundedElastic())
+                            .publishOn(FileSchedulers.blockingIo())
                             .flatMapMany(downloaded -> {
                                 try {
                                     //noinspection BlockingMethodInNonBlockingContext because IntelliJ is confused
@@ -0,0 +1,38 @@
+package me.itzg.helpers;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+import picocli.CommandLine;
+import picocli.CommandLine.Command;
+
+class McImageHelperTest {
+
+    @Test
+    void subcommandNamesMatchCommandClasses() {
+        assertThat(McImageHelper.SUBCOMMAND_NAMES)
+            .doesNotHaveDuplicates()
+            .allSatisfy(name -> {
+                final Class<?> commandClass = McImageHelper.subcommandClass(name);
+                assertThat(commandClass).as("class of %s", name).isNotNull();
+                assertThat(commandClass.getAnnotation(Command.class).name()).isEqualTo(name);
+            });
+        assertThat(McImageHelper.subcommandClass("nonexistent")).isNull();
+    }
+
+    @Test
+    void registersOnlyNamedSubcommand() {
+        final CommandLine commandLine = McImageHelper.createCommandLine(new McImageHelper(),
+            "--debug", "compare-versions", "1.20", "lt", "1.21"
+        );
+
+        assertThat(commandLine.getSubcommands()).containsOnlyKeys("compare-versions");
+    }
+
+    @Test
+    void registersAllSubcommandsWhenNoneNamed() {
+        final CommandLine commandLine = McImageHelper.createCommandLine(new McImageHelper(), "--help");
+
+        assertThat(commandLine.getSubcommands()).containsOnlyKeys(McImageHelper.SUBCOMMAND_NAMES);
+    }
+}
@@ -0,0 +1,139 @@
+package me.itzg.helpers.batch;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.ok;
+import static com.github.tomakehurst.wiremock.client.WireMock.stubFor;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.github.tomakehurst.wiremock.junit5.WireMockRuntimeInfo;
+import com.github.tomakehurst.wiremock.junit5.WireMockTest;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import me.itzg.helpers.McImageHelper;
+import me.itzg.helpers.json.ObjectMappers;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.LoggerFactory;
+import picocli.CommandLine.ExitCode;
+
+@WireMockTest
+class BatchCommandTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void parsesAllLineFormats() throws IOException {
+        final List<List<String>> steps = BatchSteps.parse(new BufferedReader(new StringReader(
+            "# comment\n"
+                + "\n"
+                + "mc-image-helper compare-versions 1.20 lt \"1.20.1\"\n"
+                + "[\"set-properties\", \"--file\", \"with space.properties\"]\n"
+                + "{\"args\": [\"find\", \"--type\", \"file\"]}\n"
+                + "patch 'single quoted \\ value' escaped\\ space\n"
+        )));
+
+        assertThat(steps).containsExactly(
+            Arrays.asList("compare-versions", "1.20", "lt", "1.20.1"),
+            Arrays.asList("set-properties", "--file", "with space.properties"),
+            Arrays.asList("find", "--type", "file"),
+            Arrays.asList("patch", "single quoted \\ value", "escaped space")
+        );
+    }
+
+    @Test
+    void runsStepsAndReportsExitCodes() throws IOException {
+        final Path stepsFile = Files.write(tempDir.resolve("steps.txt"), Arrays.asList(
+            "compare-versions 1.20 lt 1.21",
+            "compare-versions 1.21 lt 1.20",
+            "[\"compare-versions\", \"1.19\", \"lt\", \"1.20\"]"
+        ));
+        final Path resultsFile = tempDir.resolve("results.ndjson");
+
+        final int exitCode = McImageHelper.execute("batch", "--continue-on-error", "--results-file", resultsFile.toString(), stepsFile.toString());
+
+        assertThat(exitCode).isEqualTo(1);
+        assertThat(readExitCodes(resultsFile)).containsExactly(ExitCode.OK, 1, ExitCode.OK);
+    }
+
+    @Test
+    void stopsAtFirstFailure() throws IOException {
+        final Path stepsFile = Files.write(tempDir.resolve("steps.txt"), Arrays.asList(
+            "compare-versions 1.21 lt 1.20",
+            "compare-versions 1.20 lt 1.21"
+        ));
+        final Path resultsFile = tempDir.resolve("results.ndjson");
+
+        final int exitCode = McImageHelper.execute("batch", "--results-file", resultsFile.toString(), stepsFile.toString());
+
+        assertThat(exitCode).isEqualTo(1);
+        assertThat(readExitCodes(resultsFile)).containsExactly(1);
+    }
+
+    @Test
+    void rejectsNestedBatch() throws IOException {
+        final Path stepsFile = Files.write(tempDir.resolve("steps.txt"), Arrays.asList(
+            "batch other.txt"
+        ));
+
+        final int exitCode = McImageHelper.execute("batch", stepsFile.toString());
+
+        assertThat(exitCode).isEqualTo(ExitCode.USAGE);
+    }
+
+    @Test
+    void restoresLoggingLevelsAfterEachStep() throws IOException {
+        final Logger helpersLogger = (Logger) LoggerFactory.getLogger("me.itzg.helpers");
+        final Logger httpClientLogger = (Logger) LoggerFactory.getLogger("reactor.netty.http.client.HttpClient");
+        final Path stepsFile = Files.write(tempDir.resolve("steps.txt"), Arrays.asList(
+            "--logging trace compare-versions 1.20 lt 1.21"
+        ));
+
+        final Level httpClientLevel = httpClientLogger.getLevel();
+        final int exitCode = McImageHelper.execute("batch", stepsFile.toString());
+
+        assertThat(exitCode).isEqualTo(ExitCode.OK);
+        assertThat(helpersLogger.getLevel()).isNotEqualTo(Level.TRACE);
+        assertThat(httpClientLogger.getLevel()).isEqualTo(httpClientLevel);
+    }
+
+    @Test
+    void writesMetricsOfAllStepsOnce(WireMockRuntimeInfo wm) throws IOException {
+        stubFor(get("/one.txt").willReturn(ok("one")));
+        stubFor(get("/two.txt").willReturn(ok("two")));
+        final Path outputDir = Files.createDirectory(tempDir.resolve("output"));
+        final Path metricsFile = tempDir.resolve("fetch.prom");
+        final Path stepsFile = Files.write(tempDir.resolve("steps.txt"), Arrays.asList(
+            String.format("get --metrics-file %s -o %s %s/one.txt", metricsFile, outputDir, wm.getHttpBaseUrl()),
+            String.format("get --metrics-file %s -o %s %s/two.txt", metricsFile, outputDir, wm.getHttpBaseUrl())
+        ));
+
+        final int exitCode = McImageHelper.execute("batch", stepsFile.toString());
+
+        assertThat(exitCode).isEqualTo(ExitCode.OK);
+        assertThat(Files.readAllLines(metricsFile))
+            .contains("mc_image_helper_fetch_requests_total{host=\"localhost\"} 2");
+    }
+
+    private static List<Integer> readExitCodes(Path resultsFile) throws IOException {
+        return Files.readAllLines(resultsFile).stream()
+            .map(line -> {
+                try {
+                    final JsonNode node = ObjectMappers.defaultMapper().readTree(line);
+                    return node.get("exitCode").asInt();
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            })
+            .collect(Collectors.toList());
+    }
+}
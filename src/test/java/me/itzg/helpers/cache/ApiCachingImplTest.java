@@ -0,0 +1,82 @@
+package me.itzg.helpers.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import me.itzg.helpers.http.ConditionalResponse;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import reactor.core.publisher.Mono;
+
+class ApiCachingImplTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    static class Value {
+        String name;
+    }
+
+    @Test
+    void revalidatesExpiredEntries() throws IOException {
+        final List<String> requestedEtags = new ArrayList<>();
+        final ConditionalResolver<Value> resolver = (etag, lastModified) -> {
+            requestedEtags.add(String.valueOf(etag));
+            return Mono.just(etag == null ?
+                ConditionalResponse.modified(new Value("original"), "\"v1\"", Instant.parse("2024-01-01T00:00:00Z"))
+                : ConditionalResponse.notModified(etag, lastModified)
+            );
+        };
+
+        // zero TTL so that each lookup needs revalidation
+        final CacheArgs cacheArgs = new CacheArgs()
+            .setDefaultCacheDuration(Duration.ZERO)
+            .setCacheDurations(Collections.emptyMap());
+
+        try (ApiCaching caching = new ApiCachingImpl(tempDir, "test", cacheArgs)) {
+            assertThat(caching.cacheRevalidating("op", Value.class, resolver, 1).block())
+                .isEqualTo(new Value("original"));
+        }
+
+        try (ApiCaching caching = new ApiCachingImpl(tempDir, "test", cacheArgs)) {
+            assertThat(caching.cacheRevalidating("op", Value.class, resolver, 1).block())
+                .isEqualTo(new Value("original"));
+        }
+
+        assertThat(requestedEtags).containsExactly("null", "\"v1\"");
+    }
+
+    @Test
+    void refetchesWhenModified() throws IOException {
+        final CacheArgs cacheArgs = new CacheArgs()
+            .setDefaultCacheDuration(Duration.ZERO)
+            .setCacheDurations(Collections.emptyMap());
+
+        try (ApiCaching caching = new ApiCachingImpl(tempDir, "test", cacheArgs)) {
+            caching.cacheRevalidating("op", Value.class,
+                (etag, lastModified) -> Mono.just(ConditionalResponse.modified(new Value("first"), "\"v1\"", null)),
+                1
+            ).block();
+
+            assertThat(
+                caching.cacheRevalidating("op", Value.class,
+                    (etag, lastModified) -> Mono.just(ConditionalResponse.modified(new Value("second"), "\"v2\"", null)),
+                    1
+                ).block()
+            )
+                .isEqualTo(new Value("second"));
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package me.itzg.helpers.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Map;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import reactor.core.publisher.Mono;
+
+class ApiCachingTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    static class Value {
+        String name;
+    }
+
+    @ParameterizedTest
+    @EnumSource(CacheStore.class)
+    void searchEntryExpiresOnItsOwnTtl(CacheStore store) throws IOException {
+        final CacheArgs cacheArgs = new CacheArgs()
+            .setDefaultCacheDuration(Duration.ofDays(1))
+            .setStore(store);
+        final Map<String, Duration> operationDurations = Collections.singletonMap("search", Duration.ZERO);
+
+        try (ApiCaching caching = ApiCaching.create(tempDir, "test", cacheArgs, operationDurations)) {
+            caching.cache("search", Value.class, Mono.just(new Value("found")), "slug").block();
+            caching.cache("getMod", Value.class, Mono.just(new Value("mod")), 1).block();
+
+            assertThat(caching.cache("search", Value.class, Mono.empty(), "slug").block())
+                .isNull();
+            assertThat(caching.cache("getMod", Value.class, Mono.empty(), 1).block())
+                .isEqualTo(new Value("mod"));
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(CacheStore.class)
+    void userTtlOverridesOperationTtl(CacheStore store) throws IOException {
+        final CacheArgs cacheArgs = new CacheArgs()
+            .setDefaultCacheDuration(Duration.ofDays(1))
+            .setCacheDurations(Collections.singletonMap("search", Duration.ofHours(2)))
+            .setStore(store);
+        final Map<String, Duration> operationDurations = Collections.singletonMap("search", Duration.ZERO);
+
+        try (ApiCaching caching = ApiCaching.create(tempDir, "test", cacheArgs, operationDurations)) {
+            caching.cache("search", Value.class, Mono.just(new Value("found")), "slug").block();
+
+            assertThat(caching.cache("search", Value.class, Mono.empty(), "slug").block())
+                .isEqualTo(new Value("found"));
+        }
+    }
+}
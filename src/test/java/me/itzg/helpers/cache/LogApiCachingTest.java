@@ -0,0 +1,157 @@
+package me.itzg.helpers.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import me.itzg.helpers.http.ConditionalResponse;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import reactor.core.publisher.Mono;
+
+class LogApiCachingTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    static class Value {
+        String name;
+    }
+
+    @Test
+    void persistsAcrossInstances() throws IOException {
+        final AtomicInteger resolves = new AtomicInteger();
+        final Mono<Value> resolver = Mono.fromCallable(() -> new Value("v" + resolves.incrementAndGet()));
+
+        try (LogApiCaching caching = new LogApiCaching(tempDir, "test", null)) {
+            assertThat(caching.cache("op", Value.class, resolver, 1, "a").block())
+                .isEqualTo(new Value("v1"));
+            assertThat(caching.cache("op", Value.class, resolver, 1, "a").block())
+                .isEqualTo(new Value("v1"));
+            assertThat(caching.cache("op", Value.class, resolver, 2, "a").block())
+                .isEqualTo(new Value("v2"));
+        }
+
+        try (LogApiCaching caching = new LogApiCaching(tempDir, "test", null)) {
+            assertThat(caching.cache("op", Value.class, resolver, 1, "a").block())
+                .isEqualTo(new Value("v1"));
+            assertThat(caching.cache("op", Value.class, resolver, 2, "a").block())
+                .isEqualTo(new Value("v2"));
+            // cache only lookup of missing entry
+            assertThat(caching.cache("op", Value.class, Mono.empty(), 3, "a").block())
+                .isNull();
+        }
+
+        assertThat(resolves).hasValue(2);
+    }
+
+    @Test
+    void recoversFromTruncatedRecord() throws IOException {
+        try (LogApiCaching caching = new LogApiCaching(tempDir, "test", null)) {
+            caching.cache("op", Value.class, Mono.just(new Value("first")), "1").block();
+            caching.cache("op", Value.class, Mono.just(new Value("second")), "2").block();
+        }
+
+        // simulate a crash while appending the second record
+        final Path logFile = tempDir.resolve(".cache/test").resolve(LogApiCaching.LOG_FILENAME);
+        try (FileChannel channel = FileChannel.open(logFile, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 3);
+        }
+
+        try (LogApiCaching caching = new LogApiCaching(tempDir, "test", null)) {
+            assertThat(caching.cache("op", Value.class, Mono.empty(), "1").block())
+                .isEqualTo(new Value("first"));
+            assertThat(caching.cache("op", Value.class, Mono.empty(), "2").block())
+                .isNull();
+
+            // and appends after the recovered portion
+            caching.cache("op", Value.class, Mono.just(new Value("third")), "3").block();
+        }
+
+        try (LogApiCaching caching = new LogApiCaching(tempDir, "test", null)) {
+            assertThat(caching.cache("op", Value.class, Mono.empty(), "3").block())
+                .isEqualTo(new Value("third"));
+        }
+    }
+
+    @Test
+    void ignoresExpiredEntries() throws IOException {
+        final CacheArgs cacheArgs = new CacheArgs();
+        cacheArgs.setDefaultCacheDuration(Duration.ofDays(1));
+        cacheArgs.setCacheDurations(Collections.singletonMap("short", Duration.ZERO));
+
+        try (LogApiCaching caching = new LogApiCaching(tempDir, "test", cacheArgs)) {
+            caching.cache("short", Value.class, Mono.just(new Value("expired")), "1").block();
+            caching.cache("long", Value.class, Mono.just(new Value("kept")), "1").block();
+
+            assertThat(caching.cache("short", Value.class, Mono.empty(), "1").block())
+                .isNull();
+            assertThat(caching.cache("long", Value.class, Mono.empty(), "1").block())
+                .isEqualTo(new Value("kept"));
+        }
+    }
+
+    @Test
+    void renewsNotModifiedEntries() throws IOException {
+        final CacheArgs cacheArgs = new CacheArgs();
+        cacheArgs.setDefaultCacheDuration(Duration.ZERO);
+        final AtomicInteger unconditional = new AtomicInteger();
+        final ConditionalResolver<Value> resolver = (etag, lastModified) -> {
+            if (etag == null) {
+                unconditional.incrementAndGet();
+                return Mono.just(ConditionalResponse.modified(new Value("original"), "\"v1\"", null));
+            }
+            return Mono.just(ConditionalResponse.notModified(etag, lastModified));
+        };
+
+        try (LogApiCaching caching = new LogApiCaching(tempDir, "test", cacheArgs)) {
+            assertThat(caching.cacheRevalidating("op", Value.class, resolver, "1").block())
+                .isEqualTo(new Value("original"));
+        }
+
+        try (LogApiCaching caching = new LogApiCaching(tempDir, "test", cacheArgs)) {
+            assertThat(caching.cacheRevalidating("op", Value.class, resolver, "1").block())
+                .isEqualTo(new Value("original"));
+        }
+
+        assertThat(unconditional).hasValue(1);
+    }
+
+    @Test
+    void discardsLogOfAnotherVersion() throws IOException {
+        try (LogApiCaching caching = new LogApiCaching(tempDir, "test", null)) {
+            caching.cache("op", Value.class, Mono.just(new Value("first")), "1").block();
+        }
+
+        // such as a log written before validators were added to records
+        final Path logFile = tempDir.resolve(".cache/test").resolve(LogApiCaching.LOG_FILENAME);
+        try (FileChannel channel = FileChannel.open(logFile, StandardOpenOption.WRITE)) {
+            final ByteBuffer version = ByteBuffer.allocate(Integer.BYTES).putInt(LogApiCaching.FORMAT_VERSION - 1);
+            version.flip();
+            channel.write(version, Integer.BYTES);
+        }
+
+        try (LogApiCaching caching = new LogApiCaching(tempDir, "test", null)) {
+            assertThat(caching.cache("op", Value.class, Mono.empty(), "1").block())
+                .isNull();
+            caching.cache("op", Value.class, Mono.just(new Value("second")), "2").block();
+        }
+
+        try (LogApiCaching caching = new LogApiCaching(tempDir, "test", null)) {
+            assertThat(caching.cache("op", Value.class, Mono.empty(), "2").block())
+                .isEqualTo(new Value("second"));
+        }
+    }
+}
@@ -7,7 +7,9 @@ import com.github.tomakehurst.wiremock.junit5.WireMockRuntimeInfo;
 import com.github.tomakehurst.wiremock.junit5.WireMockTest;
 import java.nio.file.Path;
 import java.time.Duration;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 import me.itzg.helpers.cache.ApiCachingDisabled;
@@ -73,6 +75,34 @@ class CurseForgeApiClientTest {
         }
     }
 
+    @Test
+    void bulkRetrievesModsAndFiles(WireMockRuntimeInfo wmInfo) {
+        stubFor(post("/v1/mods")
+            .withRequestBody(matchingJsonPath("$.modIds[?(@ == 100)]"))
+            .willReturn(jsonResponse("{\"data\": [{\"id\": 100, \"slug\": \"first\"}, {\"id\": 200, \"slug\": \"second\"}]}", 200))
+        );
+        stubFor(post("/v1/mods/files")
+            .withRequestBody(matchingJsonPath("$.fileIds[?(@ == 1001)]"))
+            .willReturn(jsonResponse("{\"data\": [{\"id\": 1001, \"modId\": 100}]}", 200))
+        );
+
+        try (CurseForgeApiClient client = new CurseForgeApiClient(wmInfo.getHttpBaseUrl(),
+            "key", Options.builder().build(), "432", new ApiCachingDisabled()
+        )) {
+            final Map<Integer, CurseForgeMod> mods = client.getModInfos(Arrays.asList(100, 200, 300))
+                .block();
+            assertThat(mods).containsOnlyKeys(100, 200);
+            assertThat(mods.get(200).getSlug()).isEqualTo("second");
+
+            final Map<Integer, CurseForgeFile> files = client.getModFileInfos(Collections.singletonMap(1001, 100))
+                .block();
+            assertThat(files).containsOnlyKeys(1001);
+        }
+
+        verify(1, postRequestedFor(urlEqualTo("/v1/mods")));
+        verify(1, postRequestedFor(urlEqualTo("/v1/mods/files")));
+    }
+
     @Test
     void ignoresServerPacks(WireMockRuntimeInfo wmInfo) {
         stubFor(get(urlPathEqualTo("/v1/mods/100/files"))
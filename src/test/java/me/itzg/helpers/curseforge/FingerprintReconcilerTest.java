@@ -0,0 +1,164 @@
+package me.itzg.helpers.curseforge;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import io.netty.handler.codec.http.DefaultHttpHeaders;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import me.itzg.helpers.curseforge.CurseForgeManifest.FileFingerprint;
+import me.itzg.helpers.curseforge.FingerprintReconciler.ReconciledFile;
+import me.itzg.helpers.curseforge.model.CurseForgeFile;
+import me.itzg.helpers.curseforge.model.ManifestFileRef;
+import me.itzg.helpers.http.FailedRequestException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import reactor.core.publisher.Mono;
+
+class FingerprintReconcilerTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final List<Long> requestedFingerprints = new ArrayList<>();
+
+    @Test
+    void reusesFingerprintOfUnchangedFile() throws IOException {
+        final Path file = writeMod("mods/a.jar", "content");
+        final CurseForgeApiClient cfApi = apiMatching(Collections.emptyMap());
+
+        new FingerprintReconciler(tempDir)
+            .reconcile(cfApi, manifestWith("mods/a.jar", recordedFingerprint(file, 123)))
+            .block();
+
+        assertThat(requestedFingerprints).containsExactly(123L);
+    }
+
+    @Test
+    void recomputesFingerprintWhenSizeChanged() throws IOException {
+        final Path file = writeMod("mods/a.jar", "content");
+        final FileFingerprint recorded = recordedFingerprint(file, 123);
+        final CurseForgeApiClient cfApi = apiMatching(Collections.emptyMap());
+
+        new FingerprintReconciler(tempDir)
+            .reconcile(cfApi, manifestWith("mods/a.jar", FileFingerprint.builder()
+                .size(recorded.getSize() + 1)
+                .lastModified(recorded.getLastModified())
+                .fingerprint(123)
+                .build()
+            ))
+            .block();
+
+        assertThat(requestedFingerprints).containsExactly(Murmur2Fingerprint.compute(file));
+    }
+
+    @Test
+    void recomputesFingerprintWhenModifiedTimeChanged() throws IOException {
+        final Path file = writeMod("mods/a.jar", "content");
+        final FileFingerprint recorded = recordedFingerprint(file, 123);
+        Files.setLastModifiedTime(file, FileTime.from(Instant.ofEpochMilli(recorded.getLastModified() + 60_000)));
+        final CurseForgeApiClient cfApi = apiMatching(Collections.emptyMap());
+
+        new FingerprintReconciler(tempDir)
+            .reconcile(cfApi, manifestWith("mods/a.jar", recorded))
+            .block();
+
+        assertThat(requestedFingerprints).containsExactly(Murmur2Fingerprint.compute(file));
+    }
+
+    @Test
+    void matchedFilesAreSkipped() throws IOException {
+        final Path file = writeMod("mods/a.jar", "content");
+        final long fingerprint = Murmur2Fingerprint.compute(file);
+        final CurseForgeFile cfFile = new CurseForgeFile()
+            .setId(20)
+            .setModId(10)
+            .setFileFingerprint(fingerprint);
+        final CurseForgeApiClient cfApi = apiMatching(Collections.singletonMap(fingerprint, cfFile));
+
+        final Map<Integer, ReconciledFile> reconciled = new FingerprintReconciler(tempDir)
+            .reconcile(cfApi, manifestWith("mods/a.jar", null))
+            .block();
+
+        assertThat(reconciled).containsOnlyKeys(20);
+        final ReconciledFile installed = FingerprintReconciler.installedFile(reconciled, fileRef(10, 20),
+            f -> true
+        );
+        assertThat(installed).isNotNull();
+        assertThat(installed.path).isEqualTo(file);
+
+        // ...but not when the file belongs to another project, isn't wanted, or wasn't matched
+        assertThat(FingerprintReconciler.installedFile(reconciled, fileRef(11, 20), f -> true)).isNull();
+        assertThat(FingerprintReconciler.installedFile(reconciled, fileRef(10, 20), f -> false)).isNull();
+        assertThat(FingerprintReconciler.installedFile(reconciled, fileRef(10, 21), f -> true)).isNull();
+    }
+
+    @Test
+    void fallsBackToDownloadingWhenLookupFails() throws IOException {
+        writeMod("mods/a.jar", "content");
+        final CurseForgeApiClient cfApi = mock(CurseForgeApiClient.class);
+        when(cfApi.getFingerprintMatches(anyCollection()))
+            .thenReturn(Mono.error(new FailedRequestException(HttpResponseStatus.INTERNAL_SERVER_ERROR,
+                URI.create("https://api.curseforge.com/v1/fingerprints/432"), "", "failed", new DefaultHttpHeaders()
+            )));
+
+        final Map<Integer, ReconciledFile> reconciled = new FingerprintReconciler(tempDir)
+            .reconcile(cfApi, manifestWith("mods/a.jar", null))
+            .block();
+
+        assertThat(reconciled).isEmpty();
+    }
+
+    private Path writeMod(String relPath, String content) throws IOException {
+        final Path file = tempDir.resolve(relPath);
+        Files.createDirectories(file.getParent());
+        return Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static FileFingerprint recordedFingerprint(Path file, long fingerprint) throws IOException {
+        final BasicFileAttributes attrs = Files.readAttributes(file, BasicFileAttributes.class);
+        return FileFingerprint.builder()
+            .size(attrs.size())
+            .lastModified(attrs.lastModifiedTime().toMillis())
+            .fingerprint(fingerprint)
+            .build();
+    }
+
+    private static CurseForgeManifest manifestWith(String relPath, FileFingerprint fingerprint) {
+        return CurseForgeManifest.builder()
+            .files(Collections.singletonList(relPath))
+            .fingerprints(fingerprint != null ? Collections.singletonMap(relPath, fingerprint) : null)
+            .build();
+    }
+
+    private static ManifestFileRef fileRef(int projectId, int fileId) {
+        return new ManifestFileRef()
+            .setProjectID(projectId)
+            .setFileID(fileId);
+    }
+
+    @SuppressWarnings("unchecked")
+    private CurseForgeApiClient apiMatching(Map<Long, CurseForgeFile> matches) {
+        final CurseForgeApiClient cfApi = mock(CurseForgeApiClient.class);
+        when(cfApi.getFingerprintMatches(anyCollection()))
+            .thenAnswer(invocation -> {
+                requestedFingerprints.addAll((Collection<Long>) invocation.getArgument(0));
+                return Mono.just(matches);
+            });
+        return cfApi;
+    }
+}
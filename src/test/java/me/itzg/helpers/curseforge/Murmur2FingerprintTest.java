@@ -0,0 +1,28 @@
+package me.itzg.helpers.curseforge;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class Murmur2FingerprintTest {
+
+    @Test
+    void ignoresWhitespace(@TempDir Path tempDir) throws IOException {
+        final Path file = Files.write(tempDir.resolve("hello.txt"), "Hello World".getBytes(StandardCharsets.UTF_8));
+
+        assertThat(Murmur2Fingerprint.compute(file)).isEqualTo(1756117720L);
+    }
+
+    @Test
+    void handlesTailBytes(@TempDir Path tempDir) throws IOException {
+        final Path file = Files.write(tempDir.resolve("hello.txt"), "Hello World\n123".getBytes(StandardCharsets.UTF_8));
+
+        // exceeds signed int range, so confirms unsigned result
+        assertThat(Murmur2Fingerprint.compute(file)).isEqualTo(3308187694L);
+    }
+}
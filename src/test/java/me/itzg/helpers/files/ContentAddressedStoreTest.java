@@ -0,0 +1,118 @@
+package me.itzg.helpers.files;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributeView;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ContentAddressedStoreTest {
+
+    // sha1 of "Hello World"
+    private static final String HELLO_SHA1 = "0a4d55a8d778e5022fab701977c5d840bbc486d0";
+
+    @Test
+    void storeThenRetrieve(@TempDir Path tempDir) throws IOException {
+        final ContentAddressedStore store = new ContentAddressedStore(tempDir.resolve("store"), 0);
+
+        final Path original = Files.write(tempDir.resolve("original.txt"), "Hello World".getBytes(StandardCharsets.UTF_8));
+
+        assertThat(store.store(ChecksumAlgo.SHA1, HELLO_SHA1, original)).isTrue();
+
+        final Path target = tempDir.resolve("target.txt");
+        assertThat(store.retrieve(ChecksumAlgo.SHA1, HELLO_SHA1.toUpperCase(), target)).isTrue();
+
+        assertThat(target).hasContent("Hello World");
+    }
+
+    @Test
+    void missingBlob(@TempDir Path tempDir) throws IOException {
+        final ContentAddressedStore store = new ContentAddressedStore(tempDir.resolve("store"), 0);
+
+        final Path target = tempDir.resolve("target.txt");
+        assertThat(store.retrieve(ChecksumAlgo.SHA1, HELLO_SHA1, target)).isFalse();
+        assertThat(target).doesNotExist();
+    }
+
+    @Test
+    void rejectsMismatchedContent(@TempDir Path tempDir) throws IOException {
+        final ContentAddressedStore store = new ContentAddressedStore(tempDir.resolve("store"), 0);
+
+        final Path original = Files.write(tempDir.resolve("original.txt"), "Goodbye".getBytes(StandardCharsets.UTF_8));
+
+        assertThat(store.store(ChecksumAlgo.SHA1, HELLO_SHA1, original)).isFalse();
+        assertThat(store.blobPath(ChecksumAlgo.SHA1, HELLO_SHA1)).doesNotExist();
+    }
+
+    @Test
+    void retrievedFileIsIndependentOfBlob(@TempDir Path tempDir) throws IOException {
+        final ContentAddressedStore store = new ContentAddressedStore(tempDir.resolve("store"), 0);
+
+        final Path original = Files.write(tempDir.resolve("original.txt"), "Hello World".getBytes(StandardCharsets.UTF_8));
+        store.store(ChecksumAlgo.SHA1, HELLO_SHA1, original);
+
+        final Path target = tempDir.resolve("target.txt");
+        assertThat(store.retrieve(ChecksumAlgo.SHA1, HELLO_SHA1, target)).isTrue();
+        // such as a user editing an installed config file
+        Files.write(target, "Edited".getBytes(StandardCharsets.UTF_8), StandardOpenOption.TRUNCATE_EXISTING);
+
+        assertThat(store.blobPath(ChecksumAlgo.SHA1, HELLO_SHA1)).hasContent("Hello World");
+    }
+
+    @Test
+    void rejectsInvalidChecksums(@TempDir Path tempDir) throws IOException {
+        final Path baseDir = tempDir.resolve("store");
+        final ContentAddressedStore store = new ContentAddressedStore(baseDir, 0);
+
+        final Path original = Files.write(tempDir.resolve("original.txt"), "Hello World".getBytes(StandardCharsets.UTF_8));
+        final Path target = tempDir.resolve("target.txt");
+
+        for (final String checksum : new String[]{"../..", "../../original.txt", HELLO_SHA1 + "00", "z" + HELLO_SHA1.substring(1)}) {
+            assertThat(store.store(ChecksumAlgo.SHA1, checksum, original)).isFalse();
+            assertThat(store.retrieve(ChecksumAlgo.SHA1, checksum, target)).isFalse();
+            assertThatThrownBy(() -> store.blobPath(ChecksumAlgo.SHA1, checksum))
+                .isInstanceOf(IllegalArgumentException.class);
+        }
+        assertThat(target).doesNotExist();
+        assertThat(baseDir).doesNotExist();
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedWhenOverMaxSize(@TempDir Path tempDir) throws IOException {
+        final ContentAddressedStore store = new ContentAddressedStore(tempDir.resolve("store"), 30);
+
+        final Path first = Files.write(tempDir.resolve("first.txt"), "Hello World".getBytes(StandardCharsets.UTF_8));
+        store.store(ChecksumAlgo.SHA1, HELLO_SHA1, first);
+
+        final Path second = Files.write(tempDir.resolve("second.txt"), "Another file".getBytes(StandardCharsets.UTF_8));
+        final String secondSha1 = Checksums.compute(second, ChecksumAlgo.SHA1);
+        store.store(ChecksumAlgo.SHA1, secondSha1, second);
+
+        // second was used longest ago
+        setLastAccess(store.blobPath(ChecksumAlgo.SHA1, secondSha1), Instant.now().minus(Duration.ofHours(2)));
+        setLastAccess(store.blobPath(ChecksumAlgo.SHA1, HELLO_SHA1), Instant.now().minus(Duration.ofHours(1)));
+
+        final Path third = Files.write(tempDir.resolve("third.txt"), "A third one!".getBytes(StandardCharsets.UTF_8));
+        final String thirdSha1 = Checksums.compute(third, ChecksumAlgo.SHA1);
+        store.store(ChecksumAlgo.SHA1, thirdSha1, third);
+
+        // 35 bytes exceeds the max, and evicting the second trims it below the target of 27
+        assertThat(store.blobPath(ChecksumAlgo.SHA1, secondSha1)).doesNotExist();
+        assertThat(store.blobPath(ChecksumAlgo.SHA1, HELLO_SHA1)).hasContent("Hello World");
+        assertThat(store.blobPath(ChecksumAlgo.SHA1, thirdSha1)).hasContent("A third one!");
+    }
+
+    private static void setLastAccess(Path path, Instant instant) throws IOException {
+        Files.getFileAttributeView(path, BasicFileAttributeView.class)
+            .setTimes(null, FileTime.from(instant), null);
+    }
+}
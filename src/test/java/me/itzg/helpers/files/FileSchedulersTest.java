@@ -0,0 +1,24 @@
+package me.itzg.helpers.files;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.time.Duration;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+class FileSchedulersTest {
+
+    @Test
+    void usesVirtualThreadsOnJava21() {
+        assumeTrue(Runtime.version().feature() >= 21);
+        assumeTrue(Boolean.getBoolean(FileSchedulers.VIRTUAL_THREADS_PROPERTY));
+
+        // Thread.isVirtual isn't available in the Java release that is targeted
+        final String threadClass = Mono.fromCallable(() -> Thread.currentThread().getClass().getName())
+            .subscribeOn(FileSchedulers.blockingIo())
+            .block(Duration.ofSeconds(5));
+
+        assertThat(threadClass).isEqualTo("java.lang.VirtualThread");
+    }
+}
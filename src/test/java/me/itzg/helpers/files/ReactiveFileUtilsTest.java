@@ -0,0 +1,102 @@
+package me.itzg.helpers.files;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+import reactor.netty.ByteBufFlux;
+
+class ReactiveFileUtilsTest {
+
+    @Test
+    void writesBuffersInOrder(@TempDir Path tempDir) throws IOException {
+        final List<ByteBuf> buffers = new ArrayList<>();
+        final StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 500; i++) {
+            final String line = "line " + i + "\n";
+            expected.append(line);
+            buffers.add(Unpooled.copiedBuffer(line, StandardCharsets.UTF_8));
+        }
+
+        final Path file = tempDir.resolve("out.txt");
+        final Long written = ReactiveFileUtils.writeByteBufFluxToFile(
+                ByteBufFlux.fromInbound(Flux.fromIterable(buffers)
+                    // simulate network event loop delivering buffers
+                    .publishOn(Schedulers.parallel())
+                ),
+                file
+            )
+            .block();
+
+        assertThat(file).hasContent(expected.toString());
+        assertThat(written).isEqualTo(expected.length());
+        // only the retain from writing has been released
+        assertThat(buffers).allSatisfy(byteBuf -> assertThat(byteBuf.refCnt()).isEqualTo(1));
+    }
+
+    @Test
+    void writesEmptyContent(@TempDir Path tempDir) {
+        final Path file = tempDir.resolve("empty.txt");
+        final Long written = ReactiveFileUtils.writeByteBufFluxToFile(ByteBufFlux.fromInbound(Flux.empty()), file)
+            .block();
+
+        assertThat(written).isZero();
+        assertThat(file).isEmptyFile();
+    }
+
+    @Test
+    void verifiesChecksum(@TempDir Path tempDir) {
+        final Path file = tempDir.resolve("out.txt");
+
+        final Long written = ReactiveFileUtils.writeByteBufFluxToFile(
+                ByteBufFlux.fromString(Flux.just("Hello", " ", "World")),
+                file, ChecksumAlgo.SHA1, "0a4d55a8d778e5022fab701977c5d840bbc486d0"
+            )
+            .block();
+
+        assertThat(written).isEqualTo(11);
+        assertThat(file).hasContent("Hello World");
+    }
+
+    @Test
+    void rejectsChecksumMismatch(@TempDir Path tempDir) {
+        final Path file = tempDir.resolve("out.txt");
+
+        assertThatThrownBy(() ->
+            ReactiveFileUtils.writeByteBufFluxToFile(
+                    ByteBufFlux.fromString(Flux.just("Goodbye")),
+                    file, ChecksumAlgo.SHA1, "0a4d55a8d778e5022fab701977c5d840bbc486d0"
+                )
+                .block()
+        )
+            .isInstanceOf(FileHashInvalidException.class);
+    }
+
+    @Test
+    void propagatesSourceError(@TempDir Path tempDir) {
+        final Path file = tempDir.resolve("out.txt");
+
+        assertThatThrownBy(() ->
+            ReactiveFileUtils.writeByteBufFluxToFile(
+                    ByteBufFlux.fromString(Flux.just("partial")
+                        .concatWith(Flux.error(new IllegalStateException("connection reset")))
+                    ),
+                    file
+                )
+                .block()
+        )
+            .isInstanceOf(IllegalStateException.class)
+            .hasMessage("connection reset");
+    }
+}
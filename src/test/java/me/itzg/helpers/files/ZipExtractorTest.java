@@ -0,0 +1,104 @@
+package me.itzg.helpers.files;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ZipExtractorTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void extractsPlannedEntries() throws IOException {
+        final Path zipFile = tempDir.resolve("test.zip");
+        try (ZipOutputStream zipOut = new ZipOutputStream(Files.newOutputStream(zipFile))) {
+            zipOut.putNextEntry(new ZipEntry("overrides/"));
+            zipOut.closeEntry();
+            for (int i = 0; i < 50; i++) {
+                addEntry(zipOut, String.format("overrides/config/dir%d/file%d.txt", i % 5, i), "content " + i);
+            }
+            addEntry(zipOut, "overrides/excluded.txt", "excluded");
+            addEntry(zipOut, "manifest.json", "{}");
+        }
+
+        final Path outputDir = tempDir.resolve("out");
+        final ZipExtractor.Result result = new ZipExtractor(4, 16).extract(zipFile, entry -> {
+            if (!entry.getName().startsWith("overrides/") || entry.getName().endsWith("excluded.txt")) {
+                return null;
+            }
+            return outputDir.resolve(entry.getName().substring("overrides/".length()));
+        });
+
+        assertThat(result.getWrittenCount()).isEqualTo(50);
+        assertThat(result.getSkippedCount()).isEqualTo(2);
+        assertThat(result.getPaths())
+            .first()
+            .isEqualTo(outputDir.resolve("config/dir0/file0.txt"));
+        for (int i = 0; i < 50; i++) {
+            assertThat(outputDir.resolve(String.format("config/dir%d/file%d.txt", i % 5, i)))
+                .hasContent("content " + i);
+        }
+        assertThat(outputDir.resolve("excluded.txt")).doesNotExist();
+        assertThat(outputDir.resolve("manifest.json")).doesNotExist();
+    }
+
+    @Test
+    void replacesExistingFiles() throws IOException {
+        final Path zipFile = tempDir.resolve("test.zip");
+        try (ZipOutputStream zipOut = new ZipOutputStream(Files.newOutputStream(zipFile))) {
+            addEntry(zipOut, "file.txt", "new");
+        }
+
+        final Path outputDir = Files.createDirectories(tempDir.resolve("out"));
+        Files.write(outputDir.resolve("file.txt"), "much longer original content".getBytes(StandardCharsets.UTF_8));
+
+        new ZipExtractor().extract(zipFile, entry -> outputDir.resolve(entry.getName()));
+
+        assertThat(outputDir.resolve("file.txt")).hasContent("new");
+    }
+
+    @Test
+    void skipsUnchangedEntries() throws IOException {
+        final Path zipFile = tempDir.resolve("test.zip");
+        try (ZipOutputStream zipOut = new ZipOutputStream(Files.newOutputStream(zipFile))) {
+            addEntry(zipOut, "same.txt", "same");
+            addEntry(zipOut, "modified.txt", "original");
+        }
+
+        final Path outputDir = tempDir.resolve("out");
+        final ZipExtractor.Result first = new ZipExtractor()
+            .setPreviousEntries(outputDir, null)
+            .extract(zipFile, entry -> outputDir.resolve(entry.getName()));
+        assertThat(first.getWrittenCount()).isEqualTo(2);
+        assertThat(first.getEntries()).containsOnlyKeys("same.txt", "modified.txt");
+
+        // locally modify one of the files
+        Files.write(outputDir.resolve("modified.txt"), "locally modified".getBytes(StandardCharsets.UTF_8));
+
+        final ZipExtractor.Result second = new ZipExtractor()
+            .setPreviousEntries(outputDir, first.getEntries())
+            .extract(zipFile, entry -> outputDir.resolve(entry.getName()));
+
+        assertThat(second.getUnchangedCount()).isEqualTo(1);
+        assertThat(second.getWrittenCount()).isEqualTo(1);
+        assertThat(second.getPaths()).containsExactly(
+            outputDir.resolve("same.txt"), outputDir.resolve("modified.txt")
+        );
+        assertThat(second.getEntries().get("same.txt")).isEqualTo(first.getEntries().get("same.txt"));
+        assertThat(outputDir.resolve("modified.txt")).hasContent("original");
+    }
+
+    private static void addEntry(ZipOutputStream zipOut, String name, String content) throws IOException {
+        zipOut.putNextEntry(new ZipEntry(name));
+        zipOut.write(content.getBytes(StandardCharsets.UTF_8));
+        zipOut.closeEntry();
+    }
+}
@@ -64,4 +64,35 @@ class ExistsTest {
 
         assertThat(status).isEqualTo(0);
     }
+
+    @Test
+    void concurrentNotOkWhenOneMissing(WireMockRuntimeInfo wm) {
+        stubFor(head(urlPathEqualTo("/exists"))
+            .willReturn(ok()));
+        stubFor(head(urlPathEqualTo("/alsoExists"))
+            .willReturn(ok()));
+        stubFor(head(urlPathEqualTo("/notHere"))
+            .willReturn(notFound()));
+
+        assertThat(
+            new CommandLine(new GetCommand())
+                .execute(
+                    "--exists",
+                    "--concurrency", "2",
+                    wm.getHttpBaseUrl() + "/exists",
+                    wm.getHttpBaseUrl() + "/alsoExists"
+                )
+        ).isEqualTo(ExitCode.OK);
+
+        assertThat(
+            new CommandLine(new GetCommand())
+                .execute(
+                    "--exists",
+                    "--concurrency", "2",
+                    wm.getHttpBaseUrl() + "/exists",
+                    wm.getHttpBaseUrl() + "/notHere"
+                )
+        ).isEqualTo(ExitCode.SOFTWARE);
+    }
+
 }
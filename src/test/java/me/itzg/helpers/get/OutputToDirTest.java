@@ -370,4 +370,53 @@ class OutputToDirTest {
         assertThat(tempDir).isEmptyDirectory();
     }
 
+    @Test
+    void concurrentDownloadsRetainUriOrder(@TempDir Path tempDir, WireMockRuntimeInfo wm) throws IOException {
+        // first one is slowest, so it completes last
+        stubFor(get(urlPathEqualTo("/one.txt"))
+            .willReturn(ok("content for one").withFixedDelay(300))
+        );
+        stubFor(get(urlPathEqualTo("/two.txt"))
+            .willReturn(ok("content for two").withFixedDelay(100))
+        );
+        stubFor(get(urlPathEqualTo("/three.txt"))
+            .willReturn(ok("content for three"))
+        );
+
+        final Path dontPruneThis = tempDir.resolve("keep.jar");
+        final Path pruneThis = tempDir.resolve("old.txt");
+        Files.createFile(dontPruneThis);
+        Files.createFile(pruneThis);
+
+        final StringWriter output = new StringWriter();
+        final int status =
+            new CommandLine(new GetCommand())
+                .setOut(new PrintWriter(output))
+                .execute(
+                    "-o",
+                    tempDir.toString(),
+                    "--concurrency", "3",
+                    "--prune-others", "*.txt",
+                    "--output-filename",
+                    wm.getHttpBaseUrl() + "/one.txt",
+                    wm.getHttpBaseUrl() + "/two.txt",
+                    wm.getHttpBaseUrl() + "/three.txt"
+                );
+
+        assertThat(status).isEqualTo(0);
+        final Path fileOne = tempDir.resolve("one.txt");
+        final Path fileTwo = tempDir.resolve("two.txt");
+        final Path fileThree = tempDir.resolve("three.txt");
+        assertThat(fileOne).hasContent("content for one");
+        assertThat(fileTwo).hasContent("content for two");
+        assertThat(fileThree).hasContent("content for three");
+        assertThat(dontPruneThis).exists();
+        assertThat(pruneThis).doesNotExist();
+
+        final String[] parts = output.toString().split(lineSeparator());
+        assertThat(parts).containsExactly(
+            fileOne.toString(), fileTwo.toString(), fileThree.toString()
+        );
+    }
+
 }
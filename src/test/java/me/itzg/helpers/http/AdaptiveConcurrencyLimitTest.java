@@ -0,0 +1,61 @@
+package me.itzg.helpers.http;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+class AdaptiveConcurrencyLimitTest {
+
+    @Test
+    void increasesUpToCeilingWhileThroughputImproves() {
+        final AtomicLong now = new AtomicLong();
+        final AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(3, 1, now::get);
+
+        for (int i = 0; i < 20; i++) {
+            now.addAndGet(100);
+            limit.onSuccess(1000);
+        }
+
+        assertThat(limit.getLimit()).isEqualTo(3);
+    }
+
+    @Test
+    void holdsWhenThroughputDeclines() {
+        final AtomicLong now = new AtomicLong();
+        final AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(8, 1, now::get);
+
+        now.addAndGet(100);
+        limit.onSuccess(1000);
+        assertThat(limit.getLimit()).isEqualTo(2);
+
+        // each download of the next window takes much longer
+        now.addAndGet(1000);
+        limit.onSuccess(1000);
+        now.addAndGet(1000);
+        limit.onSuccess(1000);
+
+        assertThat(limit.getLimit()).isEqualTo(2);
+    }
+
+    @Test
+    void halvesOncePerWindowWhenThrottled() {
+        final AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(8, 8);
+
+        limit.onThrottled(Duration.ZERO, 0);
+        limit.onThrottled(Duration.ZERO, 0);
+
+        assertThat(limit.getLimit()).isEqualTo(4);
+    }
+
+    @Test
+    void pausesForRequestedDuration() {
+        final AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(2, 2);
+
+        final Duration pause = limit.onThrottled(Duration.ofSeconds(10), 0);
+
+        assertThat(pause).isBetween(Duration.ofSeconds(9), Duration.ofSeconds(10));
+        assertThat(limit.pauseRemaining()).isPositive();
+    }
+}
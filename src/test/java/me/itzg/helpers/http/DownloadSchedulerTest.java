@@ -0,0 +1,202 @@
+package me.itzg.helpers.http;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import io.netty.channel.ChannelException;
+import io.netty.channel.ConnectTimeoutException;
+import io.netty.handler.codec.http.DefaultHttpHeaders;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import java.net.SocketException;
+import java.net.URI;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import me.itzg.helpers.errors.RateLimitException;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+class DownloadSchedulerTest {
+
+    @Test
+    void largestFirstWithSingleLane() {
+        final List<Long> results = new DownloadScheduler(1)
+            .schedule(Arrays.asList(1L, 5L, 3L, 0L, 5L), Long::longValue, Mono::just)
+            .collectList()
+            .block();
+
+        assertThat(results).containsExactly(5L, 5L, 3L, 1L, 0L);
+    }
+
+    @Test
+    void smallFilesHaveTheirOwnLane() {
+        final List<Long> started = new CopyOnWriteArrayList<>();
+
+        final List<Long> results = new DownloadScheduler(4, 4)
+            .schedule(Arrays.asList(1L, 100L, 2L, 90L, 80L, 70L), Long::longValue,
+                size -> Mono.delay(Duration.ofMillis(size))
+                    .doOnSubscribe(subscription -> started.add(size))
+                    .thenReturn(size)
+            )
+            .collectList()
+            .block();
+
+        assertThat(results).containsExactlyInAnyOrder(1L, 2L, 70L, 80L, 90L, 100L);
+        // three lanes take the largest and one lane takes the smallest
+        assertThat(started.subList(0, 4)).containsExactlyInAnyOrder(100L, 90L, 80L, 1L);
+        // ...and the small lane continues with the next smallest
+        assertThat(started.get(4)).isEqualTo(2L);
+    }
+
+    @Test
+    void retriesThrottledDownload() {
+        final AtomicInteger attempts = new AtomicInteger();
+
+        final List<String> results = new DownloadScheduler(2)
+            .schedule(Arrays.asList("a", "b"), item -> 0,
+                item -> Mono.defer(() ->
+                    item.equals("b") && attempts.incrementAndGet() == 1 ?
+                        Mono.<String>error(new RateLimitException(Instant.now(), "throttled", null))
+                        : Mono.just(item)
+                )
+            )
+            .collectList()
+            .block();
+
+        assertThat(results).containsExactlyInAnyOrder("a", "b");
+        assertThat(attempts).hasValue(2);
+    }
+
+    @Test
+    void leavesRateLimitedResponsesToHostRateLimiter() {
+        final AtomicInteger attempts = new AtomicInteger();
+        final DefaultHttpHeaders headers = new DefaultHttpHeaders();
+        headers.set(HttpHeaderNames.RETRY_AFTER, "0");
+
+        final Mono<List<String>> result = new DownloadScheduler(1)
+            .schedule(Arrays.asList("a"), item -> 0,
+                item -> Mono.<String>defer(() -> {
+                    attempts.incrementAndGet();
+                    return Mono.error(new FailedRequestException(HttpResponseStatus.TOO_MANY_REQUESTS,
+                        URI.create("https://example.com/a"), "", "throttled", headers
+                    ));
+                })
+            )
+            .collectList();
+
+        assertThatThrownBy(result::block).isInstanceOf(FailedRequestException.class);
+        assertThat(attempts).hasValue(1);
+    }
+
+    @Test
+    void rateLimitedResponsesReduceConcurrency() {
+        final HostRateLimiters limiters = new HostRateLimiters(0, 1);
+        final AtomicInteger attempts = new AtomicInteger();
+        final DefaultHttpHeaders headers = new DefaultHttpHeaders();
+        headers.set(HttpHeaderNames.RETRY_AFTER, "0");
+        final Map<String, Long> sizes = new HashMap<>();
+        sizes.put("a", 100L);
+        sizes.put("b", 50L);
+        sizes.put("c", 50L);
+        sizes.put("small", 1L);
+
+        final List<String> results = new DownloadScheduler(2)
+            .schedule(sizes.keySet(), sizes::get,
+                item -> item.equals("a") ?
+                    limiters.limit(URI.create("https://example.com/a"), Mono.defer(() ->
+                        attempts.getAndIncrement() == 0 ?
+                            Mono.<String>error(new FailedRequestException(HttpResponseStatus.TOO_MANY_REQUESTS,
+                                URI.create("https://example.com/a"), "", "throttled", headers
+                            ))
+                            : Mono.just(item)
+                    ))
+                    : Mono.delay(Duration.ofMillis(item.equals("small") ? 300 : 10)).thenReturn(item)
+            )
+            .collectList()
+            .block();
+
+        assertThat(attempts).hasValue(2);
+        // the host rate limiter halved the two lanes, so the others wait for the small lane to finish
+        assertThat(results).containsExactlyInAnyOrder("a", "b", "c", "small");
+        assertThat(results.subList(0, 2)).containsExactly("a", "small");
+    }
+
+    @Test
+    void doesNotRetryOtherFailures() {
+        final AtomicInteger attempts = new AtomicInteger();
+
+        final Mono<List<String>> result = new DownloadScheduler(1)
+            .schedule(Arrays.asList("a"), item -> 0,
+                item -> Mono.<String>defer(() -> {
+                    attempts.incrementAndGet();
+                    return Mono.error(new FailedRequestException(HttpResponseStatus.NOT_FOUND,
+                        URI.create("https://example.com/a"), "", "missing", new DefaultHttpHeaders()
+                    ));
+                })
+            )
+            .collectList();
+
+        assertThatThrownBy(result::block).isInstanceOf(FailedRequestException.class);
+        assertThat(attempts).hasValue(1);
+    }
+
+    @Test
+    void startsAtConfiguredConcurrencyUnlessAdaptive() {
+        final AtomicInteger active = new AtomicInteger();
+        final AtomicInteger peak = new AtomicInteger();
+        final List<Long> items = Arrays.asList(50L, 50L, 50L, 50L);
+
+        new DownloadScheduler(4)
+            .schedule(items, Long::longValue,
+                size -> Mono.delay(Duration.ofMillis(size))
+                    .doOnSubscribe(subscription -> peak.accumulateAndGet(active.incrementAndGet(), Math::max))
+                    .doOnTerminate(active::decrementAndGet)
+            )
+            .blockLast();
+        assertThat(peak).hasValue(4);
+
+        peak.set(0);
+        new DownloadScheduler(4, true)
+            .schedule(items, Long::longValue,
+                size -> Mono.delay(Duration.ofMillis(size))
+                    .doOnSubscribe(subscription -> peak.accumulateAndGet(active.incrementAndGet(), Math::max))
+                    .doOnTerminate(active::decrementAndGet)
+            )
+            .blockLast();
+        assertThat(peak).hasValue(2);
+    }
+
+    @Test
+    void onlyRateLimitingAndConnectTimeoutsAreThrottling() {
+        final URI uri = URI.create("https://example.com/a");
+        assertThat(DownloadScheduler.isThrottled(new FailedRequestException(HttpResponseStatus.TOO_MANY_REQUESTS,
+            uri, "", "throttled", new DefaultHttpHeaders()
+        ))).isTrue();
+        assertThat(DownloadScheduler.isThrottled(new FailedRequestException(HttpResponseStatus.SERVICE_UNAVAILABLE,
+            uri, "", "unavailable", new DefaultHttpHeaders()
+        ))).isTrue();
+        assertThat(DownloadScheduler.isThrottled(new ConnectTimeoutException("connection timed out"))).isTrue();
+
+        assertThat(DownloadScheduler.isThrottled(new FailedRequestException(HttpResponseStatus.INTERNAL_SERVER_ERROR,
+            uri, "", "failed", new DefaultHttpHeaders()
+        ))).isFalse();
+        assertThat(DownloadScheduler.isThrottled(new SocketException("Connection reset"))).isFalse();
+        assertThat(DownloadScheduler.isThrottled(new ChannelException("closed"))).isFalse();
+    }
+
+    @Test
+    void emptyItems() {
+        final List<Object> results = new DownloadScheduler(4)
+            .schedule(Arrays.asList(), item -> 0, Mono::just)
+            .collectList()
+            .block();
+
+        assertThat(results).isEmpty();
+    }
+}
@@ -0,0 +1,156 @@
+package me.itzg.helpers.http;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.github.tomakehurst.wiremock.junit5.WireMockRuntimeInfo;
+import com.github.tomakehurst.wiremock.junit5.WireMockTest;
+import com.github.tomakehurst.wiremock.stubbing.Scenario;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import me.itzg.helpers.http.SharedFetch.Options;
+import me.itzg.helpers.json.ObjectMappers;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import reactor.util.retry.Retry;
+
+@WireMockTest
+class FetchMetricsTest {
+
+    @TempDir
+    Path tempDir;
+
+    @AfterEach
+    void tearDown() {
+        FetchMetrics.finish();
+    }
+
+    @Test
+    void histogramBucketsAreCumulative() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(Duration.ofMillis(3));
+        histogram.record(Duration.ofMillis(200));
+        histogram.record(Duration.ofMinutes(5));
+
+        assertThat(histogram.getCount()).isEqualTo(3);
+        assertThat(histogram.cumulativeBuckets())
+            .containsEntry("0.005", 1L)
+            .containsEntry("0.1", 1L)
+            .containsEntry("0.25", 2L)
+            .containsEntry("120", 2L)
+            .containsEntry("+Inf", 3L);
+    }
+
+    @Test
+    void writesPrometheusWithRetries(WireMockRuntimeInfo wm) throws IOException {
+        stubThrottledOnce();
+        final Path metricsFile = tempDir.resolve("fetch.prom");
+        FetchMetrics.enable(metricsFile);
+
+        fetchTwice(wm);
+        FetchMetrics.finish();
+
+        assertThat(FetchMetrics.isEnabled()).isFalse();
+        assertThat(Files.readAllLines(metricsFile))
+            .contains(
+                "# TYPE mc_image_helper_fetch_requests_total counter",
+                "mc_image_helper_fetch_requests_total{host=\"localhost\"} 2",
+                "mc_image_helper_fetch_retries_total{host=\"localhost\"} 1",
+                "mc_image_helper_fetch_failures_total{host=\"localhost\"} 0",
+                "mc_image_helper_fetch_responses_total{host=\"localhost\",protocol=\"HTTP/1.1\"} 3",
+                "mc_image_helper_fetch_in_flight_max{host=\"localhost\"} 1",
+                "# TYPE mc_image_helper_fetch_response_seconds histogram"
+            )
+            .anyMatch(line -> line.startsWith("mc_image_helper_fetch_response_seconds_bucket{host=\"localhost\",le=\"+Inf\"}"))
+            .anyMatch(line -> line.startsWith("mc_image_helper_fetch_pool_active_connections_max{"));
+    }
+
+    @Test
+    void writesJson(WireMockRuntimeInfo wm) throws IOException {
+        stubThrottledOnce();
+        final Path metricsFile = tempDir.resolve("fetch.json");
+        FetchMetrics.enable(metricsFile);
+
+        fetchTwice(wm);
+        FetchMetrics.finish();
+
+        final JsonNode host = ObjectMappers.defaultMapper().readTree(metricsFile.toFile())
+            .path("hosts").path("localhost");
+        assertThat(host.path("requests").asLong()).isEqualTo(2);
+        assertThat(host.path("retries").asLong()).isEqualTo(1);
+        assertThat(host.path("responsesByProtocol").path("HTTP/1.1").asLong()).isEqualTo(3);
+        assertThat(host.path("receivedBytes").asLong()).isPositive();
+        assertThat(host.path("responseTime").path("buckets").path("+Inf").asLong())
+            .isEqualTo(host.path("responseTime").path("count").asLong());
+    }
+
+    @Test
+    void outerRetryIsNotCountedAsNewRequest(WireMockRuntimeInfo wm) throws IOException {
+        stubFor(get("/content")
+            .inScenario("missing")
+            .whenScenarioStateIs(Scenario.STARTED)
+            .willReturn(notFound())
+            .willSetStateTo("present")
+        );
+        stubFor(get("/content")
+            .inScenario("missing")
+            .whenScenarioStateIs("present")
+            .willReturn(ok("content"))
+        );
+        final Path metricsFile = tempDir.resolve("fetch.prom");
+        FetchMetrics.enable(metricsFile);
+
+        try (SharedFetch sharedFetch = Fetch.sharedFetch("test", Options.builder().build())) {
+            assertThat(
+                FetchMetrics.retryScope(
+                    sharedFetch.fetch(URI.create(wm.getHttpBaseUrl() + "/content"))
+                        .asString()
+                        .assemble()
+                        .retryWhen(Retry.max(1))
+                )
+                    .block()
+            ).isEqualTo("content");
+        }
+        FetchMetrics.finish();
+
+        assertThat(Files.readAllLines(metricsFile))
+            .contains(
+                "mc_image_helper_fetch_requests_total{host=\"localhost\"} 1",
+                "mc_image_helper_fetch_retries_total{host=\"localhost\"} 1",
+                "mc_image_helper_fetch_failures_total{host=\"localhost\"} 0"
+            );
+    }
+
+    private static void stubThrottledOnce() {
+        stubFor(get("/content")
+            .inScenario("throttled")
+            .whenScenarioStateIs(Scenario.STARTED)
+            .willReturn(aResponse().withStatus(429).withHeader("Retry-After", "0"))
+            .willSetStateTo("allowed")
+        );
+        stubFor(get("/content")
+            .inScenario("throttled")
+            .whenScenarioStateIs("allowed")
+            .willReturn(ok("content"))
+        );
+    }
+
+    private static void fetchTwice(WireMockRuntimeInfo wm) {
+        // created after enabling, as the option does
+        try (SharedFetch sharedFetch = Fetch.sharedFetch("test", Options.builder().build())) {
+            for (int i = 0; i < 2; i++) {
+                assertThat(
+                    sharedFetch.fetch(URI.create(wm.getHttpBaseUrl() + "/content"))
+                        .asString()
+                        .assemble()
+                        .block()
+                ).isEqualTo("content");
+            }
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package me.itzg.helpers.http;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.github.tomakehurst.wiremock.junit5.WireMockRuntimeInfo;
+import com.github.tomakehurst.wiremock.junit5.WireMockTest;
+import com.github.tomakehurst.wiremock.stubbing.Scenario;
+import io.netty.handler.codec.http.DefaultHttpHeaders;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import java.net.URI;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import me.itzg.helpers.http.SharedFetch.Options;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+
+@WireMockTest
+class HostRateLimitersTest {
+
+    @Test
+    void allowsBurstThenLimitsRate() {
+        final AtomicLong now = new AtomicLong();
+        final HostRateLimiters limiters = new HostRateLimiters(10, 2, now::get);
+        final URI uri = URI.create("https://example.com/file");
+
+        final AtomicLong sent = new AtomicLong();
+        final Mono<Long> request = Mono.fromSupplier(sent::incrementAndGet);
+
+        // the first two are within the burst
+        assertThat(limiters.limit(uri, request).block()).isEqualTo(1L);
+        assertThat(limiters.limit(uri, request).block()).isEqualTo(2L);
+        // the third has to wait for the 100ms interval since the virtual clock hasn't advanced
+        final long start = System.nanoTime();
+        assertThat(limiters.limit(uri, request).block(Duration.ofSeconds(5))).isEqualTo(3L);
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isGreaterThanOrEqualTo(Duration.ofMillis(90));
+    }
+
+    @Test
+    void hostsAreLimitedIndependently() {
+        final AtomicLong now = new AtomicLong();
+        final HostRateLimiters limiters = new HostRateLimiters(0.001, 1, now::get);
+
+        final long start = System.nanoTime();
+        limiters.limit(URI.create("https://one.example.com/"), Mono.just(1)).block();
+        limiters.limit(URI.create("https://two.example.com/"), Mono.just(2)).block();
+
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(5));
+    }
+
+    @Test
+    void reportsParkedRequestsToThrottleListener() {
+        final HostRateLimiters limiters = new HostRateLimiters(0, 1);
+        final AdaptiveConcurrencyLimit concurrencyLimit = new AdaptiveConcurrencyLimit(4, 4);
+        final URI uri = URI.create("https://example.com/file");
+        final AtomicLong attempts = new AtomicLong();
+
+        final Mono<String> request = Mono.defer(() ->
+            attempts.getAndIncrement() == 0 ?
+                Mono.error(new FailedRequestException(HttpResponseStatus.TOO_MANY_REQUESTS, uri, "", "throttled",
+                    new DefaultHttpHeaders().set("Retry-After", "0")
+                ))
+                : Mono.just("done")
+        );
+
+        assertThat(
+            limiters.limit(uri, request)
+                .contextWrite(Context.of(HostRateLimiters.THROTTLE_LISTENER,
+                    (HostRateLimiters.ThrottleListener) concurrencyLimit::onThrottled
+                ))
+                .block(Duration.ofSeconds(5))
+        ).isEqualTo("done");
+        assertThat(attempts).hasValue(2);
+        assertThat(concurrencyLimit.getLimit()).isEqualTo(2);
+    }
+
+    @Test
+    void requestedDelayFromHeaders() {
+        assertThat(HostRateLimiters.requestedDelay(new DefaultHttpHeaders().set("Retry-After", "3")))
+            .isEqualTo(Duration.ofSeconds(3));
+        assertThat(HostRateLimiters.requestedDelay(new DefaultHttpHeaders().set("x-ratelimit-reset", "7")))
+            .isEqualTo(Duration.ofSeconds(7));
+        assertThat(HostRateLimiters.requestedDelay(new DefaultHttpHeaders().set("x-ratelimit-reset",
+            String.valueOf(System.currentTimeMillis() / 1000 - 60)
+        )))
+            .isEqualTo(Duration.ZERO);
+        assertThat(HostRateLimiters.requestedDelay(new DefaultHttpHeaders())).isNull();
+    }
+
+    @Test
+    void waitsOutTooManyRequests(WireMockRuntimeInfo wm) {
+        stubFor(get("/content")
+            .inScenario("throttled")
+            .whenScenarioStateIs(Scenario.STARTED)
+            .willReturn(aResponse().withStatus(429).withHeader("Retry-After", "0"))
+            .willSetStateTo("allowed")
+        );
+        stubFor(get("/content")
+            .inScenario("throttled")
+            .whenScenarioStateIs("allowed")
+            .willReturn(ok("content"))
+        );
+
+        try (SharedFetch sharedFetch = Fetch.sharedFetch("test", Options.builder().build())) {
+            final String result = sharedFetch.fetch(URI.create(wm.getHttpBaseUrl() + "/content"))
+                .asString()
+                .assemble()
+                .block();
+
+            assertThat(result).isEqualTo("content");
+        }
+
+        verify(2, getRequestedFor(urlEqualTo("/content")));
+    }
+}
@@ -10,6 +10,7 @@ import com.github.tomakehurst.wiremock.junit5.WireMockRuntimeInfo;
 import com.github.tomakehurst.wiremock.junit5.WireMockTest;
 import java.io.IOException;
 import java.net.URI;
+import java.time.Instant;
 import lombok.Data;
 import org.junit.jupiter.api.Test;
 
@@ -103,4 +104,44 @@ class ObjectFetchBuilderTest {
                 .withHeader("x-fetch-session", WireMock.matching("[a-z0-9-]+"))
         );
     }
-}
\ No newline at end of file
+
+    @Test
+    void conditionalFetchNotModified(WireMockRuntimeInfo wm) {
+        stubFor(get("/content")
+            .withHeader("if-none-match", WireMock.absent())
+            .willReturn(okJson("{\"name\": \"alpha\", \"count\": 5}")
+                .withHeader("etag", "\"v1\"")
+                .withHeader("last-modified", "Wed, 21 Oct 2015 07:28:00 GMT")
+            )
+        );
+        stubFor(get("/content")
+            .withHeader("if-none-match", WireMock.equalTo("\"v1\""))
+            .withHeader("if-modified-since", WireMock.equalTo("Wed, 21 Oct 2015 07:28:00 GMT"))
+            .willReturn(aResponse().withStatus(304))
+        );
+
+        final ConditionalResponse<Content> first = fetch(URI.create(wm.getHttpBaseUrl() + "/content"))
+            .toObject(Content.class)
+            .assembleConditional(null, null)
+            .block();
+
+        assertThat(first).isNotNull();
+        assertThat(first.isNotModified()).isFalse();
+        assertThat(first.getValue())
+            .extracting("name", "count")
+            .contains("alpha", 5);
+        assertThat(first.getEtag()).isEqualTo("\"v1\"");
+        assertThat(first.getLastModified()).isEqualTo(Instant.parse("2015-10-21T07:28:00Z"));
+
+        final ConditionalResponse<Content> second = fetch(URI.create(wm.getHttpBaseUrl() + "/content"))
+            .toObject(Content.class)
+            .assembleConditional(first.getEtag(), first.getLastModified())
+            .block();
+
+        assertThat(second).isNotNull();
+        assertThat(second.isNotModified()).isTrue();
+        assertThat(second.getValue()).isNull();
+        assertThat(second.getEtag()).isEqualTo("\"v1\"");
+        assertThat(second.getLastModified()).isEqualTo(first.getLastModified());
+    }
+}
@@ -9,9 +9,13 @@ import com.github.tomakehurst.wiremock.junit5.WireMockRuntimeInfo;
 import com.github.tomakehurst.wiremock.junit5.WireMockTest;
 import java.io.IOException;
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Collections;
+import me.itzg.helpers.files.ChecksumAlgo;
+import me.itzg.helpers.files.FileHashInvalidException;
+import org.apache.commons.codec.digest.DigestUtils;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 
@@ -89,5 +93,190 @@ class SpecificFileFetchBuilderTest {
             .hasContent("original content");
     }
 
+    @Test
+    void verifiesChecksumWhileDownloading(WireMockRuntimeInfo wm, @TempDir Path tempDir) throws IOException {
+        final Path requestedOutputFile = tempDir.resolve("downloaded.txt");
+
+        stubFor(
+            get("/requested.txt")
+                .willReturn(
+                    ok("new content")
+                )
+        );
+
+        final Path result = fetch(URI.create(wm.getHttpBaseUrl() + "/requested.txt"))
+            .toFile(requestedOutputFile)
+            .checksum(ChecksumAlgo.SHA1, "ca527369d9e8c1e081558bd92f90f65c4eb77e21")
+            .execute();
+
+        assertThat(result)
+            .exists()
+            .hasContent("new content");
+    }
+
+    @Test
+    void rejectsChecksumMismatch(WireMockRuntimeInfo wm, @TempDir Path tempDir) {
+        final Path requestedOutputFile = tempDir.resolve("downloaded.txt");
+
+        stubFor(
+            get("/requested.txt")
+                .willReturn(
+                    ok("tampered content")
+                )
+        );
+
+        assertThatThrownBy(
+            fetch(URI.create(wm.getHttpBaseUrl() + "/requested.txt"))
+                .toFile(requestedOutputFile)
+                .checksum(ChecksumAlgo.SHA1, "ca527369d9e8c1e081558bd92f90f65c4eb77e21")::execute
+        )
+            .isInstanceOf(FileHashInvalidException.class);
+
+        assertThat(requestedOutputFile).doesNotExist();
+        assertThat(tempDir.resolve("downloaded.txt.download")).doesNotExist();
+    }
+
+    @Test
+    void resumesPartialDownload(WireMockRuntimeInfo wm, @TempDir Path tempDir) throws IOException {
+        final Path requestedOutputFile = tempDir.resolve("downloaded.txt");
+        final Path partialFile = tempDir.resolve("downloaded.txt.download");
+        final Path sidecarFile = tempDir.resolve("downloaded.txt.download.json");
+        Files.write(partialFile, "hello ".getBytes(StandardCharsets.UTF_8));
+        new PartialDownload()
+            .setEtag("\"v1\"")
+            .setContentLength(21)
+            .save(sidecarFile);
+
+        stubFor(
+            get("/requested.txt")
+                .withHeader("Range", equalTo("bytes=6-"))
+                .withHeader("If-Range", equalTo("\"v1\""))
+                .willReturn(
+                    aResponse()
+                        .withStatus(206)
+                        .withHeader("Content-Range", "bytes 6-20/21")
+                        .withBody("resumable world")
+                )
+        );
+
+        final Path result = fetch(URI.create(wm.getHttpBaseUrl() + "/requested.txt"))
+            .toFile(requestedOutputFile)
+            // covers the resumed bytes and the existing bytes
+            .checksum(ChecksumAlgo.SHA1, "0c3c5ddb554a36a7b750f3ed2d11fa7428281a79")
+            .execute();
 
-}
\ No newline at end of file
+        assertThat(result)
+            .exists()
+            .hasContent("hello resumable world");
+        assertThat(partialFile).doesNotExist();
+        assertThat(sidecarFile).doesNotExist();
+    }
+
+    @Test
+    void restartsWhenRemoteChanged(WireMockRuntimeInfo wm, @TempDir Path tempDir) throws IOException {
+        final Path requestedOutputFile = tempDir.resolve("downloaded.txt");
+        final Path partialFile = tempDir.resolve("downloaded.txt.download");
+        final Path sidecarFile = tempDir.resolve("downloaded.txt.download.json");
+        Files.write(partialFile, "stale content that is long".getBytes(StandardCharsets.UTF_8));
+        new PartialDownload()
+            .setEtag("\"v1\"")
+            .setContentLength(100)
+            .save(sidecarFile);
+
+        // If-Range didn't match, so the full content is given
+        stubFor(
+            get("/requested.txt")
+                .willReturn(
+                    ok("new content")
+                        .withHeader("ETag", "\"v2\"")
+                )
+        );
+
+        final Path result = fetch(URI.create(wm.getHttpBaseUrl() + "/requested.txt"))
+            .toFile(requestedOutputFile)
+            .execute();
+
+        assertThat(result)
+            .exists()
+            .hasContent("new content");
+        assertThat(partialFile).doesNotExist();
+        assertThat(sidecarFile).doesNotExist();
+        verify(getRequestedFor(urlEqualTo("/requested.txt"))
+            .withHeader("Range", equalTo("bytes=26-"))
+        );
+    }
+
+    @Test
+    void downloadsInSegments(WireMockRuntimeInfo wm, @TempDir Path tempDir) throws IOException {
+        final String content = "0123456789abcdefghijklmnopqrstuvwxyzABCD";
+
+        stubFor(
+            head(urlEqualTo("/large.bin"))
+                .willReturn(
+                    ok()
+                        .withHeader("Accept-Ranges", "bytes")
+                        .withHeader("Content-Length", String.valueOf(content.length()))
+                        .withHeader("ETag", "\"v1\"")
+                )
+        );
+        for (int start = 0; start < content.length(); start += 10) {
+            final int end = start + 9;
+            stubFor(
+                get(urlEqualTo("/large.bin"))
+                    .withHeader("Range", equalTo("bytes=" + start + "-" + end))
+                    .withHeader("If-Range", equalTo("\"v1\""))
+                    .willReturn(
+                        aResponse()
+                            .withStatus(206)
+                            .withHeader("Content-Range", "bytes " + start + "-" + end + "/" + content.length())
+                            .withBody(content.substring(start, end + 1))
+                    )
+            );
+        }
+
+        final Path result;
+        try (SharedFetch sharedFetch = Fetch.sharedFetch("test", SharedFetch.Options.builder()
+            .downloadSegments(4)
+            .segmentedDownloadThreshold(10)
+            .build()
+        )) {
+            result = sharedFetch.fetch(URI.create(wm.getHttpBaseUrl() + "/large.bin"))
+                .toFile(tempDir.resolve("large.bin"))
+                .checksum(ChecksumAlgo.SHA1, DigestUtils.sha1Hex(content))
+                .execute();
+        }
+
+        assertThat(result)
+            .exists()
+            .hasContent(content);
+        assertThat(tempDir.resolve("large.bin.download")).doesNotExist();
+        verify(4, getRequestedFor(urlEqualTo("/large.bin")));
+    }
+
+    @Test
+    void skipsSegmentProbeWhenExpectedSizeIsBelowThreshold(WireMockRuntimeInfo wm, @TempDir Path tempDir)
+        throws IOException {
+        stubFor(
+            get(urlEqualTo("/small.bin"))
+                .willReturn(ok("small"))
+        );
+
+        final Path result;
+        try (SharedFetch sharedFetch = Fetch.sharedFetch("test", SharedFetch.Options.builder()
+            .downloadSegments(4)
+            .segmentedDownloadThreshold(10)
+            .build()
+        )) {
+            result = sharedFetch.fetch(URI.create(wm.getHttpBaseUrl() + "/small.bin"))
+                .toFile(tempDir.resolve("small.bin"))
+                .expectedSize(5)
+                .execute();
+        }
+
+        assertThat(result)
+            .exists()
+            .hasContent("small");
+        verify(0, headRequestedFor(urlEqualTo("/small.bin")));
+        verify(1, getRequestedFor(urlEqualTo("/small.bin")));
+    }
+}
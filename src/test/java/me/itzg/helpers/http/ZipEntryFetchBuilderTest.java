@@ -0,0 +1,156 @@
+package me.itzg.helpers.http;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+import static me.itzg.helpers.http.Fetch.fetch;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.github.tomakehurst.wiremock.common.FileSource;
+import com.github.tomakehurst.wiremock.extension.Parameters;
+import com.github.tomakehurst.wiremock.extension.ResponseTransformer;
+import com.github.tomakehurst.wiremock.http.HttpHeader;
+import com.github.tomakehurst.wiremock.http.Request;
+import com.github.tomakehurst.wiremock.http.Response;
+import com.github.tomakehurst.wiremock.junit5.WireMockExtension;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+class ZipEntryFetchBuilderTest {
+
+    @RegisterExtension
+    static WireMockExtension wm = WireMockExtension.newInstance()
+        .options(wireMockConfig()
+            .dynamicPort()
+            .extensions(new RangeTransformer())
+        )
+        .configureStaticDsl(true)
+        .build();
+
+    @Test
+    void readsOnlyTheRequestedEntry() throws IOException {
+        final byte[] index = "{\"name\":\"test pack\"}".getBytes(StandardCharsets.UTF_8);
+        // large enough that the central directory isn't within the initially retrieved tail
+        final byte[] filler = new byte[200_000];
+        new Random(1).nextBytes(filler);
+        final byte[] zip = buildZip(index, filler);
+
+        stubFor(get("/pack.zip")
+            .willReturn(ok()
+                .withBody(zip)
+                .withTransformers(RangeTransformer.NAME)
+            )
+        );
+
+        final byte[] result = fetch(URI.create(wm.baseUrl() + "/pack.zip"))
+            .toZipEntry("modrinth.index.json")
+            .execute();
+
+        assertThat(result).isEqualTo(index);
+        verify(0, getRequestedFor(urlEqualTo("/pack.zip")).withoutHeader("Range"));
+    }
+
+    @Test
+    void emptyWhenEntryMissing() throws IOException {
+        final byte[] zip = buildZip(null, new byte[100]);
+
+        stubFor(get("/pack.zip")
+            .willReturn(ok()
+                .withBody(zip)
+                .withTransformers(RangeTransformer.NAME)
+            )
+        );
+
+        final byte[] result = fetch(URI.create(wm.baseUrl() + "/pack.zip"))
+            .toZipEntry("modrinth.index.json")
+            .execute();
+
+        assertThat(result).isNull();
+    }
+
+    @Test
+    void emptyWhenRangesNotSupported() throws IOException {
+        final byte[] zip = buildZip("{}".getBytes(StandardCharsets.UTF_8), new byte[100]);
+
+        stubFor(get("/pack.zip")
+            .willReturn(ok()
+                .withBody(zip)
+            )
+        );
+
+        final byte[] result = fetch(URI.create(wm.baseUrl() + "/pack.zip"))
+            .toZipEntry("modrinth.index.json")
+            .execute();
+
+        assertThat(result).isNull();
+    }
+
+    private static byte[] buildZip(byte[] index, byte[] filler) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ZipOutputStream zipOut = new ZipOutputStream(out)) {
+            if (index != null) {
+                zipOut.putNextEntry(new ZipEntry("modrinth.index.json"));
+                zipOut.write(index);
+                zipOut.closeEntry();
+            }
+            zipOut.putNextEntry(new ZipEntry("overrides/filler.bin"));
+            zipOut.write(filler);
+            zipOut.closeEntry();
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Responds to a range request with the partial content of the stubbed body
+     */
+    static class RangeTransformer extends ResponseTransformer {
+        static final String NAME = "range";
+
+        @Override
+        public Response transform(Request request, Response response, FileSource files, Parameters parameters) {
+            final String range = request.getHeader("Range");
+            if (range == null || !range.startsWith("bytes=")) {
+                return response;
+            }
+            final byte[] body = response.getBody();
+            final String spec = range.substring("bytes=".length());
+            final int dash = spec.indexOf('-');
+            final int start;
+            final int end;
+            if (dash == 0) {
+                start = Math.max(0, body.length - Integer.parseInt(spec.substring(1)));
+                end = body.length - 1;
+            }
+            else {
+                start = Integer.parseInt(spec.substring(0, dash));
+                end = dash == spec.length() - 1 ? body.length - 1
+                    : Math.min(body.length - 1, Integer.parseInt(spec.substring(dash + 1)));
+            }
+
+            return Response.Builder.like(response).but()
+                .status(206)
+                .headers(response.getHeaders()
+                    .plus(new HttpHeader("Content-Range", "bytes " + start + "-" + end + "/" + body.length))
+                )
+                .body(Arrays.copyOfRange(body, start, end + 1))
+                .build();
+        }
+
+        @Override
+        public String getName() {
+            return NAME;
+        }
+
+        @Override
+        public boolean applyGlobally() {
+            return false;
+        }
+    }
+}
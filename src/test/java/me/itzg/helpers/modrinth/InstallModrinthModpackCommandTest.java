@@ -3,6 +3,8 @@ package me.itzg.helpers.modrinth;
 import static com.github.tomakehurst.wiremock.client.WireMock.*;
 import static me.itzg.helpers.modrinth.ModrinthTestHelpers.*;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -12,8 +14,12 @@ import java.io.IOException;
 import java.net.URISyntaxException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
 import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import me.itzg.helpers.errors.ExitCodeMapper;
+import me.itzg.helpers.errors.GenericException;
 import me.itzg.helpers.files.Manifests;
 import me.itzg.helpers.http.SharedFetch;
 import me.itzg.helpers.modrinth.ModrinthPackInstaller.ModloaderPreparer;
@@ -45,11 +51,11 @@ public class InstallModrinthModpackCommandTest {
         final InstallModrinthModpackCommand commandUT =
             new InstallModrinthModpackCommand()
                 // so that the modloader prepare can be injected with a mock
-                .setInstallerFactory((apiClient, mrPackFile, fileInclusionCalculator) ->
+                .setInstallerFactory((apiClient, fetchedPack, fileInclusionCalculator) ->
                     new ModrinthPackInstaller(
                         apiClient,
                         SharedFetch.Options.builder().build(),
-                        mrPackFile, outputDir, null, false,
+                        fetchedPack.getMrPackFile(), fetchedPack.getMrPackUri(), outputDir, null, false,
                         fileInclusionCalculator
                     )
                         .modifyModLoaderPreparer(DependencyId.forge, mockForgePreparer)
@@ -310,6 +316,74 @@ public class InstallModrinthModpackCommandTest {
             .prepare(Mockito.any(), Mockito.eq(MINECRAFT_VERSION), Mockito.eq("111"));
     }
 
+    @Test
+    void modFileFailureCancelsModLoaderAndSavesNoManifest(
+        WireMockRuntimeInfo wm, @TempDir Path tempDir
+    ) throws IOException, URISyntaxException, InterruptedException {
+        ModpackIndex index = createBasicModpackIndex(DependencyId.forge, "111");
+        index.getFiles().add(createHostedModpackFile(
+            "test_file", "test_file", "some test data", wm.getHttpBaseUrl()));
+        // delayed to let the mod loader start first
+        stubFor(get("/files/test_file")
+            .willReturn(notFound().withFixedDelay(500)));
+
+        stubModrinthModpackApi(
+            wm, projectName, projectId, projectVersion,
+            createModrinthPack(index));
+
+        final CountDownLatch modLoaderCancelled = new CountDownLatch(1);
+        final ModloaderPreparer hungPreparer = (sharedFetch, minecraftVersion, version) -> {
+            try {
+                Thread.sleep(60_000);
+            } catch (InterruptedException e) {
+                modLoaderCancelled.countDown();
+            }
+        };
+
+        InstallModrinthModpackCommand commandUT =
+            createInstallModrinthModpackCommand(wm.getHttpBaseUrl(), tempDir,
+                projectName, projectVersionId, ModpackLoader.forge, hungPreparer
+            );
+
+        assertThatThrownBy(commandUT::call)
+            .hasStackTraceContaining("failed with 404");
+
+        assertThat(modLoaderCancelled.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(Manifests.buildManifestPath(tempDir, ModrinthModpackManifest.ID)).doesNotExist();
+    }
+
+    @Test
+    void modLoaderFailureCancelsModFilesAndSavesNoManifest(
+        WireMockRuntimeInfo wm, @TempDir Path tempDir
+    ) throws IOException, URISyntaxException {
+        ModpackIndex index = createBasicModpackIndex(DependencyId.forge, "111");
+        index.getFiles().add(createHostedModpackFile(
+            "test_file", "test_file", "some test data", wm.getHttpBaseUrl()));
+        stubFor(get("/files/test_file")
+            .willReturn(ok("some test data").withFixedDelay(60_000)));
+
+        stubModrinthModpackApi(
+            wm, projectName, projectId, projectVersion,
+            createModrinthPack(index));
+
+        final ModloaderPreparer failingPreparer = (sharedFetch, minecraftVersion, version) -> {
+            throw new GenericException("Forge installer failed with exit code 1");
+        };
+
+        InstallModrinthModpackCommand commandUT =
+            createInstallModrinthModpackCommand(wm.getHttpBaseUrl(), tempDir,
+                projectName, projectVersionId, ModpackLoader.forge, failingPreparer
+            );
+
+        assertTimeoutPreemptively(Duration.ofSeconds(30), () ->
+            assertThatThrownBy(commandUT::call)
+                .hasStackTraceContaining("Forge installer failed with exit code 1")
+        );
+
+        assertThat(tempDir.resolve("test_file")).doesNotExist();
+        assertThat(Manifests.buildManifestPath(tempDir, ModrinthModpackManifest.ID)).doesNotExist();
+    }
+
     @Test
     void errorWhenNoCompatibleVersions(WireMockRuntimeInfo wm, @TempDir Path tempDir) {
         final ObjectMapper mapper = new ObjectMapper();
@@ -5,7 +5,9 @@ import static org.assertj.core.api.Assertions.assertThat;
 
 import com.github.tomakehurst.wiremock.junit5.WireMockRuntimeInfo;
 import com.github.tomakehurst.wiremock.junit5.WireMockTest;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Stream;
 import me.itzg.helpers.http.SharedFetch.Options;
 import me.itzg.helpers.modrinth.model.Project;
@@ -45,6 +47,48 @@ class ModrinthApiClientTest {
         }
     }
 
+    @Test
+    void getLatestVersionsFromHashes(WireMockRuntimeInfo wmInfo) {
+        stubFor(post("/v2/version_files/update")
+            .withRequestBody(equalToJson(
+                "{\"hashes\": [\"aaa\", \"bbb\"], \"algorithm\": \"sha1\","
+                    + " \"loaders\": [\"fabric\"], \"game_versions\": [\"1.21.1\"]}"
+            ))
+            .willReturn(okJson(
+                "{\"aaa\": {\"id\": \"v2\", \"project_id\": \"p1\", \"version_type\": \"release\"}}"
+            ))
+        );
+
+        try (ModrinthApiClient client = new ModrinthApiClient(wmInfo.getHttpBaseUrl(), "modrinth", Options.builder().build())) {
+            final Map<String, Version> result = client.getLatestVersionsFromHashes(
+                    Arrays.asList("aaa", "bbb"), "sha1", Loader.fabric, "1.21.1"
+                )
+                .block();
+
+            assertThat(result).containsOnlyKeys("aaa");
+            assertThat(result.get("aaa"))
+                .extracting(Version::getId, Version::getProjectId)
+                .containsExactly("v2", "p1");
+        }
+    }
+
+    @Test
+    void getVersionsFromIds(WireMockRuntimeInfo wmInfo) {
+        stubFor(get(urlPathEqualTo("/v2/versions"))
+            .withQueryParam("ids", equalTo("[\"v1\",\"v2\"]"))
+            .willReturn(okJson("[{\"id\": \"v1\"}, {\"id\": \"v2\"}]"))
+        );
+
+        try (ModrinthApiClient client = new ModrinthApiClient(wmInfo.getHttpBaseUrl(), "modrinth", Options.builder().build())) {
+            final List<Version> result = client.getVersionsFromIds(Arrays.asList("v1", "v2"))
+                .block();
+
+            assertThat(result)
+                .extracting(Version::getId)
+                .containsExactlyInAnyOrder("v1", "v2");
+        }
+    }
+
     @Nested
     class getVersionsForProject {
         @Test
@@ -44,7 +44,7 @@ public class ModrinthApiPackFetcherTest {
 
         final FetchedPack fetchedPack = fetcherUT.fetchModpack(null).block();
         assertThat(fetchedPack).isNotNull();
-        assertThat(fetchedPack.getMrPackFile()).content()
+        assertThat(fetchedPack.getMrPackFile().block()).content()
             .isEqualTo(new String(expectedModpackData));
         assertThat(fetchedPack.getProjectSlug()).isEqualTo(projectName);
         assertThat(fetchedPack.getVersionId()).isEqualTo(projectVersionId);
@@ -124,7 +124,7 @@ public class ModrinthApiPackFetcherTest {
 
         final FetchedPack fetchedPack = fetcherUT.fetchModpack(null).block();
         assertThat(fetchedPack).isNotNull();
-        assertThat(fetchedPack.getMrPackFile()).content()
+        assertThat(fetchedPack.getMrPackFile().block()).content()
             .isEqualTo(new String(expectedModpackData));
 
         assertThat(fetchedPack.getProjectSlug()).isEqualTo(projectName);
@@ -158,7 +158,7 @@ public class ModrinthApiPackFetcherTest {
 
         final FetchedPack fetchedPack = fetcherUT.fetchModpack(null).block();
         assertThat(fetchedPack).isNotNull();
-        assertThat(fetchedPack.getMrPackFile()).content()
+        assertThat(fetchedPack.getMrPackFile().block()).content()
             .isEqualTo(new String(expectedModpackData));
 
         assertThat(fetchedPack.getProjectSlug()).isEqualTo(projectName);
@@ -20,6 +20,7 @@ import java.util.Arrays;
 import java.util.function.Consumer;
 import me.itzg.helpers.LatchingExecutionExceptionHandler;
 import me.itzg.helpers.errors.InvalidParameterException;
+import me.itzg.helpers.files.Manifests;
 import me.itzg.helpers.json.ObjectMappers;
 import me.itzg.helpers.modrinth.ModrinthCommand.DownloadDependencies;
 import me.itzg.helpers.modrinth.model.Project;
@@ -612,6 +613,111 @@ class ModrinthCommandTest {
         assertThat(modsDir.resolve("fabric-api-1.0.0.jar")).exists();
     }
 
+    @Test
+    void resolvesConcurrentlyWithDeterministicOrder(@TempDir Path tempDir) throws IOException {
+        // alpha and beta both depend on shared, but alpha resolves slowest
+        stubProjectBulkRequestMulti(
+            "alpha", "aaaaaaaa",
+            "beta", "bbbbbbbb"
+        );
+        final ArrayNode alphaVersions = objectMapper.createArrayNode();
+        addProjectVersion(alphaVersions, "alpha-v", "aaaaaaaa", "release", new String[]{"fabric"},
+            files -> addFile(files, wm.getRuntimeInfo().getHttpBaseUrl() + "/cdn/alpha", "alpha-1.0.0.jar"),
+            deps -> addDependency(deps, "required", "cccccccc", null)
+        );
+        stubFor(get(urlPathEqualTo("/v2/project/aaaaaaaa/version"))
+            .willReturn(aResponse()
+                .withHeader("Content-Type", "application/json")
+                .withJsonBody(alphaVersions)
+                .withFixedDelay(500)
+            )
+        );
+        stubProjectVersionsRequest("bbbbbbbb", "fabric", "1.21.1", versions ->
+            addProjectVersion(versions, "beta-v", "bbbbbbbb", "release", new String[]{"fabric"},
+                files -> addFile(files, wm.getRuntimeInfo().getHttpBaseUrl() + "/cdn/beta", "beta-1.0.0.jar"),
+                deps -> addDependency(deps, "required", "cccccccc", null)
+            )
+        );
+        stubProjectVersionsRequest("cccccccc", "fabric", "1.21.1", versions ->
+            addProjectVersion(versions, "shared-v", "cccccccc", "release", new String[]{"fabric"},
+                files -> addFile(files, wm.getRuntimeInfo().getHttpBaseUrl() + "/cdn/shared", "shared-1.0.0.jar"),
+                deps -> {}
+            )
+        );
+        stubAnyDownload();
+
+        final int exitCode = new CommandLine(
+            new ModrinthCommand()
+        )
+            .execute(
+                "--api-base-url", wm.getRuntimeInfo().getHttpBaseUrl(),
+                "--output-directory", tempDir.toString(),
+                "--game-version", "1.21.1",
+                "--loader", "fabric",
+                "--download-dependencies", DownloadDependencies.REQUIRED.name(),
+                "--max-concurrent-downloads", "4",
+                "--projects", "alpha,beta"
+            );
+
+        assertThat(exitCode).isEqualTo(ExitCode.OK);
+
+        final ModrinthManifest manifest = Manifests.load(tempDir, ModrinthManifest.ID, ModrinthManifest.class);
+        assertThat(manifest).isNotNull();
+        assertThat(manifest.getFiles()).containsExactly(
+            "mods/alpha-1.0.0.jar",
+            "mods/shared-1.0.0.jar",
+            "mods/beta-1.0.0.jar"
+        );
+        wm.verify(1, projectVersionsRequest("cccccccc"));
+    }
+
+    @Test
+    void reconcilesPreviousInstallByHash(@TempDir Path tempDir) {
+        stubProjectBulkRequestMulti("alpha", "aaaaaaaa");
+        stubProjectVersionsRequest("aaaaaaaa", "fabric", "1.21.1", versions ->
+            addProjectVersion(versions, "alpha-v", "aaaaaaaa", "release", new String[]{"fabric"},
+                files -> addFile(files, wm.getRuntimeInfo().getHttpBaseUrl() + "/cdn/alpha", "alpha-1.0.0.jar"),
+                deps -> {}
+            )
+        );
+        // the response is keyed by the requested hash, which isn't needed by the command
+        final ArrayNode latestVersions = objectMapper.createArrayNode();
+        addProjectVersion(latestVersions, "alpha-v", "aaaaaaaa", "release", new String[]{"fabric"},
+            files -> addFile(files, wm.getRuntimeInfo().getHttpBaseUrl() + "/cdn/alpha", "alpha-1.0.0.jar"),
+            deps -> {}
+        );
+        final ObjectNode latestByHash = objectMapper.createObjectNode();
+        latestByHash.set("any-hash", latestVersions.get(0));
+        stubFor(post("/v2/version_files/update")
+            .withRequestBody(matchingJsonPath("$.hashes[0]"))
+            .willReturn(aResponse()
+                .withHeader("Content-Type", "application/json")
+                .withJsonBody(latestByHash)
+            )
+        );
+        stubAnyDownload();
+
+        for (int i = 0; i < 2; i++) {
+            final int exitCode = new CommandLine(
+                new ModrinthCommand()
+            )
+                .execute(
+                    "--api-base-url", wm.getRuntimeInfo().getHttpBaseUrl(),
+                    "--output-directory", tempDir.toString(),
+                    "--game-version", "1.21.1",
+                    "--loader", "fabric",
+                    "--projects", "alpha"
+                );
+
+            assertThat(exitCode).isEqualTo(ExitCode.OK);
+        }
+
+        assertThat(tempDir.resolve("mods/alpha-1.0.0.jar")).exists();
+        // only the first run needed to resolve the project's versions
+        wm.verify(1, projectVersionsRequest("aaaaaaaa"));
+        wm.verify(1, postRequestedFor(urlPathEqualTo("/v2/version_files/update")));
+    }
+
     @NotNull
     private static RequestPatternBuilder projectVersionsRequest(String projectId) {
         return getRequestedFor(urlPathEqualTo("/v2/project/" + projectId + "/version"));
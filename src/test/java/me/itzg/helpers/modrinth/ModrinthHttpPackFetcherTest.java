@@ -31,7 +31,7 @@ public class ModrinthHttpPackFetcherTest {
 
         final FetchedPack fetchedPack = fetcherUT.fetchModpack(null).block();
         assertThat(fetchedPack).isNotNull();
-        assertThat(fetchedPack.getMrPackFile()).content()
+        assertThat(fetchedPack.getMrPackFile().block()).content()
             .isEqualTo(expectedModpackData);
         assertThat(fetchedPack.getProjectSlug()).isNotBlank();
         assertThat(fetchedPack.getVersionId()).isNotBlank();
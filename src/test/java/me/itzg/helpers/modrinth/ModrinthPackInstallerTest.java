@@ -9,16 +9,24 @@ import com.github.tomakehurst.wiremock.junit5.WireMockTest;
 import java.io.IOException;
 import java.net.URISyntaxException;
 import java.nio.file.Files;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import me.itzg.helpers.files.ExtractedEntry;
 import me.itzg.helpers.http.Fetch;
 import me.itzg.helpers.http.SharedFetch;
 import me.itzg.helpers.http.SharedFetch.Options;
 import me.itzg.helpers.http.SharedFetchArgs;
+import me.itzg.helpers.json.ObjectMappers;
 import me.itzg.helpers.modrinth.ModrinthPackInstaller.ModloaderPreparer;
 import me.itzg.helpers.modrinth.model.DependencyId;
 import me.itzg.helpers.modrinth.model.Env;
@@ -325,6 +333,62 @@ public class ModrinthPackInstallerTest {
 
     }
 
+    @Test
+    void serverOverridesWinWithoutRewritingOnNextInstall(WireMockRuntimeInfo wm, @TempDir Path tempDir) throws IOException {
+        final ModloaderPreparer mockPreparer = Mockito.mock(ModloaderPreparer.class);
+        Options fetchOpts = new SharedFetchArgs().options();
+        final ModpackIndex index = createBasicModpackIndex(DependencyId.forge, "111");
+
+        final Path modpackPath = tempDir.resolve("test.mrpack");
+        try (ZipOutputStream zip = new ZipOutputStream(Files.newOutputStream(modpackPath))) {
+            zip.putNextEntry(new ZipEntry("modrinth.index.json"));
+            zip.write(ObjectMappers.defaultMapper().writeValueAsBytes(index));
+            zip.putNextEntry(new ZipEntry("server-overrides/config/shared.txt"));
+            zip.write("server".getBytes(StandardCharsets.UTF_8));
+            zip.putNextEntry(new ZipEntry("overrides/config/shared.txt"));
+            zip.write("client".getBytes(StandardCharsets.UTF_8));
+        }
+        final Path outputDir = Files.createDirectories(tempDir.resolve("out"));
+        final Path sharedFile = outputDir.resolve("config/shared.txt");
+
+        try (SharedFetch sharedFetch = Fetch.sharedFetch("install-modrinth-modpack", fetchOpts)) {
+            ModrinthApiClient apiClient = new ModrinthApiClient(
+                wm.getHttpBaseUrl(), "install-modrinth-modpack", fetchOpts);
+
+            final Installation first = new ModrinthPackInstaller(
+                apiClient, fetchOpts, modpackPath, outputDir, tempDir.resolve("results"), false,
+                FileInclusionCalculator.empty()
+            )
+                .modifyModLoaderPreparer(DependencyId.forge, mockPreparer)
+                .processModpack(sharedFetch).block();
+
+            assertThat(first).isNotNull();
+            assertThat(sharedFile).hasContent("server");
+            assertThat(first.getOverrideEntries()).hasSize(1);
+
+            // an old modified time reveals any re-write
+            final FileTime oldTime = FileTime.from(Instant.parse("2020-01-01T00:00:00Z"));
+            Files.setLastModifiedTime(sharedFile, oldTime);
+            final Map<String, ExtractedEntry> previousEntries = new HashMap<>();
+            first.getOverrideEntries().forEach((path, entry) -> previousEntries.put(path,
+                ExtractedEntry.builder().crc(entry.getCrc()).size(entry.getSize()).lastModified(oldTime.toMillis()).build()
+            ));
+
+            final Installation second = new ModrinthPackInstaller(
+                apiClient, fetchOpts, modpackPath, outputDir, tempDir.resolve("results"), false,
+                FileInclusionCalculator.empty()
+            )
+                .modifyModLoaderPreparer(DependencyId.forge, mockPreparer)
+                .setPreviousOverrideEntries(previousEntries)
+                .processModpack(sharedFetch).block();
+
+            assertThat(second).isNotNull();
+            assertThat(second.getFiles()).contains(sharedFile);
+            assertThat(sharedFile).hasContent("server");
+            assertThat(Files.getLastModifiedTime(sharedFile)).isEqualTo(oldTime);
+        }
+    }
+
     @ParameterizedTest
     @ValueSource(strings = {
         "extra/file.txt",
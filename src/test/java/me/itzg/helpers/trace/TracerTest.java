@@ -0,0 +1,122 @@
+package me.itzg.helpers.trace;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import me.itzg.helpers.json.ObjectMappers;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+class TracerTest {
+
+    @TempDir
+    Path tempDir;
+
+    @AfterEach
+    void tearDown() {
+        Tracer.finish();
+    }
+
+    @Test
+    void disabledAddsNothing() {
+        final Mono<String> mono = Mono.just("value");
+
+        assertThat(Tracer.isEnabled()).isFalse();
+        assertThat(Tracer.start(Tracer.PHASE, "phase")).isSameAs(Span.NOOP);
+        assertThat(Tracer.trace(Tracer.FETCH, "fetch", span -> span.countAttempts(mono))).isSameAs(mono);
+    }
+
+    @Test
+    void writesSpansWithArgsAndRetries() throws IOException {
+        final Path traceFile = tempDir.resolve("trace.json");
+        Tracer.enable(traceFile);
+
+        final AtomicInteger attempts = new AtomicInteger();
+        try (Span phase = Tracer.start(Tracer.PHASE, "download mods")) {
+            phase.arg("files", 1);
+
+            final String result = Tracer.trace(Tracer.FILE, "mod.jar", span -> span
+                    .arg("bytes", 1234L)
+                    .countAttempts(Mono.fromCallable(() -> {
+                        if (attempts.incrementAndGet() < 3) {
+                            throw new IOException("failed");
+                        }
+                        return "done";
+                    }))
+                    .retryWhen(Retry.max(5))
+                )
+                .block();
+            assertThat(result).isEqualTo("done");
+        }
+        Tracer.finish();
+
+        final JsonNode trace = ObjectMappers.defaultMapper().readTree(traceFile.toFile());
+        final List<JsonNode> spans = new ArrayList<>();
+        trace.path("traceEvents").forEach(event -> {
+            if (event.path("ph").asText().equals("X")) {
+                spans.add(event);
+            }
+        });
+        assertThat(spans).hasSize(2);
+
+        final JsonNode file = spans.get(0);
+        assertThat(file.path("name").asText()).isEqualTo("mod.jar");
+        assertThat(file.path("cat").asText()).isEqualTo(Tracer.FILE);
+        assertThat(file.path("args").path("bytes").asLong()).isEqualTo(1234L);
+        assertThat(file.path("args").path("retries").asInt()).isEqualTo(2);
+
+        final JsonNode phase = spans.get(1);
+        assertThat(phase.path("name").asText()).isEqualTo("download mods");
+        assertThat(phase.path("args").path("files").asInt()).isEqualTo(1);
+        // overlapping spans are placed on separate lanes
+        assertThat(phase.path("tid").asInt()).isNotEqualTo(file.path("tid").asInt());
+        assertThat(phase.path("ts").asLong()).isLessThanOrEqualTo(file.path("ts").asLong());
+        assertThat(phase.path("dur").asLong()).isGreaterThanOrEqualTo(file.path("dur").asLong());
+    }
+
+    @Test
+    void recordsErrors() throws IOException {
+        final Path traceFile = tempDir.resolve("trace.json");
+        Tracer.enable(traceFile);
+
+        final Mono<Object> failing = Tracer.trace(Tracer.FETCH, "missing",
+            span -> Mono.error(new IllegalStateException("missing"))
+        );
+        assertThatThrownBy(failing::block).isInstanceOf(IllegalStateException.class);
+        Tracer.finish();
+
+        final JsonNode trace = ObjectMappers.defaultMapper().readTree(traceFile.toFile());
+        final List<String> errors = new ArrayList<>();
+        trace.path("traceEvents").forEach(event -> {
+            if (event.path("ph").asText().equals("X")) {
+                errors.add(event.path("args").path("error").asText());
+            }
+        });
+        assertThat(errors).containsExactly("IllegalStateException");
+    }
+
+    @Test
+    void lanesAreReusedOnceFree() {
+        final TraceRecorder recorder = new TraceRecorder(tempDir.resolve("trace.json"), System::nanoTime);
+
+        final Span first = recorder.start(Tracer.PHASE, "first");
+        final Span second = recorder.start(Tracer.FILE, "second");
+        first.close();
+        final Span third = recorder.start(Tracer.FILE, "third");
+        second.close();
+        third.close();
+
+        assertThat(recorder.size()).isEqualTo(3);
+        assertThat(second).extracting("lane").isEqualTo(1);
+        assertThat(third).extracting("lane").isEqualTo(0);
+    }
+}